@@ -0,0 +1,175 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.walk;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Benchmarks of the checksum of synthetic input directories, run through the "benchmark" profile.
+ *
+ *   mvn -P benchmark test-compile exec:exec
+ *
+ * JMH options are given through the "jmh.args" property, like "-p tree=TINY_FILES -p fileCount=500"
+ * to override parameters. The allocation rate is reported by the GC profiler, that is enabled by
+ * default.
+ *
+ * Generation is measured both reading all files and taking hashes from a warm index, which is the
+ * usual case of an up-to-date check. Hashing is also measured alone, on the calling thread, where
+ * the allocation rate per operation should be close to the size of the hashes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ChecksumBenchmark {
+
+  private static final String DIRECTORY_PREFIX = "checksum-benchmark-";
+  private static final String CHECKSUM_FILE_NAME = "benchmark.checksum";
+  private static final String INDEX_FILE_NAME = "benchmark.checksum.index";
+  private static final Predicate<String> DO_NOT_IGNORE_ANY_FILE = path -> false;
+  private static final int BUFFER_SIZE = 256 * 1024;
+  private static final long MAPPING_THRESHOLD = 64L * 1024L * 1024L;
+  private static final int MAPPING_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  @Param({"TINY_FILES", "HUGE_FILES", "DEEP_NESTING"})
+  private ChecksumBenchmarkTree tree;
+
+  @Param({"0"})
+  private int fileCount;
+
+  @Param({"0"})
+  private int fileSize;
+
+  @Param({"SHA-256", "XXH3"})
+  private String algorithm;
+
+  @Param({"BINARY", "TEXT"})
+  private ChecksumFormat format;
+
+  private Path root;
+  private File inputDirectory;
+  private File checksumFile;
+  private FingerprintAlgorithm fingerprintAlgorithm;
+  private ChecksumEntryManager paranoidEntryManager;
+  private ChecksumEntryManager indexedEntryManager;
+  private ChecksumSettings lazySettings;
+  private ChecksumEntryTable entryTable;
+  private List<File> files;
+  private ChecksumHasher hasher;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, NoSuchAlgorithmException {
+    root = createTempDirectory(DIRECTORY_PREFIX);
+    inputDirectory = root.resolve("input").toFile();
+    tree.generate(inputDirectory.toPath(), fileCount, fileSize);
+    checksumFile = root.resolve(CHECKSUM_FILE_NAME).toFile();
+    fingerprintAlgorithm = FingerprintAlgorithm.forName(algorithm);
+
+    ChecksumSettings paranoidSettings = settings();
+    paranoidSettings.setParanoid(true);
+    paranoidEntryManager = new ChecksumEntryManager(paranoidSettings);
+
+    ChecksumSettings indexedSettings = settings();
+    indexedSettings.setIndexFile(root.resolve(INDEX_FILE_NAME).toFile());
+    indexedEntryManager = new ChecksumEntryManager(indexedSettings);
+
+    lazySettings = settings();
+    lazySettings.setIndexFile(root.resolve(INDEX_FILE_NAME).toFile());
+    lazySettings.setLazy(true);
+
+    entryTable = ChecksumEntryTable.of(indexedEntryManager.generate(
+        fingerprintAlgorithm,
+        inputDirectory,
+        DO_NOT_IGNORE_ANY_FILE));
+    indexedEntryManager.store(checksumFile, algorithm, entryTable);
+
+    try (Stream<Path> paths = walk(inputDirectory.toPath())) {
+      files = paths.filter(path -> isRegularFile(path))
+          .map(Path::toFile)
+          .collect(toList());
+    }
+    hasher = new ChecksumHasher(
+        fingerprintAlgorithm,
+        BUFFER_SIZE,
+        MAPPING_THRESHOLD,
+        MAPPING_WINDOW_SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    ChecksumBenchmarkTree.delete(root);
+  }
+
+  @Benchmark
+  public Set<ChecksumEntry> generate() throws IOException, NoSuchAlgorithmException {
+    return paranoidEntryManager.generate(
+        fingerprintAlgorithm,
+        inputDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+  }
+
+  @Benchmark
+  public Set<ChecksumEntry> generateIndexed() throws IOException, NoSuchAlgorithmException {
+    return indexedEntryManager.generate(
+        fingerprintAlgorithm,
+        inputDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+  }
+
+  @Benchmark
+  public void hash(Blackhole blackhole) throws IOException, NoSuchAlgorithmException {
+    for (File file : files) {
+      blackhole.consume(hasher.hash(file));
+    }
+  }
+
+  @Benchmark
+  public StoredChecksum load() throws IOException {
+    return indexedEntryManager.load(checksumFile);
+  }
+
+  @Benchmark
+  public File store() throws IOException {
+    indexedEntryManager.store(checksumFile, algorithm, entryTable);
+    return checksumFile;
+  }
+
+  @Benchmark
+  public boolean match() throws IOException, NoSuchAlgorithmException {
+    return new Checksum(inputDirectory, DO_NOT_IGNORE_ANY_FILE, lazySettings).match(checksumFile);
+  }
+
+  private ChecksumSettings settings() {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setAlgorithm(algorithm);
+    settings.setFormat(format);
+    return settings;
+  }
+}
@@ -0,0 +1,88 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.walkFileTree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/*
+ * Shapes of synthetic input directories, with their default file count and file size. Content is
+ * pseudo-random with a fixed seed, so the same tree is generated on each fork.
+ */
+enum ChecksumBenchmarkTree {
+
+  TINY_FILES(10_000, 256, 1, 100),
+  HUGE_FILES(4, 128 * 1024 * 1024, 1, 1),
+  DEEP_NESTING(2_000, 4 * 1024, 32, 4);
+
+  private static final long SEED = 0x5EEDL;
+  private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+
+  private final int defaultFileCount;
+  private final int defaultFileSize;
+  private final int depth;
+  private final int filesPerDirectory;
+
+  ChecksumBenchmarkTree(int defaultFileCount, int defaultFileSize, int depth,
+      int filesPerDirectory) {
+    this.defaultFileCount = defaultFileCount;
+    this.defaultFileSize = defaultFileSize;
+    this.depth = depth;
+    this.filesPerDirectory = filesPerDirectory;
+  }
+
+  /*
+   * Non-positive counts and sizes mean the default ones of the shape.
+   */
+  void generate(Path directory, int fileCount, int fileSize) throws IOException {
+    int count = fileCount > 0
+        ? fileCount
+        : defaultFileCount;
+    int size = fileSize > 0
+        ? fileSize
+        : defaultFileSize;
+    Random random = new Random(SEED);
+    byte[] chunk = new byte[min(size, WRITE_CHUNK_SIZE)];
+    for (int i = 0; i < count; ++i) {
+      Path parent = directory;
+      int group = i / filesPerDirectory;
+      for (int level = 0; level < depth; ++level) {
+        parent = parent.resolve(format("d%d", (group + level) % filesPerDirectory));
+      }
+      parent = parent.resolve(format("g%d", group));
+      createDirectories(parent);
+      try (OutputStream output = Files.newOutputStream(parent.resolve(format("f%d.bin", i)))) {
+        for (int written = 0; written < size; written += chunk.length) {
+          random.nextBytes(chunk);
+          output.write(chunk, 0, min(chunk.length, size - written));
+        }
+      }
+    }
+  }
+
+  static void delete(Path directory) throws IOException {
+    walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
@@ -58,6 +58,26 @@ public abstract class AbstractPackerMojo extends AbstractMojo {
     this.packerFactory = packerFactory;
   }
 
+  /**
+   * Get a Packer tool instance with a suitable terminal.
+   *
+   * @return A new Packer tool instance.
+   */
+  protected Packer getPacker() {
+    return packerFactory.getPacker(new PackerMojoTerminal());
+  }
+
+  /**
+   * Get a Packer tool instance with the given terminal.
+   *
+   * @param terminal Terminal of the Packer tool instance.
+   *
+   * @return A new Packer tool instance.
+   */
+  protected Packer getPacker(PackerTerminal terminal) {
+    return packerFactory.getPacker(terminal);
+  }
+
   /**
    * Get working directory of suitable Packer terminal.
    *
@@ -101,6 +121,13 @@ public abstract class AbstractPackerMojo extends AbstractMojo {
   protected abstract PackerExecution executionGet(Packer packer)
       throws MojoExecutionException, IOException;
 
+  /**
+   * Handles an execution success.
+   *
+   * @throws MojoExecutionException When an execution error has been occurred.
+   */
+  protected abstract void executionSucceeded() throws MojoExecutionException;
+
   /**
    * Handles an execution abortion.
    *
@@ -129,6 +156,18 @@ public abstract class AbstractPackerMojo extends AbstractMojo {
    */
   protected abstract void executionInterrupted(InterruptedException e);
 
+  /**
+   * Execute the command once it is known that this plug-in is not skipped. By default, it is
+   * executed through a single Packer tool instance, when it must be actually executed.
+   *
+   * @throws MojoExecutionException When there is some execution error.
+   */
+  protected void executeCommand() throws MojoExecutionException {
+    if (mustBeExecuted()) {
+      execute(getPacker());
+    }
+  }
+
   /**
    * Execute a command through a Packer tool instance with a suitable terminal.
    *
@@ -139,8 +178,8 @@ public abstract class AbstractPackerMojo extends AbstractMojo {
   public void execute() throws MojoExecutionException, MojoFailureException {
     if (skip) {
       getLog().info("Execution skipped...");
-    } else if (mustBeExecuted()) {
-      execute(packerFactory.getPacker(new PackerMojoTerminal()));
+    } else {
+      executeCommand();
     }
   }
 
@@ -157,6 +196,7 @@ public abstract class AbstractPackerMojo extends AbstractMojo {
     try {
       getRuntime().addShutdownHook(new Thread(execution::abort));
       execution.success();
+      executionSucceeded();
     } catch (PackerAbortionException e) {
       executionAborted(e);
     } catch (PackerExecutionException e) {
@@ -0,0 +1,86 @@
+package com.github.codeteapot.maven.plugins.packer;
+
+import static java.util.Optional.ofNullable;
+
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Entry of a build matrix, that is a Packer build command executed concurrently with those of the
+ * other entries of the same execution.
+ *
+ * <p>Arguments that are not specified are those of the execution. Variables and variable files are
+ * added to those of the execution, so variables of the entry take precedence over them.
+ */
+public class PackerBuildMatrixEntry {
+
+  /**
+   * Name of the entry, that prefixes its log lines and identifies its checksum, so it must be
+   * unique and made of letters, digits, dots, hyphens and underscores. It is the position of the
+   * entry on the matrix, starting at one, when it is not specified.
+   */
+  private String name;
+
+  /**
+   * Template file path relative to the input directory.
+   */
+  private String template;
+
+  /**
+   * Comma-separated list for "--only" argument of Packer build command.
+   */
+  private String only;
+
+  /**
+   * Comma-separated list for "--except" argument of Packer build command.
+   */
+  private String except;
+
+  /**
+   * Element-separated of property name-value pairs for appending as "--var" argument on Packer
+   * build command.
+   */
+  private Properties vars;
+
+  /**
+   * Element-separated file paths for appending as "--var-file" argument on Packer build command.
+   */
+  private Set<String> varFiles;
+
+  /**
+   * Entry without any argument.
+   */
+  public PackerBuildMatrixEntry() {
+    name = null;
+    template = null;
+    only = null;
+    except = null;
+    vars = null;
+    varFiles = null;
+  }
+
+  Optional<String> getName() {
+    return ofNullable(name);
+  }
+
+  Optional<String> getTemplate() {
+    return ofNullable(template);
+  }
+
+  Optional<String> getOnly() {
+    return ofNullable(only);
+  }
+
+  Optional<String> getExcept() {
+    return ofNullable(except);
+  }
+
+  Optional<Properties> getVars() {
+    return ofNullable(vars);
+  }
+
+  Optional<Set<String>> getVarFiles() {
+    return ofNullable(varFiles);
+  }
+}
@@ -0,0 +1,19 @@
+package com.github.codeteapot.maven.plugins.packer;
+
+/**
+ * What a build matrix does when some of its entries fail.
+ *
+ * @see PackerBuildMatrixEntry
+ */
+public enum PackerBuildMatrixFailurePolicy {
+
+  /**
+   * Running entries are aborted, and pending ones are skipped, as soon as some entry fails.
+   */
+  FAIL_FAST,
+
+  /**
+   * All entries are executed, regardless of those that fail.
+   */
+  COMPLETE_ALL
+}
@@ -4,26 +4,68 @@ import static com.github.codeteapot.tools.packer.PackerMessage.DATA_UI_ERROR;
 import static com.github.codeteapot.tools.packer.PackerMessage.DATA_UI_MESSAGE;
 import static com.github.codeteapot.tools.packer.PackerMessage.DATA_UI_SAY;
 import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_UI;
+import static java.lang.Math.min;
+import static java.lang.Runtime.getRuntime;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.write;
+import static java.util.Collections.singletonList;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
 import com.github.codeteapot.maven.plugins.packer.tools.ChecksumFactory;
 import com.github.codeteapot.tools.checksum.Checksum;
+import com.github.codeteapot.tools.checksum.ChecksumFileCache;
+import com.github.codeteapot.tools.checksum.ChecksumFormat;
+import com.github.codeteapot.tools.checksum.ChecksumIgnoreRules;
+import com.github.codeteapot.tools.checksum.ChecksumSettings;
+import com.github.codeteapot.tools.checksum.ChecksumStatistics;
 import com.github.codeteapot.tools.packer.Packer;
 import com.github.codeteapot.tools.packer.PackerAbortionException;
+import com.github.codeteapot.tools.packer.PackerArtifact;
+import com.github.codeteapot.tools.packer.PackerArtifacts;
 import com.github.codeteapot.tools.packer.PackerExecution;
 import com.github.codeteapot.tools.packer.PackerExecutionException;
+import com.github.codeteapot.tools.packer.PackerInput;
 import com.github.codeteapot.tools.packer.PackerMessage;
+import com.github.codeteapot.tools.packer.PackerOutputCache;
+import com.github.codeteapot.tools.packer.PackerRemoteCache;
+import com.github.codeteapot.tools.packer.PackerTerminal;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Component;
@@ -42,10 +84,23 @@ import org.apache.maven.plugins.annotations.Parameter;
 public final class PackerBuildMojo extends AbstractPackerMojo {
 
   private static final String CHECKSUM_FILE_NAME = ".checksum";
+  private static final String CHECKSUM_INDEX_FILE_NAME = ".checksum.index";
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+  private static final String CHECKSUM_IGNORE_FILE_NAME = ".packerignore";
+  private static final String MATRIX_CHECKSUM_FILE_PREFIX = ".checksum-";
+  private static final Pattern MATRIX_ENTRY_NAME_PATTERN = Pattern.compile("[A-Za-z0-9._-]+");
+  private static final String PACKER_ENV_PREFIX = "PACKER_";
+  private static final Set<String> PACKER_LOGGING_ENV = Stream.of(
+      "PACKER_LOG",
+      "PACKER_LOG_PATH",
+      "PACKER_NO_COLOR")
+      .collect(toSet());
 
   @Component
   private ChecksumFactory checksumFactory;
 
+  private Build build;
+
   /**
    * Input directory that Packer build command uses as its working directory.
    */
@@ -65,6 +120,245 @@ public final class PackerBuildMojo extends AbstractPackerMojo {
   @Parameter(defaultValue = "true")
   private boolean invalidateOnFailure;
 
+  /**
+   * Algorithm used to calculate the fingerprint of input directory files content. Besides those of
+   * {@link java.security.MessageDigest}, there are the faster {@code XXH3}, {@code XXH64},
+   * {@code CRC32C} and {@code BLAKE3} ones. Changing it invalidates the stored checksum.
+   */
+  @Parameter(defaultValue = "SHA-256")
+  private String checksumAlgorithm;
+
+  /**
+   * Number of threads used to calculate the checksum of input directory files. The number of
+   * available processors is used when it is not positive.
+   */
+  @Parameter(defaultValue = "0")
+  private int checksumThreads;
+
+  /**
+   * Number of input directory files read at once when the checksum is calculated on I/O
+   * concurrency mode, intended for input directories on network file systems. Each file is read by
+   * its own virtual thread when running on a JDK that has them, or by a platform thread otherwise,
+   * instead of using the checksum threads. The mode is disabled when it is not positive.
+   */
+  @Parameter(defaultValue = "0")
+  private int checksumIoConcurrency;
+
+  /**
+   * Forces reading the content of all input directory files to calculate the checksum, instead of
+   * reusing the hashes of those files whose size, last modified time and file key did not change.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean checksumParanoid;
+
+  /**
+   * Reads the content of input directory files on demand, so Packer is executed as soon as the
+   * first difference with the stored checksum is detected, while the new checksum is calculated and
+   * stored on background.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean checksumLazy;
+
+  /**
+   * Size in bytes of the buffer used by each checksum thread to read input directory files.
+   */
+  @Parameter(defaultValue = "262144")
+  private int checksumBufferSize;
+
+  /**
+   * Minimum size in bytes of those input directory files that are memory-mapped, instead of read
+   * through a buffer, to calculate the checksum. Mapping is disabled when it is not positive.
+   */
+  @Parameter(defaultValue = "67108864")
+  private long checksumMappingThreshold;
+
+  /**
+   * Size in bytes of each window that is memory-mapped at a time to calculate the checksum.
+   */
+  @Parameter(defaultValue = "67108864")
+  private int checksumMappingWindowSize;
+
+  /**
+   * Format of the checksum file, that is {@code BINARY} or {@code TEXT}. Checksum files are read in
+   * any format, so changing it does not cause a rebuild.
+   */
+  @Parameter(defaultValue = "BINARY")
+  private ChecksumFormat checksumFormat;
+
+  /**
+   * Maximum number of input directories whose files and hashes are kept in memory between builds,
+   * and watched for changes. It is intended for long-lived processes, like Maven daemons, where
+   * only those files reported as changed are read again. The cache is disabled when it is not
+   * positive.
+   */
+  @Parameter(defaultValue = "0")
+  private int checksumCacheSize;
+
+  /**
+   * Minimum size in bytes of those input directory files that are hashed by segments, so a single
+   * large file is hashed by all checksum threads. Changing it invalidates the stored checksum when
+   * there is some file above it. Segmentation is disabled when it is not positive.
+   */
+  @Parameter(defaultValue = "0")
+  private long checksumSegmentThreshold;
+
+  /**
+   * Size in bytes of each segment of those input directory files that are hashed by segments.
+   * Changing it invalidates the stored checksum when there is some segmented file.
+   */
+  @Parameter(defaultValue = "67108864")
+  private int checksumSegmentSize;
+
+  /**
+   * Hashes archive files of the input directory, like JAR, WAR, ZIP and TAR.GZ ones, from the names
+   * and contents of their entries, so those that are rebuilt from the same files do not trigger a
+   * build because of their timestamps. Changing it invalidates the stored checksum when there is
+   * some archive.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean checksumNormalizeArchives;
+
+  /**
+   * Takes the hashes of input directory files from a cache shared by all projects, workspaces and
+   * processes of the same host, instead of reading their content, when they are unchanged since
+   * any of them read it. Files are identified by their file key, so it is not used on file systems
+   * that do not provide them.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean checksumHashCache;
+
+  /**
+   * Directory of the host-wide hash cache, when it is enabled.
+   */
+  @Parameter(defaultValue = "${user.home}/.m2/packer-hash-cache")
+  private File checksumHashCacheDirectory;
+
+  /**
+   * Maximum number of hashes kept by the host-wide hash cache, where least recently used ones are
+   * evicted.
+   */
+  @Parameter(defaultValue = "100000")
+  private int checksumHashCacheSize;
+
+  /**
+   * Keeps a checksum for each build configuration on a cache outside the input directory, instead
+   * of a single one on it, so alternating between configurations does not force a rebuild. They are
+   * keyed by the input directory, the template, {@code only}, {@code except}, {@code vars} and
+   * {@code varFiles} arguments, the {@code PACKER_*} environment variables, except logging ones,
+   * and the Packer version.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean checksumBuildCache;
+
+  /**
+   * Directory of the build configuration checksum cache, when it is enabled. It is shared by all
+   * input directories, so it must not be in any of them.
+   */
+  @Parameter(defaultValue = "${user.home}/.m2/packer-build-cache")
+  private File checksumBuildCacheDirectory;
+
+  /**
+   * Maximum number of checksums kept by the build configuration checksum cache, where least
+   * recently used ones are evicted.
+   */
+  @Parameter(defaultValue = "16")
+  private int checksumBuildCacheSize;
+
+  /**
+   * Restores the artifacts of a previous successful build from an output cache, instead of
+   * executing Packer, when the input directory has changed to the content it had then, with the
+   * same template, {@code only}, {@code except}, {@code vars} and {@code varFiles} arguments,
+   * {@code PACKER_*} environment variables, except logging ones, and Packer version. Only builds
+   * whose artifacts are all files of the input directory are stored, and it is not used when
+   * changes are not needed.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean buildOutputCache;
+
+  /**
+   * Directory of the output cache, when it is enabled. Entries are never evicted, so it is intended
+   * to be cleaned up externally.
+   */
+  @Parameter(defaultValue = "${user.home}/.m2/packer-output-cache")
+  private File buildOutputCacheDirectory;
+
+  /**
+   * Stores artifact files on the output cache by chunks, whose boundaries depend on their content,
+   * so chunks that are the same on several outputs, like those of successive versions of a large
+   * image, are stored once. Chunks that are not referenced anymore are removed when outputs are
+   * stored. Outputs stored on any mode are restored on both of them.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean buildOutputCacheDeduplicate;
+
+  /**
+   * Stores artifact files on the output cache compressed by blocks, which are compressed and
+   * decompressed concurrently. It does not apply when outputs are deduplicated. Outputs stored on
+   * any mode are restored on all of them.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean buildOutputCacheCompress;
+
+  /**
+   * Base URL of a remote output cache shared by several hosts, like a generic HTTP cache server,
+   * where entries are read with {@code GET} requests and written with {@code PUT} ones on its
+   * subpaths. Entries are downloaded to the output cache directory before being restored, and
+   * uploaded after being stored on it. Failures reaching it are logged, and Packer is executed
+   * instead. There is not any remote output cache when it is not specified.
+   */
+  @Parameter
+  private URL buildOutputCacheUrl;
+
+  /**
+   * Timeout in milliseconds to connect to the remote output cache, that is infinite when it is
+   * zero.
+   */
+  @Parameter(defaultValue = "5000")
+  private int buildOutputCacheConnectTimeout;
+
+  /**
+   * Timeout in milliseconds to read from the remote output cache, that is infinite when it is
+   * zero. It bounds how long a stalled download takes before Packer is executed instead.
+   */
+  @Parameter(defaultValue = "30000")
+  private int buildOutputCacheReadTimeout;
+
+  /**
+   * Number of chunks of an artifact file that are downloaded at once from the remote output cache.
+   */
+  @Parameter(defaultValue = "4")
+  private int buildOutputCacheDownloadThreads;
+
+  /**
+   * Size in bytes of each chunk of artifact files downloaded from the remote output cache.
+   */
+  @Parameter(defaultValue = "8388608")
+  private long buildOutputCacheChunkSize;
+
+  /**
+   * File where statistics of the checksum calculation are written as a JSON object, like
+   * {@code ${project.build.directory}/packer-checksum.json}. They are only logged when it is not
+   * specified.
+   */
+  @Parameter
+  private File checksumStatisticsFile;
+
+  /**
+   * File with <a href="https://git-scm.com/docs/gitignore#_pattern_format">gitignore</a> patterns
+   * of input directory files that are not taken into account by the checksum. Ignored
+   * subdirectories are not traversed at all. It is {@code .packerignore} on the input directory
+   * when it is not specified, and nothing is ignored by it when it does not exist.
+   */
+  @Parameter
+  private File checksumIgnoreFile;
+
+  /**
+   * Element-separated gitignore patterns of input directory files that are not taken into account
+   * by the checksum, which take precedence over those of the ignore file.
+   */
+  @Parameter
+  private List<String> checksumIgnores;
+
   /**
    * First parameter of Packer <a href="https://www.packer.io/docs/commands/build">build</a>
    * command, corresponding to the template file path relative to the input directory.
@@ -111,20 +405,100 @@ public final class PackerBuildMojo extends AbstractPackerMojo {
   @Parameter
   private Set<String> varFiles;
 
+  /**
+   * Entries of a build matrix, whose Packer build commands are executed concurrently instead of
+   * the single one of this execution. Each entry has its own {@code name}, {@code template},
+   * {@code only}, {@code except}, {@code vars} and {@code varFiles}, which are those of this
+   * execution when they are not specified, and its own checksum, so it is only executed when it has
+   * changes. Log lines of each entry are prefixed by its name, and the status of all of them is
+   * logged at the end.
+   */
+  @Parameter
+  private List<PackerBuildMatrixEntry> matrix;
+
+  /**
+   * Maximum number of build matrix entries, or isolated builders, that are executed at once. All of
+   * them are executed at once when it is not positive.
+   */
+  @Parameter(defaultValue = "0")
+  private int matrixConcurrency;
+
+  /**
+   * What happens when some build matrix entry fails, that is {@code FAIL_FAST}, to abort running
+   * entries and skip pending ones, or {@code COMPLETE_ALL}, to execute all of them anyway. The
+   * execution fails on both of them.
+   */
+  @Parameter(defaultValue = "FAIL_FAST")
+  private PackerBuildMatrixFailurePolicy matrixFailurePolicy;
+
+  /**
+   * Executes each builder of the template, or of the template of each build matrix entry, on its
+   * own Packer build command, with its name as the {@code only} argument, so they are executed
+   * concurrently as build matrix entries are. Each builder has its own checksum, so only those that
+   * failed are executed again when there are not any other changes. Builders are those reported by
+   * the Packer inspect command, excluding those that are not selected by {@code only} and
+   * {@code except}, and the whole template is built at once when there is not any, as it happens
+   * with HCL templates.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean isolateBuilders;
+
   /**
    * Default constructor.
    */
   public PackerBuildMojo() {
     checksumFactory = null;
+    build = null;
     inputDirectory = null;
     changesNeeded = false;
     invalidateOnFailure = false;
+    checksumAlgorithm = "SHA-256";
+    checksumThreads = 0;
+    checksumIoConcurrency = 0;
+    checksumParanoid = false;
+    checksumLazy = false;
+    checksumBufferSize = 256 * 1024;
+    checksumMappingThreshold = 64L * 1024L * 1024L;
+    checksumMappingWindowSize = 64 * 1024 * 1024;
+    checksumFormat = ChecksumFormat.BINARY;
+    checksumCacheSize = 0;
+    checksumSegmentThreshold = 0L;
+    checksumSegmentSize = 64 * 1024 * 1024;
+    checksumNormalizeArchives = false;
+    checksumHashCache = false;
+    checksumHashCacheDirectory = new File(
+        new File(System.getProperty("user.home"), ".m2"),
+        "packer-hash-cache");
+    checksumHashCacheSize = 100_000;
+    checksumBuildCache = false;
+    checksumBuildCacheDirectory = new File(
+        new File(System.getProperty("user.home"), ".m2"),
+        "packer-build-cache");
+    checksumBuildCacheSize = 16;
+    buildOutputCache = false;
+    buildOutputCacheDirectory = new File(
+        new File(System.getProperty("user.home"), ".m2"),
+        "packer-output-cache");
+    buildOutputCacheDeduplicate = false;
+    buildOutputCacheCompress = false;
+    buildOutputCacheUrl = null;
+    buildOutputCacheConnectTimeout = 5000;
+    buildOutputCacheReadTimeout = 30000;
+    buildOutputCacheDownloadThreads = 4;
+    buildOutputCacheChunkSize = 8L * 1024L * 1024L;
+    checksumStatisticsFile = null;
+    checksumIgnoreFile = null;
+    checksumIgnores = null;
     template = null;
     force = false;
     only = null;
     except = null;
     vars = null;
     varFiles = null;
+    matrix = null;
+    matrixConcurrency = 0;
+    matrixFailurePolicy = PackerBuildMatrixFailurePolicy.FAIL_FAST;
+    isolateBuilders = false;
   }
 
   /**
@@ -170,128 +544,758 @@ public final class PackerBuildMojo extends AbstractPackerMojo {
 
   @Override
   protected void terminalReceive(PackerMessage message) throws PackerAbortionException {
-    if (TYPE_UI.equals(message.getType())) {
-      String[] data = message.getData();
-      switch (data[0]) {
-        case DATA_UI_MESSAGE:
-        case DATA_UI_SAY:
-          forEachLine(data[1], this::logInfo);
-          break;
-        case DATA_UI_ERROR:
-          forEachLine(data[1], this::logError);
-          break;
-        default:
-          forEachLine(data[1], this::logDebug);
-      }
-    }
+    build.receive(message);
   }
 
-  /*
-   * TODO Use command arguments as cache key. Maybe a hash to suffix the checksum file
-   */
   @Override
   protected boolean mustBeExecuted() throws MojoExecutionException {
-    try {
-      File checksumFile = getChecksumFile();
-      Checksum checksum = checksumFactory.getChecksum(inputDirectory, this::isChecksumFile);
-      if (!checksum.match(checksumFile)) {
-        checksum.store(checksumFile);
-        return true;
-      }
-      if (changesNeeded) {
+    build = new Build(null, template, only, except, vars, varFiles);
+    ChecksumSettings settings = getChecksumSettings();
+    BuildStatus status = build.check(getChecksum(settings));
+    reportChecksumStatistics(settings.getStatistics());
+    switch (status) {
+      case RESTORED:
+        getLog().info("Build output has been restored from cache. Ignoring...");
+        return false;
+      case UNCHANGED:
         getLog().info("There is not any change. Ignoring...");
         return false;
-      }
-      return true;
-    } catch (IOException | NoSuchAlgorithmException e) {
-      throw new MojoExecutionException("Checksum error", e);
+      default:
+        return true;
     }
   }
 
   @Override
   protected PackerExecution executionGet(Packer packer) throws MojoExecutionException, IOException {
-    return packer.build(
-        Optional.of(template)
-            .map(String::trim)
-            .filter(str -> !str.isEmpty())
-            .orElseThrow(() -> new MojoExecutionException("Template is empty")),
-        force,
-        ofNullable(only)
-            .map(str -> str.split(","))
-            .map(Stream::of)
-            .orElseGet(Stream::empty)
-            .map(String::trim)
-            .filter(str -> !str.isEmpty())
-            .collect(toSet()),
-        ofNullable(except)
-            .map(str -> str.split(","))
-            .map(Stream::of)
-            .orElseGet(Stream::empty)
-            .map(String::trim)
-            .filter(str -> !str.isEmpty())
-            .collect(toSet()),
-        ofNullable(vars)
-            .map(Properties::entrySet)
-            .map(Collection::stream)
-            .orElseGet(Stream::empty)
-            .collect(toMap(e -> e.getKey().toString().trim(), Entry::getValue)),
-        ofNullable(varFiles)
-            .map(Set::stream)
-            .orElseGet(Stream::empty)
-            .map(String::trim)
-            .collect(toSet()));
+    return build.executionGet(packer);
+  }
+
+  @Override
+  protected void executionSucceeded() throws MojoExecutionException {
+    build.executionSucceeded();
   }
 
   @Override
   protected void executionAborted(PackerAbortionException e) {
-    invalidate();
+    build.invalidate();
   }
 
   @Override
   protected void executionFailed(PackerExecutionException e) {
-    if (invalidateOnFailure) {
-      invalidate();
-    }
+    build.executionFailed();
   }
 
   @Override
   protected void executionFailed(IOException e) {
-    if (invalidateOnFailure) {
-      invalidate();
-    }
+    build.executionFailed();
   }
 
   @Override
   protected void executionInterrupted(InterruptedException e) {
-    invalidate();
+    build.invalidate();
   }
 
-  private File getChecksumFile() {
-    return new File(inputDirectory, CHECKSUM_FILE_NAME);
+  @Override
+  protected void executeCommand() throws MojoExecutionException {
+    if ((matrix == null || matrix.isEmpty()) && !isolateBuilders) {
+      super.executeCommand();
+    } else {
+      new MatrixExecution(getMatrixBuilds()).execute();
+    }
   }
 
-  private boolean isChecksumFile(String path) {
-    return path.equals(CHECKSUM_FILE_NAME);
+  private ChecksumSettings getChecksumSettings() throws MojoExecutionException {
+    try {
+      ChecksumSettings settings = new ChecksumSettings();
+      settings.setAlgorithm(checksumAlgorithm);
+      settings.setThreads(checksumThreads);
+      settings.setIoConcurrency(checksumIoConcurrency);
+      settings.setIndexFile(new File(inputDirectory, CHECKSUM_INDEX_FILE_NAME));
+      settings.setParanoid(checksumParanoid);
+      settings.setLazy(checksumLazy);
+      settings.setBufferSize(checksumBufferSize);
+      settings.setMappingThreshold(checksumMappingThreshold);
+      settings.setMappingWindowSize(checksumMappingWindowSize);
+      settings.setFormat(checksumFormat);
+      settings.setCacheSize(checksumCacheSize);
+      settings.setSegmentThreshold(checksumSegmentThreshold);
+      settings.setSegmentSize(checksumSegmentSize);
+      settings.setNormalizeArchives(checksumNormalizeArchives);
+      settings.setHashCacheDirectory(checksumHashCache
+          ? checksumHashCacheDirectory
+          : null);
+      settings.setHashCacheSize(checksumHashCacheSize);
+      settings.setIgnoreRules(getChecksumIgnoreRules());
+      return settings;
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException("Invalid checksum settings", e);
+    }
   }
 
-  private void invalidate() {
-    getChecksumFile().delete();
+  private ChecksumIgnoreRules getChecksumIgnoreRules() throws MojoExecutionException {
+    try {
+      return ChecksumIgnoreRules.load(ofNullable(checksumIgnoreFile)
+          .orElseGet(() -> new File(inputDirectory, CHECKSUM_IGNORE_FILE_NAME)))
+          .with(ChecksumIgnoreRules.of(ofNullable(checksumIgnores)
+              .orElseGet(Collections::emptyList)));
+    } catch (IOException e) {
+      throw new MojoExecutionException("Checksum ignore file error", e);
+    }
   }
 
-  private void logInfo(String msg) {
-    getLog().info(msg);
+  private Checksum getChecksum(ChecksumSettings settings) throws MojoExecutionException {
+    try {
+      return checksumFactory.getChecksum(
+          inputDirectory,
+          this::isChecksumFile,
+          settings);
+    } catch (IOException | NoSuchAlgorithmException e) {
+      throw new MojoExecutionException("Checksum error", e);
+    }
   }
 
-  private void logError(String msg) {
-    getLog().error(msg);
+  /*
+   * Checksums stored on background are not included.
+   */
+  private void reportChecksumStatistics(ChecksumStatistics statistics)
+      throws MojoExecutionException {
+    getLog().info(format("Checksum: %s", statistics));
+    if (checksumStatisticsFile != null) {
+      try {
+        checksumStatisticsFile.getAbsoluteFile().getParentFile().mkdirs();
+        write(checksumStatisticsFile.toPath(), statistics.toJson().getBytes(UTF_8));
+      } catch (IOException e) {
+        throw new MojoExecutionException("Checksum error", e);
+      }
+    }
+  }
+
+  /*
+   * Names are part of checksum file names, so they are restricted to safe characters. The single
+   * build of this execution has no name unless its builders are isolated.
+   */
+  private List<Build> getMatrixBuilds() throws MojoExecutionException {
+    List<Build> builds = new ArrayList<>();
+    if (matrix == null || matrix.isEmpty()) {
+      builds.add(new Build(null, template, only, except, vars, varFiles));
+    } else {
+      for (int i = 0; i < matrix.size(); ++i) {
+        builds.add(getMatrixBuild(i, matrix.get(i)));
+      }
+    }
+    if (isolateBuilders) {
+      List<Build> isolatedBuilds = new ArrayList<>();
+      for (Build build : builds) {
+        isolatedBuilds.addAll(build.isolate());
+      }
+      builds = isolatedBuilds;
+    }
+    Set<String> names = new HashSet<>();
+    for (Build build : builds) {
+      if (build.name != null && !MATRIX_ENTRY_NAME_PATTERN.matcher(build.name).matches()) {
+        throw new MojoExecutionException(format("Invalid matrix entry name %s", build.name));
+      }
+      if (build.name != null && !names.add(build.name)) {
+        throw new MojoExecutionException(format("Duplicate matrix entry name %s", build.name));
+      }
+    }
+    return builds;
+  }
+
+  private Build getMatrixBuild(int index, PackerBuildMatrixEntry entry) {
+    Properties entryVars = new Properties();
+    ofNullable(vars).ifPresent(entryVars::putAll);
+    entry.getVars().ifPresent(entryVars::putAll);
+    Set<String> entryVarFiles = new LinkedHashSet<>();
+    ofNullable(varFiles).ifPresent(entryVarFiles::addAll);
+    entry.getVarFiles().ifPresent(entryVarFiles::addAll);
+    return new Build(
+        entry.getName()
+            .map(String::trim)
+            .orElse(String.valueOf(index + 1)),
+        entry.getTemplate().orElse(template),
+        entry.getOnly().orElse(only),
+        entry.getExcept().orElse(except),
+        entryVars,
+        entryVarFiles);
   }
 
-  private void logDebug(String msg) {
-    getLog().debug(msg);
+  private PackerOutputCache getOutputCache() throws MojoExecutionException {
+    try {
+      return new PackerOutputCache(
+          buildOutputCacheDirectory,
+          buildOutputCacheUrl == null
+              ? null
+              : new PackerRemoteCache(
+                  buildOutputCacheUrl,
+                  buildOutputCacheConnectTimeout,
+                  buildOutputCacheReadTimeout,
+                  buildOutputCacheDownloadThreads,
+                  buildOutputCacheChunkSize),
+          buildOutputCacheDeduplicate,
+          buildOutputCacheCompress);
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException("Invalid build output cache settings", e);
+    }
+  }
+
+  /*
+   * Temporary files, where checksums and indexes are written before replacing the previous ones,
+   * are not included either.
+   */
+  private boolean isChecksumFile(String path) {
+    return path.equals(CHECKSUM_FILE_NAME)
+        || path.equals(CHECKSUM_FILE_NAME + TEMPORARY_FILE_SUFFIX)
+        || path.equals(CHECKSUM_INDEX_FILE_NAME)
+        || path.equals(CHECKSUM_INDEX_FILE_NAME + TEMPORARY_FILE_SUFFIX)
+        || path.startsWith(MATRIX_CHECKSUM_FILE_PREFIX);
+  }
+
+  private static void store(Checksum checksum, File checksumFile) {
+    try {
+      checksum.store(checksumFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
   private static void forEachLine(String str, Consumer<String> lineConsumer) {
     Stream.of(str.split("\n"))
         .forEach(lineConsumer::accept);
   }
+
+  private enum BuildStatus {
+    CHANGED,
+    UNCHANGED,
+    RESTORED,
+    SUCCEEDED,
+    FAILED,
+    ABORTED,
+    SKIPPED
+  }
+
+  /*
+   * Build of the given arguments, which is the single one of the execution when it has no name,
+   * or a matrix entry otherwise. Each one has its own checksum file, output key and artifacts, and
+   * log lines of matrix entries are prefixed by their name.
+   */
+  private class Build {
+
+    private final String name;
+    private final String template;
+    private final String only;
+    private final String except;
+    private final Properties vars;
+    private final Set<String> varFiles;
+    private final PackerArtifacts artifacts;
+    private CompletableFuture<Void> checksumStore;
+    private File checksumFile;
+    private List<String> buildArguments;
+    private List<String> outputKey;
+    private long duration;
+
+    private Build(String name, String template, String only, String except, Properties vars,
+        Set<String> varFiles) {
+      this.name = name;
+      this.template = template;
+      this.only = only;
+      this.except = except;
+      this.vars = vars;
+      this.varFiles = varFiles;
+      artifacts = new PackerArtifacts();
+      checksumStore = completedFuture(null);
+      checksumFile = null;
+      buildArguments = null;
+      outputKey = null;
+      duration = 0L;
+    }
+
+    /*
+     * Builders that are not selected by only and except arguments are left out.
+     */
+    private List<Build> isolate() throws MojoExecutionException {
+      List<String> builders = getBuilders();
+      if (builders.isEmpty()) {
+        logInfo("There is not any builder to isolate. Building the whole template...");
+        return singletonList(this);
+      }
+      Set<String> selected = getOnly();
+      Set<String> excluded = getExcept();
+      return builders.stream()
+          .filter(builder -> selected.isEmpty() || selected.contains(builder))
+          .filter(builder -> !excluded.contains(builder))
+          .map(builder -> new Build(
+              name == null ? builder : format("%s.%s", name, builder),
+              template,
+              builder,
+              null,
+              vars,
+              varFiles))
+          .collect(toList());
+    }
+
+    private void receive(PackerMessage message) {
+      artifacts.receive(message);
+      if (TYPE_UI.equals(message.getType())) {
+        String[] data = message.getData();
+        switch (data[0]) {
+          case DATA_UI_MESSAGE:
+          case DATA_UI_SAY:
+            forEachLine(data[1], this::logInfo);
+            break;
+          case DATA_UI_ERROR:
+            forEachLine(data[1], this::logError);
+            break;
+          default:
+            forEachLine(data[1], this::logDebug);
+        }
+      }
+    }
+
+    private BuildStatus check(Checksum checksum) throws MojoExecutionException {
+      try {
+        checksumFile = getChecksumFile();
+        boolean changed = !checksum.match(checksumFile);
+        if (changed) {
+          if (getLog().isDebugEnabled()) {
+            checksum.changes(checksumFile)
+                .forEach(path -> logDebug(format("Changed file %s", path)));
+          }
+          if (buildOutputCache && changesNeeded && restoreOutput(checksum)) {
+            checksum.store(checksumFile);
+            return BuildStatus.RESTORED;
+          }
+          if (checksumLazy) {
+            invalidate();
+            checksumStore = runAsync(() -> store(checksum, checksumFile));
+          } else {
+            checksum.store(checksumFile);
+          }
+        }
+        return changed || !changesNeeded
+            ? BuildStatus.CHANGED
+            : BuildStatus.UNCHANGED;
+      } catch (IOException e) {
+        throw new MojoExecutionException("Checksum error", e);
+      }
+    }
+
+    private PackerExecution executionGet(Packer packer)
+        throws MojoExecutionException, IOException {
+      return packer.build(
+          getTemplate(),
+          force,
+          getOnly(),
+          getExcept(),
+          getVars(),
+          getVarFiles());
+    }
+
+    private void executionSucceeded() throws MojoExecutionException {
+      try {
+        checksumStore.join();
+      } catch (CompletionException e) {
+        throw new MojoExecutionException("Checksum error", e.getCause());
+      }
+      if (outputKey != null) {
+        storeOutput();
+      }
+    }
+
+    private void executionFailed() {
+      if (invalidateOnFailure) {
+        invalidate();
+      } else {
+        awaitChecksumStore();
+      }
+    }
+
+    private String getTemplate() throws MojoExecutionException {
+      return Optional.of(template)
+          .map(String::trim)
+          .filter(str -> !str.isEmpty())
+          .orElseThrow(() -> new MojoExecutionException("Template is empty"));
+    }
+
+    private Set<String> getOnly() {
+      return ofNullable(only)
+          .map(str -> str.split(","))
+          .map(Stream::of)
+          .orElseGet(Stream::empty)
+          .map(String::trim)
+          .filter(str -> !str.isEmpty())
+          .collect(toSet());
+    }
+
+    private Set<String> getExcept() {
+      return ofNullable(except)
+          .map(str -> str.split(","))
+          .map(Stream::of)
+          .orElseGet(Stream::empty)
+          .map(String::trim)
+          .filter(str -> !str.isEmpty())
+          .collect(toSet());
+    }
+
+    private Map<String, Object> getVars() {
+      return ofNullable(vars)
+          .map(Properties::entrySet)
+          .map(Collection::stream)
+          .orElseGet(Stream::empty)
+          .collect(toMap(e -> e.getKey().toString().trim(), Entry::getValue));
+    }
+
+    private Set<String> getVarFiles() {
+      return ofNullable(varFiles)
+          .map(Set::stream)
+          .orElseGet(Stream::empty)
+          .map(String::trim)
+          .collect(toSet());
+    }
+
+    private File getChecksumFile() throws MojoExecutionException, IOException {
+      if (!checksumBuildCache) {
+        return new File(inputDirectory, name == null
+            ? CHECKSUM_FILE_NAME
+            : MATRIX_CHECKSUM_FILE_PREFIX + name);
+      }
+      if (checksumBuildCacheDirectory.getCanonicalFile().toPath()
+          .startsWith(inputDirectory.getCanonicalFile().toPath())) {
+        throw new MojoExecutionException("Build cache directory is within the input directory");
+      }
+      try {
+        return new ChecksumFileCache(checksumBuildCacheDirectory, checksumBuildCacheSize)
+            .getChecksumFile(getBuildKey());
+      } catch (IllegalArgumentException e) {
+        throw new MojoExecutionException("Invalid build cache settings", e);
+      }
+    }
+
+    private List<String> getBuildKey() throws MojoExecutionException, IOException {
+      List<String> key = new ArrayList<>();
+      key.add(inputDirectory.getCanonicalPath());
+      key.addAll(getBuildArguments());
+      return key;
+    }
+
+    /*
+     * Unlike the checksum file, outputs do not depend on where the input directory is.
+     */
+    private List<String> getOutputKey(Checksum checksum)
+        throws MojoExecutionException, IOException {
+      List<String> key = new ArrayList<>();
+      key.add(checksum.fingerprint());
+      key.addAll(getBuildArguments());
+      return key;
+    }
+
+    /*
+     * Sets and maps are sorted, so the key does not depend on the order arguments are given.
+     * Forcing is not part of the key, as it does not change what is built. They are calculated
+     * once, as Packer is executed to get its version.
+     */
+    private List<String> getBuildArguments() throws MojoExecutionException, IOException {
+      if (buildArguments != null) {
+        return buildArguments;
+      }
+      List<String> key = new ArrayList<>();
+      key.add(getTemplate());
+      key.add(String.join(",", new TreeSet<>(getOnly())));
+      key.add(String.join(",", new TreeSet<>(getExcept())));
+      new TreeMap<>(getVars()).forEach((name, value) -> key.add(format("var %s=%s", name, value)));
+      new TreeSet<>(getVarFiles()).forEach(varFile -> key.add(format("var-file %s", varFile)));
+      new TreeMap<>(System.getenv()).forEach((name, value) -> {
+        if (name.startsWith(PACKER_ENV_PREFIX) && !PACKER_LOGGING_ENV.contains(name)) {
+          key.add(format("env %s=%s", name, value));
+        }
+      });
+      key.add(getPackerVersion());
+      buildArguments = key;
+      return key;
+    }
+
+    private String getLabel() {
+      return name == null ? template : name;
+    }
+
+    private String getPackerVersion() throws MojoExecutionException, IOException {
+      try {
+        return getPacker(new BuildTerminal(() -> false)).version();
+      } catch (PackerExecutionException | PackerAbortionException e) {
+        throw new MojoExecutionException("Packer version error", e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MojoExecutionException("Packer version interruption", e);
+      }
+    }
+
+    private List<String> getBuilders() throws MojoExecutionException {
+      try {
+        return getPacker(new BuildTerminal(() -> false)).builders(getTemplate());
+      } catch (IOException | PackerExecutionException | PackerAbortionException e) {
+        throw new MojoExecutionException("Packer inspect error", e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MojoExecutionException("Packer inspect interruption", e);
+      }
+    }
+
+    /*
+     * Failures restoring the output are not build failures, as it could be built anyway.
+     */
+    private boolean restoreOutput(Checksum checksum) throws MojoExecutionException, IOException {
+      outputKey = getOutputKey(checksum);
+      Optional<List<PackerArtifact>> restored;
+      try {
+        restored = getOutputCache().restore(outputKey, inputDirectory);
+      } catch (IOException e) {
+        logWarn("Build output cache error", e);
+        return false;
+      }
+      restored.ifPresent(restoredArtifacts -> restoredArtifacts
+          .forEach(artifact -> logInfo(format(
+              "Restored artifact %d of %s: %s",
+              artifact.getNumber(),
+              artifact.getTarget(),
+              artifact.getString().orElse(String.join(", ", artifact.getFiles()))))));
+      return restored.isPresent();
+    }
+
+    /*
+     * Failures storing the output are not build failures, as it has been successfully built
+     * anyway.
+     */
+    private void storeOutput() {
+      try {
+        if (!getOutputCache().store(outputKey, inputDirectory, artifacts.getArtifacts())) {
+          logInfo("Build output is not cached, as some artifact is not made of input directory "
+              + "files");
+        }
+      } catch (IOException | MojoExecutionException e) {
+        logWarn("Build output cache error", e);
+      }
+    }
+
+    private void invalidate() {
+      awaitChecksumStore();
+      checksumFile.delete();
+    }
+
+    /*
+     * Failures storing the checksum on background are ignored, as it is not stored anyway.
+     */
+    private void awaitChecksumStore() {
+      checksumStore
+          .handle((result, e) -> result)
+          .join();
+    }
+
+    private String prefix(String msg) {
+      return name == null ? msg : format("[%s] %s", name, msg);
+    }
+
+    private void logInfo(String msg) {
+      getLog().info(prefix(msg));
+    }
+
+    private void logWarn(String msg, Throwable e) {
+      getLog().warn(prefix(msg), e);
+    }
+
+    private void logError(String msg) {
+      getLog().error(prefix(msg));
+    }
+
+    private void logError(String msg, Throwable e) {
+      getLog().error(prefix(msg), e);
+    }
+
+    private void logDebug(String msg) {
+      getLog().debug(prefix(msg));
+    }
+
+    /*
+     * Terminal of a matrix entry, which is aborted as soon as the given condition holds.
+     */
+    private class BuildTerminal implements PackerTerminal {
+
+      private final BooleanSupplier aborted;
+
+      private BuildTerminal(BooleanSupplier aborted) {
+        this.aborted = aborted;
+      }
+
+      @Override
+      public Optional<File> getWorkingDir() {
+        return Optional.of(inputDirectory);
+      }
+
+      @Override
+      public void receive(PackerMessage message) throws PackerAbortionException {
+        if (aborted.getAsBoolean()) {
+          throw new PackerAbortionException("Matrix execution failure");
+        }
+        Build.this.receive(message);
+      }
+
+      @Override
+      public void send(PackerInput input) throws PackerAbortionException {
+        throw new PackerAbortionException("Interactive execution is not supported");
+      }
+    }
+  }
+
+  /*
+   * Matrix entries are checked against the same checksum, which is calculated once. On fail-fast
+   * policy, running entries are aborted and pending ones are skipped as soon as some of them
+   * fails.
+   */
+  private class MatrixExecution {
+
+    private final List<Build> builds;
+    private final Set<PackerExecution> running;
+    private final AtomicBoolean failing;
+
+    private MatrixExecution(List<Build> builds) {
+      this.builds = builds;
+      running = new HashSet<>();
+      failing = new AtomicBoolean(false);
+    }
+
+    private void execute() throws MojoExecutionException {
+      ChecksumSettings settings = getChecksumSettings();
+      Checksum checksum = getChecksum(settings);
+      ExecutorService executor = newFixedThreadPool(matrixConcurrency > 0
+          ? min(matrixConcurrency, builds.size())
+          : builds.size());
+      Map<Build, BuildStatus> statuses = new LinkedHashMap<>();
+      try {
+        List<Future<BuildStatus>> futures = new ArrayList<>();
+        for (Build build : builds) {
+          futures.add(executor.submit(() -> {
+            long startTime = nanoTime();
+            try {
+              return execute(build, checksum);
+            } finally {
+              build.duration = nanoTime() - startTime;
+            }
+          }));
+        }
+        for (int i = 0; i < builds.size(); ++i) {
+          statuses.put(builds.get(i), futures.get(i).get());
+        }
+      } catch (ExecutionException e) {
+        throw new MojoExecutionException("Matrix execution error", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        abortRunning();
+        throw new MojoExecutionException("Packer execution interruption", e);
+      } finally {
+        executor.shutdownNow();
+      }
+      reportChecksumStatistics(settings.getStatistics());
+      statuses.forEach((build, status) -> getLog().info(format(
+          "%s: %s (%d ms)",
+          build.getLabel(),
+          status,
+          NANOSECONDS.toMillis(build.duration))));
+      List<String> failed = statuses.entrySet().stream()
+          .filter(status -> status.getValue() == BuildStatus.FAILED)
+          .map(status -> status.getKey().getLabel())
+          .collect(toList());
+      if (!failed.isEmpty()) {
+        throw new MojoExecutionException(format("Packer execution failure of %s",
+            String.join(", ", failed)));
+      }
+    }
+
+    /*
+     * Checksum and output cache errors are failures of the entry, so other entries are not
+     * interrupted by them on complete-all policy.
+     */
+    private BuildStatus execute(Build build, Checksum checksum) {
+      if (failing.get()) {
+        return BuildStatus.SKIPPED;
+      }
+      try {
+        BuildStatus status = build.check(checksum);
+        if (status == BuildStatus.RESTORED) {
+          build.logInfo("Build output has been restored from cache. Ignoring...");
+          return status;
+        }
+        if (status == BuildStatus.UNCHANGED) {
+          build.logInfo("There is not any change. Ignoring...");
+          return status;
+        }
+        return execute(build, build.executionGet(getPacker(build.new BuildTerminal(
+            failing::get))));
+      } catch (MojoExecutionException | IOException e) {
+        build.logError("Packer execution failure", e);
+        if (build.checksumFile != null) {
+          build.executionFailed();
+        }
+        return failed();
+      }
+    }
+
+    private BuildStatus execute(Build build, PackerExecution execution)
+        throws MojoExecutionException {
+      if (!start(execution)) {
+        execution.abort();
+      }
+      Thread abortion = new Thread(execution::abort);
+      getRuntime().addShutdownHook(abortion);
+      try {
+        execution.success();
+        build.executionSucceeded();
+        return BuildStatus.SUCCEEDED;
+      } catch (PackerAbortionException e) {
+        build.invalidate();
+        return BuildStatus.ABORTED;
+      } catch (PackerExecutionException e) {
+        build.logError("Packer execution failure", e);
+        build.executionFailed();
+        return failed();
+      } catch (InterruptedException e) {
+        build.invalidate();
+        Thread.currentThread().interrupt();
+        return BuildStatus.ABORTED;
+      } finally {
+        finish(execution);
+        removeShutdownHook(abortion);
+      }
+    }
+
+    private synchronized boolean start(PackerExecution execution) {
+      if (failing.get()) {
+        return false;
+      }
+      running.add(execution);
+      return true;
+    }
+
+    private synchronized void finish(PackerExecution execution) {
+      running.remove(execution);
+    }
+
+    private BuildStatus failed() {
+      if (matrixFailurePolicy == PackerBuildMatrixFailurePolicy.FAIL_FAST) {
+        abortRunning();
+      }
+      return BuildStatus.FAILED;
+    }
+
+    private synchronized void abortRunning() {
+      failing.set(true);
+      running.forEach(PackerExecution::abort);
+    }
+
+    private void removeShutdownHook(Thread hook) {
+      try {
+        getRuntime().removeShutdownHook(hook);
+      } catch (IllegalStateException e) {
+        // Shutting down...
+      }
+    }
+  }
 }
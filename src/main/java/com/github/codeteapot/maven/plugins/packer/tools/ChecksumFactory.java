@@ -1,6 +1,7 @@
 package com.github.codeteapot.maven.plugins.packer.tools;
 
 import com.github.codeteapot.tools.checksum.Checksum;
+import com.github.codeteapot.tools.checksum.ChecksumSettings;
 import java.io.File;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
@@ -22,12 +23,13 @@ public interface ChecksumFactory {
    * @param directory Directory where checksum will be calculated.
    * @param ignoreFile Predicate that determines the file with the given path relative to specified
    *        directory will be ignored.
+   * @param settings Settings that determine how the checksum is calculated.
    * 
    * @return The checksum for the given directory.
    * 
    * @throws IOException If some IO error has been occurred.
    * @throws NoSuchAlgorithmException If the given algorithm is not known.
    */
-  Checksum getChecksum(File directory, Predicate<String> ignoreFile)
+  Checksum getChecksum(File directory, Predicate<String> ignoreFile, ChecksumSettings settings)
       throws IOException, NoSuchAlgorithmException;
 }
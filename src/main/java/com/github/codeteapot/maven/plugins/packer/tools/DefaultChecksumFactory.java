@@ -1,29 +1,39 @@
 package com.github.codeteapot.maven.plugins.packer.tools;
 
 import com.github.codeteapot.tools.checksum.Checksum;
-import com.github.codeteapot.tools.checksum.MessageDigestCreator;
+import com.github.codeteapot.tools.checksum.ChecksumCache;
+import com.github.codeteapot.tools.checksum.ChecksumSettings;
 import java.io.File;
 import java.io.IOException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.function.Predicate;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
 
 /**
  * Default implementation.
+ *
+ * <p>As a singleton component, its checksum cache lives as long as the build process does, so it is
+ * shared by all builds of long-lived processes, like Maven daemons.
  */
-public class DefaultChecksumFactory implements ChecksumFactory {
+public class DefaultChecksumFactory implements ChecksumFactory, Disposable {
 
-  private static final MessageDigestCreator DIGEST_CREATOR = MessageDigest::getInstance;
-  private static final String CHECKSUM_ALGORITHM = "SHA-256";
+  private final ChecksumCache cache;
 
   /**
    * Default constructor.
    */
-  public DefaultChecksumFactory() {}
+  public DefaultChecksumFactory() {
+    cache = new ChecksumCache();
+  }
+
+  @Override
+  public Checksum getChecksum(File directory, Predicate<String> ignoreFile,
+      ChecksumSettings settings) throws IOException, NoSuchAlgorithmException {
+    return new Checksum(directory, ignoreFile, settings, cache);
+  }
 
   @Override
-  public Checksum getChecksum(File directory, Predicate<String> ignoreFile)
-      throws IOException, NoSuchAlgorithmException {
-    return new Checksum(DIGEST_CREATOR, CHECKSUM_ALGORITHM, directory, ignoreFile);
+  public void dispose() {
+    cache.close();
   }
 }
@@ -0,0 +1,194 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Integer.rotateRight;
+import static java.lang.Math.min;
+import static java.util.Arrays.fill;
+
+/*
+ * Streaming BLAKE3 hash mode, with 256 bits output. Chaining values of completed subtrees are kept
+ * on a stack, whose maximum depth is enough for 2^64 bytes of content.
+ */
+class Blake3Function implements FingerprintFunction {
+
+  private static final int[] IV = {
+      0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+      0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+  };
+  private static final int[] MESSAGE_PERMUTATION = {
+      2, 6, 3, 10, 7, 0, 4, 13, 1, 11, 12, 5, 9, 14, 15, 8
+  };
+
+  private static final int BLOCK_LENGTH = 64;
+  private static final int CHUNK_LENGTH = 1024;
+  private static final int MAX_DEPTH = 54;
+  private static final int OUTPUT_LENGTH = 32;
+
+  private static final int CHUNK_START = 1;
+  private static final int CHUNK_END = 2;
+  private static final int PARENT = 4;
+  private static final int ROOT = 8;
+
+  private final int[][] cvStack;
+  private final int[] chunkCv;
+  private final byte[] block;
+  private final int[] blockWords;
+  private final int[] state;
+  private final int[] message;
+  private final int[] permuted;
+  private int cvStackLength;
+  private long chunkCounter;
+  private int chunkLength;
+  private int blockLength;
+
+  Blake3Function() {
+    cvStack = new int[MAX_DEPTH][8];
+    chunkCv = new int[8];
+    block = new byte[BLOCK_LENGTH];
+    blockWords = new int[16];
+    state = new int[16];
+    message = new int[16];
+    permuted = new int[16];
+    reset();
+  }
+
+  @Override
+  public void update(byte[] input, int offset, int length) {
+    int position = offset;
+    int end = offset + length;
+    while (position < end) {
+      if (chunkLength + blockLength == CHUNK_LENGTH) {
+        int[] cv = new int[8];
+        chunkOutput(cv, 0);
+        addChunkCv(cv, ++chunkCounter);
+        startChunk();
+      }
+      if (blockLength == BLOCK_LENGTH) {
+        toWords(block, blockWords);
+        compress(chunkCv, blockWords, chunkCounter, BLOCK_LENGTH, chunkStartFlag());
+        System.arraycopy(state, 0, chunkCv, 0, 8);
+        chunkLength += BLOCK_LENGTH;
+        blockLength = 0;
+      }
+      int take = min(BLOCK_LENGTH - blockLength, end - position);
+      System.arraycopy(input, position, block, blockLength, take);
+      blockLength += take;
+      position += take;
+    }
+  }
+
+  @Override
+  public byte[] digest() {
+    int[] cv = new int[8];
+    int[] parentWords = new int[16];
+    int remaining = cvStackLength;
+    if (remaining == 0) {
+      chunkOutput(cv, ROOT);
+    } else {
+      chunkOutput(cv, 0);
+      while (remaining > 0) {
+        --remaining;
+        System.arraycopy(cvStack[remaining], 0, parentWords, 0, 8);
+        System.arraycopy(cv, 0, parentWords, 8, 8);
+        compress(IV, parentWords, 0L, BLOCK_LENGTH, PARENT | (remaining == 0 ? ROOT : 0));
+        System.arraycopy(state, 0, cv, 0, 8);
+      }
+    }
+    byte[] result = new byte[OUTPUT_LENGTH];
+    for (int i = 0; i < 8; ++i) {
+      for (int j = 0; j < 4; ++j) {
+        result[4 * i + j] = (byte) (cv[i] >>> (8 * j));
+      }
+    }
+    reset();
+    return result;
+  }
+
+  private void reset() {
+    cvStackLength = 0;
+    chunkCounter = 0L;
+    startChunk();
+  }
+
+  private void startChunk() {
+    System.arraycopy(IV, 0, chunkCv, 0, 8);
+    chunkLength = 0;
+    blockLength = 0;
+    fill(block, (byte) 0);
+  }
+
+  private int chunkStartFlag() {
+    return chunkLength == 0
+        ? CHUNK_START
+        : 0;
+  }
+
+  private void chunkOutput(int[] cv, int flags) {
+    fill(block, blockLength, BLOCK_LENGTH, (byte) 0);
+    toWords(block, blockWords);
+    compress(chunkCv, blockWords, chunkCounter, blockLength, chunkStartFlag() | CHUNK_END | flags);
+    System.arraycopy(state, 0, cv, 0, 8);
+  }
+
+  private void addChunkCv(int[] cv, long totalChunks) {
+    int[] parentWords = new int[16];
+    long chunks = totalChunks;
+    while ((chunks & 1L) == 0L) {
+      System.arraycopy(cvStack[--cvStackLength], 0, parentWords, 0, 8);
+      System.arraycopy(cv, 0, parentWords, 8, 8);
+      compress(IV, parentWords, 0L, BLOCK_LENGTH, PARENT);
+      System.arraycopy(state, 0, cv, 0, 8);
+      chunks >>>= 1;
+    }
+    System.arraycopy(cv, 0, cvStack[cvStackLength++], 0, 8);
+  }
+
+  private void compress(int[] cv, int[] words, long counter, int length, int flags) {
+    System.arraycopy(cv, 0, state, 0, 8);
+    System.arraycopy(IV, 0, state, 8, 4);
+    state[12] = (int) counter;
+    state[13] = (int) (counter >>> 32);
+    state[14] = length;
+    state[15] = flags;
+    System.arraycopy(words, 0, message, 0, 16);
+    for (int round = 0; round < 7; ++round) {
+      if (round > 0) {
+        permute();
+      }
+      mix(0, 4, 8, 12, message[0], message[1]);
+      mix(1, 5, 9, 13, message[2], message[3]);
+      mix(2, 6, 10, 14, message[4], message[5]);
+      mix(3, 7, 11, 15, message[6], message[7]);
+      mix(0, 5, 10, 15, message[8], message[9]);
+      mix(1, 6, 11, 12, message[10], message[11]);
+      mix(2, 7, 8, 13, message[12], message[13]);
+      mix(3, 4, 9, 14, message[14], message[15]);
+    }
+    for (int i = 0; i < 8; ++i) {
+      state[i] ^= state[i + 8];
+    }
+  }
+
+  private void mix(int a, int b, int c, int d, int x, int y) {
+    state[a] += state[b] + x;
+    state[d] = rotateRight(state[d] ^ state[a], 16);
+    state[c] += state[d];
+    state[b] = rotateRight(state[b] ^ state[c], 12);
+    state[a] += state[b] + y;
+    state[d] = rotateRight(state[d] ^ state[a], 8);
+    state[c] += state[d];
+    state[b] = rotateRight(state[b] ^ state[c], 7);
+  }
+
+  private void permute() {
+    for (int i = 0; i < 16; ++i) {
+      permuted[i] = message[MESSAGE_PERMUTATION[i]];
+    }
+    System.arraycopy(permuted, 0, message, 0, 16);
+  }
+
+  private static void toWords(byte[] bytes, int[] words) {
+    for (int i = 0; i < words.length; ++i) {
+      words[i] = (int) FingerprintBytes.readIntLe(bytes, 4 * i);
+    }
+  }
+}
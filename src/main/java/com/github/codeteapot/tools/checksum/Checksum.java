@@ -1,9 +1,13 @@
 package com.github.codeteapot.tools.checksum;
 
+import static java.lang.System.nanoTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.File;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -13,7 +17,62 @@ import java.util.function.Predicate;
 public class Checksum {
 
   private final ChecksumEntryManager entryManager;
-  private final Set<ChecksumEntry> entrySet;
+  private final FingerprintAlgorithm algorithm;
+  private final ChecksumStatistics statistics;
+  private Optional<ChecksumGeneration> generation;
+  private ChecksumEntryTable entryTable;
+
+  /**
+   * Checksum for the given directory, calculated with the given settings.
+   *
+   * <p>The algorithm used to calculate the fingerprint of directory files content is the one of the
+   * given settings.
+   *
+   * @param directory Directory where the checksum calculation is applied.
+   * @param ignoreFile Predicate that determines the file with the given path relative to specified
+   *        directory must be ignored.
+   * @param settings Settings that determine how the checksum is calculated.
+   * 
+   * @throws IOException If some IO error has been occurred.
+   * @throws NoSuchAlgorithmException If the algorithm of the given settings is not known.
+   * 
+   * @see FingerprintAlgorithm#forName(String)
+   */
+  public Checksum(File directory, Predicate<String> ignoreFile, ChecksumSettings settings)
+      throws IOException, NoSuchAlgorithmException {
+    this(
+        new ChecksumEntryManager(settings),
+        FingerprintAlgorithm.forName(settings.getAlgorithm()),
+        settings,
+        directory,
+        ignoreFile);
+  }
+
+  /**
+   * Checksum for the given directory, calculated with the given settings and cache.
+   *
+   * <p>The cache is only used when the cache size of the given settings is positive.
+   *
+   * @param directory Directory where the checksum calculation is applied.
+   * @param ignoreFile Predicate that determines the file with the given path relative to specified
+   *        directory must be ignored.
+   * @param settings Settings that determine how the checksum is calculated.
+   * @param cache Cache where directory files and their hashes are kept between checksums.
+   * 
+   * @throws IOException If some IO error has been occurred.
+   * @throws NoSuchAlgorithmException If the algorithm of the given settings is not known.
+   * 
+   * @see ChecksumSettings#getCacheSize()
+   */
+  public Checksum(File directory, Predicate<String> ignoreFile, ChecksumSettings settings,
+      ChecksumCache cache) throws IOException, NoSuchAlgorithmException {
+    this(
+        new ChecksumEntryManager(settings, Optional.of(cache)),
+        FingerprintAlgorithm.forName(settings.getAlgorithm()),
+        settings,
+        directory,
+        ignoreFile);
+  }
 
   /**
    * Checksum for the given directory.
@@ -30,20 +89,63 @@ public class Checksum {
    */
   public Checksum(MessageDigestCreator digestCreator, String algorithm, File directory,
       Predicate<String> ignoreFile) throws IOException, NoSuchAlgorithmException {
-    this(new ChecksumEntryManager(), digestCreator, algorithm, directory, ignoreFile);
+    this(digestCreator, algorithm, directory, ignoreFile, new ChecksumSettings());
+  }
+
+  /**
+   * Checksum for the given directory, calculated with the given settings.
+   *
+   * @param digestCreator Creator of {@link MessageDigest} used for calculating the hash of the
+   *        content of the directory files.
+   * @param algorithm Algorithm used to calculate the hash of directory files content.
+   * @param directory Directory where the checksum calculation is applied.
+   * @param ignoreFile Predicate that determines the file with the given path relative to specified
+   *        directory must be ignored.
+   * @param settings Settings that determine how the checksum is calculated, except its algorithm.
+   * 
+   * @throws IOException If some IO error has been occurred.
+   * @throws NoSuchAlgorithmException If the given algorithm is not known.
+   */
+  public Checksum(MessageDigestCreator digestCreator, String algorithm, File directory,
+      Predicate<String> ignoreFile, ChecksumSettings settings)
+      throws IOException, NoSuchAlgorithmException {
+    this(
+        new ChecksumEntryManager(settings),
+        FingerprintAlgorithm.messageDigest(digestCreator, algorithm),
+        settings,
+        directory,
+        ignoreFile);
   }
 
-  Checksum(ChecksumEntryManager entryManager, MessageDigestCreator digestCreator, String algorithm,
-      File directory, Predicate<String> ignoreFile) throws IOException, NoSuchAlgorithmException {
+  /*
+   * On lazy mode, the algorithm is checked here, so it is not expected to be unknown later.
+   */
+  Checksum(ChecksumEntryManager entryManager, FingerprintAlgorithm algorithm,
+      ChecksumSettings settings, File directory, Predicate<String> ignoreFile)
+      throws IOException, NoSuchAlgorithmException {
     this.entryManager = entryManager;
-    this.entrySet = this.entryManager.generate(digestCreator, algorithm, directory, ignoreFile);
+    this.algorithm = algorithm;
+    statistics = settings.getStatistics();
+    if (settings.isLazy()) {
+      algorithm.create();
+      generation = Optional.of(entryManager.start(algorithm, directory, ignoreFile));
+      entryTable = null;
+    } else {
+      generation = Optional.empty();
+      entryTable = ChecksumEntryTable.of(entryManager.generate(algorithm, directory, ignoreFile));
+    }
   }
 
   /**
    * Determines if this checksum matches with a checksum previously stored to the given file.
    * 
    * <p>If checksum file does not exist, it matches when this checksum was generated on a directory
-   * that does not contain any non-ignored regular file.
+   * that does not contain any non-ignored regular file. A checksum stored with another algorithm
+   * never matches.
+   * 
+   * <p>On lazy mode, the first difference is reported before reading the content of all directory
+   * files. The rest of them are still read on background, so storing this checksum does not start
+   * over.
    *
    * @param checksumFile The file where checksum to compare is in.
    * 
@@ -52,8 +154,44 @@ public class Checksum {
    * 
    * @throws IOException If some IO error has been occurred.
    */
-  public boolean match(File checksumFile) throws IOException {
-    return entrySet.equals(entryManager.load(checksumFile));
+  public synchronized boolean match(File checksumFile) throws IOException {
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+    long startTime = nanoTime();
+    try {
+      if (generation.isPresent()) {
+        if (storedChecksum.matches(algorithm.getName(), generation.get())) {
+          complete();
+          return true;
+        }
+        return false;
+      }
+      return storedChecksum.matches(algorithm.getName(), entryTable);
+    } finally {
+      statistics.compared(nanoTime() - startTime);
+    }
+  }
+
+  /**
+   * Paths of the files that are different from the ones of a checksum previously stored to the
+   * given file, relative to the directory of this checksum.
+   *
+   * <p>It includes new, removed and modified files.
+   *
+   * @param checksumFile The file where checksum to compare is in.
+   * 
+   * @return Paths of the changed files, in lexicographical order.
+   * 
+   * @throws IOException If some IO error has been occurred.
+   */
+  public synchronized Set<String> changes(File checksumFile) throws IOException {
+    complete();
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+    long startTime = nanoTime();
+    try {
+      return storedChecksum.changes(algorithm.getName(), entryTable);
+    } finally {
+      statistics.compared(nanoTime() - startTime);
+    }
   }
 
   /**
@@ -65,7 +203,48 @@ public class Checksum {
    * 
    * @throws IOException If some IO error has been occurred.
    */
-  public void store(File checksumFile) throws IOException {
-    entryManager.store(checksumFile, entrySet);
+  public synchronized void store(File checksumFile) throws IOException {
+    complete();
+    entryManager.store(checksumFile, algorithm.getName(), entryTable);
+  }
+
+  /**
+   * Fingerprint of this checksum, that is the same for every directory having the same files with
+   * the same content.
+   *
+   * <p>It is calculated with the algorithm of this checksum, from the path and the hash of every
+   * file. It is suitable as a part of cache keys.
+   *
+   * @return The algorithm name, followed by a colon and the hexadecimal representation of the
+   *         fingerprint.
+   *
+   * @throws IOException If some IO error has been occurred.
+   */
+  public synchronized String fingerprint() throws IOException {
+    complete();
+    try {
+      FingerprintFunction function = algorithm.create();
+      for (int i = 0; i < entryTable.size(); ++i) {
+        byte[] path = entryTable.getPath(i).getBytes(UTF_8);
+        byte[] hash = entryTable.getHash(i);
+        function.update(FingerprintBytes.toBytesBe(path.length, Integer.BYTES), 0, Integer.BYTES);
+        function.update(path, 0, path.length);
+        function.update(hash, 0, hash.length);
+      }
+      return algorithm.getName() + ":" + ChecksumHex.print(function.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void complete() throws IOException {
+    if (generation.isPresent()) {
+      try {
+        entryTable = ChecksumEntryTable.of(entryManager.complete(generation.get()));
+        generation = Optional.empty();
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
   }
 }
@@ -0,0 +1,691 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Math.min;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/*
+ * Normalized hash of an archive file, that only depends on the names and contents of its entries.
+ * Timestamps, permissions, compression methods and the order of entries are ignored, so the same
+ * files archived again have the same hash. Archives within archives, like libraries of a WAR file,
+ * are normalized too.
+ *
+ * Archives are read as streams, without random access. On large archives, entries are hashed by the
+ * threads of the checksum while the following ones are decompressed. The decompressed content
+ * waiting to be hashed is bounded across all archives of the checksum, and entries are hashed by
+ * the calling thread when there is not room for them.
+ *
+ * Files that are not valid archives, or are not supported ones, are not normalized, so they are
+ * hashed as plain files.
+ */
+class ChecksumArchive {
+
+  private static final String[] ZIP_SUFFIXES = {".jar", ".war", ".zip"};
+  private static final String[] TAR_GZ_SUFFIXES = {".tar.gz", ".tgz"};
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long CONCURRENT_THRESHOLD = 16L * 1024L * 1024L;
+  private static final int CONCURRENT_ENTRY_SIZE = 8 * 1024 * 1024;
+  private static final int NESTED_ARCHIVE_SIZE = 64 * 1024 * 1024;
+  private static final byte[] NO_BYTES = {};
+
+  static final int PENDING_SIZE = 64 * 1024 * 1024;
+
+  private static final int TAR_BLOCK_SIZE = 512;
+  private static final int TAR_NAME_OFFSET = 0;
+  private static final int TAR_NAME_LENGTH = 100;
+  private static final int TAR_SIZE_OFFSET = 124;
+  private static final int TAR_SIZE_LENGTH = 12;
+  private static final int TAR_CHECKSUM_OFFSET = 148;
+  private static final int TAR_CHECKSUM_LENGTH = 8;
+  private static final int TAR_TYPE_OFFSET = 156;
+  private static final int TAR_LINK_NAME_OFFSET = 157;
+  private static final int TAR_LINK_NAME_LENGTH = 100;
+  private static final int TAR_MAGIC_OFFSET = 257;
+  private static final int TAR_PREFIX_OFFSET = 345;
+  private static final int TAR_PREFIX_LENGTH = 155;
+  private static final String TAR_USTAR_MAGIC = "ustar";
+  private static final byte TAR_HARD_LINK = '1';
+  private static final byte TAR_SYMBOLIC_LINK = '2';
+  private static final byte TAR_LONG_NAME = 'L';
+  private static final byte TAR_EXTENDED_HEADER = 'x';
+  private static final byte TAR_GLOBAL_HEADER = 'g';
+  private static final String PAX_PATH = "path";
+  private static final String PAX_SIZE = "size";
+
+  private final ChecksumHasher hasher;
+  private final Optional<Executor> executor;
+  private final Semaphore pendingSize;
+  private final byte[] buffer;
+  private final List<String> names;
+  private final List<Future<byte[]>> hashes;
+  private final Queue<PendingHash> pendingHashes;
+
+  private ChecksumArchive(ChecksumHasher hasher, Optional<Executor> executor) {
+    this.hasher = hasher;
+    this.executor = executor;
+    pendingSize = hasher.getArchivePendingSize();
+    buffer = new byte[BUFFER_SIZE];
+    names = new ArrayList<>();
+    hashes = new ArrayList<>();
+    pendingHashes = new ArrayDeque<>();
+  }
+
+  static boolean isArchive(String name) {
+    return isZip(name) || isTarGz(name);
+  }
+
+  static Optional<byte[]> hash(ChecksumHasher hasher, File file)
+      throws IOException, NoSuchAlgorithmException {
+    ChecksumArchive archive = new ChecksumArchive(
+        hasher,
+        hasher.getArchiveExecutor().filter(unused -> file.length() >= CONCURRENT_THRESHOLD));
+    try (InputStream input = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+      return archive.hash(file.getName(), input);
+    }
+  }
+
+  private Optional<byte[]> hash(String name, InputStream input)
+      throws IOException, NoSuchAlgorithmException {
+    try {
+      boolean valid = isZip(name)
+          ? readZip(input)
+          : readTarGz(input);
+      return valid && !names.isEmpty()
+          ? Optional.of(combine())
+          : Optional.empty();
+    } catch (ZipException | EOFException | IllegalArgumentException e) {
+      return Optional.empty();
+    } finally {
+      pendingHashes.forEach(PendingHash::discard);
+    }
+  }
+
+  private boolean readZip(InputStream input) throws IOException, NoSuchAlgorithmException {
+    ZipInputStream zip = new ZipInputStream(input);
+    for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+      add(entry.getName(), zip);
+    }
+    return true;
+  }
+
+  /*
+   * Names are taken from GNU long name entries and PAX extended headers when they are present, as
+   * well as sizes of PAX extended headers. Links are hashed by their target.
+   */
+  private boolean readTarGz(InputStream input) throws IOException, NoSuchAlgorithmException {
+    InputStream tar = new GZIPInputStream(input, BUFFER_SIZE);
+    byte[] header = new byte[TAR_BLOCK_SIZE];
+    Optional<String> nextName = Optional.empty();
+    Optional<Long> nextSize = Optional.empty();
+    while (readBlock(tar, header)) {
+      if (isZeroBlock(header)) {
+        return true;
+      }
+      if (!isValidTarHeader(header)) {
+        return false;
+      }
+      long size = nextSize.orElse(tarNumber(header, TAR_SIZE_OFFSET, TAR_SIZE_LENGTH));
+      TarEntryInputStream content = new TarEntryInputStream(tar, size);
+      byte type = header[TAR_TYPE_OFFSET];
+      if (type == TAR_LONG_NAME) {
+        byte[] longName = readAll(content);
+        nextName = Optional.of(tarString(longName, 0, longName.length));
+      } else if (type == TAR_EXTENDED_HEADER) {
+        String records = new String(readAll(content), UTF_8);
+        nextName = paxRecord(records, PAX_PATH);
+        nextSize = paxRecord(records, PAX_SIZE).map(Long::parseLong);
+      } else if (type != TAR_GLOBAL_HEADER) {
+        String name = nextName.orElse(tarName(header));
+        if (type == TAR_HARD_LINK || type == TAR_SYMBOLIC_LINK) {
+          add(name, new ByteArrayInputStream(
+              tarString(header, TAR_LINK_NAME_OFFSET, TAR_LINK_NAME_LENGTH).getBytes(UTF_8)));
+        } else {
+          add(name, content);
+        }
+        nextName = Optional.empty();
+        nextSize = Optional.empty();
+      }
+      content.skipRemaining();
+    }
+    return true;
+  }
+
+  /*
+   * Nested archives larger than a limit are hashed as plain files, like those that are not valid
+   * archives.
+   */
+  private void add(String name, InputStream content)
+      throws IOException, NoSuchAlgorithmException {
+    names.add(name);
+    boolean archive = isArchive(name);
+    if (!executor.isPresent()) {
+      hashes.add(CompletableFuture.completedFuture(archive
+          ? hashNested(name, NO_BYTES, content)
+          : digest(NO_BYTES, content)));
+      return;
+    }
+    int limit = archive
+        ? NESTED_ARCHIVE_SIZE
+        : CONCURRENT_ENTRY_SIZE;
+    PendingContent pendingContent = readPending(content, limit);
+    byte[] bytes = pendingContent.bytes;
+    if (pendingContent.complete) {
+      submit(bytes.length, archive
+          ? () -> hashNested(name, bytes, new ByteArrayInputStream(NO_BYTES))
+          : () -> digest(bytes));
+      return;
+    }
+    try {
+      hashes.add(CompletableFuture.completedFuture(archive
+          ? hashNested(name, bytes, content)
+          : digest(bytes, content)));
+    } finally {
+      pendingSize.release(bytes.length);
+    }
+  }
+
+  /*
+   * Content is read once, and hashed as a plain file at the same time, so that hash is taken when
+   * it is not a valid archive, or it is too large.
+   */
+  private byte[] hashNested(String name, byte[] head, InputStream tail)
+      throws IOException, NoSuchAlgorithmException {
+    if (head.length >= NESTED_ARCHIVE_SIZE) {
+      return digest(head, tail);
+    }
+    FingerprintFunction digest = hasher.acquireFunction();
+    DigestingInputStream content = new DigestingInputStream(head, tail, digest);
+    Optional<byte[]> hash = new ChecksumArchive(hasher, Optional.empty()).hash(name, content);
+    content.skipRemaining();
+    byte[] plainHash = hasher.releaseFunction(digest);
+    return hash.isPresent() && content.size < NESTED_ARCHIVE_SIZE
+        ? hash.get()
+        : plainHash;
+  }
+
+  /*
+   * Content is kept in memory below the given limit, while there is room for it. The oldest pending
+   * hashes of this archive are awaited when there is not, so their room could be taken. It is not
+   * complete when it is left on the input, and its room is still taken then.
+   */
+  private PendingContent readPending(InputStream input, int limit)
+      throws IOException, NoSuchAlgorithmException {
+    byte[] bytes = new byte[min(limit, BUFFER_SIZE)];
+    int length = 0;
+    int acquired = 0;
+    boolean complete = false;
+    try {
+      while (length < limit) {
+        if (length == acquired) {
+          int size = min(BUFFER_SIZE, limit - length);
+          if (!acquire(size)) {
+            break;
+          }
+          acquired += size;
+        }
+        if (length == bytes.length) {
+          bytes = Arrays.copyOf(bytes, (int) min(limit, 2L * bytes.length));
+        }
+        int read = input.read(bytes, length, acquired - length);
+        if (read < 0) {
+          complete = true;
+          break;
+        }
+        length += read;
+      }
+    } finally {
+      pendingSize.release(acquired - length);
+    }
+    return new PendingContent(
+        length == bytes.length
+            ? bytes
+            : Arrays.copyOf(bytes, length),
+        complete);
+  }
+
+  private boolean acquire(int size) throws IOException, NoSuchAlgorithmException {
+    while (!pendingSize.tryAcquire(size)) {
+      if (pendingHashes.isEmpty()) {
+        return false;
+      }
+      pendingHashes.remove().await();
+    }
+    return true;
+  }
+
+  /*
+   * Hashes are calculated by the threads of the checksum, and by the calling thread when they are
+   * awaited before being started, so awaiting them never waits for a thread to be available.
+   */
+  private void submit(int size, ChecksumArchiveTask task) {
+    PendingHash hash = new PendingHash(task, size);
+    hashes.add(hash);
+    pendingHashes.add(hash);
+    try {
+      executor.get().execute(hash);
+    } catch (RejectedExecutionException e) {
+      // Calculated when awaited
+    }
+  }
+
+  private byte[] digest(byte[] bytes) throws NoSuchAlgorithmException {
+    FingerprintFunction digest = hasher.acquireFunction();
+    digest.update(bytes, 0, bytes.length);
+    return hasher.releaseFunction(digest);
+  }
+
+  /*
+   * The buffer of the archive is only used by the calling thread.
+   */
+  private byte[] digest(byte[] head, InputStream tail)
+      throws IOException, NoSuchAlgorithmException {
+    FingerprintFunction digest = hasher.acquireFunction();
+    digest.update(head, 0, head.length);
+    for (int read = tail.read(buffer); read >= 0; read = tail.read(buffer)) {
+      digest.update(buffer, 0, read);
+    }
+    return hasher.releaseFunction(digest);
+  }
+
+  /*
+   * Entries are sorted by name, and then by hash when there are many of them with the same name.
+   * Name lengths are hashed too, so a name could not be taken as part of another one.
+   */
+  private byte[] combine() throws IOException, NoSuchAlgorithmException {
+    List<ChecksumEntry> entries = new ArrayList<>(names.size());
+    for (int i = 0; i < names.size(); ++i) {
+      entries.add(new ChecksumEntry(names.get(i), await(hashes.get(i))));
+    }
+    entries.sort(comparing(ChecksumEntry::getPath)
+        .thenComparing(entry -> entry.hash, ChecksumArchive::compareHashes));
+    FingerprintFunction digest = hasher.acquireFunction();
+    digest.update(FingerprintBytes.toBytesBe(entries.size(), Integer.BYTES), 0, Integer.BYTES);
+    for (ChecksumEntry entry : entries) {
+      byte[] name = entry.path.getBytes(UTF_8);
+      digest.update(FingerprintBytes.toBytesBe(name.length, Integer.BYTES), 0, Integer.BYTES);
+      digest.update(name, 0, name.length);
+      digest.update(entry.hash, 0, entry.hash.length);
+    }
+    return hasher.releaseFunction(digest);
+  }
+
+  private static byte[] await(Future<byte[]> hash) throws IOException, NoSuchAlgorithmException {
+    if (hash instanceof PendingHash) {
+      ((PendingHash) hash).run();
+    }
+    try {
+      return ChecksumExecution.get(hash);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Archive normalization interrupted");
+    }
+  }
+
+  private static int compareHashes(byte[] hash, byte[] anotherHash) {
+    for (int i = 0; i < min(hash.length, anotherHash.length); ++i) {
+      int result = Integer.compare(hash[i] & 0xff, anotherHash[i] & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(hash.length, anotherHash.length);
+  }
+
+  private static byte[] readAtMost(InputStream input, int limit) throws IOException {
+    byte[] bytes = new byte[min(limit, BUFFER_SIZE)];
+    int length = 0;
+    while (length < limit) {
+      if (length == bytes.length) {
+        bytes = Arrays.copyOf(bytes, (int) min(limit, 2L * bytes.length));
+      }
+      int read = input.read(bytes, length, bytes.length - length);
+      if (read < 0) {
+        break;
+      }
+      length += read;
+    }
+    return length == bytes.length
+        ? bytes
+        : Arrays.copyOf(bytes, length);
+  }
+
+  private static byte[] readAll(InputStream input) throws IOException {
+    return readAtMost(input, Integer.MAX_VALUE - BUFFER_SIZE);
+  }
+
+  private static boolean readBlock(InputStream input, byte[] block) throws IOException {
+    int length = 0;
+    while (length < block.length) {
+      int read = input.read(block, length, block.length - length);
+      if (read < 0) {
+        if (length == 0) {
+          return false;
+        }
+        throw new EOFException("Truncated TAR header");
+      }
+      length += read;
+    }
+    return true;
+  }
+
+  private static boolean isZeroBlock(byte[] block) {
+    for (byte value : block) {
+      if (value != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Header checksums are calculated as if their own field was filled with spaces.
+   */
+  private static boolean isValidTarHeader(byte[] header) {
+    long checksum = 0L;
+    for (int i = 0; i < header.length; ++i) {
+      checksum += i >= TAR_CHECKSUM_OFFSET && i < TAR_CHECKSUM_OFFSET + TAR_CHECKSUM_LENGTH
+          ? ' '
+          : header[i] & 0xff;
+    }
+    return checksum == tarNumber(header, TAR_CHECKSUM_OFFSET, TAR_CHECKSUM_LENGTH);
+  }
+
+  /*
+   * Numbers are written in octal, unless they do not fit, where GNU base-256 encoding is used.
+   */
+  private static long tarNumber(byte[] header, int offset, int length) {
+    long number = 0L;
+    if ((header[offset] & 0x80) != 0) {
+      for (int i = offset + 1; i < offset + length; ++i) {
+        number = (number << 8) | (header[i] & 0xff);
+      }
+      return number;
+    }
+    int i = offset;
+    while (i < offset + length && (header[i] == ' ' || header[i] == 0)) {
+      ++i;
+    }
+    for (; i < offset + length && header[i] >= '0' && header[i] <= '7'; ++i) {
+      number = (number << 3) | (header[i] - '0');
+    }
+    return number;
+  }
+
+  private static String tarName(byte[] header) {
+    String name = tarString(header, TAR_NAME_OFFSET, TAR_NAME_LENGTH);
+    if (!tarString(header, TAR_MAGIC_OFFSET, TAR_USTAR_MAGIC.length()).equals(TAR_USTAR_MAGIC)) {
+      return name;
+    }
+    String prefix = tarString(header, TAR_PREFIX_OFFSET, TAR_PREFIX_LENGTH);
+    return prefix.isEmpty()
+        ? name
+        : prefix + "/" + name;
+  }
+
+  private static String tarString(byte[] bytes, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && bytes[end] != 0) {
+      ++end;
+    }
+    return new String(bytes, offset, end - offset, UTF_8);
+  }
+
+  /*
+   * Records have the form "<length> <key>=<value>\n", where the length includes the whole record.
+   */
+  private static Optional<String> paxRecord(String records, String key) {
+    Optional<String> value = Optional.empty();
+    int position = 0;
+    while (position < records.length()) {
+      int space = records.indexOf(' ', position);
+      if (space < 0) {
+        break;
+      }
+      int end = position + Integer.parseInt(records.substring(position, space));
+      String record = records.substring(space + 1, min(end, records.length()) - 1);
+      if (record.startsWith(key + "=")) {
+        value = Optional.of(record.substring(key.length() + 1));
+      }
+      position = end;
+    }
+    return value;
+  }
+
+  private static boolean isZip(String name) {
+    return hasSuffix(name, ZIP_SUFFIXES);
+  }
+
+  private static boolean isTarGz(String name) {
+    return hasSuffix(name, TAR_GZ_SUFFIXES);
+  }
+
+  private static boolean hasSuffix(String name, String[] suffixes) {
+    String lowerCaseName = name.toLowerCase(Locale.ROOT);
+    for (String suffix : suffixes) {
+      if (lowerCaseName.endsWith(suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private interface ChecksumArchiveTask extends Callable<byte[]> {
+
+    @Override
+    byte[] call() throws IOException, NoSuchAlgorithmException;
+  }
+
+  private static class PendingContent {
+
+    private final byte[] bytes;
+    private final boolean complete;
+
+    private PendingContent(byte[] bytes, boolean complete) {
+      this.bytes = bytes;
+      this.complete = complete;
+    }
+  }
+
+  /*
+   * The room of the content is released when its hash is calculated, or when it is discarded before
+   * being started. Those being calculated are awaited when discarded, so their content is not
+   * released while it is still being read.
+   */
+  private class PendingHash extends FutureTask<byte[]> {
+
+    private final int size;
+    private final AtomicBoolean started;
+
+    private PendingHash(ChecksumArchiveTask task, int size) {
+      super(task);
+      this.size = size;
+      started = new AtomicBoolean();
+    }
+
+    @Override
+    public void run() {
+      if (started.compareAndSet(false, true)) {
+        try {
+          super.run();
+        } finally {
+          pendingSize.release(size);
+        }
+      }
+    }
+
+    private void await() throws IOException, NoSuchAlgorithmException {
+      ChecksumArchive.await(this);
+    }
+
+    private void discard() {
+      if (started.compareAndSet(false, true)) {
+        cancel(false);
+        pendingSize.release(size);
+        return;
+      }
+      try {
+        get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException | CancellationException e) {
+        // Already reported, or not needed
+      }
+    }
+  }
+
+  /*
+   * Content already read is followed by the rest of it. Both are hashed as they are read, including
+   * those that are skipped. The rest of the content is not closed, since it is owned by the archive
+   * that contains this one.
+   */
+  private static class DigestingInputStream extends FilterInputStream {
+
+    private final byte[] head;
+    private final FingerprintFunction digest;
+    private final byte[] skipBuffer;
+    private long size;
+
+    private DigestingInputStream(byte[] head, InputStream tail, FingerprintFunction digest) {
+      super(tail);
+      this.head = head;
+      this.digest = digest;
+      skipBuffer = new byte[BUFFER_SIZE];
+      size = 0L;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) < 0
+          ? -1
+          : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      int read = size < head.length
+          ? readHead(bytes, offset, length)
+          : in.read(bytes, offset, length);
+      if (read > 0) {
+        digest.update(bytes, offset, read);
+        size += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+      int read = read(skipBuffer, 0, (int) min(length, skipBuffer.length));
+      return read < 0
+          ? 0L
+          : read;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() {}
+
+    private void skipRemaining() throws IOException {
+      while (read(skipBuffer, 0, skipBuffer.length) >= 0) {
+        // Hashed while read
+      }
+    }
+
+    private int readHead(byte[] bytes, int offset, int length) {
+      int read = (int) min(length, head.length - size);
+      System.arraycopy(head, (int) size, bytes, offset, read);
+      return read;
+    }
+  }
+
+  /*
+   * Content of a single entry, followed by the padding up to the next block, that is skipped too.
+   */
+  private static class TarEntryInputStream extends FilterInputStream {
+
+    private long remaining;
+    private long padding;
+
+    private TarEntryInputStream(InputStream input, long size) {
+      super(input);
+      remaining = size;
+      padding = (TAR_BLOCK_SIZE - size % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) < 0
+          ? -1
+          : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      if (remaining == 0L) {
+        return -1;
+      }
+      int read = in.read(bytes, offset, (int) min(length, remaining));
+      if (read < 0) {
+        throw new EOFException("Truncated TAR entry");
+      }
+      remaining -= read;
+      return read;
+    }
+
+    @Override
+    public void close() {}
+
+    private void skipRemaining() throws IOException {
+      for (long toSkip = remaining + padding; toSkip > 0L; ) {
+        long skipped = in.skip(toSkip);
+        if (skipped <= 0L) {
+          if (in.read() < 0) {
+            throw new EOFException("Truncated TAR entry");
+          }
+          skipped = 1L;
+        }
+        toSkip -= skipped;
+      }
+      remaining = 0L;
+      padding = 0L;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Optional;
+
+/*
+ * Header is made of a magic number, the format version, the algorithm name and the length of all
+ * hashes. It is followed by the number of entries, the table of their paths, each one prefixed by
+ * its length, and the hashes in the same order. Multi-byte values are big-endian.
+ */
+final class ChecksumBinaryFile {
+
+  private static final byte[] MAGIC = {(byte) 0x89, 'C', 'H', 'K'};
+  private static final int VERSION = 1;
+
+  private ChecksumBinaryFile() {}
+
+  static boolean isBinary(FileChannel channel) throws IOException {
+    ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+    while (magic.hasRemaining()) {
+      if (channel.read(magic) < 0) {
+        return false;
+      }
+    }
+    return Arrays.equals(MAGIC, magic.array());
+  }
+
+  /*
+   * Files that are malformed, or that are stored by an unknown version, are unreadable, so they are
+   * stored again instead of failing.
+   *
+   * Files are small enough to be read on the heap. Mapping them would keep them mapped until the
+   * buffer is collected, preventing them from being replaced or deleted on some platforms.
+   */
+  static StoredChecksum load(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      return StoredChecksum.unreadable();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, buffer.position()) < 0) {
+        return StoredChecksum.unreadable();
+      }
+    }
+    buffer.flip();
+    try {
+      buffer.position(MAGIC.length);
+      int version = buffer.getShort() & 0xffff;
+      if (version != VERSION) {
+        return StoredChecksum.unreadable();
+      }
+      final String algorithm = new String(bytes(buffer, buffer.get() & 0xff), UTF_8);
+      int hashLength = buffer.getShort() & 0xffff;
+      int count = buffer.getInt();
+      if (count < 0 || (long) count * (Short.BYTES + hashLength) > buffer.remaining()) {
+        return StoredChecksum.unreadable();
+      }
+      ByteBuffer hashes = buffer.duplicate();
+      hashes.position(hashesPosition(buffer, count));
+      ChecksumEntryTable.Builder builder = new ChecksumEntryTable.Builder(count);
+      for (int i = 0; i < count; ++i) {
+        builder.add(buffer, buffer.getShort() & 0xffff, hashes, hashLength);
+      }
+      return new StoredChecksum(Optional.of(algorithm), builder.build());
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      // Malformed file...
+      return StoredChecksum.unreadable();
+    }
+  }
+
+  /*
+   * Entries of the table are already sorted by path.
+   */
+  static void store(File checksumFile, String algorithm, ChecksumEntryTable entryTable)
+      throws IOException {
+    int hashLength = entryTable.isEmpty()
+        ? 0
+        : entryTable.getHash(0).length;
+    File tempFile = new File(checksumFile.getPath() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(tempFile)))) {
+      output.write(MAGIC);
+      output.writeShort(VERSION);
+      byte[] algorithmBytes = algorithm.getBytes(UTF_8);
+      output.writeByte(requireLength(algorithmBytes.length, 0xff));
+      output.write(algorithmBytes);
+      output.writeShort(hashLength);
+      output.writeInt(entryTable.size());
+      for (int i = 0; i < entryTable.size(); ++i) {
+        byte[] pathBytes = entryTable.getPath(i).getBytes(UTF_8);
+        output.writeShort(requireLength(pathBytes.length, 0xffff));
+        output.write(pathBytes);
+      }
+      for (int i = 0; i < entryTable.size(); ++i) {
+        byte[] hash = entryTable.getHash(i);
+        if (hash.length != hashLength) {
+          throw new IOException("All hashes must have the same length");
+        }
+        output.write(hash);
+      }
+    }
+    move(tempFile.toPath(), checksumFile.toPath(), ATOMIC_MOVE);
+  }
+
+  private static int requireLength(int length, int maxLength) throws IOException {
+    if (length > maxLength) {
+      throw new IOException(format("Length %d exceeds the maximum of %d", length, maxLength));
+    }
+    return length;
+  }
+
+  /*
+   * Hashes are after all paths, whose lengths must be skipped one by one.
+   */
+  private static int hashesPosition(ByteBuffer buffer, int count) {
+    ByteBuffer paths = buffer.duplicate();
+    for (int i = 0; i < count; ++i) {
+      int length = paths.getShort() & 0xffff;
+      paths.position(paths.position() + length);
+    }
+    return paths.position();
+  }
+
+  private static byte[] bytes(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,57 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of directory files and their hashes, that is kept in memory between checksums.
+ *
+ * <p>It is intended to be held by long-lived processes, where checksums of the same directories are
+ * calculated many times. Cached directories are watched for changes, so only those files reported
+ * as changed are read again.
+ *
+ * <p>The cache is only used by checksums whose settings have a positive cache size. Least recently
+ * used directories are evicted when there are more than that.
+ *
+ * @see ChecksumSettings#getCacheSize()
+ */
+public class ChecksumCache implements Closeable {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  final Map<File, ChecksumCacheEntry> entries;
+
+  /**
+   * Empty cache.
+   */
+  public ChecksumCache() {
+    entries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+  }
+
+  /**
+   * Release all cached directories, so they are not watched anymore.
+   */
+  @Override
+  public synchronized void close() {
+    entries.values().forEach(ChecksumCacheEntry::close);
+    entries.clear();
+  }
+
+  synchronized ChecksumCacheEntry getEntry(File directory, int size) throws IOException {
+    File canonicalDirectory = directory.getCanonicalFile();
+    ChecksumCacheEntry entry = entries.computeIfAbsent(
+        canonicalDirectory,
+        key -> new ChecksumCacheEntry(key.toPath()));
+    Iterator<ChecksumCacheEntry> it = entries.values().iterator();
+    while (entries.size() > size) {
+      it.next().close();
+      it.remove();
+    }
+    return entry;
+  }
+}
@@ -0,0 +1,293 @@
+package com.github.codeteapot.tools.checksum;
+
+import static com.github.codeteapot.tools.checksum.ChecksumEntryManager.regularFileAttributes;
+import static java.lang.System.nanoTime;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.readAttributes;
+import static java.nio.file.Files.walkFileTree;
+import static java.nio.file.Files.write;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/*
+ * Files of a directory, kept up to date through a watch service, so only those reported as changed
+ * are looked up again. The whole directory is walked again when some event could have been lost,
+ * or when it could not be watched at all.
+ *
+ * A fence file, on a temporary directory watched by the same service, is modified before looking
+ * for events. Once its event is reported, those of previous changes have already been reported too.
+ *
+ * Hashes of the last generation are kept as an in-memory index, so they are reused while metadata
+ * of their files does not change. Files reported as changed are hashed again anyway. When the whole
+ * directory is walked again, only those whose metadata changed are.
+ */
+class ChecksumCacheEntry {
+
+  private static final String POLLING_WATCH_SERVICE_SUFFIX = "PollingWatchService";
+  private static final String FENCE_DIRECTORY_PREFIX = "checksum-cache-";
+  private static final String FENCE_FILE_NAME = "fence";
+  private static final byte[] FENCE_CONTENT = {0x00};
+  private static final long FENCE_TIMEOUT = SECONDS.toNanos(1L);
+
+  private final Path directory;
+  private final Map<String, ChecksumPath> paths;
+  private final Set<String> directories;
+  private final Set<String> changedPaths;
+  private Optional<WatchService> watchService;
+  private Optional<Path> fence;
+  private ChecksumIgnoreRules ignoreRules;
+  private boolean walked;
+  private String algorithm;
+  private ChecksumIndex index;
+
+  ChecksumCacheEntry(Path directory) {
+    this.directory = directory;
+    paths = new HashMap<>();
+    directories = new HashSet<>();
+    changedPaths = new HashSet<>();
+    watchService = Optional.empty();
+    fence = Optional.empty();
+    ignoreRules = ChecksumIgnoreRules.empty();
+    walked = false;
+    algorithm = null;
+    index = ChecksumIndex.empty();
+  }
+
+  /*
+   * Changing the ignore rules makes the whole directory to be walked again, since ignored
+   * subdirectories are not watched.
+   */
+  synchronized List<ChecksumPath> refresh(ChecksumIgnoreRules ignoreRules,
+      Predicate<Path> excluded) throws IOException {
+    if (walked && fence.isPresent() && ignoreRules.equals(this.ignoreRules)) {
+      Optional<Set<Path>> changedFiles = pollChanges();
+      if (changedFiles.isPresent()) {
+        for (Path file : changedFiles.get()) {
+          update(file, excluded);
+        }
+        return new ArrayList<>(paths.values());
+      }
+    }
+    this.ignoreRules = ignoreRules;
+    walk(excluded);
+    return new ArrayList<>(paths.values());
+  }
+
+  synchronized Optional<ChecksumIndex> getIndex(String algorithm) {
+    return Optional.of(algorithm)
+        .filter(name -> name.equals(this.algorithm))
+        .map(name -> index.exclude(new HashSet<>(changedPaths)));
+  }
+
+  synchronized void setIndex(String algorithm, long timestamp, List<ChecksumIndexRecord> records) {
+    this.algorithm = algorithm;
+    index = ChecksumIndex.of(timestamp, records);
+    changedPaths.clear();
+  }
+
+  synchronized void close() {
+    unwatch();
+    walked = false;
+  }
+
+  /*
+   * Events are reported asynchronously, so the fence file is modified in order to wait until all
+   * events that occurred before are reported. They are empty when some event could have been lost.
+   */
+  private Optional<Set<Path>> pollChanges() throws IOException {
+    WatchService service = watchService.get();
+    Path fenceFile = fence.get();
+    Path fenceDirectory = fenceFile.getParent();
+    write(fenceFile, FENCE_CONTENT);
+    long deadline = nanoTime() + FENCE_TIMEOUT;
+    Set<Path> changedFiles = new HashSet<>();
+    boolean fenced = false;
+    try {
+      while (!fenced) {
+        WatchKey key = service.poll(deadline - nanoTime(), NANOSECONDS);
+        if (key == null) {
+          return Optional.empty();
+        }
+        Path keyDirectory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == OVERFLOW) {
+            return Optional.empty();
+          }
+          if (keyDirectory.equals(fenceDirectory)) {
+            fenced = true;
+          } else {
+            changedFiles.add(keyDirectory.resolve((Path) event.context()));
+          }
+        }
+        if (!key.reset()
+            && (keyDirectory.equals(directory) || keyDirectory.equals(fenceDirectory))) {
+          return Optional.empty();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Optional.empty();
+    }
+    return Optional.of(changedFiles);
+  }
+
+  /*
+   * Polling watch services detect changes only after several seconds, so they are not reliable
+   * enough. The directory is walked on each refresh instead, as when it cannot be watched.
+   */
+  private void walk(Predicate<Path> excluded) throws IOException {
+    unwatch();
+    try {
+      watchService = Optional.of(directory.getFileSystem().newWatchService());
+      if (watchService.get().getClass().getName().endsWith(POLLING_WATCH_SERVICE_SUFFIX)) {
+        unwatch();
+      } else {
+        Path fenceDirectory = createTempDirectory(FENCE_DIRECTORY_PREFIX);
+        fence = Optional.of(fenceDirectory.resolve(FENCE_FILE_NAME));
+        register(fenceDirectory);
+      }
+    } catch (UnsupportedOperationException e) {
+      // Not watched...
+      unwatch();
+    }
+    final Map<String, ChecksumPath> previousPaths = new HashMap<>(paths);
+    paths.clear();
+    directories.clear();
+    walk(directory, excluded);
+    previousPaths.forEach((relativePath, previousPath) -> {
+      if (!Optional.ofNullable(paths.get(relativePath))
+          .filter(path -> isUnmodified(previousPath, path))
+          .isPresent()) {
+        changedPaths.add(relativePath);
+      }
+    });
+    walked = true;
+  }
+
+  private void walk(Path start, Predicate<Path> excluded) throws IOException {
+    walkFileTree(start, new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+          throws IOException {
+        if (!dir.equals(directory) && ignoreRules.isIgnored(relativePath(dir), true)) {
+          return SKIP_SUBTREE;
+        }
+        directories.add(relativePath(dir));
+        register(dir);
+        return CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (!excluded.test(file) && !ignoreRules.isIgnored(relativePath(file), false)) {
+          regularFileAttributes(file, attrs)
+              .map(regularAttrs -> new ChecksumPath(directory.toFile(), file, regularAttrs))
+              .ifPresent(path -> paths.put(path.getRelativePath(), path));
+        }
+        return CONTINUE;
+      }
+    });
+  }
+
+  private void update(Path file, Predicate<Path> excluded) throws IOException {
+    String relativePath = relativePath(file);
+    changedPaths.add(relativePath);
+    paths.remove(relativePath);
+    if (directories.remove(relativePath)) {
+      String prefix = relativePath + File.separator;
+      directories.removeIf(path -> path.startsWith(prefix));
+      for (Iterator<String> it = paths.keySet().iterator(); it.hasNext();) {
+        String path = it.next();
+        if (path.startsWith(prefix)) {
+          changedPaths.add(path);
+          it.remove();
+        }
+      }
+    }
+    try {
+      BasicFileAttributes attrs = readAttributes(file, BasicFileAttributes.class, NOFOLLOW_LINKS);
+      if (attrs.isDirectory()) {
+        walk(file, excluded);
+      } else if (!excluded.test(file) && !ignoreRules.isIgnored(relativePath, false)) {
+        regularFileAttributes(file, attrs)
+            .map(regularAttrs -> new ChecksumPath(directory.toFile(), file, regularAttrs))
+            .ifPresent(path -> paths.put(path.getRelativePath(), path));
+      }
+    } catch (NoSuchFileException e) {
+      // Removed...
+    }
+  }
+
+  /*
+   * Directories that cannot be watched, usually because of system limits, make the whole directory
+   * to be walked on each refresh.
+   */
+  private void register(Path dir) {
+    if (watchService.isPresent()) {
+      try {
+        dir.register(watchService.get(), ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+      } catch (IOException e) {
+        // Not watched...
+        unwatch();
+      }
+    }
+  }
+
+  /*
+   * Files whose metadata did not change since they were walked before are still found on the index.
+   */
+  private static boolean isUnmodified(ChecksumPath previousPath, ChecksumPath path) {
+    return previousPath.getSize() == path.getSize()
+        && previousPath.getLastModified() == path.getLastModified()
+        && previousPath.getFileKey().equals(path.getFileKey());
+  }
+
+  private String relativePath(Path path) {
+    return directory.relativize(path).toString();
+  }
+
+  private void unwatch() {
+    try {
+      if (watchService.isPresent()) {
+        watchService.get().close();
+      }
+      if (fence.isPresent()) {
+        deleteIfExists(fence.get());
+        deleteIfExists(fence.get().getParent());
+      }
+    } catch (IOException e) {
+      // Already released...
+    }
+    watchService = Optional.empty();
+    fence = Optional.empty();
+  }
+}
@@ -1,8 +1,6 @@
 package com.github.codeteapot.tools.checksum;
 
 import static java.lang.String.format;
-import static javax.xml.bind.DatatypeConverter.parseHexBinary;
-import static javax.xml.bind.DatatypeConverter.printHexBinary;
 
 import java.util.Arrays;
 
@@ -18,13 +16,19 @@ class ChecksumEntry {
 
   @Override
   public int hashCode() {
-    return path.hashCode();
+    return 31 * path.hashCode() + Arrays.hashCode(hash);
   }
 
   @Override
   public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ChecksumEntry)) {
+      return false;
+    }
     ChecksumEntry entry = (ChecksumEntry) obj;
-    return Arrays.equals(hash, entry.hash);
+    return path.equals(entry.path) && Arrays.equals(hash, entry.hash);
   }
 
   @Override
@@ -37,15 +41,13 @@ class ChecksumEntry {
   }
 
   static ChecksumEntry parse(String str) {
-    String[] parts = str.split(" ");
-    return new ChecksumEntry(parts[1], convert(parts[0]));
+    int separator = str.indexOf(' ');
+    return new ChecksumEntry(
+        str.substring(separator + 1),
+        ChecksumHex.parse(str, 0, separator));
   }
 
   private static String convert(byte[] bytes) {
-    return printHexBinary(bytes);
-  }
-
-  private static byte[] convert(String str) {
-    return parseHexBinary(str);
+    return ChecksumHex.print(bytes);
   }
 }
@@ -1,114 +1,401 @@
 package com.github.codeteapot.tools.checksum;
 
-import static java.nio.file.Files.walk;
-import static java.util.Collections.emptySet;
-import static java.util.Comparator.comparing;
-import static java.util.stream.Collectors.toSet;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.nio.file.Files.readAttributes;
+import static java.nio.file.Files.walkFileTree;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.security.MessageDigest;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 class ChecksumEntryManager {
 
-  private static final int DIGEST_BUFFER_SIZE = 4 * 1024;
+  private static final String HEADER_PREFIX = "#";
+  private static final String LEGACY_ALGORITHM = "SHA-256";
 
-  ChecksumEntryManager() {}
+  private final ChecksumExecutor executor;
+  private final ChecksumHasherFactory hasherFactory;
+  private final Optional<File> indexFile;
+  private final boolean paranoid;
+  private final ChecksumIgnoreRules ignoreRules;
+  private final ChecksumFormat format;
+  private final Optional<ChecksumCache> cache;
+  private final int cacheSize;
+  private final Optional<File> hashCacheDirectory;
+  private final int hashCacheSize;
+  private final ChecksumStatistics statistics;
 
-  public Set<ChecksumEntry> generate(MessageDigestCreator digestCreator, String algorithm,
-      File directory, Predicate<String> ignoreFile) throws IOException, NoSuchAlgorithmException {
-    try {
-      return walk(directory.toPath())
-          .filter(ChecksumEntryManager::isRegularFile)
-          .map(path -> new ChecksumPath(directory, path))
-          .filter(path -> path.isNotIgnored(ignoreFile))
-          .map(path -> path.toChecksumEntry(digestCreator, algorithm))
-          .collect(toSet());
-    } catch (UncheckedIOException e) {
-      throw e.getCause();
-    } catch (UncheckedNoSuchAlgorithmException e) {
-      throw e.getCause();
+  ChecksumEntryManager() {
+    this(new ChecksumSettings());
+  }
+
+  ChecksumEntryManager(ChecksumSettings settings) {
+    this(settings, Optional.empty());
+  }
+
+  ChecksumEntryManager(ChecksumSettings settings, Optional<ChecksumCache> cache) {
+    this(
+        new ChecksumExecutor(settings.getThreads(), settings.getIoConcurrency()),
+        algorithm -> new ChecksumHasher(
+            algorithm,
+            settings.getBufferSize(),
+            settings.getMappingThreshold(),
+            settings.getMappingWindowSize(),
+            settings.getSegmentThreshold(),
+            settings.getSegmentSize(),
+            settings.isNormalizeArchives()),
+        settings.getIndexFile(),
+        settings.isParanoid(),
+        settings.getIgnoreRules(),
+        settings.getFormat(),
+        cache.filter(unused -> settings.getCacheSize() > 0),
+        settings.getCacheSize(),
+        settings.getHashCacheDirectory(),
+        settings.getHashCacheSize(),
+        settings.getStatistics());
+  }
+
+  ChecksumEntryManager(
+      ChecksumExecutor executor,
+      ChecksumHasherFactory hasherFactory,
+      Optional<File> indexFile,
+      boolean paranoid,
+      ChecksumIgnoreRules ignoreRules,
+      ChecksumFormat format,
+      Optional<ChecksumCache> cache,
+      int cacheSize,
+      Optional<File> hashCacheDirectory,
+      int hashCacheSize,
+      ChecksumStatistics statistics) {
+    this.executor = executor;
+    this.hasherFactory = hasherFactory;
+    this.indexFile = indexFile;
+    this.paranoid = paranoid;
+    this.ignoreRules = ignoreRules;
+    this.format = format;
+    this.cache = cache;
+    this.cacheSize = cacheSize;
+    this.hashCacheDirectory = hashCacheDirectory;
+    this.hashCacheSize = hashCacheSize;
+    this.statistics = statistics;
+  }
+
+  public Set<ChecksumEntry> generate(FingerprintAlgorithm algorithm, File directory,
+      Predicate<String> ignoreFile) throws IOException, NoSuchAlgorithmException {
+    return complete(start(algorithm, directory, ignoreFile));
+  }
+
+  /*
+   * Paths pointing to a file whose hash is taken from the index, like hard links to it, reuse that
+   * hash instead of being read. Otherwise, it is looked up on the host-wide hash cache.
+   */
+  public ChecksumGeneration start(FingerprintAlgorithm algorithm, File directory,
+      Predicate<String> ignoreFile) throws IOException {
+    final long startTime = nanoTime();
+    final long timestamp = MILLISECONDS.toNanos(currentTimeMillis());
+    Optional<ChecksumCacheEntry> cacheEntry = getCacheEntry(directory);
+    List<ChecksumPath> paths = cacheEntry.isPresent()
+        ? cacheEntry.get().refresh(ignoreRules, canonicalIndexFile()).stream()
+            .filter(path -> isNotIgnored(path, ignoreFile))
+            .collect(toList())
+        : walk(directory, ignoreFile);
+    ChecksumIndex index = loadIndex(algorithm.getName(), cacheEntry);
+    ChecksumHasher hasher = hasherFactory.getHasher(algorithm);
+    Set<ChecksumEntry> indexedEntrySet = new HashSet<>();
+    Map<String, byte[]> indexedHashes = new HashMap<>();
+    List<ChecksumPath> unindexedPaths = new ArrayList<>();
+    for (ChecksumPath path : paths) {
+      Optional<ChecksumEntry> entry = index.lookup(
+          path,
+          hasher.getScheme(path.getFile(), path.getSize()));
+      if (entry.isPresent()) {
+        indexedEntrySet.add(entry.get());
+        path.getFileKey().ifPresent(fileKey -> indexedHashes.put(fileKey, entry.get().hash));
+      } else {
+        unindexedPaths.add(path);
+      }
+    }
+    statistics.indexed(indexedEntrySet.size());
+    Optional<ChecksumHashCache> hashCache = openHashCache(hasher);
+    List<ChecksumPath> pendingPaths = new ArrayList<>();
+    long linkedFiles = 0L;
+    for (ChecksumPath path : unindexedPaths) {
+      Optional<byte[]> linkedHash = path.getFileKey().map(indexedHashes::get);
+      if (linkedHash.isPresent()) {
+        ++linkedFiles;
+      }
+      Optional<ChecksumEntry> cachedEntry = linkedHash.isPresent()
+          ? Optional.of(path.toChecksumEntry(linkedHash.get()))
+          : lookup(hashCache, path);
+      if (cachedEntry.isPresent()) {
+        indexedEntrySet.add(cachedEntry.get());
+      } else {
+        pendingPaths.add(path);
+      }
     }
+    ChecksumLinks links = ChecksumLinks.of(pendingPaths);
+    statistics.hashing(
+        links.getDistinctPaths().size(),
+        links.getDistinctPaths().stream()
+            .mapToLong(ChecksumPath::getSize)
+            .sum(),
+        linkedFiles + links.getLinkedCount());
+    statistics.walked(paths.size(), nanoTime() - startTime);
+    return new ChecksumGeneration(
+        algorithm.getName(),
+        hasher,
+        timestamp,
+        paths,
+        indexedEntrySet,
+        cacheEntry,
+        hashCache,
+        statistics,
+        executor.start(hasher, links));
   }
 
-  public Set<ChecksumEntry> load(File checksumFile) throws IOException {
-    try (BufferedReader reader = new BufferedReader(new FileReader(checksumFile))) {
-      return reader.lines()
-          .map(ChecksumEntry::parse)
-          .collect(toSet());
+  public Set<ChecksumEntry> complete(ChecksumGeneration generation)
+      throws IOException, NoSuchAlgorithmException {
+    Set<ChecksumEntry> entrySet = generation.await();
+    long startTime = nanoTime();
+    if (indexFile.isPresent() || generation.cacheEntry.isPresent()) {
+      List<ChecksumIndexRecord> records = indexRecords(
+          generation.hasher,
+          generation.paths,
+          entrySet);
+      if (indexFile.isPresent()) {
+        ChecksumIndex.store(indexFile.get(), generation.algorithm, generation.timestamp, records);
+      }
+      if (generation.cacheEntry.isPresent()) {
+        generation.cacheEntry.get().setIndex(generation.algorithm, generation.timestamp, records);
+      }
+    }
+    if (generation.hashCache.isPresent()) {
+      generation.hashCache.get().update(generation.paths, entrySet);
+    }
+    statistics.stored(nanoTime() - startTime);
+    return entrySet;
+  }
+
+  /*
+   * Binary files are recognized by their magic number. Otherwise, they are read as text files, as
+   * stored by previous versions.
+   */
+  public StoredChecksum load(File checksumFile) throws IOException {
+    long startTime = nanoTime();
+    try (FileInputStream input = new FileInputStream(checksumFile)) {
+      FileChannel channel = input.getChannel();
+      if (ChecksumBinaryFile.isBinary(channel)) {
+        return ChecksumBinaryFile.load(channel);
+      }
+      channel.position(0L);
+      return loadText(new BufferedReader(new InputStreamReader(input)));
     } catch (FileNotFoundException e) {
-      return emptySet();
+      return new StoredChecksum(Optional.empty(), ChecksumEntryTable.empty());
     } catch (UncheckedIOException e) {
       throw e.getCause();
+    } finally {
+      statistics.loaded(nanoTime() - startTime);
     }
   }
 
-  public void store(File checksumFile, Set<ChecksumEntry> entrySet) throws IOException {
-    try (PrintWriter writer = new PrintWriter(checksumFile)) {
-      entrySet.stream()
-          .sorted(comparing(ChecksumEntry::getPath))
-          .forEach(writer::println);
+  public void store(File checksumFile, String algorithm, ChecksumEntryTable entryTable)
+      throws IOException {
+    long startTime = nanoTime();
+    if (format == ChecksumFormat.BINARY) {
+      ChecksumBinaryFile.store(checksumFile, algorithm, entryTable);
+    } else {
+      storeText(checksumFile, algorithm, entryTable);
     }
+    statistics.stored(nanoTime() - startTime);
   }
 
-  private static boolean isRegularFile(Path path) {
-    return path.toFile().isFile();
+  ChecksumStatistics getStatistics() {
+    return statistics;
   }
 
-  private static class ChecksumPath {
-
-    private final File file;
-    private final String relativePath;
-
-    private ChecksumPath(File directory, Path path) {
-      file = path.toFile();
-      relativePath = directory.toPath().relativize(path).toString();
+  /*
+   * Text files stored before algorithms were recorded do not have any header, and they were always
+   * calculated with SHA-256.
+   */
+  private static StoredChecksum loadText(BufferedReader reader) throws IOException {
+    String firstLine = reader.readLine();
+    if (firstLine == null) {
+      return new StoredChecksum(Optional.of(LEGACY_ALGORITHM), ChecksumEntryTable.empty());
+    }
+    if (firstLine.startsWith(HEADER_PREFIX)) {
+      return new StoredChecksum(
+          Optional.of(firstLine.substring(HEADER_PREFIX.length())),
+          reader.lines()
+              .map(ChecksumEntry::parse)
+              .collect(toList()));
     }
+    return new StoredChecksum(
+        Optional.of(LEGACY_ALGORITHM),
+        Stream.concat(Stream.of(firstLine), reader.lines())
+            .map(ChecksumEntry::parse)
+            .collect(toList()));
+  }
 
-    private boolean isNotIgnored(Predicate<String> ignoreFile) {
-      return !ignoreFile.test(relativePath);
+  private static void storeText(File checksumFile, String algorithm,
+      ChecksumEntryTable entryTable) throws IOException {
+    try (PrintWriter writer = new PrintWriter(checksumFile)) {
+      writer.println(HEADER_PREFIX + algorithm);
+      entryTable.forEach(writer::println);
     }
+  }
+
+  /*
+   * Ignored directories are pruned, so their content is never visited.
+   */
+  private List<ChecksumPath> walk(File directory, Predicate<String> ignoreFile)
+      throws IOException {
+    List<ChecksumPath> paths = new ArrayList<>();
+    Path start = directory.toPath();
+    Optional<Path> indexPath = indexFile.map(File::toPath);
+    walkFileTree(start, new SimpleFileVisitor<Path>() {
 
-    private ChecksumEntry toChecksumEntry(MessageDigestCreator digestCreator, String algorithm) {
-      try (InputStream input = new FileInputStream(file)) {
-        MessageDigest digest = digestCreator.create(algorithm);
-        byte[] buf = new byte[DIGEST_BUFFER_SIZE];
-        int len = input.read(buf, 0, DIGEST_BUFFER_SIZE);
-        while (len > 0) {
-          digest.update(buf, 0, len);
-          len = input.read(buf, 0, DIGEST_BUFFER_SIZE);
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (!dir.equals(start) && ignoreRules.isIgnored(start.relativize(dir).toString(), true)) {
+          statistics.pruned();
+          return SKIP_SUBTREE;
         }
-        return new ChecksumEntry(relativePath, digest.digest());
-      } catch (IOException exception) {
-        throw new UncheckedIOException(exception);
-      } catch (NoSuchAlgorithmException exception) {
-        throw new UncheckedNoSuchAlgorithmException(exception);
+        return CONTINUE;
       }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (indexPath.filter(file::equals).isPresent()) {
+          return CONTINUE;
+        }
+        if (ignoreRules.isIgnored(start.relativize(file).toString(), false)) {
+          statistics.ignored();
+          return CONTINUE;
+        }
+        regularFileAttributes(file, attrs)
+            .map(regularAttrs -> new ChecksumPath(directory, file, regularAttrs))
+            .filter(path -> isNotIgnored(path, ignoreFile))
+            .ifPresent(paths::add);
+        return CONTINUE;
+      }
+    });
+    return paths;
+  }
+
+  private boolean isNotIgnored(ChecksumPath path, Predicate<String> ignoreFile) {
+    if (path.isNotIgnored(ignoreFile)) {
+      return true;
+    }
+    statistics.ignored();
+    return false;
+  }
+
+  private Optional<ChecksumEntry> lookup(Optional<ChecksumHashCache> hashCache,
+      ChecksumPath path) throws IOException {
+    if (!hashCache.isPresent()) {
+      return Optional.empty();
     }
+    Optional<ChecksumEntry> entry = hashCache.get().lookup(path);
+    statistics.lookedUp(entry.isPresent());
+    return entry;
   }
 
-  private static class UncheckedNoSuchAlgorithmException extends RuntimeException {
+  /*
+   * The in-memory index of a cached directory is preferred, as it is up to date with the last
+   * generation.
+   */
+  private ChecksumIndex loadIndex(String algorithm, Optional<ChecksumCacheEntry> cacheEntry)
+      throws IOException {
+    if (paranoid) {
+      return ChecksumIndex.empty();
+    }
+    Optional<ChecksumIndex> cachedIndex = cacheEntry.flatMap(entry -> entry.getIndex(algorithm));
+    if (cachedIndex.isPresent()) {
+      return cachedIndex.get();
+    }
+    if (indexFile.isPresent()) {
+      return ChecksumIndex.load(indexFile.get(), algorithm);
+    }
+    return ChecksumIndex.empty();
+  }
 
-    private static final long serialVersionUID = 1L;
+  private Optional<ChecksumHashCache> openHashCache(ChecksumHasher hasher) throws IOException {
+    return hashCacheDirectory.isPresent()
+        ? Optional.of(ChecksumHashCache.open(hashCacheDirectory.get(), hashCacheSize, hasher))
+        : Optional.empty();
+  }
 
-    private UncheckedNoSuchAlgorithmException(NoSuchAlgorithmException cause) {
-      super(cause);
+  private Optional<ChecksumCacheEntry> getCacheEntry(File directory) throws IOException {
+    return cache.isPresent()
+        ? Optional.of(cache.get().getEntry(directory, cacheSize))
+        : Optional.empty();
+  }
+
+  /*
+   * Cached directories are walked from their canonical path.
+   */
+  private Predicate<Path> canonicalIndexFile() throws IOException {
+    if (indexFile.isPresent()) {
+      return indexFile.get().getCanonicalFile().toPath()::equals;
     }
+    return file -> false;
+  }
 
-    @Override
-    public NoSuchAlgorithmException getCause() {
-      return (NoSuchAlgorithmException) super.getCause();
+  /*
+   * Each record keeps the scheme of its hash, so it is not reused once the settings that lead to
+   * another scheme, like the segment threshold or archive normalization, change.
+   */
+  private static List<ChecksumIndexRecord> indexRecords(ChecksumHasher hasher,
+      List<ChecksumPath> paths, Set<ChecksumEntry> entrySet) {
+    Map<String, byte[]> hashes = entrySet.stream()
+        .collect(toMap(ChecksumEntry::getPath, entry -> entry.hash));
+    return paths.stream()
+        .map(path -> path.toIndexRecord(
+            hasher.getScheme(path.getFile(), path.getSize()),
+            hashes.get(path.getRelativePath())))
+        .collect(toList());
+  }
+
+  /*
+   * Symbolic links are followed, as File.isFile() does.
+   */
+  static Optional<BasicFileAttributes> regularFileAttributes(Path file,
+      BasicFileAttributes attrs) throws IOException {
+    if (attrs.isSymbolicLink()) {
+      try {
+        return regularFileAttributes(file, readAttributes(file, BasicFileAttributes.class));
+      } catch (NoSuchFileException e) {
+        return Optional.empty();
+      }
     }
+    return Optional.of(attrs)
+        .filter(BasicFileAttributes::isRegularFile);
   }
 }
@@ -0,0 +1,488 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.copyOf;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/*
+ * Entries sorted by path, without any object per entry. Paths are kept on a single arena of chars,
+ * delimited by offsets, and hashes are packed into words, so very large trees take a small and
+ * constant number of arrays. All hashes usually have the same length, but when they do not, the
+ * length of each one is kept too.
+ *
+ * Tables are equal when they have the same paths with the same hashes. Since they are sorted,
+ * comparing them, or finding their differences, is a single merge of both.
+ */
+final class ChecksumEntryTable implements Iterable<ChecksumEntry> {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int INITIAL_ARENA_CAPACITY = 1024;
+
+  private final int size;
+  private final char[] pathArena;
+  private final int[] pathOffsets;
+  private final int hashLength;
+  private final int[] hashLengths;
+  private final int hashStride;
+  private final long[] hashWords;
+
+  private ChecksumEntryTable(int size, char[] pathArena, int[] pathOffsets, int hashLength,
+      int[] hashLengths, int hashStride, long[] hashWords) {
+    this.size = size;
+    this.pathArena = pathArena;
+    this.pathOffsets = pathOffsets;
+    this.hashLength = hashLength;
+    this.hashLengths = hashLengths;
+    this.hashStride = hashStride;
+    this.hashWords = hashWords;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  String getPath(int index) {
+    return new String(pathArena, pathOffsets[index], pathOffsets[index + 1] - pathOffsets[index]);
+  }
+
+  byte[] getHash(int index) {
+    byte[] hash = new byte[hashLength(index)];
+    for (int i = 0; i < hash.length; ++i) {
+      hash[i] = (byte) (hashWords[index * hashStride + i / Long.BYTES]
+          >>> (Long.SIZE - Byte.SIZE * (i % Long.BYTES + 1)));
+    }
+    return hash;
+  }
+
+  /*
+   * Index of the entry with the given path, or a negative value if there is not any.
+   */
+  int indexOf(String path) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compare(middle, path);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  boolean matches(int index, byte[] hash) {
+    if (hash.length != hashLength(index)) {
+      return false;
+    }
+    for (int i = 0; i < wordCount(hash.length); ++i) {
+      if (hashWords[index * hashStride + i] != word(hash, i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Paths that are only on one of both tables, or whose hash is different.
+   */
+  Set<String> changes(ChecksumEntryTable table) {
+    Set<String> paths = new TreeSet<>();
+    int index = 0;
+    int tableIndex = 0;
+    while (index < size || tableIndex < table.size) {
+      int comparison = index == size
+          ? 1
+          : tableIndex == table.size
+              ? -1
+              : compare(index, table, tableIndex);
+      if (comparison < 0) {
+        paths.add(getPath(index++));
+      } else if (comparison > 0) {
+        paths.add(table.getPath(tableIndex++));
+      } else {
+        if (!hashEquals(index, table, tableIndex)) {
+          paths.add(getPath(index));
+        }
+        ++index;
+        ++tableIndex;
+      }
+    }
+    return paths;
+  }
+
+  /*
+   * Paths of both tables, with any hash.
+   */
+  Set<String> union(ChecksumEntryTable table) {
+    Set<String> paths = new TreeSet<>();
+    IntStream.range(0, size).mapToObj(this::getPath).forEach(paths::add);
+    IntStream.range(0, table.size).mapToObj(table::getPath).forEach(paths::add);
+    return paths;
+  }
+
+  @Override
+  public Iterator<ChecksumEntry> iterator() {
+    return new Iterator<ChecksumEntry>() {
+
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public ChecksumEntry next() {
+        if (index == size) {
+          throw new NoSuchElementException();
+        }
+        ChecksumEntry entry = new ChecksumEntry(getPath(index), getHash(index));
+        ++index;
+        return entry;
+      }
+    };
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = Arrays.hashCode(pathArena);
+    for (int i = 0; i < size; ++i) {
+      int length = hashLength(i);
+      hashCode = 31 * hashCode + length;
+      for (int j = 0; j < wordCount(length); ++j) {
+        hashCode = 31 * hashCode + Long.hashCode(hashWords[i * hashStride + j]);
+      }
+    }
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ChecksumEntryTable)) {
+      return false;
+    }
+    ChecksumEntryTable table = (ChecksumEntryTable) obj;
+    if (size != table.size) {
+      return false;
+    }
+    for (int i = 0; i < size; ++i) {
+      if (compare(i, table, i) != 0 || !hashEquals(i, table, i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder();
+    forEach(entry -> str.append(entry).append('\n'));
+    return str.toString();
+  }
+
+  static ChecksumEntryTable of(Iterable<ChecksumEntry> entries) {
+    Builder builder = new Builder(INITIAL_CAPACITY);
+    entries.forEach(entry -> builder.add(entry.path, entry.hash));
+    return builder.build();
+  }
+
+  static ChecksumEntryTable empty() {
+    return new Builder(0).build();
+  }
+
+  private int hashLength(int index) {
+    return hashLengths == null
+        ? hashLength
+        : hashLengths[index];
+  }
+
+  private boolean hashEquals(int index, ChecksumEntryTable table, int tableIndex) {
+    int length = hashLength(index);
+    if (length != table.hashLength(tableIndex)) {
+      return false;
+    }
+    for (int i = 0; i < wordCount(length); ++i) {
+      if (hashWords[index * hashStride + i]
+          != table.hashWords[tableIndex * table.hashStride + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int compare(int index, String path) {
+    int offset = pathOffsets[index];
+    int length = pathOffsets[index + 1] - offset;
+    int commonLength = min(length, path.length());
+    for (int i = 0; i < commonLength; ++i) {
+      char ch = pathArena[offset + i];
+      char pathCh = path.charAt(i);
+      if (ch != pathCh) {
+        return ch - pathCh;
+      }
+    }
+    return length - path.length();
+  }
+
+  private int compare(int index, ChecksumEntryTable table, int tableIndex) {
+    return compare(
+        pathArena,
+        pathOffsets[index],
+        pathOffsets[index + 1],
+        table.pathArena,
+        table.pathOffsets[tableIndex],
+        table.pathOffsets[tableIndex + 1]);
+  }
+
+  /*
+   * Same order as the one of strings, so the order of stored files is kept.
+   */
+  private static int compare(char[] arena, int start, int end, char[] anotherArena,
+      int anotherStart, int anotherEnd) {
+    int commonLength = min(end - start, anotherEnd - anotherStart);
+    for (int i = 0; i < commonLength; ++i) {
+      char ch = arena[start + i];
+      char anotherCh = anotherArena[anotherStart + i];
+      if (ch != anotherCh) {
+        return ch - anotherCh;
+      }
+    }
+    return (end - start) - (anotherEnd - anotherStart);
+  }
+
+  private static int wordCount(int hashLength) {
+    return (hashLength + Long.BYTES - 1) / Long.BYTES;
+  }
+
+  private static long word(byte[] hash, int wordIndex) {
+    long word = 0L;
+    for (int i = 0; i < Long.BYTES; ++i) {
+      int byteIndex = wordIndex * Long.BYTES + i;
+      word = word << Byte.SIZE | (byteIndex < hash.length
+          ? hash[byteIndex] & 0xffL
+          : 0L);
+    }
+    return word;
+  }
+
+  private static long word(ByteBuffer hash, int hashLength, int wordIndex) {
+    long word = 0L;
+    for (int i = 0; i < Long.BYTES; ++i) {
+      word = word << Byte.SIZE | (wordIndex * Long.BYTES + i < hashLength
+          ? hash.get() & 0xffL
+          : 0L);
+    }
+    return word;
+  }
+
+  private static boolean isAscii(ByteBuffer buffer, int length) {
+    for (int i = 0; i < length; ++i) {
+      if (buffer.get(buffer.position() + i) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Entries may be added in any order. When they are already sorted, like those of stored files,
+   * they are not sorted again. Only the last entry of each path is kept.
+   *
+   * Each hash takes as many words as the longest one, and the unused ones are zero.
+   */
+  static class Builder {
+
+    private int size;
+    private char[] pathArena;
+    private int[] pathOffsets;
+    private int hashLength;
+    private int[] hashLengths;
+    private int hashStride;
+    private long[] hashWords;
+    private boolean sorted;
+
+    Builder(int capacity) {
+      size = 0;
+      pathArena = new char[INITIAL_ARENA_CAPACITY];
+      pathOffsets = new int[capacity + 1];
+      hashLength = -1;
+      hashLengths = null;
+      hashStride = 0;
+      hashWords = new long[0];
+      sorted = true;
+    }
+
+    Builder add(String path, byte[] hash) {
+      reserveHash(hash.length);
+      int offset = reservePath(path.length());
+      path.getChars(0, path.length(), pathArena, offset);
+      for (int i = 0; i < hashStride; ++i) {
+        hashWords[size * hashStride + i] = word(hash, i);
+      }
+      return added();
+    }
+
+    /*
+     * Path is decoded as UTF-8 and hash is taken as it is, both read from the given buffers. Paths
+     * made only of ASCII characters, as almost all of them are, are copied without any string.
+     */
+    Builder add(ByteBuffer pathBuffer, int pathLength, ByteBuffer hashBuffer, int hashLength) {
+      reserveHash(hashLength);
+      if (isAscii(pathBuffer, pathLength)) {
+        int offset = reservePath(pathLength);
+        for (int i = 0; i < pathLength; ++i) {
+          pathArena[offset + i] = (char) pathBuffer.get();
+        }
+      } else {
+        byte[] pathBytes = new byte[pathLength];
+        pathBuffer.get(pathBytes);
+        String path = new String(pathBytes, UTF_8);
+        int offset = reservePath(path.length());
+        path.getChars(0, path.length(), pathArena, offset);
+      }
+      for (int i = 0; i < hashStride; ++i) {
+        hashWords[size * hashStride + i] = word(hashBuffer, hashLength, i);
+      }
+      return added();
+    }
+
+    private void add(ChecksumEntryTable table, int index) {
+      reserveHash(table.hashLength(index));
+      int start = table.pathOffsets[index];
+      int length = table.pathOffsets[index + 1] - start;
+      int offset = reservePath(length);
+      System.arraycopy(table.pathArena, start, pathArena, offset, length);
+      for (int i = 0; i < hashStride; ++i) {
+        hashWords[size * hashStride + i] = i < table.hashStride
+            ? table.hashWords[index * table.hashStride + i]
+            : 0L;
+      }
+      added();
+    }
+
+    ChecksumEntryTable build() {
+      if (sorted) {
+        return new ChecksumEntryTable(
+            size,
+            copyOf(pathArena, pathOffsets[size]),
+            copyOf(pathOffsets, size + 1),
+            max(hashLength, 0),
+            hashLengths == null
+                ? null
+                : copyOf(hashLengths, size),
+            hashStride,
+            copyOf(hashWords, size * hashStride));
+      }
+      ChecksumEntryTable unsorted = new ChecksumEntryTable(
+          size,
+          pathArena,
+          pathOffsets,
+          hashLength,
+          hashLengths,
+          hashStride,
+          hashWords);
+      Builder builder = new Builder(size);
+      IntStream.range(0, size)
+          .boxed()
+          .sorted((index, anotherIndex) -> unsorted.compare(index, unsorted, anotherIndex))
+          .forEach(index -> builder.add(unsorted, index));
+      return builder.build();
+    }
+
+    private Builder added() {
+      if (size > 0) {
+        int comparison = compare(
+            pathArena,
+            pathOffsets[size - 1],
+            pathOffsets[size],
+            pathArena,
+            pathOffsets[size],
+            pathOffsets[size + 1]);
+        if (comparison == 0 && sorted) {
+          replacePrevious();
+          return this;
+        }
+        sorted &= comparison < 0;
+      }
+      ++size;
+      return this;
+    }
+
+    /*
+     * The previous entry has the same path, so only its hash is replaced.
+     */
+    private void replacePrevious() {
+      System.arraycopy(
+          hashWords,
+          size * hashStride,
+          hashWords,
+          (size - 1) * hashStride,
+          hashStride);
+      if (hashLengths != null) {
+        hashLengths[size - 1] = hashLengths[size];
+      }
+    }
+
+    private void reserveHash(int length) {
+      if (hashLength < 0) {
+        hashLength = length;
+      } else if (hashLengths == null && length != hashLength) {
+        hashLengths = new int[pathOffsets.length];
+        Arrays.fill(hashLengths, 0, size, hashLength);
+      }
+      if (wordCount(length) > hashStride) {
+        restride(wordCount(length));
+      }
+      if (hashWords.length < (size + 1) * hashStride) {
+        hashWords = copyOf(hashWords, max((size + 1) * hashStride, hashWords.length * 2));
+      }
+      if (hashLengths != null) {
+        if (hashLengths.length < size + 1) {
+          hashLengths = copyOf(hashLengths, max(size + 1, hashLengths.length * 2));
+        }
+        hashLengths[size] = length;
+      }
+    }
+
+    private void restride(int stride) {
+      long[] words = new long[max(size + 1, pathOffsets.length) * stride];
+      for (int i = 0; i < size; ++i) {
+        System.arraycopy(hashWords, i * hashStride, words, i * stride, hashStride);
+      }
+      hashWords = words;
+      hashStride = stride;
+    }
+
+    private int reservePath(int length) {
+      if (pathOffsets.length < size + 2) {
+        pathOffsets = copyOf(pathOffsets, max(size + 2, pathOffsets.length * 2));
+      }
+      int offset = pathOffsets[size];
+      if (pathArena.length < offset + length) {
+        pathArena = copyOf(pathArena, max(offset + length, pathArena.length * 2));
+      }
+      pathOffsets[size + 1] = offset + length;
+      return offset;
+    }
+  }
+}
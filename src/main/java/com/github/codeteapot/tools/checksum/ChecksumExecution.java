@@ -0,0 +1,110 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Results are taken in completion order, so a caller looking for a difference gets it as soon as
+ * any task finishes.
+ *
+ * The executor is shut down when the last task finishes, since tasks could still submit the entries
+ * of archives to it until then.
+ */
+class ChecksumExecution {
+
+  private final Optional<ExecutorService> executor;
+  private final CompletionService<List<ChecksumEntry>> completionService;
+  private final Queue<Callable<List<ChecksumEntry>>> unsubmittedTasks;
+  private int submittedTasks;
+
+  ChecksumExecution(List<Callable<List<ChecksumEntry>>> tasks) {
+    executor = Optional.empty();
+    completionService = new ExecutorCompletionService<>(Runnable::run);
+    unsubmittedTasks = new ArrayDeque<>(tasks);
+    submittedTasks = 0;
+  }
+
+  ChecksumExecution(ExecutorService executor, List<Callable<List<ChecksumEntry>>> tasks) {
+    this.executor = Optional.of(executor);
+    completionService = new ExecutorCompletionService<>(executor);
+    unsubmittedTasks = new ArrayDeque<>();
+    AtomicInteger remainingTasks = new AtomicInteger(tasks.size());
+    tasks.forEach(task -> completionService.submit(() -> {
+      try {
+        return task.call();
+      } finally {
+        if (remainingTasks.decrementAndGet() == 0) {
+          executor.shutdown();
+        }
+      }
+    }));
+    submittedTasks = tasks.size();
+  }
+
+  boolean hasNext() {
+    return submittedTasks > 0 || !unsubmittedTasks.isEmpty();
+  }
+
+  List<ChecksumEntry> next() throws IOException, NoSuchAlgorithmException {
+    if (submittedTasks == 0) {
+      completionService.submit(unsubmittedTasks.remove());
+      ++submittedTasks;
+    }
+    try {
+      Future<List<ChecksumEntry>> future = completionService.take();
+      --submittedTasks;
+      return get(future);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Checksum calculation interrupted");
+    }
+  }
+
+  Set<ChecksumEntry> await() throws IOException, NoSuchAlgorithmException {
+    Set<ChecksumEntry> entrySet = new HashSet<>();
+    try {
+      while (hasNext()) {
+        entrySet.addAll(next());
+      }
+      return entrySet;
+    } finally {
+      executor.ifPresent(ExecutorService::shutdownNow);
+    }
+  }
+
+  static <T> T get(Future<T> future)
+      throws IOException, NoSuchAlgorithmException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof NoSuchAlgorithmException) {
+        throw (NoSuchAlgorithmException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.util.Collections.singletonList;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ChecksumExecutor {
+
+  private static final long SMALL_FILE_SIZE = 1024 * 1024;
+  private static final long BATCH_SIZE = 8 * SMALL_FILE_SIZE;
+  private static final int BATCH_LENGTH = 256;
+
+  private static final int SINGLE_FILE_BATCH_LENGTH = 1;
+
+  private final int threads;
+  private final int ioConcurrency;
+
+  ChecksumExecutor(int threads) {
+    this(threads, 0);
+  }
+
+  ChecksumExecutor(int threads, int ioConcurrency) {
+    this.threads = threads;
+    this.ioConcurrency = ioConcurrency;
+  }
+
+  Set<ChecksumEntry> execute(ChecksumHasher hasher, List<ChecksumPath> paths)
+      throws IOException, NoSuchAlgorithmException {
+    return start(hasher, ChecksumLinks.of(paths)).await();
+  }
+
+  /*
+   * Tasks are executed by the calling thread, one by one as their results are taken, when there is
+   * not any concurrency. Otherwise, all of them are submitted at once, and threads are released as
+   * soon as there are no more tasks to execute. Entries of normalized archives are hashed by the
+   * same threads, so a single archive is worth them too.
+   *
+   * On I/O concurrency mode, small files are not batched, so as many of them as possible are being
+   * read at once.
+   *
+   * Each physical file is read only once, even when there are many paths pointing to it.
+   */
+  ChecksumExecution start(ChecksumHasher hasher, ChecksumLinks links) {
+    boolean ioConcurrent = ioConcurrency > 0;
+    List<Callable<List<ChecksumEntry>>> tasks = tasks(
+        hasher,
+        links.getDistinctPaths(),
+        ioConcurrent
+            ? SINGLE_FILE_BATCH_LENGTH
+            : BATCH_LENGTH).stream()
+        .map(links::expand)
+        .collect(toList());
+    if ((!ioConcurrent && threads == 1) || (tasks.size() < 2 && !hasArchives(hasher, links))) {
+      return new ChecksumExecution(tasks);
+    }
+    ExecutorService executor = ioConcurrent
+        ? newFixedThreadPool(ioConcurrency, ChecksumThreads.ioThreadFactory())
+        : newFixedThreadPool(threads, new ChecksumThreadFactory());
+    hasher.setArchiveExecutor(executor);
+    return new ChecksumExecution(executor, tasks);
+  }
+
+  private static boolean hasArchives(ChecksumHasher hasher, ChecksumLinks links) {
+    return links.getDistinctPaths().stream()
+        .anyMatch(path -> hasher.isNormalized(path.getFile()));
+  }
+
+  /*
+   * Largest files come first, so they are not left for the end. Small files are grouped in batches,
+   * to avoid the overhead of a task per file, while segmented files have a task per segment.
+   */
+  private static List<Callable<List<ChecksumEntry>>> tasks(ChecksumHasher hasher,
+      List<ChecksumPath> paths, int batchLength) {
+    List<ChecksumPath> sortedPaths = new ArrayList<>(paths);
+    sortedPaths.sort(comparingLong(ChecksumPath::getSize).reversed());
+    List<Callable<List<ChecksumEntry>>> tasks = new ArrayList<>();
+    List<ChecksumPath> batch = new ArrayList<>();
+    long batchSize = 0L;
+    for (ChecksumPath path : sortedPaths) {
+      if (hasher.isSegmented(path.getFile(), path.getSize())) {
+        ChecksumSegments segments = new ChecksumSegments(
+            path,
+            hasher.getSegmentCount(path.getSize()));
+        for (int segment = 0; segment < segments.getCount(); ++segment) {
+          tasks.add(new ChecksumSegmentTask(hasher, segments, segment));
+        }
+      } else if (path.getSize() >= SMALL_FILE_SIZE) {
+        tasks.add(new ChecksumTask(hasher, singletonList(path)));
+      } else {
+        batch.add(path);
+        batchSize += path.getSize();
+        if (batchSize >= BATCH_SIZE || batch.size() >= batchLength) {
+          tasks.add(new ChecksumTask(hasher, batch));
+          batch = new ArrayList<>();
+          batchSize = 0L;
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      tasks.add(new ChecksumTask(hasher, batch));
+    }
+    return tasks;
+  }
+
+  private static class ChecksumThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count;
+
+    private ChecksumThreadFactory() {
+      count = new AtomicInteger();
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "checksum-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
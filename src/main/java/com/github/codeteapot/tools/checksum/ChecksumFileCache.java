@@ -0,0 +1,99 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.util.Comparator.comparingLong;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cache of checksum files, keyed by the configuration they are stored for, like the arguments of
+ * the command whose input directory they are calculated for.
+ *
+ * <p>Each key has its own checksum file, so alternating between configurations does not replace
+ * the checksum of any of them. Least recently used checksum files are evicted when there are more
+ * than the cache size.
+ */
+public class ChecksumFileCache {
+
+  private static final String KEY_ALGORITHM = "SHA-256";
+  private static final String CHECKSUM_FILE_SUFFIX = ".checksum";
+
+  private final File directory;
+  private final int size;
+
+  /**
+   * Cache on the given directory.
+   *
+   * @param directory Directory where checksum files are stored, that is created when needed.
+   * @param size Maximum number of checksum files, that must be positive.
+   *
+   * @throws IllegalArgumentException If the size is not positive.
+   */
+  public ChecksumFileCache(File directory, int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Checksum file cache size must be positive");
+    }
+    this.directory = directory;
+    this.size = size;
+  }
+
+  /**
+   * Checksum file of the given key, that does not exist when no checksum was stored for it.
+   *
+   * <p>It becomes the most recently used one, so it is not evicted before others.
+   *
+   * @param key Parts of the key, in a significant order.
+   *
+   * @return The checksum file of the key.
+   *
+   * @throws IOException If some I/O error has been occurred.
+   */
+  public File getChecksumFile(List<String> key) throws IOException {
+    createDirectories(directory.toPath());
+    File checksumFile = new File(directory, hash(key) + CHECKSUM_FILE_SUFFIX);
+    if (checksumFile.exists()) {
+      checksumFile.setLastModified(currentTimeMillis());
+    }
+    evict(checksumFile);
+    return checksumFile;
+  }
+
+  /*
+   * The given checksum file is kept, so there is room for it when it is stored.
+   */
+  private void evict(File checksumFile) {
+    File[] checksumFiles = directory.listFiles((dir, name) -> name.endsWith(CHECKSUM_FILE_SUFFIX)
+        && !name.equals(checksumFile.getName()));
+    if (checksumFiles == null || checksumFiles.length < size) {
+      return;
+    }
+    Arrays.sort(checksumFiles, comparingLong(File::lastModified).reversed());
+    for (int i = size - 1; i < checksumFiles.length; ++i) {
+      checksumFiles[i].delete();
+    }
+  }
+
+  /*
+   * Lengths of parts are hashed too, so a part could not be taken as a portion of another one.
+   */
+  private static String hash(List<String> key) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance(KEY_ALGORITHM);
+      for (String part : key) {
+        byte[] bytes = part.getBytes(UTF_8);
+        digest.update(FingerprintBytes.toBytesBe(bytes.length, Integer.BYTES));
+        digest.update(bytes);
+      }
+      return ChecksumHex.print(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
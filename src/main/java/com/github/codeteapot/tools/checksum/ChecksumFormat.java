@@ -0,0 +1,20 @@
+package com.github.codeteapot.tools.checksum;
+
+/**
+ * Format of the files where checksums are stored.
+ *
+ * <p>Files of any format can be loaded, regardless of the one used to store them.
+ */
+public enum ChecksumFormat {
+
+  /**
+   * Line per file, with the hexadecimal hash followed by the relative path.
+   */
+  TEXT,
+
+  /**
+   * Versioned header, followed by a table of length-prefixed paths and fixed-width hashes, that is
+   * loaded through a memory-mapped buffer.
+   */
+  BINARY
+}
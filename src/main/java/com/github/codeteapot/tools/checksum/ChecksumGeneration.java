@@ -0,0 +1,89 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.System.nanoTime;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * Generation of an entry set whose files are hashed on demand. Paths are compared before reading
+ * any content, then indexed hashes, and finally hashed files as they are completed.
+ */
+class ChecksumGeneration {
+
+  final String algorithm;
+  final ChecksumHasher hasher;
+  final long timestamp;
+  final List<ChecksumPath> paths;
+  final Optional<ChecksumCacheEntry> cacheEntry;
+  final Optional<ChecksumHashCache> hashCache;
+
+  private final Set<ChecksumEntry> entrySet;
+  private final ChecksumStatistics statistics;
+  private final ChecksumExecution execution;
+  private final long startTime;
+
+  ChecksumGeneration(String algorithm, ChecksumHasher hasher, long timestamp,
+      List<ChecksumPath> paths, Set<ChecksumEntry> indexedEntrySet,
+      Optional<ChecksumCacheEntry> cacheEntry, Optional<ChecksumHashCache> hashCache,
+      ChecksumStatistics statistics, ChecksumExecution execution) {
+    this.algorithm = algorithm;
+    this.hasher = hasher;
+    this.timestamp = timestamp;
+    this.paths = paths;
+    entrySet = new HashSet<>(indexedEntrySet);
+    this.cacheEntry = cacheEntry;
+    this.hashCache = hashCache;
+    this.statistics = statistics;
+    this.execution = execution;
+    startTime = nanoTime();
+  }
+
+  Set<ChecksumEntry> await() throws IOException, NoSuchAlgorithmException {
+    entrySet.addAll(execution.await());
+    statistics.hashed(nanoTime() - startTime);
+    return entrySet;
+  }
+
+  /*
+   * Paths of a generation are distinct, so they are the same ones as those of the stored entries
+   * when all of them are found there, and both have the same size.
+   */
+  boolean matches(ChecksumEntryTable storedEntryTable)
+      throws IOException, NoSuchAlgorithmException {
+    if (storedEntryTable.size() != paths.size()) {
+      return false;
+    }
+    for (ChecksumPath path : paths) {
+      if (storedEntryTable.indexOf(path.getRelativePath()) < 0) {
+        return false;
+      }
+    }
+    if (!matches(entrySet, storedEntryTable)) {
+      return false;
+    }
+    while (execution.hasNext()) {
+      List<ChecksumEntry> entries = execution.next();
+      entrySet.addAll(entries);
+      if (!matches(entries, storedEntryTable)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean matches(Iterable<ChecksumEntry> entries,
+      ChecksumEntryTable storedEntryTable) {
+    for (ChecksumEntry entry : entries) {
+      int index = storedEntryTable.indexOf(entry.path);
+      if (index < 0 || !storedEntryTable.matches(index, entry.hash)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
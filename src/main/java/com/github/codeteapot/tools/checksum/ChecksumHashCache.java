@@ -0,0 +1,241 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.System.currentTimeMillis;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Comparator.comparingLong;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * Hashes of files shared by all directories and processes of the same host, keyed by hash scheme,
+ * file key, size, last modified time and change time. Files without any file key are not cached,
+ * since there is nothing that identifies them apart from their path. Records of older versions have
+ * no change time, so they are skipped as malformed and dropped on the next compaction.
+ *
+ * Each process appends its new records as a new segment, that is written aside and atomically
+ * moved into the cache directory, so visible segments are never modified. When there are too many
+ * segments or records, the process that gets the lock compacts all of them into a single one,
+ * keeping only the most recently used records. Others skip compaction instead of waiting.
+ *
+ * Records used again after a while are appended again, so their last access time is updated
+ * without rewriting any segment.
+ */
+class ChecksumHashCache {
+
+  private static final String LOCK_FILE_NAME = "lock";
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int MAX_SEGMENTS = 16;
+  private static final long TOUCH_INTERVAL = HOURS.toMillis(1L);
+  private static final long STALE_TEMP_INTERVAL = DAYS.toMillis(1L);
+  private static final long RACY_INTERVAL = SECONDS.toNanos(2L);
+
+  private final File directory;
+  private final int size;
+  private final ChecksumHasher hasher;
+  private final long timestamp;
+  private final Map<String, ChecksumHashRecord> records;
+  private final int segmentCount;
+  private final List<ChecksumHashRecord> pendingRecords;
+
+  private ChecksumHashCache(File directory, int size, ChecksumHasher hasher, long timestamp,
+      Map<String, ChecksumHashRecord> records, int segmentCount) {
+    this.directory = directory;
+    this.size = size;
+    this.hasher = hasher;
+    this.timestamp = timestamp;
+    this.records = records;
+    this.segmentCount = segmentCount;
+    pendingRecords = new ArrayList<>();
+  }
+
+  Optional<ChecksumEntry> lookup(ChecksumPath path) throws IOException {
+    if (!path.getFileKey().isPresent()) {
+      return Optional.empty();
+    }
+    Optional<ChecksumHashRecord> record = Optional.ofNullable(records.get(ChecksumHashRecord.key(
+        hasher.getScheme(path.getFile(), path.getSize()),
+        path.getFileKey().get(),
+        path.getSize(),
+        path.getLastModified(),
+        path.getChangeTime())));
+    if (record.isPresent() && record.get().lastAccess + TOUCH_INTERVAL < timestamp) {
+      add(record.get().access(timestamp));
+    }
+    return record.map(found -> path.toChecksumEntry(found.hash));
+  }
+
+  /*
+   * Files modified shortly before are not cached, for the same reason they are not trusted by the
+   * index.
+   */
+  void update(Collection<ChecksumPath> paths, Set<ChecksumEntry> entrySet) throws IOException {
+    Map<String, byte[]> hashes = new HashMap<>();
+    entrySet.forEach(entry -> hashes.put(entry.path, entry.hash));
+    for (ChecksumPath path : paths) {
+      byte[] hash = hashes.get(path.getRelativePath());
+      if (hash != null
+          && path.getFileKey().isPresent()
+          && path.getLastModified() + RACY_INTERVAL < MILLISECONDS.toNanos(timestamp)) {
+        ChecksumHashRecord record = new ChecksumHashRecord(
+            hasher.getScheme(path.getFile(), path.getSize()),
+            path.getFileKey().get(),
+            path.getSize(),
+            path.getLastModified(),
+            path.getChangeTime(),
+            timestamp,
+            hash);
+        ChecksumHashRecord current = records.get(record.getKey());
+        if (current == null || !Arrays.equals(current.hash, hash)) {
+          add(record);
+        }
+      }
+    }
+    if (!pendingRecords.isEmpty()) {
+      createDirectories(directory.toPath());
+      writeSegment(pendingRecords);
+      pendingRecords.clear();
+      if (segmentCount + 1 > MAX_SEGMENTS || records.size() > size) {
+        compact();
+      }
+    }
+  }
+
+  private void add(ChecksumHashRecord record) {
+    records.put(record.getKey(), record);
+    pendingRecords.add(record);
+  }
+
+  /*
+   * Segments appended after they were listed are kept as they are, so nothing is lost.
+   */
+  private void compact() throws IOException {
+    try (FileChannel channel = FileChannel.open(
+        new File(directory, LOCK_FILE_NAME).toPath(),
+        CREATE,
+        WRITE); FileLock lock = channel.tryLock()) {
+      if (lock != null) {
+        File[] segments = listSegments(directory);
+        writeSegment(readSegments(segments).values().stream()
+            .sorted(comparingLong(ChecksumHashRecord::getLastAccess).reversed())
+            .limit(size)
+            .collect(toList()));
+        for (File segment : segments) {
+          deleteIfExists(segment.toPath());
+        }
+        deleteStaleTempFiles();
+      }
+    } catch (OverlappingFileLockException e) {
+      // Being compacted by another thread...
+    }
+  }
+
+  /*
+   * Temporary files are left when a process is killed while writing a segment.
+   */
+  private void deleteStaleTempFiles() throws IOException {
+    for (File tempFile : listFiles(directory, TEMP_SUFFIX)) {
+      if (tempFile.lastModified() + STALE_TEMP_INTERVAL < timestamp) {
+        deleteIfExists(tempFile.toPath());
+      }
+    }
+  }
+
+  private void writeSegment(Collection<ChecksumHashRecord> segmentRecords) throws IOException {
+    String name = SEGMENT_PREFIX + randomUUID();
+    File tempFile = new File(directory, name + TEMP_SUFFIX);
+    try (PrintWriter writer = new PrintWriter(tempFile)) {
+      segmentRecords.forEach(writer::println);
+    }
+    move(tempFile.toPath(), new File(directory, name + SEGMENT_SUFFIX).toPath(), ATOMIC_MOVE);
+  }
+
+  static ChecksumHashCache open(File directory, int size, ChecksumHasher hasher)
+      throws IOException {
+    File[] segments = listSegments(directory);
+    return new ChecksumHashCache(
+        directory,
+        size,
+        hasher,
+        currentTimeMillis(),
+        readSegments(segments),
+        segments.length);
+  }
+
+  private static File[] listSegments(File directory) {
+    return listFiles(directory, SEGMENT_SUFFIX);
+  }
+
+  private static File[] listFiles(File directory, String suffix) {
+    return Optional.ofNullable(directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+        && name.endsWith(suffix)))
+        .orElse(new File[0]);
+  }
+
+  /*
+   * The most recently used record of each key is kept, since it could have been appended many
+   * times. Segments removed by a concurrent compaction are skipped, as well as malformed records.
+   */
+  private static Map<String, ChecksumHashRecord> readSegments(File[] segments)
+      throws IOException {
+    Map<String, ChecksumHashRecord> records = new HashMap<>();
+    for (File segment : segments) {
+      try (BufferedReader reader = new BufferedReader(new FileReader(segment))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          Optional<ChecksumHashRecord> record = parse(line);
+          if (record.isPresent()) {
+            records.merge(record.get().getKey(), record.get(), ChecksumHashCache::mostRecent);
+          }
+        }
+      } catch (FileNotFoundException e) {
+        // Compacted...
+      }
+    }
+    return records;
+  }
+
+  private static ChecksumHashRecord mostRecent(ChecksumHashRecord first,
+      ChecksumHashRecord second) {
+    return first.lastAccess >= second.lastAccess
+        ? first
+        : second;
+  }
+
+  private static Optional<ChecksumHashRecord> parse(String line) {
+    try {
+      return Optional.of(ChecksumHashRecord.parse(line));
+    } catch (RuntimeException e) {
+      // Malformed record...
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+
+class ChecksumHashRecord {
+
+  final String scheme;
+  final String fileKey;
+  final long size;
+  final long lastModified;
+  final long changeTime;
+  final long lastAccess;
+  final byte[] hash;
+
+  ChecksumHashRecord(String scheme, String fileKey, long size, long lastModified, long changeTime,
+      long lastAccess, byte[] hash) {
+    this.scheme = scheme;
+    this.fileKey = fileKey;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.changeTime = changeTime;
+    this.lastAccess = lastAccess;
+    this.hash = hash;
+  }
+
+  @Override
+  public String toString() {
+    return format(
+        "%s %d %d %d %d %s %s",
+        ChecksumHex.print(hash),
+        size,
+        lastModified,
+        changeTime,
+        lastAccess,
+        scheme,
+        fileKey);
+  }
+
+  String getKey() {
+    return key(scheme, fileKey, size, lastModified, changeTime);
+  }
+
+  long getLastAccess() {
+    return lastAccess;
+  }
+
+  ChecksumHashRecord access(long timestamp) {
+    return new ChecksumHashRecord(
+        scheme,
+        fileKey,
+        size,
+        lastModified,
+        changeTime,
+        timestamp,
+        hash);
+  }
+
+  static String key(String scheme, String fileKey, long size, long lastModified,
+      long changeTime) {
+    return format("%s %d %d %d %s", scheme, size, lastModified, changeTime, fileKey);
+  }
+
+  static ChecksumHashRecord parse(String str) {
+    String[] parts = str.split(" ", 7);
+    return new ChecksumHashRecord(
+        parts[5],
+        parts[6],
+        parseLong(parts[1]),
+        parseLong(parts[2]),
+        parseLong(parts[3]),
+        parseLong(parts[4]),
+        ChecksumHex.parse(parts[0]));
+  }
+}
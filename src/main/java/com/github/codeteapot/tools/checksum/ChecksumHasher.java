@@ -0,0 +1,230 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Math.min;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.open;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/*
+ * Direct buffers are reused by each thread, so content is read with as few system calls as the
+ * buffer size allows. Large files are memory-mapped by windows, avoiding copies to user space.
+ *
+ * Functions are reused by each thread too, since they are reset when their digest is taken. So
+ * hashing a file does not allocate anything but its hash. A function that fails in the middle of a
+ * file is discarded, instead of being reset.
+ *
+ * Files above the segment threshold are hashed by fixed-size segments, that could be hashed
+ * concurrently through positional reads. Their hash is calculated from the segment size, the file
+ * size and the hashes of all segments, in order.
+ *
+ * Archives are not segmented when they are normalized, since their hash is calculated from their
+ * entries instead of their content. Entries of large archives are hashed by the threads of the
+ * checksum, when it has them, and the content waiting to be hashed is bounded across all archives
+ * of the checksum.
+ */
+class ChecksumHasher {
+
+  private static final String SCHEME_SEPARATOR = "/";
+  private static final String ARCHIVE_SCHEME = "archive";
+
+  private final FingerprintAlgorithm algorithm;
+  private final long mappingThreshold;
+  private final int mappingWindowSize;
+  private final long segmentThreshold;
+  private final int segmentSize;
+  private final boolean normalizeArchives;
+  private final ThreadLocal<ByteBuffer> buffer;
+  private final ThreadLocal<FingerprintFunction[]> function;
+  private final Semaphore archivePendingSize;
+  private Optional<Executor> archiveExecutor;
+
+  ChecksumHasher(FingerprintAlgorithm algorithm, int bufferSize, long mappingThreshold,
+      int mappingWindowSize) {
+    this(algorithm, bufferSize, mappingThreshold, mappingWindowSize, 0L, bufferSize);
+  }
+
+  ChecksumHasher(FingerprintAlgorithm algorithm, int bufferSize, long mappingThreshold,
+      int mappingWindowSize, long segmentThreshold, int segmentSize) {
+    this(
+        algorithm,
+        bufferSize,
+        mappingThreshold,
+        mappingWindowSize,
+        segmentThreshold,
+        segmentSize,
+        false);
+  }
+
+  ChecksumHasher(FingerprintAlgorithm algorithm, int bufferSize, long mappingThreshold,
+      int mappingWindowSize, long segmentThreshold, int segmentSize, boolean normalizeArchives) {
+    this.algorithm = algorithm;
+    this.mappingThreshold = mappingThreshold;
+    this.mappingWindowSize = mappingWindowSize;
+    this.segmentThreshold = segmentThreshold;
+    this.segmentSize = segmentSize;
+    this.normalizeArchives = normalizeArchives;
+    buffer = ThreadLocal.withInitial(() -> allocateDirect(bufferSize));
+    function = ThreadLocal.withInitial(() -> new FingerprintFunction[1]);
+    archivePendingSize = new Semaphore(ChecksumArchive.PENDING_SIZE);
+    archiveExecutor = Optional.empty();
+  }
+
+  boolean isNormalized(File file) {
+    return normalizeArchives && ChecksumArchive.isArchive(file.getName());
+  }
+
+  Semaphore getArchivePendingSize() {
+    return archivePendingSize;
+  }
+
+  Optional<Executor> getArchiveExecutor() {
+    return archiveExecutor;
+  }
+
+  /*
+   * Set before any file is hashed, so it is seen by all threads that hash them.
+   */
+  void setArchiveExecutor(Executor archiveExecutor) {
+    this.archiveExecutor = Optional.of(archiveExecutor);
+  }
+
+  boolean isSegmented(File file, long size) {
+    return !isNormalized(file) && isSegmented(size);
+  }
+
+  private boolean isSegmented(long size) {
+    return segmentThreshold > 0L && size >= segmentThreshold;
+  }
+
+  int getSegmentCount(long size) {
+    return (int) ((size + segmentSize - 1L) / segmentSize);
+  }
+
+  /*
+   * Hashes of segmented files depend on the segment size too, so they are not comparable with those
+   * calculated with another one. Neither are normalized ones.
+   */
+  String getScheme(File file, long size) {
+    if (isNormalized(file)) {
+      return algorithm.getName() + SCHEME_SEPARATOR + ARCHIVE_SCHEME;
+    }
+    return isSegmented(size)
+        ? algorithm.getName() + SCHEME_SEPARATOR + segmentSize
+        : algorithm.getName();
+  }
+
+  /*
+   * Archives that could not be normalized are hashed as any other file.
+   */
+  byte[] hash(File file) throws IOException, NoSuchAlgorithmException {
+    if (isNormalized(file)) {
+      Optional<byte[]> hash = ChecksumArchive.hash(this, file);
+      if (hash.isPresent()) {
+        return hash.get();
+      }
+    }
+    try (FileChannel channel = open(file.toPath(), READ)) {
+      long size = channel.size();
+      if (isSegmented(size)) {
+        byte[][] segmentHashes = new byte[getSegmentCount(size)][];
+        for (int segment = 0; segment < segmentHashes.length; ++segment) {
+          segmentHashes[segment] = readSegment(channel, segment, size);
+        }
+        return combine(size, segmentHashes);
+      }
+      FingerprintFunction digest = acquireFunction();
+      if (mappingThreshold > 0L && size >= mappingThreshold) {
+        updateMapped(digest, channel, size);
+      } else {
+        update(digest, channel);
+      }
+      return releaseFunction(digest);
+    }
+  }
+
+  byte[] hashSegment(File file, int segment, long size)
+      throws IOException, NoSuchAlgorithmException {
+    try (FileChannel channel = open(file.toPath(), READ)) {
+      return readSegment(channel, segment, size);
+    }
+  }
+
+  byte[] combine(long size, byte[][] segmentHashes) throws NoSuchAlgorithmException {
+    FingerprintFunction digest = acquireFunction();
+    digest.update(FingerprintBytes.toBytesBe(segmentSize, Integer.BYTES), 0, Integer.BYTES);
+    digest.update(FingerprintBytes.toBytesBe(size, Long.BYTES), 0, Long.BYTES);
+    for (byte[] segmentHash : segmentHashes) {
+      digest.update(segmentHash, 0, segmentHash.length);
+    }
+    return releaseFunction(digest);
+  }
+
+  /*
+   * A file could be truncated after its size was taken, so the segment ends on its end of file.
+   */
+  private byte[] readSegment(FileChannel channel, int segment, long size)
+      throws IOException, NoSuchAlgorithmException {
+    FingerprintFunction digest = acquireFunction();
+    ByteBuffer buf = buffer.get();
+    long position = (long) segment * segmentSize;
+    long end = min(position + segmentSize, size);
+    while (position < end) {
+      buf.clear();
+      buf.limit((int) min(buf.capacity(), end - position));
+      int read = channel.read(buf, position);
+      if (read < 0) {
+        break;
+      }
+      buf.flip();
+      digest.update(buf);
+      position += read;
+    }
+    return releaseFunction(digest);
+  }
+
+  /*
+   * The function is taken from the slot of the calling thread until it is released, so it is a new
+   * one when the last one that was taken has not been released.
+   */
+  FingerprintFunction acquireFunction() throws NoSuchAlgorithmException {
+    FingerprintFunction[] slot = function.get();
+    FingerprintFunction digest = slot[0];
+    slot[0] = null;
+    return digest == null
+        ? algorithm.create()
+        : digest;
+  }
+
+  byte[] releaseFunction(FingerprintFunction digest) {
+    byte[] hash = digest.digest();
+    function.get()[0] = digest;
+    return hash;
+  }
+
+  private void update(FingerprintFunction digest, FileChannel channel) throws IOException {
+    ByteBuffer buf = buffer.get();
+    buf.clear();
+    while (channel.read(buf) > 0) {
+      buf.flip();
+      digest.update(buf);
+      buf.clear();
+    }
+  }
+
+  private void updateMapped(FingerprintFunction digest, FileChannel channel, long size)
+      throws IOException {
+    for (long position = 0L; position < size; position += mappingWindowSize) {
+      digest.update(channel.map(READ_ONLY, position, min(mappingWindowSize, size - position)));
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package com.github.codeteapot.tools.checksum;
+
+interface ChecksumHasherFactory {
+
+  ChecksumHasher getHasher(FingerprintAlgorithm algorithm);
+}
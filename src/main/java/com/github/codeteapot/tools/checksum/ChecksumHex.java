@@ -0,0 +1,41 @@
+package com.github.codeteapot.tools.checksum;
+
+final class ChecksumHex {
+
+  private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private ChecksumHex() {}
+
+  static String print(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; ++i) {
+      chars[2 * i] = DIGITS[(bytes[i] >> 4) & 0x0f];
+      chars[2 * i + 1] = DIGITS[bytes[i] & 0x0f];
+    }
+    return new String(chars);
+  }
+
+  static byte[] parse(CharSequence str, int start, int end) {
+    if ((end - start) % 2 != 0) {
+      throw new IllegalArgumentException("Odd length of hexadecimal string");
+    }
+    byte[] bytes = new byte[(end - start) / 2];
+    for (int i = 0; i < bytes.length; ++i) {
+      bytes[i] = (byte) (digit(str.charAt(start + 2 * i)) << 4
+          | digit(str.charAt(start + 2 * i + 1)));
+    }
+    return bytes;
+  }
+
+  static byte[] parse(CharSequence str) {
+    return parse(str, 0, str.length());
+  }
+
+  private static int digit(char ch) {
+    int digit = Character.digit(ch, 16);
+    if (digit < 0) {
+      throw new IllegalArgumentException("Invalid hexadecimal digit " + ch);
+    }
+    return digit;
+  }
+}
@@ -0,0 +1,244 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readAllLines;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Rules that determine which directory files are ignored, following the syntax of
+ * <a href="https://git-scm.com/docs/gitignore#_pattern_format">gitignore</a> patterns.
+ *
+ * <p>Patterns without any slash, apart from a trailing one, are matched against the name of files
+ * and directories at any level. Otherwise, they are matched against the path relative to the
+ * directory. A trailing slash makes a pattern to match only directories, and a leading {@code !}
+ * includes again what a previous pattern ignored. The last matching pattern wins.
+ *
+ * <p>Ignored directories are not traversed, so nothing inside them is included again.
+ */
+public class ChecksumIgnoreRules {
+
+  private static final String COMMENT_PREFIX = "#";
+  private static final String NEGATION_PREFIX = "!";
+  private static final String SEPARATOR = "/";
+
+  private final List<String> patterns;
+  private final List<Rule> rules;
+
+  private ChecksumIgnoreRules(List<String> patterns) {
+    this.patterns = unmodifiableList(patterns);
+    rules = patterns.stream()
+        .map(Rule::parse)
+        .filter(Optional::isPresent)
+        .map(Optional::get)
+        .collect(toList());
+  }
+
+  /**
+   * Determines if the file or directory with the given path is ignored.
+   *
+   * @param path Path relative to the directory, with any name separator.
+   * @param directory Whether the path corresponds to a directory.
+   *
+   * @return {@code true} if, and only if the last matching pattern does not include it again.
+   */
+  public boolean isIgnored(String path, boolean directory) {
+    if (rules.isEmpty()) {
+      return false;
+    }
+    String normalizedPath = path.replace(File.separatorChar, '/');
+    String name = normalizedPath.substring(normalizedPath.lastIndexOf('/') + 1);
+    for (int i = rules.size() - 1; i >= 0; --i) {
+      Rule rule = rules.get(i);
+      if (rule.matches(normalizedPath, name, directory)) {
+        return !rule.negated;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Rules made of the patterns of these rules, followed by the ones of the given rules, which take
+   * precedence.
+   *
+   * @param other Rules whose patterns are appended.
+   *
+   * @return The combined rules.
+   */
+  public ChecksumIgnoreRules with(ChecksumIgnoreRules other) {
+    return new ChecksumIgnoreRules(Stream.concat(patterns.stream(), other.patterns.stream())
+        .collect(toList()));
+  }
+
+  @Override
+  public int hashCode() {
+    return patterns.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof ChecksumIgnoreRules
+        && patterns.equals(((ChecksumIgnoreRules) obj).patterns);
+  }
+
+  /**
+   * Rules that do not ignore anything.
+   *
+   * @return The empty rules.
+   */
+  public static ChecksumIgnoreRules empty() {
+    return new ChecksumIgnoreRules(emptyList());
+  }
+
+  /**
+   * Rules made of the given patterns, where blank lines and comments are skipped.
+   *
+   * @param patterns Patterns, in order of precedence from lowest to highest.
+   *
+   * @return The compiled rules.
+   */
+  public static ChecksumIgnoreRules of(List<String> patterns) {
+    return new ChecksumIgnoreRules(new ArrayList<>(patterns));
+  }
+
+  /**
+   * Rules made of the lines of the given file.
+   *
+   * @param ignoreFile File where there is a pattern on each line.
+   *
+   * @return The compiled rules, or empty rules if the file does not exist.
+   *
+   * @throws IOException If some IO error has been occurred.
+   */
+  public static ChecksumIgnoreRules load(File ignoreFile) throws IOException {
+    try {
+      return of(readAllLines(ignoreFile.toPath(), UTF_8));
+    } catch (NoSuchFileException e) {
+      return empty();
+    }
+  }
+
+  /*
+   * Literal patterns, like most directory names, are compared without any regular expression.
+   */
+  private static class Rule {
+
+    private final boolean negated;
+    private final boolean directoryOnly;
+    private final boolean anchored;
+    private final Optional<String> literal;
+    private final Optional<Pattern> pattern;
+
+    private Rule(boolean negated, boolean directoryOnly, boolean anchored, String glob) {
+      this.negated = negated;
+      this.directoryOnly = directoryOnly;
+      this.anchored = anchored;
+      if (isLiteral(glob)) {
+        literal = Optional.of(glob.replace("\\", ""));
+        pattern = Optional.empty();
+      } else {
+        literal = Optional.empty();
+        pattern = Optional.of(Pattern.compile(toRegex(glob)));
+      }
+    }
+
+    private boolean matches(String path, String name, boolean directory) {
+      if (directoryOnly && !directory) {
+        return false;
+      }
+      String subject = anchored
+          ? path
+          : name;
+      return literal.isPresent()
+          ? literal.get().equals(subject)
+          : pattern.get().matcher(subject).matches();
+    }
+
+    private static Optional<Rule> parse(String line) {
+      String text = trimTrailingSpaces(line);
+      if (text.isEmpty() || text.startsWith(COMMENT_PREFIX)) {
+        return Optional.empty();
+      }
+      boolean negated = text.startsWith(NEGATION_PREFIX);
+      if (negated) {
+        text = text.substring(NEGATION_PREFIX.length());
+      } else if (text.startsWith("\\#") || text.startsWith("\\!")) {
+        text = text.substring(1);
+      }
+      boolean directoryOnly = text.endsWith(SEPARATOR);
+      if (directoryOnly) {
+        text = text.substring(0, text.length() - SEPARATOR.length());
+      }
+      boolean anchored = text.contains(SEPARATOR);
+      if (text.startsWith(SEPARATOR)) {
+        text = text.substring(SEPARATOR.length());
+      }
+      if (text.isEmpty()) {
+        return Optional.empty();
+      }
+      return Optional.of(new Rule(negated, directoryOnly, anchored, text));
+    }
+
+    private static String trimTrailingSpaces(String line) {
+      int end = line.length();
+      while (end > 0 && line.charAt(end - 1) == ' '
+          && (end < 2 || line.charAt(end - 2) != '\\')) {
+        --end;
+      }
+      return line.substring(0, end);
+    }
+
+    private static boolean isLiteral(String glob) {
+      return glob.chars().noneMatch(ch -> ch == '*' || ch == '?' || ch == '[');
+    }
+
+    private static String toRegex(String glob) {
+      StringBuilder regex = new StringBuilder();
+      int i = 0;
+      while (i < glob.length()) {
+        char ch = glob.charAt(i);
+        if (glob.startsWith("**/", i) && (i == 0 || glob.charAt(i - 1) == '/')) {
+          regex.append("(?:.*/)?");
+          i += 3;
+        } else if (glob.startsWith("**", i)) {
+          regex.append(".*");
+          i += 2;
+        } else if (ch == '*') {
+          regex.append("[^/]*");
+          ++i;
+        } else if (ch == '?') {
+          regex.append("[^/]");
+          ++i;
+        } else if (ch == '[' && glob.indexOf(']', i + 2) > 0) {
+          int end = glob.indexOf(']', i + 2);
+          String members = glob.substring(i + 1, end);
+          regex.append('[');
+          if (members.startsWith("!") || members.startsWith("^")) {
+            regex.append('^');
+            members = members.substring(1);
+          }
+          regex.append(members.replace("\\", "\\\\").replace("[", "\\["));
+          regex.append(']');
+          i = end + 1;
+        } else if (ch == '\\' && i + 1 < glob.length()) {
+          regex.append(Pattern.quote(String.valueOf(glob.charAt(i + 1))));
+          i += 2;
+        } else {
+          regex.append(Pattern.quote(String.valueOf(ch)));
+          ++i;
+        }
+      }
+      return regex.toString();
+    }
+  }
+}
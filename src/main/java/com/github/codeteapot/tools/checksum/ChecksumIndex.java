@@ -0,0 +1,123 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * Files modified shortly before the index was generated are not trusted, because a later
+ * modification could keep the same size and the same last modified time on file systems with
+ * coarse timestamp granularity.
+ */
+class ChecksumIndex {
+
+  private static final String HEADER_PREFIX = "#";
+  private static final long RACY_INTERVAL = SECONDS.toNanos(2L);
+
+  private final long timestamp;
+  private final Map<String, ChecksumIndexRecord> pathRecords;
+  private final Map<String, ChecksumIndexRecord> fileKeyRecords;
+  private final Set<String> excludedPaths;
+
+  private ChecksumIndex(long timestamp, Map<String, ChecksumIndexRecord> pathRecords,
+      Map<String, ChecksumIndexRecord> fileKeyRecords, Set<String> excludedPaths) {
+    this.timestamp = timestamp;
+    this.pathRecords = pathRecords;
+    this.fileKeyRecords = fileKeyRecords;
+    this.excludedPaths = excludedPaths;
+  }
+
+  /*
+   * Renamed files are found by its file key, when the file system provides it. Records are only
+   * found when their hash was calculated with the given scheme.
+   */
+  Optional<ChecksumEntry> lookup(ChecksumPath path, String scheme) {
+    if (path.getLastModified() + RACY_INTERVAL >= timestamp
+        || excludedPaths.contains(path.getRelativePath())) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(Optional.ofNullable(pathRecords.get(path.getRelativePath()))
+        .filter(record -> record.matches(path, scheme))
+        .orElseGet(() -> path.getFileKey()
+            .map(fileKeyRecords::get)
+            .filter(record -> record.matches(path, scheme))
+            .orElse(null)))
+        .map(record -> record.toChecksumEntry(path));
+  }
+
+  /*
+   * Excluded paths are never found, even when their metadata matches.
+   */
+  ChecksumIndex exclude(Set<String> paths) {
+    return new ChecksumIndex(timestamp, pathRecords, fileKeyRecords, paths);
+  }
+
+  static ChecksumIndex of(long timestamp, Collection<ChecksumIndexRecord> records) {
+    return new ChecksumIndex(
+        timestamp,
+        records.stream()
+            .collect(toMap(ChecksumIndexRecord::getPath, identity(), (first, second) -> first)),
+        records.stream()
+            .filter(record -> record.fileKey.isPresent())
+            .collect(toMap(record -> record.fileKey.get(), identity(), (first, second) -> first)),
+        emptySet());
+  }
+
+  static ChecksumIndex empty() {
+    return new ChecksumIndex(Long.MIN_VALUE, emptyMap(), emptyMap(), emptySet());
+  }
+
+  static ChecksumIndex load(File indexFile, String algorithm) throws IOException {
+    try (BufferedReader reader = new BufferedReader(new FileReader(indexFile))) {
+      String[] header = Optional.ofNullable(reader.readLine())
+          .filter(line -> line.startsWith(HEADER_PREFIX))
+          .map(line -> line.substring(HEADER_PREFIX.length()).split(" "))
+          .orElse(new String[0]);
+      if (header.length != 2 || !header[0].equals(algorithm)) {
+        return empty();
+      }
+      return of(parseLong(header[1]), reader.lines()
+          .map(ChecksumIndexRecord::parse)
+          .collect(toList()));
+    } catch (FileNotFoundException e) {
+      return empty();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } catch (RuntimeException e) {
+      // Malformed index...
+      return empty();
+    }
+  }
+
+  static void store(File indexFile, String algorithm, long timestamp,
+      Collection<ChecksumIndexRecord> records) throws IOException {
+    File tempFile = new File(indexFile.getPath() + ".tmp");
+    try (PrintWriter writer = new PrintWriter(tempFile)) {
+      writer.println(format("%s%s %d", HEADER_PREFIX, algorithm, timestamp));
+      records.stream()
+          .sorted(comparing(ChecksumIndexRecord::getPath))
+          .forEach(writer::println);
+    }
+    move(tempFile.toPath(), indexFile.toPath(), REPLACE_EXISTING);
+  }
+}
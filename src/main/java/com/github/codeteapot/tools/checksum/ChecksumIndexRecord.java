@@ -0,0 +1,70 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+
+import java.util.Optional;
+
+class ChecksumIndexRecord {
+
+  private static final String NO_FILE_KEY = "-";
+
+  final String path;
+  final long size;
+  final long lastModified;
+  final Optional<String> fileKey;
+  final String scheme;
+  final byte[] hash;
+
+  ChecksumIndexRecord(String path, long size, long lastModified, Optional<String> fileKey,
+      String scheme, byte[] hash) {
+    this.path = path;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.fileKey = fileKey;
+    this.scheme = scheme;
+    this.hash = hash;
+  }
+
+  @Override
+  public String toString() {
+    return format(
+        "%s %d %d %s %s %s",
+        ChecksumHex.print(hash),
+        size,
+        lastModified,
+        fileKey.orElse(NO_FILE_KEY),
+        scheme,
+        path);
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  /*
+   * Hashes calculated with another scheme are not comparable, even when the file did not change.
+   */
+  boolean matches(ChecksumPath checksumPath, String scheme) {
+    return size == checksumPath.getSize()
+        && lastModified == checksumPath.getLastModified()
+        && fileKey.equals(checksumPath.getFileKey())
+        && this.scheme.equals(scheme);
+  }
+
+  ChecksumEntry toChecksumEntry(ChecksumPath checksumPath) {
+    return new ChecksumEntry(checksumPath.getRelativePath(), hash);
+  }
+
+  static ChecksumIndexRecord parse(String str) {
+    String[] parts = str.split(" ", 6);
+    return new ChecksumIndexRecord(
+        parts[5],
+        parseLong(parts[1]),
+        parseLong(parts[2]),
+        Optional.of(parts[3])
+            .filter(fileKey -> !fileKey.equals(NO_FILE_KEY)),
+        parts[4],
+        ChecksumHex.parse(parts[0]));
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/*
+ * Paths that point to the same physical file, as identified by its file key, like hard links or
+ * symbolic links to files of the same directory. Only the first path of each file is hashed, and
+ * its hash is reused for the others, which still have their own entries.
+ *
+ * Paths without any file key, like those on file systems that do not provide them, are always
+ * hashed.
+ */
+class ChecksumLinks {
+
+  private final List<ChecksumPath> distinctPaths;
+  private final Map<String, List<ChecksumPath>> linkedPaths;
+
+  private ChecksumLinks(List<ChecksumPath> distinctPaths,
+      Map<String, List<ChecksumPath>> linkedPaths) {
+    this.distinctPaths = distinctPaths;
+    this.linkedPaths = linkedPaths;
+  }
+
+  List<ChecksumPath> getDistinctPaths() {
+    return distinctPaths;
+  }
+
+  long getLinkedCount() {
+    return linkedPaths.values().stream()
+        .mapToLong(List::size)
+        .sum();
+  }
+
+  Callable<List<ChecksumEntry>> expand(Callable<List<ChecksumEntry>> task) {
+    return linkedPaths.isEmpty()
+        ? task
+        : () -> expand(task.call());
+  }
+
+  private List<ChecksumEntry> expand(List<ChecksumEntry> entries) {
+    List<ChecksumEntry> expandedEntries = new ArrayList<>(entries);
+    for (ChecksumEntry entry : entries) {
+      List<ChecksumPath> paths = linkedPaths.get(entry.getPath());
+      if (paths != null) {
+        paths.forEach(path -> expandedEntries.add(path.toChecksumEntry(entry.hash)));
+      }
+    }
+    return expandedEntries;
+  }
+
+  static ChecksumLinks of(List<ChecksumPath> paths) {
+    Map<String, ChecksumPath> firstPaths = new HashMap<>();
+    List<ChecksumPath> distinctPaths = new ArrayList<>(paths.size());
+    Map<String, List<ChecksumPath>> linkedPaths = new HashMap<>();
+    for (ChecksumPath path : paths) {
+      Optional<String> fileKey = path.getFileKey();
+      ChecksumPath firstPath = fileKey.isPresent()
+          ? firstPaths.putIfAbsent(fileKey.get(), path)
+          : null;
+      if (firstPath == null) {
+        distinctPaths.add(path);
+      } else {
+        linkedPaths.computeIfAbsent(firstPath.getRelativePath(), key -> new ArrayList<>())
+            .add(path);
+      }
+    }
+    return new ChecksumLinks(distinctPaths, linkedPaths);
+  }
+}
@@ -0,0 +1,86 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.file.Files.getAttribute;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+class ChecksumPath {
+
+  private static final String UNIX_VIEW = "unix";
+  private static final String CHANGE_TIME_ATTRIBUTE = "unix:ctime";
+
+  private final File file;
+  private final String relativePath;
+  private final long size;
+  private final long lastModified;
+  private final FileTime creationTime;
+  private final Optional<String> fileKey;
+
+  ChecksumPath(File directory, Path path, BasicFileAttributes attrs) {
+    file = path.toFile();
+    relativePath = directory.toPath().relativize(path).toString();
+    size = attrs.size();
+    lastModified = attrs.lastModifiedTime().to(NANOSECONDS);
+    creationTime = attrs.creationTime();
+    fileKey = Optional.ofNullable(attrs.fileKey())
+        .map(Object::toString);
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  String getRelativePath() {
+    return relativePath;
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  long getLastModified() {
+    return lastModified;
+  }
+
+  /*
+   * Unlike the last modified time, the change time can not be set back, so a file replaced in place
+   * is told apart even when it keeps its size and last modified time. It is read when needed, since
+   * only the hash cache uses it. The creation time stands for it where there is no change time.
+   */
+  long getChangeTime() throws IOException {
+    Path path = file.toPath();
+    if (path.getFileSystem().supportedFileAttributeViews().contains(UNIX_VIEW)) {
+      return ((FileTime) getAttribute(path, CHANGE_TIME_ATTRIBUTE)).to(NANOSECONDS);
+    }
+    return creationTime.to(NANOSECONDS);
+  }
+
+  Optional<String> getFileKey() {
+    return fileKey;
+  }
+
+  boolean isNotIgnored(Predicate<String> ignoreFile) {
+    return !ignoreFile.test(relativePath);
+  }
+
+  ChecksumEntry toChecksumEntry(ChecksumHasher hasher)
+      throws IOException, NoSuchAlgorithmException {
+    return new ChecksumEntry(relativePath, hasher.hash(file));
+  }
+
+  ChecksumEntry toChecksumEntry(byte[] hash) {
+    return new ChecksumEntry(relativePath, hash);
+  }
+
+  ChecksumIndexRecord toIndexRecord(String scheme, byte[] hash) {
+    return new ChecksumIndexRecord(relativePath, size, lastModified, fileKey, scheme, hash);
+  }
+}
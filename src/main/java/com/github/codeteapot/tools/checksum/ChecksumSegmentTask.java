@@ -0,0 +1,35 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+class ChecksumSegmentTask implements Callable<List<ChecksumEntry>> {
+
+  private final ChecksumHasher hasher;
+  private final ChecksumSegments segments;
+  private final int segment;
+
+  ChecksumSegmentTask(ChecksumHasher hasher, ChecksumSegments segments, int segment) {
+    this.hasher = hasher;
+    this.segments = segments;
+    this.segment = segment;
+  }
+
+  @Override
+  public List<ChecksumEntry> call() throws IOException, NoSuchAlgorithmException {
+    ChecksumPath path = segments.getPath();
+    Optional<ChecksumEntry> entry = segments.complete(
+        hasher,
+        segment,
+        hasher.hashSegment(path.getFile(), segment, path.getSize()));
+    return entry.isPresent()
+        ? singletonList(entry.get())
+        : emptyList();
+  }
+}
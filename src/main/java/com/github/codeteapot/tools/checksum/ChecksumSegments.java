@@ -0,0 +1,39 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Hashes of the segments of a single file, that are completed by different tasks. The task that
+ * completes the last one calculates the file hash.
+ */
+class ChecksumSegments {
+
+  private final ChecksumPath path;
+  private final byte[][] hashes;
+  private final AtomicInteger remaining;
+
+  ChecksumSegments(ChecksumPath path, int count) {
+    this.path = path;
+    hashes = new byte[count][];
+    remaining = new AtomicInteger(count);
+  }
+
+  ChecksumPath getPath() {
+    return path;
+  }
+
+  int getCount() {
+    return hashes.length;
+  }
+
+  Optional<ChecksumEntry> complete(ChecksumHasher hasher, int segment, byte[] hash)
+      throws NoSuchAlgorithmException {
+    hashes[segment] = hash;
+    if (remaining.decrementAndGet() > 0) {
+      return Optional.empty();
+    }
+    return Optional.of(path.toChecksumEntry(hasher.combine(path.getSize(), hashes)));
+  }
+}
@@ -0,0 +1,449 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Runtime.getRuntime;
+import static java.lang.String.format;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Settings that determine how a {@link Checksum} is calculated.
+ *
+ * <p>Default values are used for those settings that are not explicitly set.
+ */
+public class ChecksumSettings {
+
+  private static final String DEFAULT_ALGORITHM = "SHA-256";
+  private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+  private static final long DEFAULT_MAPPING_THRESHOLD = 64L * 1024L * 1024L;
+  private static final int DEFAULT_MAPPING_WINDOW_SIZE = 64 * 1024 * 1024;
+  private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final int DEFAULT_HASH_CACHE_SIZE = 100_000;
+
+  private String algorithm;
+  private int threads;
+  private int ioConcurrency;
+  private File indexFile;
+  private boolean paranoid;
+  private ChecksumIgnoreRules ignoreRules;
+  private boolean lazy;
+  private int bufferSize;
+  private long mappingThreshold;
+  private int mappingWindowSize;
+  private ChecksumFormat format;
+  private int cacheSize;
+  private long segmentThreshold;
+  private int segmentSize;
+  private boolean normalizeArchives;
+  private File hashCacheDirectory;
+  private int hashCacheSize;
+  private ChecksumStatistics statistics;
+
+  /**
+   * Settings with default values.
+   */
+  public ChecksumSettings() {
+    algorithm = DEFAULT_ALGORITHM;
+    threads = 0;
+    ioConcurrency = 0;
+    indexFile = null;
+    paranoid = false;
+    ignoreRules = ChecksumIgnoreRules.empty();
+    lazy = false;
+    bufferSize = DEFAULT_BUFFER_SIZE;
+    mappingThreshold = DEFAULT_MAPPING_THRESHOLD;
+    mappingWindowSize = DEFAULT_MAPPING_WINDOW_SIZE;
+    format = ChecksumFormat.BINARY;
+    cacheSize = 0;
+    segmentThreshold = 0L;
+    segmentSize = DEFAULT_SEGMENT_SIZE;
+    normalizeArchives = false;
+    hashCacheDirectory = null;
+    hashCacheSize = DEFAULT_HASH_CACHE_SIZE;
+    statistics = new ChecksumStatistics();
+  }
+
+  /**
+   * Name of the algorithm used to calculate the fingerprint of directory files content.
+   *
+   * @return The algorithm name.
+   * 
+   * @see FingerprintAlgorithm#forName(String)
+   */
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  /**
+   * Set value of {@code algorithm} property.
+   *
+   * @param algorithm New value.
+   */
+  public void setAlgorithm(String algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  /**
+   * Number of threads used to calculate the hash of directory files.
+   *
+   * @return The number of threads, that is always positive.
+   */
+  public int getThreads() {
+    return threads > 0
+        ? threads
+        : getRuntime().availableProcessors();
+  }
+
+  /**
+   * Set value of {@code threads} property.
+   *
+   * <p>Non-positive values mean the number of available processors.
+   *
+   * @param threads New value.
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Number of directory files that are read at once on I/O concurrency mode, intended for
+   * directories on file systems with a high latency, like network ones, where reading threads are
+   * mostly waiting.
+   *
+   * <p>On this mode, each file is read by its own task, on as many virtual threads when they are
+   * available, or on as many platform threads otherwise, instead of the number of threads.
+   *
+   * @return The number of concurrent reads, that disables I/O concurrency mode when it is not
+   *         positive.
+   * 
+   * @see #getThreads()
+   */
+  public int getIoConcurrency() {
+    return ioConcurrency;
+  }
+
+  /**
+   * Set value of {@code ioConcurrency} property.
+   *
+   * @param ioConcurrency New value, where non-positive ones disable I/O concurrency mode.
+   */
+  public void setIoConcurrency(int ioConcurrency) {
+    this.ioConcurrency = ioConcurrency;
+  }
+
+  /**
+   * File where size, last modified time and file key of each directory file are stored together
+   * with its hash.
+   *
+   * <p>The hash of a file is taken from the index, instead of reading its content, while its
+   * metadata does not change.
+   *
+   * @return The index file, or empty when there is not any index.
+   */
+  public Optional<File> getIndexFile() {
+    return Optional.ofNullable(indexFile);
+  }
+
+  /**
+   * Set value of {@code indexFile} property.
+   *
+   * @param indexFile New value, that could be {@code null} for not using any index.
+   */
+  public void setIndexFile(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Determines if the content of all directory files is read, ignoring the hashes stored on the
+   * index file. The index file is updated anyway.
+   *
+   * @return {@code true} if, and only if stored hashes must be ignored.
+   */
+  public boolean isParanoid() {
+    return paranoid;
+  }
+
+  /**
+   * Set value of {@code paranoid} property.
+   *
+   * @param paranoid New value.
+   */
+  public void setParanoid(boolean paranoid) {
+    this.paranoid = paranoid;
+  }
+
+  /**
+   * Rules that determine which directory files are ignored.
+   *
+   * <p>Ignored subdirectories are not traversed at all.
+   *
+   * @return The ignore rules, that are empty by default.
+   */
+  public ChecksumIgnoreRules getIgnoreRules() {
+    return ignoreRules;
+  }
+
+  /**
+   * Set value of {@code ignoreRules} property.
+   *
+   * @param ignoreRules New value.
+   */
+  public void setIgnoreRules(ChecksumIgnoreRules ignoreRules) {
+    this.ignoreRules = ignoreRules;
+  }
+
+  /**
+   * Determines if the content of directory files is read on demand, so a stored checksum is found
+   * not to match as soon as the first difference is detected.
+   *
+   * <p>Differences on the set of directory files are detected without reading any content.
+   *
+   * @return {@code true} if, and only if lazy mode is enabled.
+   */
+  public boolean isLazy() {
+    return lazy;
+  }
+
+  /**
+   * Set value of {@code lazy} property.
+   *
+   * @param lazy New value.
+   */
+  public void setLazy(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  /**
+   * Size in bytes of the buffer used by each thread to read the content of directory files.
+   *
+   * @return The buffer size.
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Set value of {@code bufferSize} property.
+   *
+   * @param bufferSize New value, that must be positive.
+   * 
+   * @throws IllegalArgumentException If the value is not positive.
+   */
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = requirePositive(bufferSize, "Buffer size");
+  }
+
+  /**
+   * Minimum size in bytes of those directory files whose content is memory-mapped instead of read
+   * through a buffer.
+   *
+   * @return The mapping threshold, that disables mapping when it is not positive.
+   */
+  public long getMappingThreshold() {
+    return mappingThreshold;
+  }
+
+  /**
+   * Set value of {@code mappingThreshold} property.
+   *
+   * @param mappingThreshold New value, where non-positive ones disable mapping.
+   */
+  public void setMappingThreshold(long mappingThreshold) {
+    this.mappingThreshold = mappingThreshold;
+  }
+
+  /**
+   * Size in bytes of each window that is memory-mapped at a time.
+   *
+   * @return The mapping window size.
+   */
+  public int getMappingWindowSize() {
+    return mappingWindowSize;
+  }
+
+  /**
+   * Set value of {@code mappingWindowSize} property.
+   *
+   * @param mappingWindowSize New value, that must be positive.
+   * 
+   * @throws IllegalArgumentException If the value is not positive.
+   */
+  public void setMappingWindowSize(int mappingWindowSize) {
+    this.mappingWindowSize = requirePositive(mappingWindowSize, "Mapping window size");
+  }
+
+  /**
+   * Format used to store the checksum file.
+   *
+   * <p>Checksum files are loaded in any format, so those stored on text format by previous versions
+   * are still read.
+   *
+   * @return The checksum file format.
+   */
+  public ChecksumFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Set value of {@code format} property.
+   *
+   * @param format New value.
+   */
+  public void setFormat(ChecksumFormat format) {
+    this.format = format;
+  }
+
+  /**
+   * Maximum number of directories kept by a {@link ChecksumCache}, when the checksum is calculated
+   * with one.
+   *
+   * @return The cache size, that disables the cache when it is not positive.
+   */
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  /**
+   * Set value of {@code cacheSize} property.
+   *
+   * @param cacheSize New value, where non-positive ones disable the cache.
+   */
+  public void setCacheSize(int cacheSize) {
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * Minimum size in bytes of those directory files that are hashed by segments, which are hashed
+   * concurrently.
+   *
+   * <p>The hash of a segmented file is calculated from the hashes of its segments, so it is
+   * different from the one of the same file when it is not segmented.
+   *
+   * @return The segment threshold, that disables segmentation when it is not positive.
+   */
+  public long getSegmentThreshold() {
+    return segmentThreshold;
+  }
+
+  /**
+   * Set value of {@code segmentThreshold} property.
+   *
+   * @param segmentThreshold New value, where non-positive ones disable segmentation.
+   */
+  public void setSegmentThreshold(long segmentThreshold) {
+    this.segmentThreshold = segmentThreshold;
+  }
+
+  /**
+   * Size in bytes of each segment of those directory files that are hashed by segments.
+   *
+   * @return The segment size.
+   */
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Set value of {@code segmentSize} property.
+   *
+   * @param segmentSize New value, that must be positive.
+   * 
+   * @throws IllegalArgumentException If the value is not positive.
+   */
+  public void setSegmentSize(int segmentSize) {
+    this.segmentSize = requirePositive(segmentSize, "Segment size");
+  }
+
+  /**
+   * Whether archive files, like JAR, WAR, ZIP and TAR.GZ ones, are hashed from the names and
+   * contents of their entries, instead of their own content.
+   *
+   * <p>Timestamps, entry order and compression metadata are ignored, so archives that are built
+   * again from the same files have the same hash. Files that are not valid archives are hashed as
+   * any other file.
+   *
+   * @return {@code true} when archive files are normalized.
+   */
+  public boolean isNormalizeArchives() {
+    return normalizeArchives;
+  }
+
+  /**
+   * Set value of {@code normalizeArchives} property.
+   *
+   * @param normalizeArchives New value.
+   */
+  public void setNormalizeArchives(boolean normalizeArchives) {
+    this.normalizeArchives = normalizeArchives;
+  }
+
+  /**
+   * Directory where the hashes of files are cached for all directories and processes of the same
+   * host, keyed by their file key, size and last modified time.
+   *
+   * <p>The hash of a file is taken from the cache, instead of reading its content, when some
+   * checksum with the same algorithm has already read it through any path. It is safe to share it
+   * among concurrent processes.
+   *
+   * @return The hash cache directory, or empty when there is not any host-wide hash cache.
+   */
+  public Optional<File> getHashCacheDirectory() {
+    return Optional.ofNullable(hashCacheDirectory);
+  }
+
+  /**
+   * Set value of {@code hashCacheDirectory} property.
+   *
+   * @param hashCacheDirectory New value, that could be {@code null} for not using any host-wide
+   *        hash cache.
+   */
+  public void setHashCacheDirectory(File hashCacheDirectory) {
+    this.hashCacheDirectory = hashCacheDirectory;
+  }
+
+  /**
+   * Maximum number of hashes kept by the host-wide hash cache, where least recently used ones are
+   * evicted when it is compacted.
+   *
+   * @return The hash cache size.
+   */
+  public int getHashCacheSize() {
+    return hashCacheSize;
+  }
+
+  /**
+   * Set value of {@code hashCacheSize} property.
+   *
+   * @param hashCacheSize New value, that must be positive.
+   * 
+   * @throws IllegalArgumentException If the value is not positive.
+   */
+  public void setHashCacheSize(int hashCacheSize) {
+    this.hashCacheSize = requirePositive(hashCacheSize, "Hash cache size");
+  }
+
+  /**
+   * Statistics where checksums calculated with these settings are recorded.
+   *
+   * @return The statistics, that are new ones by default.
+   */
+  public ChecksumStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Set value of {@code statistics} property.
+   *
+   * @param statistics New value.
+   */
+  public void setStatistics(ChecksumStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  private static int requirePositive(int value, String name) {
+    if (value <= 0) {
+      throw new IllegalArgumentException(format("%s must be positive", name));
+    }
+    return value;
+  }
+}
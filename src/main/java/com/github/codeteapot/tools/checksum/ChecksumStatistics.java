@@ -0,0 +1,296 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the checksums calculated with the same settings, about how many files were walked
+ * and read, and where time was spent.
+ *
+ * <p>Counters are accumulated by all checksums that record on it, and they are safe to update from
+ * many threads.
+ *
+ * @see ChecksumSettings#getStatistics()
+ */
+public class ChecksumStatistics {
+
+  private final LongAdder walkedFiles;
+  private final LongAdder ignoredFiles;
+  private final LongAdder prunedDirectories;
+  private final LongAdder indexedFiles;
+  private final LongAdder hashCacheLookups;
+  private final LongAdder cachedFiles;
+  private final LongAdder linkedFiles;
+  private final LongAdder hashedFiles;
+  private final LongAdder hashedBytes;
+  private final LongAdder walkTime;
+  private final LongAdder loadTime;
+  private final LongAdder hashTime;
+  private final LongAdder compareTime;
+  private final LongAdder storeTime;
+
+  /**
+   * Statistics without anything recorded.
+   */
+  public ChecksumStatistics() {
+    walkedFiles = new LongAdder();
+    ignoredFiles = new LongAdder();
+    prunedDirectories = new LongAdder();
+    indexedFiles = new LongAdder();
+    hashCacheLookups = new LongAdder();
+    cachedFiles = new LongAdder();
+    linkedFiles = new LongAdder();
+    hashedFiles = new LongAdder();
+    hashedBytes = new LongAdder();
+    walkTime = new LongAdder();
+    loadTime = new LongAdder();
+    hashTime = new LongAdder();
+    compareTime = new LongAdder();
+    storeTime = new LongAdder();
+  }
+
+  /**
+   * Number of directory files taken into account.
+   *
+   * @return The number of walked files.
+   */
+  public long getWalkedFiles() {
+    return walkedFiles.sum();
+  }
+
+  /**
+   * Number of directory files that were found to be ignored, not including those inside pruned
+   * directories.
+   *
+   * @return The number of ignored files.
+   */
+  public long getIgnoredFiles() {
+    return ignoredFiles.sum();
+  }
+
+  /**
+   * Number of subdirectories that were not traversed because they were ignored.
+   *
+   * @return The number of pruned directories.
+   */
+  public long getPrunedDirectories() {
+    return prunedDirectories.sum();
+  }
+
+  /**
+   * Number of directory files whose hash was taken from the index, or from the in-memory cache.
+   *
+   * @return The number of indexed files.
+   */
+  public long getIndexedFiles() {
+    return indexedFiles.sum();
+  }
+
+  /**
+   * Number of directory files whose hash was taken from the host-wide hash cache.
+   *
+   * @return The number of cached files.
+   */
+  public long getCachedFiles() {
+    return cachedFiles.sum();
+  }
+
+  /**
+   * Number of directory files whose hash was taken from another path of the same physical file.
+   *
+   * @return The number of linked files.
+   */
+  public long getLinkedFiles() {
+    return linkedFiles.sum();
+  }
+
+  /**
+   * Number of directory files whose content was read.
+   *
+   * @return The number of hashed files.
+   */
+  public long getHashedFiles() {
+    return hashedFiles.sum();
+  }
+
+  /**
+   * Number of bytes of the directory files whose content was read.
+   *
+   * @return The number of hashed bytes.
+   */
+  public long getHashedBytes() {
+    return hashedBytes.sum();
+  }
+
+  /**
+   * Ratio of walked files whose hash was taken from the index.
+   *
+   * @return The index hit ratio, from {@code 0.0} to {@code 1.0}.
+   */
+  public double getIndexHitRatio() {
+    return ratio(indexedFiles.sum(), walkedFiles.sum());
+  }
+
+  /**
+   * Ratio of files looked up on the host-wide hash cache that were found.
+   *
+   * @return The hash cache hit ratio, from {@code 0.0} to {@code 1.0}.
+   */
+  public double getHashCacheHitRatio() {
+    return ratio(cachedFiles.sum(), hashCacheLookups.sum());
+  }
+
+  /**
+   * Time spent walking directories, and looking up hashes on index and caches.
+   *
+   * @return The walk time in milliseconds.
+   */
+  public long getWalkTime() {
+    return NANOSECONDS.toMillis(walkTime.sum());
+  }
+
+  /**
+   * Time spent loading stored checksums.
+   *
+   * @return The load time in milliseconds.
+   */
+  public long getLoadTime() {
+    return NANOSECONDS.toMillis(loadTime.sum());
+  }
+
+  /**
+   * Time elapsed since reading the first file until the last one was hashed.
+   *
+   * @return The hash time in milliseconds.
+   */
+  public long getHashTime() {
+    return NANOSECONDS.toMillis(hashTime.sum());
+  }
+
+  /**
+   * Time spent comparing with stored checksums. On lazy mode, it includes the time spent waiting
+   * for files to be hashed on demand.
+   *
+   * @return The compare time in milliseconds.
+   */
+  public long getCompareTime() {
+    return NANOSECONDS.toMillis(compareTime.sum());
+  }
+
+  /**
+   * Time spent storing checksums, index and caches.
+   *
+   * @return The store time in milliseconds.
+   */
+  public long getStoreTime() {
+    return NANOSECONDS.toMillis(storeTime.sum());
+  }
+
+  /**
+   * One-line summary, intended to be logged.
+   */
+  @Override
+  public String toString() {
+    return format(
+        "%d files walked (%d ignored, %d directories pruned), %d indexed, %d cached, %d linked, "
+            + "%d hashed (%d bytes); walk %d ms, load %d ms, hash %d ms, compare %d ms, "
+            + "store %d ms",
+        getWalkedFiles(),
+        getIgnoredFiles(),
+        getPrunedDirectories(),
+        getIndexedFiles(),
+        getCachedFiles(),
+        getLinkedFiles(),
+        getHashedFiles(),
+        getHashedBytes(),
+        getWalkTime(),
+        getLoadTime(),
+        getHashTime(),
+        getCompareTime(),
+        getStoreTime());
+  }
+
+  /**
+   * All statistics as a JSON object, with times in milliseconds.
+   *
+   * @return The JSON representation.
+   */
+  public String toJson() {
+    return format(
+        Locale.ROOT,
+        "{\"walkedFiles\":%d,\"ignoredFiles\":%d,\"prunedDirectories\":%d,\"indexedFiles\":%d,"
+            + "\"cachedFiles\":%d,\"linkedFiles\":%d,\"hashedFiles\":%d,\"hashedBytes\":%d,"
+            + "\"indexHitRatio\":%.4f,\"hashCacheHitRatio\":%.4f,\"walkTime\":%d,\"loadTime\":%d,"
+            + "\"hashTime\":%d,\"compareTime\":%d,\"storeTime\":%d}",
+        getWalkedFiles(),
+        getIgnoredFiles(),
+        getPrunedDirectories(),
+        getIndexedFiles(),
+        getCachedFiles(),
+        getLinkedFiles(),
+        getHashedFiles(),
+        getHashedBytes(),
+        getIndexHitRatio(),
+        getHashCacheHitRatio(),
+        getWalkTime(),
+        getLoadTime(),
+        getHashTime(),
+        getCompareTime(),
+        getStoreTime());
+  }
+
+  void walked(long files, long walkNanos) {
+    walkedFiles.add(files);
+    walkTime.add(walkNanos);
+  }
+
+  void ignored() {
+    ignoredFiles.increment();
+  }
+
+  void pruned() {
+    prunedDirectories.increment();
+  }
+
+  void indexed(long files) {
+    indexedFiles.add(files);
+  }
+
+  void lookedUp(boolean found) {
+    hashCacheLookups.increment();
+    if (found) {
+      cachedFiles.increment();
+    }
+  }
+
+  void hashing(long files, long bytes, long linked) {
+    hashedFiles.add(files);
+    hashedBytes.add(bytes);
+    linkedFiles.add(linked);
+  }
+
+  void hashed(long hashNanos) {
+    hashTime.add(hashNanos);
+  }
+
+  void loaded(long loadNanos) {
+    loadTime.add(loadNanos);
+  }
+
+  void compared(long compareNanos) {
+    compareTime.add(compareNanos);
+  }
+
+  void stored(long storeNanos) {
+    storeTime.add(storeNanos);
+  }
+
+  private static double ratio(long count, long total) {
+    return total > 0L
+        ? (double) count / total
+        : 0.0;
+  }
+}
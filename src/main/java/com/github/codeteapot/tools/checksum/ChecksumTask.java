@@ -0,0 +1,27 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+class ChecksumTask implements Callable<List<ChecksumEntry>> {
+
+  private final ChecksumHasher hasher;
+  private final List<ChecksumPath> paths;
+
+  ChecksumTask(ChecksumHasher hasher, List<ChecksumPath> paths) {
+    this.hasher = hasher;
+    this.paths = paths;
+  }
+
+  @Override
+  public List<ChecksumEntry> call() throws IOException, NoSuchAlgorithmException {
+    List<ChecksumEntry> entries = new ArrayList<>(paths.size());
+    for (ChecksumPath path : paths) {
+      entries.add(path.toChecksumEntry(hasher));
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Threads that read directory files on I/O concurrency mode. Those of this class are platform ones,
+ * for JDKs without virtual threads. The class of the same name under src/main/java21 is picked
+ * instead from the multi-release jar by JDKs that have them.
+ */
+final class ChecksumThreads {
+
+  private static final String IO_THREAD_NAME_PREFIX = "checksum-io-";
+
+  private ChecksumThreads() {}
+
+  static ThreadFactory ioThreadFactory() {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, IO_THREAD_NAME_PREFIX + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,96 @@
+package com.github.codeteapot.tools.checksum;
+
+import static com.github.codeteapot.tools.checksum.FingerprintBytes.toBytesBe;
+
+import java.util.zip.Checksum;
+
+/*
+ * The Java platform provides an intrinsic CRC32C implementation since Java 9. It is looked up
+ * reflectively, as the baseline is Java 8, where a table based implementation is used instead.
+ */
+class Crc32cFunction implements FingerprintFunction {
+
+  private static final String PLATFORM_CLASS_NAME = "java.util.zip.CRC32C";
+  private static final int CRC_BYTES = 4;
+
+  private final Checksum checksum;
+
+  Crc32cFunction() {
+    this(platformChecksum());
+  }
+
+  Crc32cFunction(Checksum checksum) {
+    this.checksum = checksum;
+  }
+
+  @Override
+  public void update(byte[] input, int offset, int length) {
+    checksum.update(input, offset, length);
+  }
+
+  @Override
+  public byte[] digest() {
+    byte[] result = toBytesBe(checksum.getValue(), CRC_BYTES);
+    checksum.reset();
+    return result;
+  }
+
+  private static Checksum platformChecksum() {
+    try {
+      return (Checksum) Class.forName(PLATFORM_CLASS_NAME).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      // Not available before Java 9
+      return new TableChecksum();
+    }
+  }
+
+  static class TableChecksum implements Checksum {
+
+    private static final int POLYNOMIAL = 0x82f63b78;
+    private static final int[] TABLE = table();
+
+    private int crc;
+
+    TableChecksum() {
+      reset();
+    }
+
+    @Override
+    public void update(int value) {
+      crc = (crc >>> 8) ^ TABLE[(crc ^ value) & 0xff];
+    }
+
+    @Override
+    public void update(byte[] input, int offset, int length) {
+      int value = crc;
+      for (int i = offset; i < offset + length; ++i) {
+        value = (value >>> 8) ^ TABLE[(value ^ input[i]) & 0xff];
+      }
+      crc = value;
+    }
+
+    @Override
+    public long getValue() {
+      return ~crc & 0xffffffffL;
+    }
+
+    @Override
+    public void reset() {
+      crc = 0xffffffff;
+    }
+
+    private static int[] table() {
+      int[] table = new int[256];
+      for (int i = 0; i < table.length; ++i) {
+        int value = i;
+        for (int bit = 0; bit < 8; ++bit) {
+          value = (value & 1) != 0
+              ? (value >>> 1) ^ POLYNOMIAL
+              : value >>> 1;
+        }
+        table[i] = value;
+      }
+      return table;
+    }
+  }
+}
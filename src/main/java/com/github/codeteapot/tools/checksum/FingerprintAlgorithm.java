@@ -0,0 +1,86 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.util.stream.StreamSupport.stream;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+
+/**
+ * Algorithm used to calculate the fingerprint of directory files content.
+ *
+ * <p>Besides those of {@link MessageDigest}, there are the following non-cryptographic algorithms,
+ * that are faster and enough for detecting changes.
+ * <dl>
+ * <dt>{@code XXH3}</dt>
+ * <dd>64 bits XXH3 hash, with default secret and seed.</dd>
+ * <dt>{@code XXH64}</dt>
+ * <dd>64 bits xxHash, with zero seed.</dd>
+ * <dt>{@code CRC32C}</dt>
+ * <dd>Castagnoli CRC, from the Java platform when it is available.</dd>
+ * <dt>{@code BLAKE3}</dt>
+ * <dd>256 bits BLAKE3 hash, that is also cryptographic.</dd>
+ * </dl>
+ *
+ * <p>More algorithms can be provided by implementations of this interface that are registered as
+ * {@link ServiceLoader} providers.
+ */
+public interface FingerprintAlgorithm {
+
+  /**
+   * Name of this algorithm, that is recorded together with the fingerprints calculated by it.
+   *
+   * @return The algorithm name.
+   */
+  String getName();
+
+  /**
+   * Create a new function that calculates fingerprints with this algorithm.
+   *
+   * @return The created function.
+   * 
+   * @throws NoSuchAlgorithmException If this algorithm is not available.
+   */
+  FingerprintFunction create() throws NoSuchAlgorithmException;
+
+  /**
+   * Get the algorithm with the given name.
+   * 
+   * <p>It is looked up between non-cryptographic algorithms, service providers and the ones of
+   * {@link MessageDigest}, in this order.
+   *
+   * @param name Name of the algorithm.
+   * 
+   * @return The algorithm with the given name.
+   * 
+   * @throws NoSuchAlgorithmException If there is not any algorithm with the given name.
+   */
+  static FingerprintAlgorithm forName(String name) throws NoSuchAlgorithmException {
+    Optional<FingerprintAlgorithm> algorithm = Stream.concat(
+        Stream.of(StandardFingerprintAlgorithm.values()),
+        stream(ServiceLoader.load(
+            FingerprintAlgorithm.class,
+            FingerprintAlgorithm.class.getClassLoader()).spliterator(), false))
+        .filter(candidate -> candidate.getName().equalsIgnoreCase(name))
+        .findFirst();
+    if (algorithm.isPresent()) {
+      return algorithm.get();
+    }
+    MessageDigest.getInstance(name);
+    return messageDigest(MessageDigest::getInstance, name);
+  }
+
+  /**
+   * Get the algorithm that calculates fingerprints with message digests of the given algorithm.
+   *
+   * @param digestCreator Creator of the message digests.
+   * @param name Algorithm of the message digests.
+   * 
+   * @return The algorithm based on message digests.
+   */
+  static FingerprintAlgorithm messageDigest(MessageDigestCreator digestCreator, String name) {
+    return new MessageDigestFingerprintAlgorithm(digestCreator, name);
+  }
+}
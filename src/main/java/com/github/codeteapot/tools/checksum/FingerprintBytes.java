@@ -0,0 +1,32 @@
+package com.github.codeteapot.tools.checksum;
+
+final class FingerprintBytes {
+
+  private FingerprintBytes() {}
+
+  static long readLongLe(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xffL)
+        | (bytes[offset + 1] & 0xffL) << 8
+        | (bytes[offset + 2] & 0xffL) << 16
+        | (bytes[offset + 3] & 0xffL) << 24
+        | (bytes[offset + 4] & 0xffL) << 32
+        | (bytes[offset + 5] & 0xffL) << 40
+        | (bytes[offset + 6] & 0xffL) << 48
+        | (bytes[offset + 7] & 0xffL) << 56;
+  }
+
+  static long readIntLe(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xffL)
+        | (bytes[offset + 1] & 0xffL) << 8
+        | (bytes[offset + 2] & 0xffL) << 16
+        | (bytes[offset + 3] & 0xffL) << 24;
+  }
+
+  static byte[] toBytesBe(long value, int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; ++i) {
+      bytes[i] = (byte) (value >>> ((length - i - 1) * 8));
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,18 @@
+package com.github.codeteapot.tools.checksum;
+
+/*
+ * Intermediate array of each thread, used to update functions from buffers that are not backed by
+ * an array, like direct and mapped ones. It is only used during a single update call, so it can be
+ * shared by all functions of the same thread.
+ */
+final class FingerprintChunk {
+
+  private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(
+      () -> new byte[FingerprintFunction.BUFFER_CHUNK_SIZE]);
+
+  private FingerprintChunk() {}
+
+  static byte[] get() {
+    return CHUNK.get();
+  }
+}
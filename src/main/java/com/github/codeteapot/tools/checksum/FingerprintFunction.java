@@ -0,0 +1,56 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Math.min;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stateful function that calculates the fingerprint of some content, given by parts.
+ *
+ * @see FingerprintAlgorithm#create()
+ */
+public interface FingerprintFunction {
+
+  /**
+   * Size of the intermediate array used to update from buffers that are not backed by an array.
+   */
+  int BUFFER_CHUNK_SIZE = 8 * 1024;
+
+  /**
+   * Update the fingerprint with the given part of content.
+   *
+   * @param input Array where the part of content is.
+   * @param offset Offset of the part of content on the given array.
+   * @param length Length of the part of content.
+   */
+  void update(byte[] input, int offset, int length);
+
+  /**
+   * Update the fingerprint with the remaining bytes of the given buffer.
+   *
+   * <p>The position of the buffer is moved to its limit. When the buffer is not backed by an array,
+   * its content is copied through an intermediate array that is reused by the calling thread.
+   *
+   * @param input Buffer where the part of content is.
+   */
+  default void update(ByteBuffer input) {
+    if (input.hasArray()) {
+      update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+      input.position(input.limit());
+    } else {
+      byte[] chunk = FingerprintChunk.get();
+      while (input.hasRemaining()) {
+        int length = min(input.remaining(), chunk.length);
+        input.get(chunk, 0, length);
+        update(chunk, 0, length);
+      }
+    }
+  }
+
+  /**
+   * Complete the calculation of the fingerprint, and reset this function for being reused.
+   *
+   * @return The fingerprint of all given parts of content since the last reset.
+   */
+  byte[] digest();
+}
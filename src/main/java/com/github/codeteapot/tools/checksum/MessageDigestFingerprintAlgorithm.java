@@ -0,0 +1,50 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+class MessageDigestFingerprintAlgorithm implements FingerprintAlgorithm {
+
+  private final MessageDigestCreator digestCreator;
+  private final String name;
+
+  MessageDigestFingerprintAlgorithm(MessageDigestCreator digestCreator, String name) {
+    this.digestCreator = digestCreator;
+    this.name = name;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public FingerprintFunction create() throws NoSuchAlgorithmException {
+    return new MessageDigestFunction(digestCreator.create(name));
+  }
+
+  private static class MessageDigestFunction implements FingerprintFunction {
+
+    private final MessageDigest digest;
+
+    private MessageDigestFunction(MessageDigest digest) {
+      this.digest = digest;
+    }
+
+    @Override
+    public void update(byte[] input, int offset, int length) {
+      digest.update(input, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer input) {
+      digest.update(input);
+    }
+
+    @Override
+    public byte[] digest() {
+      return digest.digest();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.util.function.Supplier;
+
+enum StandardFingerprintAlgorithm implements FingerprintAlgorithm {
+
+  XXH3("XXH3", Xxh3Function::new),
+  XXH64("XXH64", Xxh64Function::new),
+  CRC32C("CRC32C", Crc32cFunction::new),
+  BLAKE3("BLAKE3", Blake3Function::new);
+
+  private final String name;
+  private final Supplier<FingerprintFunction> functionSupplier;
+
+  StandardFingerprintAlgorithm(String name, Supplier<FingerprintFunction> functionSupplier) {
+    this.name = name;
+    this.functionSupplier = functionSupplier;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public FingerprintFunction create() {
+    return functionSupplier.get();
+  }
+}
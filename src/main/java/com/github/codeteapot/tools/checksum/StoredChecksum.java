@@ -0,0 +1,66 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+class StoredChecksum {
+
+  final Optional<String> algorithm;
+  final ChecksumEntryTable entryTable;
+  private final boolean readable;
+
+  StoredChecksum(Optional<String> algorithm, Collection<ChecksumEntry> entries) {
+    this(algorithm, ChecksumEntryTable.of(entries));
+  }
+
+  StoredChecksum(Optional<String> algorithm, ChecksumEntryTable entryTable) {
+    this(algorithm, entryTable, true);
+  }
+
+  private StoredChecksum(Optional<String> algorithm, ChecksumEntryTable entryTable,
+      boolean readable) {
+    this.algorithm = algorithm;
+    this.readable = readable;
+    this.entryTable = entryTable;
+  }
+
+  boolean matches(String algorithm, ChecksumEntryTable entryTable) {
+    return matchesAlgorithm(algorithm) && this.entryTable.equals(entryTable);
+  }
+
+  boolean matches(String algorithm, ChecksumGeneration generation) throws IOException {
+    if (!matchesAlgorithm(algorithm)) {
+      return false;
+    }
+    try {
+      return generation.matches(entryTable);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  Set<String> changes(String algorithm, ChecksumEntryTable entryTable) {
+    if (!matchesAlgorithm(algorithm)) {
+      return this.entryTable.union(entryTable);
+    }
+    return this.entryTable.changes(entryTable);
+  }
+
+  /*
+   * A checksum that has never been stored matches with any algorithm, and one that could not be
+   * read does not match with any of them.
+   */
+  private boolean matchesAlgorithm(String algorithm) {
+    return readable && this.algorithm.map(algorithm::equalsIgnoreCase).orElse(true);
+  }
+
+  /*
+   * All paths of a checksum that could not be read are changed.
+   */
+  static StoredChecksum unreadable() {
+    return new StoredChecksum(Optional.empty(), ChecksumEntryTable.empty(), false);
+  }
+}
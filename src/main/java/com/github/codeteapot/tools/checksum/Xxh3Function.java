@@ -0,0 +1,318 @@
+package com.github.codeteapot.tools.checksum;
+
+import static com.github.codeteapot.tools.checksum.FingerprintBytes.readIntLe;
+import static com.github.codeteapot.tools.checksum.FingerprintBytes.readLongLe;
+import static com.github.codeteapot.tools.checksum.FingerprintBytes.toBytesBe;
+import static com.github.codeteapot.tools.checksum.Xxh64Function.PRIME64_1;
+import static com.github.codeteapot.tools.checksum.Xxh64Function.PRIME64_2;
+import static com.github.codeteapot.tools.checksum.Xxh64Function.PRIME64_3;
+import static com.github.codeteapot.tools.checksum.Xxh64Function.PRIME64_4;
+import static com.github.codeteapot.tools.checksum.Xxh64Function.PRIME64_5;
+import static java.lang.Long.reverseBytes;
+import static java.lang.Long.rotateLeft;
+
+/*
+ * Streaming XXH3 64 bits variant, with default secret and zero seed. Input up to 240 bytes is kept
+ * on the internal buffer and hashed by the short input routines when digesting.
+ */
+class Xxh3Function implements FingerprintFunction {
+
+  private static final long PRIME32_1 = 0x9E3779B1L;
+  private static final long PRIME32_2 = 0x85EBCA77L;
+  private static final long PRIME32_3 = 0xC2B2AE3DL;
+  private static final long PRIME_MX1 = 0x165667919E3779F9L;
+  private static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
+
+  private static final byte[] SECRET = {
+      (byte) 0xb8, (byte) 0xfe, (byte) 0x6c, (byte) 0x39, (byte) 0x23, (byte) 0xa4, (byte) 0x4b,
+      (byte) 0xbe, (byte) 0x7c, (byte) 0x01, (byte) 0x81, (byte) 0x2c, (byte) 0xf7, (byte) 0x21,
+      (byte) 0xad, (byte) 0x1c, (byte) 0xde, (byte) 0xd4, (byte) 0x6d, (byte) 0xe9, (byte) 0x83,
+      (byte) 0x90, (byte) 0x97, (byte) 0xdb, (byte) 0x72, (byte) 0x40, (byte) 0xa4, (byte) 0xa4,
+      (byte) 0xb7, (byte) 0xb3, (byte) 0x67, (byte) 0x1f, (byte) 0xcb, (byte) 0x79, (byte) 0xe6,
+      (byte) 0x4e, (byte) 0xcc, (byte) 0xc0, (byte) 0xe5, (byte) 0x78, (byte) 0x82, (byte) 0x5a,
+      (byte) 0xd0, (byte) 0x7d, (byte) 0xcc, (byte) 0xff, (byte) 0x72, (byte) 0x21, (byte) 0xb8,
+      (byte) 0x08, (byte) 0x46, (byte) 0x74, (byte) 0xf7, (byte) 0x43, (byte) 0x24, (byte) 0x8e,
+      (byte) 0xe0, (byte) 0x35, (byte) 0x90, (byte) 0xe6, (byte) 0x81, (byte) 0x3a, (byte) 0x26,
+      (byte) 0x4c, (byte) 0x3c, (byte) 0x28, (byte) 0x52, (byte) 0xbb, (byte) 0x91, (byte) 0xc3,
+      (byte) 0x00, (byte) 0xcb, (byte) 0x88, (byte) 0xd0, (byte) 0x65, (byte) 0x8b, (byte) 0x1b,
+      (byte) 0x53, (byte) 0x2e, (byte) 0xa3, (byte) 0x71, (byte) 0x64, (byte) 0x48, (byte) 0x97,
+      (byte) 0xa2, (byte) 0x0d, (byte) 0xf9, (byte) 0x4e, (byte) 0x38, (byte) 0x19, (byte) 0xef,
+      (byte) 0x46, (byte) 0xa9, (byte) 0xde, (byte) 0xac, (byte) 0xd8, (byte) 0xa8, (byte) 0xfa,
+      (byte) 0x76, (byte) 0x3f, (byte) 0xe3, (byte) 0x9c, (byte) 0x34, (byte) 0x3f, (byte) 0xf9,
+      (byte) 0xdc, (byte) 0xbb, (byte) 0xc7, (byte) 0xc7, (byte) 0x0b, (byte) 0x4f, (byte) 0x1d,
+      (byte) 0x8a, (byte) 0x51, (byte) 0xe0, (byte) 0x4b, (byte) 0xcd, (byte) 0xb4, (byte) 0x59,
+      (byte) 0x31, (byte) 0xc8, (byte) 0x9f, (byte) 0x7e, (byte) 0xc9, (byte) 0xd9, (byte) 0x78,
+      (byte) 0x73, (byte) 0x64, (byte) 0xea, (byte) 0xc5, (byte) 0xac, (byte) 0x83, (byte) 0x34,
+      (byte) 0xd3, (byte) 0xeb, (byte) 0xc3, (byte) 0xc5, (byte) 0x81, (byte) 0xa0, (byte) 0xff,
+      (byte) 0xfa, (byte) 0x13, (byte) 0x63, (byte) 0xeb, (byte) 0x17, (byte) 0x0d, (byte) 0xdd,
+      (byte) 0x51, (byte) 0xb7, (byte) 0xf0, (byte) 0xda, (byte) 0x49, (byte) 0xd3, (byte) 0x16,
+      (byte) 0x55, (byte) 0x26, (byte) 0x29, (byte) 0xd4, (byte) 0x68, (byte) 0x9e, (byte) 0x2b,
+      (byte) 0x16, (byte) 0xbe, (byte) 0x58, (byte) 0x7d, (byte) 0x47, (byte) 0xa1, (byte) 0xfc,
+      (byte) 0x8f, (byte) 0xf8, (byte) 0xb8, (byte) 0xd1, (byte) 0x7a, (byte) 0xd0, (byte) 0x31,
+      (byte) 0xce, (byte) 0x45, (byte) 0xcb, (byte) 0x3a, (byte) 0x8f, (byte) 0x95, (byte) 0x16,
+      (byte) 0x04, (byte) 0x28, (byte) 0xaf, (byte) 0xd7, (byte) 0xfb, (byte) 0xca, (byte) 0xbb,
+      (byte) 0x4b, (byte) 0x40, (byte) 0x7e
+  };
+
+  private static final int STRIPE_LENGTH = 64;
+  private static final int SECRET_CONSUME_RATE = 8;
+  private static final int STRIPES_PER_BLOCK = (SECRET.length - STRIPE_LENGTH)
+      / SECRET_CONSUME_RATE;
+  private static final int BUFFER_STRIPES = 4;
+  private static final int BUFFER_SIZE = BUFFER_STRIPES * STRIPE_LENGTH;
+  private static final int MIDSIZE_MAX = 240;
+  private static final int MIDSIZE_START_OFFSET = 3;
+  private static final int MIDSIZE_LAST_OFFSET = 17;
+  private static final int SECRET_SIZE_MIN = 136;
+  private static final int SCRAMBLE_OFFSET = SECRET.length - STRIPE_LENGTH;
+  private static final int LAST_STRIPE_OFFSET = SECRET.length - STRIPE_LENGTH - 7;
+  private static final int MERGE_ACCS_OFFSET = 11;
+
+  private final long[] acc;
+  private final byte[] buffer;
+  private final byte[] lastStripe;
+  private int bufferSize;
+  private int stripesSoFar;
+  private long totalLength;
+
+  Xxh3Function() {
+    acc = new long[8];
+    buffer = new byte[BUFFER_SIZE];
+    lastStripe = new byte[STRIPE_LENGTH];
+    reset();
+  }
+
+  @Override
+  public void update(byte[] input, int offset, int length) {
+    totalLength += length;
+    if (length <= BUFFER_SIZE - bufferSize) {
+      System.arraycopy(input, offset, buffer, bufferSize, length);
+      bufferSize += length;
+      return;
+    }
+    int position = offset;
+    int end = offset + length;
+    if (bufferSize > 0) {
+      int fill = BUFFER_SIZE - bufferSize;
+      System.arraycopy(input, position, buffer, bufferSize, fill);
+      position += fill;
+      stripesSoFar = consumeStripes(acc, stripesSoFar, buffer, 0, BUFFER_STRIPES);
+      bufferSize = 0;
+    }
+    if (end - position > BUFFER_SIZE) {
+      do {
+        stripesSoFar = consumeStripes(acc, stripesSoFar, input, position, BUFFER_STRIPES);
+        position += BUFFER_SIZE;
+      } while (end - position > BUFFER_SIZE);
+      System.arraycopy(input, position - STRIPE_LENGTH, buffer, BUFFER_SIZE - STRIPE_LENGTH,
+          STRIPE_LENGTH);
+    }
+    System.arraycopy(input, position, buffer, 0, end - position);
+    bufferSize = end - position;
+  }
+
+  @Override
+  public byte[] digest() {
+    long hash = totalLength > MIDSIZE_MAX
+        ? digestLong()
+        : digestShort(buffer, (int) totalLength);
+    reset();
+    return toBytesBe(hash, Long.BYTES);
+  }
+
+  private long digestLong() {
+    long[] lastAcc = acc.clone();
+    if (bufferSize >= STRIPE_LENGTH) {
+      int stripes = (bufferSize - 1) / STRIPE_LENGTH;
+      consumeStripes(lastAcc, stripesSoFar, buffer, 0, stripes);
+      accumulate512(lastAcc, buffer, bufferSize - STRIPE_LENGTH, LAST_STRIPE_OFFSET);
+    } else {
+      int catchup = STRIPE_LENGTH - bufferSize;
+      System.arraycopy(buffer, BUFFER_SIZE - catchup, lastStripe, 0, catchup);
+      System.arraycopy(buffer, 0, lastStripe, catchup, bufferSize);
+      accumulate512(lastAcc, lastStripe, 0, LAST_STRIPE_OFFSET);
+    }
+    long result = totalLength * PRIME64_1;
+    for (int i = 0; i < 4; ++i) {
+      result += mulFold(
+          lastAcc[2 * i] ^ readLongLe(SECRET, MERGE_ACCS_OFFSET + 16 * i),
+          lastAcc[2 * i + 1] ^ readLongLe(SECRET, MERGE_ACCS_OFFSET + 16 * i + 8));
+    }
+    return avalanche(result);
+  }
+
+  private void reset() {
+    acc[0] = PRIME32_3;
+    acc[1] = PRIME64_1;
+    acc[2] = PRIME64_2;
+    acc[3] = PRIME64_3;
+    acc[4] = PRIME64_4;
+    acc[5] = PRIME32_2;
+    acc[6] = PRIME64_5;
+    acc[7] = PRIME32_1;
+    bufferSize = 0;
+    stripesSoFar = 0;
+    totalLength = 0L;
+  }
+
+  private static int consumeStripes(long[] acc, int stripesSoFar, byte[] input, int offset,
+      int stripes) {
+    if (STRIPES_PER_BLOCK - stripesSoFar <= stripes) {
+      int stripesToEnd = STRIPES_PER_BLOCK - stripesSoFar;
+      accumulate(acc, input, offset, stripesSoFar * SECRET_CONSUME_RATE, stripesToEnd);
+      scramble(acc);
+      accumulate(acc, input, offset + stripesToEnd * STRIPE_LENGTH, 0, stripes - stripesToEnd);
+      return stripes - stripesToEnd;
+    }
+    accumulate(acc, input, offset, stripesSoFar * SECRET_CONSUME_RATE, stripes);
+    return stripesSoFar + stripes;
+  }
+
+  private static void accumulate(long[] acc, byte[] input, int offset, int secretOffset,
+      int stripes) {
+    for (int i = 0; i < stripes; ++i) {
+      accumulate512(
+          acc,
+          input,
+          offset + i * STRIPE_LENGTH,
+          secretOffset + i * SECRET_CONSUME_RATE);
+    }
+  }
+
+  private static void accumulate512(long[] acc, byte[] input, int offset, int secretOffset) {
+    for (int i = 0; i < 8; ++i) {
+      long value = readLongLe(input, offset + 8 * i);
+      long key = value ^ readLongLe(SECRET, secretOffset + 8 * i);
+      acc[i ^ 1] += value;
+      acc[i] += (key & 0xffffffffL) * (key >>> 32);
+    }
+  }
+
+  private static void scramble(long[] acc) {
+    for (int i = 0; i < 8; ++i) {
+      long value = acc[i];
+      value ^= value >>> 47;
+      value ^= readLongLe(SECRET, SCRAMBLE_OFFSET + 8 * i);
+      acc[i] = value * PRIME32_1;
+    }
+  }
+
+  private static long digestShort(byte[] input, int length) {
+    if (length > 128) {
+      return digest129To240(input, length);
+    }
+    if (length > 16) {
+      return digest17To128(input, length);
+    }
+    if (length > 8) {
+      return digest9To16(input, length);
+    }
+    if (length >= 4) {
+      return digest4To8(input, length);
+    }
+    if (length > 0) {
+      return digest1To3(input, length);
+    }
+    return Xxh64Function.avalanche(readLongLe(SECRET, 56) ^ readLongLe(SECRET, 64));
+  }
+
+  private static long digest1To3(byte[] input, int length) {
+    long combined = (input[0] & 0xffL) << 16
+        | (input[length >> 1] & 0xffL) << 24
+        | (input[length - 1] & 0xffL)
+        | (long) length << 8;
+    long bitflip = (readIntLe(SECRET, 0) ^ readIntLe(SECRET, 4));
+    return Xxh64Function.avalanche(combined ^ bitflip);
+  }
+
+  private static long digest4To8(byte[] input, int length) {
+    long input1 = readIntLe(input, 0);
+    long input2 = readIntLe(input, length - 4);
+    long bitflip = readLongLe(SECRET, 8) ^ readLongLe(SECRET, 16);
+    long keyed = (input2 + (input1 << 32)) ^ bitflip;
+    return rrmxmx(keyed, length);
+  }
+
+  private static long digest9To16(byte[] input, int length) {
+    long bitflip1 = readLongLe(SECRET, 24) ^ readLongLe(SECRET, 32);
+    long bitflip2 = readLongLe(SECRET, 40) ^ readLongLe(SECRET, 48);
+    long inputLo = readLongLe(input, 0) ^ bitflip1;
+    long inputHi = readLongLe(input, length - 8) ^ bitflip2;
+    return avalanche(length + reverseBytes(inputLo) + inputHi + mulFold(inputLo, inputHi));
+  }
+
+  private static long digest17To128(byte[] input, int length) {
+    long result = length * PRIME64_1;
+    if (length > 32) {
+      if (length > 64) {
+        if (length > 96) {
+          result += mix16(input, 48, 96);
+          result += mix16(input, length - 64, 112);
+        }
+        result += mix16(input, 32, 64);
+        result += mix16(input, length - 48, 80);
+      }
+      result += mix16(input, 16, 32);
+      result += mix16(input, length - 32, 48);
+    }
+    result += mix16(input, 0, 0);
+    result += mix16(input, length - 16, 16);
+    return avalanche(result);
+  }
+
+  private static long digest129To240(byte[] input, int length) {
+    long result = length * PRIME64_1;
+    for (int i = 0; i < 8; ++i) {
+      result += mix16(input, 16 * i, 16 * i);
+    }
+    result = avalanche(result);
+    int rounds = length / 16;
+    for (int i = 8; i < rounds; ++i) {
+      result += mix16(input, 16 * i, 16 * (i - 8) + MIDSIZE_START_OFFSET);
+    }
+    result += mix16(input, length - 16, SECRET_SIZE_MIN - MIDSIZE_LAST_OFFSET);
+    return avalanche(result);
+  }
+
+  private static long mix16(byte[] input, int offset, int secretOffset) {
+    return mulFold(
+        readLongLe(input, offset) ^ readLongLe(SECRET, secretOffset),
+        readLongLe(input, offset + 8) ^ readLongLe(SECRET, secretOffset + 8));
+  }
+
+  private static long avalanche(long hash) {
+    long result = hash;
+    result ^= result >>> 37;
+    result *= PRIME_MX1;
+    result ^= result >>> 32;
+    return result;
+  }
+
+  private static long rrmxmx(long hash, int length) {
+    long result = hash;
+    result ^= rotateLeft(result, 49) ^ rotateLeft(result, 24);
+    result *= PRIME_MX2;
+    result ^= (result >>> 35) + length;
+    result *= PRIME_MX2;
+    result ^= result >>> 28;
+    return result;
+  }
+
+  /*
+   * Folded 128 bits product, as Math.multiplyHigh is not available on Java 8.
+   */
+  private static long mulFold(long left, long right) {
+    long leftLo = left & 0xffffffffL;
+    long leftHi = left >>> 32;
+    long rightLo = right & 0xffffffffL;
+    long rightHi = right >>> 32;
+    long loLo = leftLo * rightLo;
+    long hiLo = leftHi * rightLo;
+    long loHi = leftLo * rightHi;
+    long hiHi = leftHi * rightHi;
+    long cross = (loLo >>> 32) + (hiLo & 0xffffffffL) + loHi;
+    long upper = (hiLo >>> 32) + (cross >>> 32) + hiHi;
+    long lower = (cross << 32) | (loLo & 0xffffffffL);
+    return lower ^ upper;
+  }
+}
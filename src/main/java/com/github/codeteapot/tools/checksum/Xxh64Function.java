@@ -0,0 +1,122 @@
+package com.github.codeteapot.tools.checksum;
+
+import static com.github.codeteapot.tools.checksum.FingerprintBytes.readIntLe;
+import static com.github.codeteapot.tools.checksum.FingerprintBytes.readLongLe;
+import static com.github.codeteapot.tools.checksum.FingerprintBytes.toBytesBe;
+import static java.lang.Long.rotateLeft;
+import static java.lang.Math.min;
+
+class Xxh64Function implements FingerprintFunction {
+
+  static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+  static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  static final long PRIME64_3 = 0x165667B19E3779F9L;
+  static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+  private static final int STRIPE_LENGTH = 32;
+
+  private final byte[] buffer;
+  private int bufferSize;
+  private long totalLength;
+  private long v1;
+  private long v2;
+  private long v3;
+  private long v4;
+
+  Xxh64Function() {
+    buffer = new byte[STRIPE_LENGTH];
+    reset();
+  }
+
+  @Override
+  public void update(byte[] input, int offset, int length) {
+    totalLength += length;
+    int position = offset;
+    int end = offset + length;
+    if (bufferSize > 0) {
+      int fill = min(STRIPE_LENGTH - bufferSize, length);
+      System.arraycopy(input, position, buffer, bufferSize, fill);
+      bufferSize += fill;
+      position += fill;
+      if (bufferSize < STRIPE_LENGTH) {
+        return;
+      }
+      consume(buffer, 0);
+      bufferSize = 0;
+    }
+    while (end - position >= STRIPE_LENGTH) {
+      consume(input, position);
+      position += STRIPE_LENGTH;
+    }
+    System.arraycopy(input, position, buffer, 0, end - position);
+    bufferSize = end - position;
+  }
+
+  @Override
+  public byte[] digest() {
+    long hash;
+    if (totalLength >= STRIPE_LENGTH) {
+      hash = rotateLeft(v1, 1) + rotateLeft(v2, 7) + rotateLeft(v3, 12) + rotateLeft(v4, 18);
+      hash = merge(hash, v1);
+      hash = merge(hash, v2);
+      hash = merge(hash, v3);
+      hash = merge(hash, v4);
+    } else {
+      hash = PRIME64_5;
+    }
+    hash += totalLength;
+    int position = 0;
+    while (bufferSize - position >= 8) {
+      hash ^= round(0L, readLongLe(buffer, position));
+      hash = rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+      position += 8;
+    }
+    if (bufferSize - position >= 4) {
+      hash ^= readIntLe(buffer, position) * PRIME64_1;
+      hash = rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+      position += 4;
+    }
+    while (position < bufferSize) {
+      hash ^= (buffer[position] & 0xffL) * PRIME64_5;
+      hash = rotateLeft(hash, 11) * PRIME64_1;
+      ++position;
+    }
+    reset();
+    return toBytesBe(avalanche(hash), Long.BYTES);
+  }
+
+  private void consume(byte[] input, int offset) {
+    v1 = round(v1, readLongLe(input, offset));
+    v2 = round(v2, readLongLe(input, offset + 8));
+    v3 = round(v3, readLongLe(input, offset + 16));
+    v4 = round(v4, readLongLe(input, offset + 24));
+  }
+
+  private void reset() {
+    bufferSize = 0;
+    totalLength = 0L;
+    v1 = PRIME64_1 + PRIME64_2;
+    v2 = PRIME64_2;
+    v3 = 0L;
+    v4 = -PRIME64_1;
+  }
+
+  static long avalanche(long hash) {
+    long result = hash;
+    result ^= result >>> 33;
+    result *= PRIME64_2;
+    result ^= result >>> 29;
+    result *= PRIME64_3;
+    result ^= result >>> 32;
+    return result;
+  }
+
+  private static long round(long acc, long input) {
+    return rotateLeft(acc + input * PRIME64_2, 31) * PRIME64_1;
+  }
+
+  private static long merge(long acc, long value) {
+    return (acc ^ round(0L, value)) * PRIME64_1 + PRIME64_4;
+  }
+}
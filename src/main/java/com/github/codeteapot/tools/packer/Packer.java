@@ -1,6 +1,8 @@
 package com.github.codeteapot.tools.packer;
 
 import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.function.Function.identity;
@@ -8,6 +10,7 @@ import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -94,4 +97,46 @@ public class Packer {
         .flatMap(identity())
         .collect(toList()));
   }
+
+  /**
+   * Executes a {@code version} command and waits for the reported version.
+   *
+   * <p>Its output is not received by the terminal of this tool instance.
+   *
+   * @return The version, followed by the prerelease and the commit when they are reported.
+   * 
+   * @throws IOException If some I/O error has been occurred.
+   * @throws PackerExecutionException If the command failed.
+   * @throws PackerAbortionException If the command was aborted.
+   * @throws InterruptedException If the current thread was interrupted while waiting.
+   */
+  public String version() throws IOException, PackerExecutionException, PackerAbortionException,
+      InterruptedException {
+    PackerVersionTerminal terminal = new PackerVersionTerminal();
+    executor.execute("version", emptyList(), terminal).success();
+    return terminal.getVersion();
+  }
+
+  /**
+   * Executes an {@code inspect} command and waits for the builders of the given template.
+   *
+   * <p>Its output is not received by the terminal of this tool instance, but it is executed on its
+   * working directory. Builders are only reported for JSON templates, so there is not any for HCL
+   * ones.
+   *
+   * @param template Template file path relative to the working directory.
+   *
+   * @return Names of the builders, in the order they are reported.
+   *
+   * @throws IOException If some I/O error has been occurred.
+   * @throws PackerExecutionException If the command failed.
+   * @throws PackerAbortionException If the command was aborted.
+   * @throws InterruptedException If the current thread was interrupted while waiting.
+   */
+  public List<String> builders(String template) throws IOException, PackerExecutionException,
+      PackerAbortionException, InterruptedException {
+    PackerInspectTerminal terminal = new PackerInspectTerminal(executor.getWorkingDir());
+    executor.execute("inspect", singletonList(requireNonNull(template)), terminal).success();
+    return terminal.getBuilders();
+  }
 }
@@ -0,0 +1,96 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Artifact produced by a particular build of a Packer {@code build} command.
+ *
+ * @see PackerMessage#TYPE_ARTIFACT
+ */
+public class PackerArtifact {
+
+  private final String target;
+  private final int number;
+  private final String builderId;
+  private final String id;
+  private final String string;
+  private final List<String> files;
+
+  /**
+   * Artifact with the given metadata.
+   *
+   * @param target Name of the build that produced the artifact.
+   * @param number Number of the artifact on its build.
+   * @param builderId Identifier of the builder that produced the artifact, or {@code null}.
+   * @param id Identifier of the artifact, or {@code null}.
+   * @param string Human-readable description of the artifact, or {@code null}.
+   * @param files Paths of the artifact files, that are relative to the working directory unless
+   *        they are absolute.
+   */
+  public PackerArtifact(String target, int number, String builderId, String id, String string,
+      List<String> files) {
+    this.target = target;
+    this.number = number;
+    this.builderId = builderId;
+    this.id = id;
+    this.string = string;
+    this.files = unmodifiableList(files);
+  }
+
+  /**
+   * Name of the build that produced this artifact.
+   *
+   * @return The build name.
+   */
+  public String getTarget() {
+    return target;
+  }
+
+  /**
+   * Number of this artifact on its build.
+   *
+   * @return The artifact number.
+   */
+  public int getNumber() {
+    return number;
+  }
+
+  /**
+   * Identifier of the builder that produced this artifact.
+   *
+   * @return The builder identifier, or empty when it was not reported.
+   */
+  public Optional<String> getBuilderId() {
+    return Optional.ofNullable(builderId);
+  }
+
+  /**
+   * Identifier of this artifact, like the one of a cloud image.
+   *
+   * @return The artifact identifier, or empty when it was not reported.
+   */
+  public Optional<String> getId() {
+    return Optional.ofNullable(id);
+  }
+
+  /**
+   * Human-readable description of this artifact.
+   *
+   * @return The artifact description, or empty when it was not reported.
+   */
+  public Optional<String> getString() {
+    return Optional.ofNullable(string);
+  }
+
+  /**
+   * Paths of the files of this artifact, in the order they were reported.
+   *
+   * @return The file paths, that are relative to the working directory unless they are absolute.
+   */
+  public List<String> getFiles() {
+    return files;
+  }
+}
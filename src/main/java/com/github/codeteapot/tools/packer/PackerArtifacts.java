@@ -0,0 +1,115 @@
+package com.github.codeteapot.tools.packer;
+
+import static com.github.codeteapot.tools.packer.PackerMessage.DATA_ARTIFACT_BUILDER_ID;
+import static com.github.codeteapot.tools.packer.PackerMessage.DATA_ARTIFACT_FILE;
+import static com.github.codeteapot.tools.packer.PackerMessage.DATA_ARTIFACT_ID;
+import static com.github.codeteapot.tools.packer.PackerMessage.DATA_ARTIFACT_STRING;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_ARTIFACT;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Artifacts reported by the messages of a Packer {@code build} command.
+ *
+ * <p>Messages of other types are ignored, so all messages of a command could be received.
+ */
+public class PackerArtifacts {
+
+  private static final int NUMBER_INDEX = 0;
+  private static final int KEY_INDEX = 1;
+  private static final int VALUE_INDEX = 2;
+  private static final int FILE_INDEX = 2;
+  private static final int FILE_VALUE_INDEX = 3;
+
+  private final Map<String, PendingArtifact> artifacts;
+
+  /**
+   * No artifacts.
+   */
+  public PackerArtifacts() {
+    artifacts = new LinkedHashMap<>();
+  }
+
+  /**
+   * Take the artifact data of the given message, when it has any.
+   *
+   * @param message Message of the command.
+   */
+  public synchronized void receive(PackerMessage message) {
+    String[] data = message.getData();
+    if (!TYPE_ARTIFACT.equals(message.getType()) || data.length <= VALUE_INDEX) {
+      return;
+    }
+    try {
+      String target = message.getTarget().orElse("");
+      int number = Integer.parseInt(data[NUMBER_INDEX]);
+      PendingArtifact artifact = artifacts.computeIfAbsent(
+          target + "," + number,
+          key -> new PendingArtifact(target, number));
+      switch (data[KEY_INDEX]) {
+        case DATA_ARTIFACT_BUILDER_ID:
+          artifact.builderId = data[VALUE_INDEX];
+          break;
+        case DATA_ARTIFACT_ID:
+          artifact.id = data[VALUE_INDEX];
+          break;
+        case DATA_ARTIFACT_STRING:
+          artifact.string = data[VALUE_INDEX];
+          break;
+        case DATA_ARTIFACT_FILE:
+          if (data.length > FILE_VALUE_INDEX) {
+            artifact.files.put(Integer.parseInt(data[FILE_INDEX]), data[FILE_VALUE_INDEX]);
+          }
+          break;
+        default:
+      }
+    } catch (NumberFormatException e) {
+      // Ignore malformed output...
+    }
+  }
+
+  /**
+   * Artifacts reported until now, in the order they were reported first.
+   *
+   * @return The reported artifacts.
+   */
+  public synchronized List<PackerArtifact> getArtifacts() {
+    return artifacts.values().stream()
+        .map(PendingArtifact::toArtifact)
+        .collect(toList());
+  }
+
+  private static class PendingArtifact {
+
+    private final String target;
+    private final int number;
+    private final Map<Integer, String> files;
+    private String builderId;
+    private String id;
+    private String string;
+
+    private PendingArtifact(String target, int number) {
+      this.target = target;
+      this.number = number;
+      files = new TreeMap<>();
+      builderId = null;
+      id = null;
+      string = null;
+    }
+
+    private PackerArtifact toArtifact() {
+      return new PackerArtifact(
+          target,
+          number,
+          builderId,
+          id,
+          string,
+          new ArrayList<>(files.values()));
+    }
+  }
+}
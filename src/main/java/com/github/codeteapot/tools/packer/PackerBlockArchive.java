@@ -0,0 +1,347 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.copyOf;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+ * Archive of files made of independently deflated blocks, followed by an index with the offset and
+ * the lengths of the blocks of each file, so any file is extracted without reading the others, and
+ * blocks are compressed and decompressed concurrently on the common fork-join pool.
+ *
+ * The archive ends with the offset of the index and a magic number. Blocks that do not get smaller
+ * are stored as they are, so their compressed length is the same as their length.
+ */
+class PackerBlockArchive {
+
+  private static final int MAGIC = 0x50424131; // PBA1
+  private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+  private static final int BLOCK_SIZE = 1024 * 1024;
+  private static final int PENDING_BLOCKS = 2 * ForkJoinPool.getCommonPoolParallelism() + 2;
+
+  private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(
+      () -> new Deflater(Deflater.BEST_SPEED, true));
+  private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(
+      () -> new Inflater(true));
+
+  private final Path archive;
+
+  PackerBlockArchive(Path archive) {
+    this.archive = archive;
+  }
+
+  /*
+   * Files are read sequentially, while a bounded number of their blocks are being compressed.
+   * Blocks are written in order, as soon as the oldest one is compressed.
+   */
+  void write(Map<String, Path> files) throws IOException {
+    try (FileChannel channel = FileChannel.open(archive, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      Map<String, List<Block>> index = new LinkedHashMap<>();
+      long offset = 0L;
+      for (Entry<String, Path> file : files.entrySet()) {
+        List<Block> blocks = new ArrayList<>();
+        Deque<CompletableFuture<CompressedBlock>> pending = new ArrayDeque<>();
+        try (InputStream input = Files.newInputStream(file.getValue())) {
+          for (byte[] block = readBlock(input); block.length > 0; block = readBlock(input)) {
+            byte[] content = block;
+            pending.add(supplyAsync(() -> compress(content)));
+            if (pending.size() >= PENDING_BLOCKS) {
+              offset = writeBlock(channel, offset, join(pending.remove()), blocks);
+            }
+          }
+        }
+        while (!pending.isEmpty()) {
+          offset = writeBlock(channel, offset, join(pending.remove()), blocks);
+        }
+        index.put(file.getKey(), blocks);
+      }
+      ByteArrayOutputStream indexContent = new ByteArrayOutputStream();
+      try (DataOutputStream output = new DataOutputStream(indexContent)) {
+        output.writeInt(index.size());
+        for (Entry<String, List<Block>> file : index.entrySet()) {
+          output.writeUTF(file.getKey());
+          output.writeInt(file.getValue().size());
+          for (Block block : file.getValue()) {
+            output.writeLong(block.offset);
+            output.writeInt(block.compressedLength);
+            output.writeInt(block.length);
+          }
+        }
+        output.writeLong(offset);
+        output.writeInt(MAGIC);
+      }
+      writeFully(channel, ByteBuffer.wrap(indexContent.toByteArray()), offset);
+    }
+  }
+
+  List<String> names() throws IOException {
+    try (FileChannel channel = FileChannel.open(archive, READ)) {
+      return new ArrayList<>(readIndex(channel).keySet());
+    }
+  }
+
+  long size(String name) throws IOException {
+    try (FileChannel channel = FileChannel.open(archive, READ)) {
+      long size = 0L;
+      for (Block block : getBlocks(readIndex(channel), name)) {
+        size += block.length;
+      }
+      return size;
+    }
+  }
+
+  /*
+   * Blocks are read and written on their positions, so they are decompressed in any order.
+   */
+  void extract(String name, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(archive, READ);
+        FileChannel fileChannel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      List<CompletableFuture<Void>> pending = new ArrayList<>();
+      long position = 0L;
+      for (Block block : getBlocks(readIndex(channel), name)) {
+        long blockPosition = position;
+        pending.add(CompletableFuture.runAsync(() -> {
+          try {
+            writeFully(fileChannel, ByteBuffer.wrap(inflate(channel, block)), blockPosition);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }));
+        position += block.length;
+      }
+      for (CompletableFuture<Void> block : pending) {
+        join(block);
+      }
+    }
+  }
+
+  InputStream open(String name) throws IOException {
+    List<Block> blocks;
+    try (FileChannel channel = FileChannel.open(archive, READ)) {
+      blocks = getBlocks(readIndex(channel), name);
+    }
+    return new BlockInputStream(FileChannel.open(archive, READ), blocks);
+  }
+
+  private static long writeBlock(FileChannel channel, long offset, CompressedBlock block,
+      List<Block> blocks) throws IOException {
+    writeFully(channel, ByteBuffer.wrap(block.content), offset);
+    blocks.add(new Block(offset, block.content.length, block.length));
+    return offset + block.content.length;
+  }
+
+  private static byte[] readBlock(InputStream input) throws IOException {
+    byte[] block = new byte[BLOCK_SIZE];
+    int length = 0;
+    while (length < BLOCK_SIZE) {
+      int read = input.read(block, length, BLOCK_SIZE - length);
+      if (read < 0) {
+        break;
+      }
+      length += read;
+    }
+    return length < BLOCK_SIZE ? copyOf(block, length) : block;
+  }
+
+  private static CompressedBlock compress(byte[] block) {
+    Deflater deflater = DEFLATER.get();
+    try {
+      deflater.setInput(block);
+      deflater.finish();
+      ByteArrayOutputStream output = new ByteArrayOutputStream(block.length / 2);
+      byte[] buffer = new byte[64 * 1024];
+      while (!deflater.finished() && output.size() < block.length) {
+        output.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return output.size() < block.length
+          ? new CompressedBlock(output.toByteArray(), block.length)
+          : new CompressedBlock(block, block.length);
+    } finally {
+      deflater.reset();
+    }
+  }
+
+  private static byte[] inflate(FileChannel channel, Block block) throws IOException {
+    byte[] compressed = new byte[block.compressedLength];
+    readFully(channel, ByteBuffer.wrap(compressed), block.offset);
+    if (block.compressedLength == block.length) {
+      return compressed;
+    }
+    Inflater inflater = INFLATER.get();
+    try {
+      inflater.setInput(compressed);
+      byte[] content = new byte[block.length];
+      int length = 0;
+      while (length < content.length && !inflater.finished()) {
+        int inflated = inflater.inflate(content, length, content.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != content.length) {
+        throw new IOException(format("Corrupted block at %d", block.offset));
+      }
+      return content;
+    } catch (DataFormatException e) {
+      throw new IOException(format("Corrupted block at %d", block.offset), e);
+    } finally {
+      inflater.reset();
+    }
+  }
+
+  private static Map<String, List<Block>> readIndex(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size < TRAILER_SIZE) {
+      throw new IOException("Truncated archive");
+    }
+    ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+    readFully(channel, trailer, size - TRAILER_SIZE);
+    long indexOffset = trailer.getLong(0);
+    if (trailer.getInt(Long.BYTES) != MAGIC || indexOffset < 0L || indexOffset > size) {
+      throw new IOException("Invalid archive");
+    }
+    byte[] indexContent = new byte[(int) (size - TRAILER_SIZE - indexOffset)];
+    readFully(channel, ByteBuffer.wrap(indexContent), indexOffset);
+    Map<String, List<Block>> index = new LinkedHashMap<>();
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(indexContent))) {
+      for (int fileCount = input.readInt(); fileCount > 0; --fileCount) {
+        String name = input.readUTF();
+        List<Block> blocks = new ArrayList<>();
+        for (int blockCount = input.readInt(); blockCount > 0; --blockCount) {
+          blocks.add(new Block(input.readLong(), input.readInt(), input.readInt()));
+        }
+        index.put(name, blocks);
+      }
+    }
+    return index;
+  }
+
+  private static List<Block> getBlocks(Map<String, List<Block>> index, String name)
+      throws IOException {
+    List<Block> blocks = index.get(name);
+    if (blocks == null) {
+      throw new IOException(format("Missing archive file %s", name));
+    }
+    return blocks;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Truncated archive");
+      }
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+  }
+
+  private static <T> T join(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static class Block {
+
+    private final long offset;
+    private final int compressedLength;
+    private final int length;
+
+    private Block(long offset, int compressedLength, int length) {
+      this.offset = offset;
+      this.compressedLength = compressedLength;
+      this.length = length;
+    }
+  }
+
+  private static class CompressedBlock {
+
+    private final byte[] content;
+    private final int length;
+
+    private CompressedBlock(byte[] content, int length) {
+      this.content = content;
+      this.length = length;
+    }
+  }
+
+  /*
+   * Blocks are decompressed one at a time, as the stream is read.
+   */
+  private static class BlockInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final List<Block> blocks;
+    private int next;
+    private InputStream current;
+
+    private BlockInputStream(FileChannel channel, List<Block> blocks) {
+      this.channel = channel;
+      this.blocks = blocks;
+      next = 0;
+      current = new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      int read = current.read(bytes, offset, length);
+      while (read < 0 && next < blocks.size()) {
+        current = new ByteArrayInputStream(inflate(channel, blocks.get(next++)));
+        read = current.read(bytes, offset, length);
+      }
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
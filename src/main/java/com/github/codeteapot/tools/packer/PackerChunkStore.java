@@ -0,0 +1,305 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.lang.Long.parseLong;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.getLastModifiedTime;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newBufferedReader;
+import static java.nio.file.Files.newBufferedWriter;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.setLastModifiedTime;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Collections.enumeration;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+ * Content-addressed store of file chunks, whose boundaries are determined by a rolling hash of the
+ * content, so an insertion or a removal only changes the chunks around it. Files are represented by
+ * recipes, with the hash and the length of each of their chunks.
+ *
+ * Chunks are cut with a gear hash, where the high bits of the hash depend on the last 64 bytes.
+ * Unreferenced chunks are collected by counting the references of all recipes, and only when they
+ * are older than the given grace period, so those written by stores whose recipe is not committed
+ * yet are kept. Reused chunks are touched for the same reason.
+ */
+class PackerChunkStore {
+
+  private static final String CHUNK_ALGORITHM = "SHA-256";
+  private static final int MIN_CHUNK_SIZE = 256 * 1024;
+  private static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+  private static final long CUT_MASK = -1L << (Long.SIZE - 20); // 1 MiB on average
+  private static final int BUFFER_SIZE = 1024 * 1024;
+  private static final long[] GEAR = gear(0x5041434b4552L);
+  private static final String TEMPORARY_SUFFIX = ".tmp-";
+
+  private final Path directory;
+  private final int readThreads;
+
+  PackerChunkStore(Path directory) {
+    this(directory, Runtime.getRuntime().availableProcessors());
+  }
+
+  PackerChunkStore(Path directory, int readThreads) {
+    this.directory = directory;
+    this.readThreads = readThreads;
+  }
+
+  void write(Path file, Path recipe) throws IOException {
+    try (InputStream input = newInputStream(file);
+        BufferedWriter writer = newBufferedWriter(recipe, UTF_8)) {
+      MessageDigest digest = MessageDigest.getInstance(CHUNK_ALGORITHM);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      byte[] chunk = new byte[MAX_CHUNK_SIZE];
+      int length = 0;
+      long hash = 0L;
+      for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+        for (int i = 0; i < read; ++i) {
+          chunk[length++] = buffer[i];
+          if (length < MIN_CHUNK_SIZE) {
+            continue;
+          }
+          hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+          if ((hash & CUT_MASK) == 0L || length == MAX_CHUNK_SIZE) {
+            writeChunk(digest, chunk, length, writer);
+            length = 0;
+            hash = 0L;
+          }
+        }
+      }
+      if (length > 0) {
+        writeChunk(digest, chunk, length, writer);
+      }
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /*
+   * Chunks are written on their position of the file, so they are read in any order.
+   */
+  void read(Path recipe, Path file) throws IOException {
+    List<RecipeLine> lines = readRecipe(recipe);
+    ExecutorService executor = newFixedThreadPool(readThreads);
+    try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      List<Future<Void>> chunks = new ArrayList<>();
+      long position = 0L;
+      for (RecipeLine line : lines) {
+        long chunkPosition = position;
+        chunks.add(executor.submit(() -> {
+          readChunk(line, channel, chunkPosition);
+          return null;
+        }));
+        position += line.length;
+      }
+      for (Future<Void> chunk : chunks) {
+        chunk.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Chunk reading interrupted", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  InputStream open(Path recipe) throws IOException {
+    List<InputStream> chunks = new ArrayList<>();
+    for (RecipeLine line : readRecipe(recipe)) {
+      chunks.add(new LazyChunkInputStream(chunkFile(line.hash)));
+    }
+    return new SequenceInputStream(enumeration(chunks));
+  }
+
+  long size(Path recipe) throws IOException {
+    long size = 0L;
+    for (RecipeLine line : readRecipe(recipe)) {
+      size += line.length;
+    }
+    return size;
+  }
+
+  /*
+   * Chunks whose reference count is zero are deleted.
+   */
+  void collect(Iterable<Path> recipes, long gracePeriod) throws IOException {
+    Map<String, Integer> referenceCounts = new HashMap<>();
+    for (Path recipe : recipes) {
+      for (RecipeLine line : readRecipe(recipe)) {
+        referenceCounts.merge(line.hash, 1, Integer::sum);
+      }
+    }
+    if (!isDirectory(directory)) {
+      return;
+    }
+    long deadline = System.currentTimeMillis() - gracePeriod;
+    try (DirectoryStream<Path> prefixes = newDirectoryStream(directory)) {
+      for (Path prefix : prefixes) {
+        try (DirectoryStream<Path> chunks = newDirectoryStream(prefix)) {
+          for (Path chunk : chunks) {
+            if (referenceCounts.getOrDefault(chunk.getFileName().toString(), 0) == 0
+                && getLastModifiedTime(chunk).toMillis() < deadline) {
+              Files.deleteIfExists(chunk);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void writeChunk(MessageDigest digest, byte[] chunk, int length, BufferedWriter writer)
+      throws IOException {
+    digest.update(chunk, 0, length);
+    String hash = hex(digest.digest());
+    Path chunkFile = chunkFile(hash);
+    if (exists(chunkFile)) {
+      setLastModifiedTime(chunkFile, FileTime.fromMillis(System.currentTimeMillis()));
+    } else {
+      createDirectories(chunkFile.getParent());
+      Path temporaryFile = chunkFile.resolveSibling(hash + TEMPORARY_SUFFIX + System.nanoTime());
+      try (OutputStream output = newOutputStream(temporaryFile)) {
+        output.write(chunk, 0, length);
+      }
+      try {
+        move(temporaryFile, chunkFile, ATOMIC_MOVE);
+      } catch (FileAlreadyExistsException e) {
+        Files.delete(temporaryFile);
+      }
+    }
+    writer.write(format("%s %d%n", hash, length));
+  }
+
+  private void readChunk(RecipeLine line, FileChannel channel, long position) throws IOException {
+    byte[] chunk = Files.readAllBytes(chunkFile(line.hash));
+    if (chunk.length != line.length) {
+      throw new IOException(format("Corrupted chunk %s", line.hash));
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(chunk);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+  }
+
+  private Path chunkFile(String hash) {
+    return directory.resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  private static List<RecipeLine> readRecipe(Path recipe) throws IOException {
+    List<RecipeLine> lines = new ArrayList<>();
+    try (BufferedReader reader = newBufferedReader(recipe, UTF_8)) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        int separator = line.indexOf(' ');
+        lines.add(new RecipeLine(line.substring(0, separator), parseLong(line.substring(
+            separator + 1))));
+      }
+    } catch (IndexOutOfBoundsException | NumberFormatException e) {
+      throw new IOException(format("Invalid recipe %s", recipe), e);
+    }
+    return lines;
+  }
+
+  private static String hex(byte[] bytes) {
+    StringBuilder str = new StringBuilder();
+    for (byte value : bytes) {
+      str.append(format("%02x", value & 0xff));
+    }
+    return str.toString();
+  }
+
+  private static long[] gear(long seed) {
+    Random random = new Random(seed);
+    long[] gear = new long[256];
+    for (int i = 0; i < gear.length; ++i) {
+      gear[i] = random.nextLong();
+    }
+    return gear;
+  }
+
+  private static class RecipeLine {
+
+    private final String hash;
+    private final long length;
+
+    private RecipeLine(String hash, long length) {
+      this.hash = hash;
+      this.length = length;
+    }
+  }
+
+  /*
+   * Chunk files are opened when they are read, so a stream of a large file does not hold all of
+   * them open.
+   */
+  private static class LazyChunkInputStream extends InputStream {
+
+    private final Path chunkFile;
+    private InputStream input;
+
+    private LazyChunkInputStream(Path chunkFile) {
+      this.chunkFile = chunkFile;
+      input = null;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return input().read();
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      return input().read(bytes, offset, min(length, BUFFER_SIZE));
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (input != null) {
+        input.close();
+      }
+    }
+
+    private InputStream input() throws IOException {
+      if (input == null) {
+        input = newInputStream(chunkFile);
+      }
+      return input;
+    }
+  }
+}
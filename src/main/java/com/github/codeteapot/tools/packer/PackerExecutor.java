@@ -5,8 +5,8 @@ import static java.lang.ProcessBuilder.Redirect.PIPE;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Executor;
 
 class PackerExecutor {
@@ -24,7 +24,16 @@ class PackerExecutor {
     this.terminalTaskExecutor = terminalTaskExecutor;
   }
 
+  Optional<File> getWorkingDir() {
+    return terminal.getWorkingDir();
+  }
+
   PackerExecution execute(String command, List<String> args) throws IOException {
+    return execute(command, args, terminal);
+  }
+
+  PackerExecution execute(String command, List<String> args, PackerTerminal terminal)
+      throws IOException {
     File errorFile = createTempFile("packer-", ".err");
     errorFile.deleteOnExit();
     ProcessBuilder processBuilder = processBuilderFactory.getProcessBuilder(command, args)
@@ -35,12 +44,8 @@ class PackerExecutor {
         .ifPresent(processBuilder::directory);
     return new PackerExecutionImpl(
         processBuilder.start(),
-        this::terminalTaskFactory,
+        (execution, input) -> new PackerTerminalTask(terminal, execution, input),
         errorFile,
         terminalTaskExecutor);
   }
-
-  private PackerTerminalTask terminalTaskFactory(PackerAbortable execution, InputStream input) {
-    return new PackerTerminalTask(terminal, execution, input);
-  }
 }
@@ -0,0 +1,48 @@
+package com.github.codeteapot.tools.packer;
+
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_TEMPLATE_BUILDER;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * Terminal of an inspect command, that collects the names of the template builders from its
+ * output.
+ */
+class PackerInspectTerminal implements PackerTerminal {
+
+  private final Optional<File> workingDir;
+  private final Set<String> builders;
+
+  PackerInspectTerminal(Optional<File> workingDir) {
+    this.workingDir = workingDir;
+    builders = new LinkedHashSet<>();
+  }
+
+  @Override
+  public Optional<File> getWorkingDir() {
+    return workingDir;
+  }
+
+  @Override
+  public synchronized void receive(PackerMessage message) {
+    String[] data = message.getData();
+    if (TYPE_TEMPLATE_BUILDER.equals(message.getType()) && data.length > 0
+        && !data[0].isEmpty()) {
+      builders.add(data[0]);
+    }
+  }
+
+  @Override
+  public void send(PackerInput input) throws PackerAbortionException {
+    throw new PackerAbortionException("Interactive execution is not supported");
+  }
+
+  synchronized List<String> getBuilders() {
+    return new ArrayList<>(builders);
+  }
+}
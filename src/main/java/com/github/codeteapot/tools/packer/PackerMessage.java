@@ -44,12 +44,13 @@ public interface PackerMessage {
    * <dd>value</dd>
    * </dl>
    * 
-   * <p>There are five available field keys for each artifact.
+   * <p>There are six available field keys for each artifact.
    * <ul>
    * <li>{@link PackerMessage#DATA_ARTIFACT_BUILDER_ID}</li>
    * <li>{@link PackerMessage#DATA_ARTIFACT_ID}</li>
    * <li>{@link PackerMessage#DATA_ARTIFACT_STRING}</li>
    * <li>{@link PackerMessage#DATA_ARTIFACT_FILES_COUNT}</li>
+   * <li>{@link PackerMessage#DATA_ARTIFACT_FILE}</li>
    * <li>{@link PackerMessage#DATA_ARTIFACT_END}</li>
    * </ul>
    */
@@ -71,6 +72,11 @@ public interface PackerMessage {
    */
   public static final String TYPE_VERSION_COMMIT = "version-commit";
 
+  /**
+   * Builder of an inspected template. Data will contain the name and the type of the builder.
+   */
+  public static final String TYPE_TEMPLATE_BUILDER = "template-builder";
+
   /**
    * Normally used for announcements about beginning new steps in the build process.
    */
@@ -106,6 +112,11 @@ public interface PackerMessage {
    */
   public static final String DATA_ARTIFACT_FILES_COUNT = "files-count";
   
+  /**
+   * Artifact {@code file} key, whose value is preceded by the index of the file.
+   */
+  public static final String DATA_ARTIFACT_FILE = "file";
+  
   /**
    * Artifact {@code end} key.
    */
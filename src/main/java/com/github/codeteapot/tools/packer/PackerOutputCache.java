@@ -0,0 +1,554 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.copy;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createLink;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.walkFileTree;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Cache of the artifacts produced by Packer {@code build} commands, keyed by everything their
+ * output depends on, like the fingerprint of the input directory and the command arguments.
+ *
+ * <p>Artifact files are copied to the cache, and they are made read-only there. They are restored
+ * as hard links when the file system supports them, so restoring large images takes no time, or as
+ * copies otherwise. Restored hard links share the read-only permission of the cached files, so they
+ * are not modified in place by mistake.
+ *
+ * <p>Entries are stored atomically, so concurrent builds with the same key could share the cache.
+ * When there is a remote cache, entries are also uploaded to it, and those that are not on this
+ * cache are downloaded from it before being restored. The manifest of an entry is uploaded after
+ * its files, so incomplete entries are not found on the remote cache.
+ *
+ * <p>On deduplicating mode, artifact files are split in chunks by their content, and chunks that
+ * are the same on several entries are stored once, so storing a new version of a large image takes
+ * roughly the size of its changes. Chunks that are not referenced anymore are removed when entries
+ * are stored. Files of deduplicated entries are restored by writing their chunks concurrently, and
+ * they are uploaded whole to the remote cache.
+ *
+ * <p>On compressing mode, which does not apply when deduplicating, the artifact files of each entry
+ * are stored on an archive of independently compressed blocks, which are compressed and
+ * decompressed concurrently. Files of compressed entries are also uploaded whole to the remote
+ * cache.
+ */
+public class PackerOutputCache {
+
+  private static final String KEY_ALGORITHM = "SHA-256";
+  private static final String MANIFEST_FILE_NAME = "manifest.properties";
+  private static final String FILES_DIRECTORY_NAME = "files";
+  private static final String FILES_ARCHIVE_NAME = "files.archive";
+  private static final String CHUNKS_DIRECTORY_NAME = "chunks";
+  private static final String DOWNLOADS_DIRECTORY_NAME = "downloads";
+  private static final long CHUNK_GRACE_PERIOD = 60L * 60L * 1000L;
+  private static final String TEMPORARY_SUFFIX = ".tmp-";
+
+  private static final String CHUNKED = "chunked";
+  private static final String COMPRESSED = "compressed";
+  private static final String ARTIFACTS = "artifacts";
+  private static final String TARGET = "artifact.%d.target";
+  private static final String NUMBER = "artifact.%d.number";
+  private static final String BUILDER_ID = "artifact.%d.builder-id";
+  private static final String ID = "artifact.%d.id";
+  private static final String STRING = "artifact.%d.string";
+  private static final String FILES = "artifact.%d.files";
+  private static final String FILE = "artifact.%d.file.%d";
+  private static final String CACHED_FILE = "%d-%d";
+
+  private final File directory;
+  private final Optional<PackerRemoteCache> remote;
+  private final boolean deduplicate;
+  private final boolean compress;
+  private final PackerChunkStore chunkStore;
+
+  /**
+   * Cache on the given directory, without a remote cache.
+   *
+   * @param directory Directory where artifacts are stored, that is created when needed.
+   */
+  public PackerOutputCache(File directory) {
+    this(directory, null);
+  }
+
+  /**
+   * Cache on the given directory, that reads through the given remote cache.
+   *
+   * @param directory Directory where artifacts are stored, that is created when needed.
+   * @param remote Remote cache, or {@code null} when there is not any.
+   */
+  public PackerOutputCache(File directory, PackerRemoteCache remote) {
+    this(directory, remote, false);
+  }
+
+  /**
+   * Cache on the given directory, that reads through the given remote cache, and deduplicates
+   * chunks of artifact files when it is requested.
+   *
+   * <p>Entries stored on any mode are restored on both of them.
+   *
+   * @param directory Directory where artifacts are stored, that is created when needed.
+   * @param remote Remote cache, or {@code null} when there is not any.
+   * @param deduplicate Determines if artifact files are stored on deduplicating mode.
+   */
+  public PackerOutputCache(File directory, PackerRemoteCache remote, boolean deduplicate) {
+    this(directory, remote, deduplicate, false);
+  }
+
+  /**
+   * Cache on the given directory, that reads through the given remote cache, and deduplicates
+   * chunks of artifact files, or compresses them, when it is requested.
+   *
+   * <p>Entries stored on any mode are restored on all of them.
+   *
+   * @param directory Directory where artifacts are stored, that is created when needed.
+   * @param remote Remote cache, or {@code null} when there is not any.
+   * @param deduplicate Determines if artifact files are stored on deduplicating mode.
+   * @param compress Determines if artifact files are stored on compressing mode, unless they are
+   *        deduplicated.
+   */
+  public PackerOutputCache(File directory, PackerRemoteCache remote, boolean deduplicate,
+      boolean compress) {
+    this.directory = directory;
+    this.remote = Optional.ofNullable(remote);
+    this.deduplicate = deduplicate;
+    this.compress = compress && !deduplicate;
+    chunkStore = new PackerChunkStore(directory.toPath().resolve(CHUNKS_DIRECTORY_NAME));
+  }
+
+  /**
+   * Restore the artifacts stored for the given key, relative to the given working directory.
+   *
+   * <p>Existing files on the paths of the artifact files are replaced. Paths that are not within
+   * the working directory, as those of a tampered remote entry could be, are rejected before
+   * replacing any file.
+   *
+   * @param key Parts of the key, in a significant order.
+   * @param workingDir Directory where relative paths of artifact files are resolved.
+   *
+   * @return The restored artifacts, or empty when there are not any stored for the key.
+   *
+   * @throws IOException If some I/O error has been occurred, the stored entry could not be read,
+   *         in which case it is removed, or some artifact file is not within the working
+   *         directory.
+   */
+  public Optional<List<PackerArtifact>> restore(List<String> key, File workingDir)
+      throws IOException {
+    String name = hash(key);
+    Path entry = directory.toPath().resolve(name);
+    Path manifestFile = entry.resolve(MANIFEST_FILE_NAME);
+    if (!isRegularFile(manifestFile) && !fetch(name, entry)) {
+      return Optional.empty();
+    }
+    Properties manifest;
+    List<PackerArtifact> artifacts;
+    try {
+      manifest = loadManifest(manifestFile);
+      artifacts = getArtifacts(manifest);
+    } catch (IOException e) {
+      delete(entry);
+      throw e;
+    }
+    Map<String, Path> restoredFiles = new LinkedHashMap<>();
+    for (int i = 0; i < artifacts.size(); ++i) {
+      List<String> files = artifacts.get(i).getFiles();
+      for (int j = 0; j < files.size(); ++j) {
+        String file = files.get(j);
+        restoredFiles.put(format(CACHED_FILE, i, j), resolveFile(workingDir, file)
+            .orElseThrow(() -> new IOException(format(
+                "Artifact file %s is not within the working directory",
+                file))));
+      }
+    }
+    for (Map.Entry<String, Path> restoredFile : restoredFiles.entrySet()) {
+      createDirectories(restoredFile.getValue().getParent());
+      deleteIfExists(restoredFile.getValue());
+      restoreFile(entry, manifest, restoredFile.getKey(), restoredFile.getValue());
+    }
+    return Optional.of(artifacts);
+  }
+
+  /**
+   * Store the given artifacts for the given key, taking their files from the given working
+   * directory.
+   *
+   * <p>Artifacts without files, like cloud images that could be removed outside the build, and
+   * those having files that are not regular ones, like directories, are not supported. Nor are
+   * those having files outside the working directory, or builds without artifacts.
+   *
+   * @param key Parts of the key, in a significant order.
+   * @param workingDir Directory where relative paths of artifact files are resolved.
+   * @param artifacts Artifacts to be stored.
+   *
+   * @return {@code true} when the artifacts are stored, or {@code false} when some of them is not
+   *         supported.
+   *
+   * @throws IOException If some I/O error has been occurred.
+   */
+  public boolean store(List<String> key, File workingDir, List<PackerArtifact> artifacts)
+      throws IOException {
+    if (artifacts.isEmpty()) {
+      return false;
+    }
+    for (PackerArtifact artifact : artifacts) {
+      if (artifact.getFiles().isEmpty()) {
+        return false;
+      }
+      for (String file : artifact.getFiles()) {
+        Optional<Path> resolvedFile = resolveFile(workingDir, file);
+        if (!resolvedFile.isPresent() || !isRegularFile(resolvedFile.get())) {
+          return false;
+        }
+      }
+    }
+    String name = hash(key);
+    Path entry = directory.toPath().resolve(name);
+    Path temporaryEntry = createDirectories(temporaryEntry(name));
+    try {
+      Map<String, Path> sources = new LinkedHashMap<>();
+      Properties manifest = new Properties();
+      manifest.setProperty(ARTIFACTS, Integer.toString(artifacts.size()));
+      for (int i = 0; i < artifacts.size(); ++i) {
+        PackerArtifact artifact = artifacts.get(i);
+        manifest.setProperty(format(TARGET, i), artifact.getTarget());
+        manifest.setProperty(format(NUMBER, i), Integer.toString(artifact.getNumber()));
+        setProperty(manifest, format(BUILDER_ID, i), artifact.getBuilderId());
+        setProperty(manifest, format(ID, i), artifact.getId());
+        setProperty(manifest, format(STRING, i), artifact.getString());
+        manifest.setProperty(format(FILES, i), Integer.toString(artifact.getFiles().size()));
+        for (int j = 0; j < artifact.getFiles().size(); ++j) {
+          String file = artifact.getFiles().get(j);
+          sources.put(format(CACHED_FILE, i, j), workingDir.toPath().resolve(file));
+          manifest.setProperty(format(FILE, i, j), file);
+        }
+      }
+      storeFiles(sources, false, temporaryEntry, manifest);
+      try (OutputStream output = newOutputStream(temporaryEntry.resolve(MANIFEST_FILE_NAME))) {
+        manifest.store(output, null);
+      }
+      commit(temporaryEntry, entry);
+    } finally {
+      delete(temporaryEntry);
+    }
+    if (deduplicate) {
+      collectChunks();
+    }
+    if (remote.isPresent()) {
+      push(name, entry);
+    }
+    return true;
+  }
+
+  private boolean fetch(String name, Path entry) throws IOException {
+    if (!remote.isPresent()) {
+      return false;
+    }
+    Optional<byte[]> manifestContent = remote.get().read(remotePath(name, MANIFEST_FILE_NAME));
+    if (!manifestContent.isPresent()) {
+      return false;
+    }
+    Properties manifest = loadManifest(new ByteArrayInputStream(manifestContent.get()));
+    List<String> cachedFiles = getCachedFiles(manifest);
+    Path temporaryEntry = temporaryEntry(name);
+    Path downloads = createDirectories(temporaryEntry.resolve(DOWNLOADS_DIRECTORY_NAME));
+    try {
+      Map<String, Path> sources = new LinkedHashMap<>();
+      for (String cachedFile : cachedFiles) {
+        remote.get().download(
+            remotePath(name, FILES_DIRECTORY_NAME, cachedFile),
+            downloads.resolve(cachedFile));
+        sources.put(cachedFile, downloads.resolve(cachedFile));
+      }
+      storeFiles(sources, true, temporaryEntry, manifest);
+      delete(downloads);
+      try (OutputStream output = newOutputStream(temporaryEntry.resolve(MANIFEST_FILE_NAME))) {
+        manifest.store(output, null);
+      }
+      commit(temporaryEntry, entry);
+    } finally {
+      delete(temporaryEntry);
+    }
+    return true;
+  }
+
+  /*
+   * Remote entries are never chunked nor compressed, so they could be fetched on any mode.
+   */
+  private void push(String name, Path entry) throws IOException {
+    Properties manifest = loadManifest(entry.resolve(MANIFEST_FILE_NAME));
+    for (String cachedFile : getCachedFiles(manifest)) {
+      String path = remotePath(name, FILES_DIRECTORY_NAME, cachedFile);
+      Path file = entry.resolve(FILES_DIRECTORY_NAME).resolve(cachedFile);
+      if (isChunked(manifest)) {
+        try (InputStream input = chunkStore.open(file)) {
+          remote.get().upload(path, input, chunkStore.size(file));
+        }
+      } else if (isCompressed(manifest)) {
+        PackerBlockArchive archive = new PackerBlockArchive(entry.resolve(FILES_ARCHIVE_NAME));
+        try (InputStream input = archive.open(cachedFile)) {
+          remote.get().upload(path, input, archive.size(cachedFile));
+        }
+      } else {
+        remote.get().upload(path, file);
+      }
+    }
+    manifest.remove(CHUNKED);
+    manifest.remove(COMPRESSED);
+    ByteArrayOutputStream manifestContent = new ByteArrayOutputStream();
+    manifest.store(manifestContent, null);
+    remote.get().upload(remotePath(name, MANIFEST_FILE_NAME), manifestContent.toByteArray());
+  }
+
+  /*
+   * Temporary entries are not taken into account, as chunks are kept during a grace period. Entries
+   * that could not be read are removed, as restoring them would do.
+   */
+  private void collectChunks() throws IOException {
+    List<Path> recipes = new ArrayList<>();
+    try (DirectoryStream<Path> entries = newDirectoryStream(directory.toPath())) {
+      for (Path entry : entries) {
+        Path manifestFile = entry.resolve(MANIFEST_FILE_NAME);
+        if (isRegularFile(manifestFile)) {
+          try {
+            Properties manifest = loadManifest(manifestFile);
+            if (isChunked(manifest)) {
+              for (String cachedFile : getCachedFiles(manifest)) {
+                recipes.add(entry.resolve(FILES_DIRECTORY_NAME).resolve(cachedFile));
+              }
+            }
+          } catch (IOException e) {
+            delete(entry);
+          }
+        }
+      }
+    }
+    chunkStore.collect(recipes, CHUNK_GRACE_PERIOD);
+  }
+
+  /*
+   * Owned sources are moved, instead of copied, when they are stored as they are.
+   */
+  private void storeFiles(Map<String, Path> sources, boolean owned, Path entry,
+      Properties manifest) throws IOException {
+    manifest.setProperty(CHUNKED, Boolean.toString(deduplicate));
+    manifest.setProperty(COMPRESSED, Boolean.toString(compress));
+    if (compress) {
+      Path archive = entry.resolve(FILES_ARCHIVE_NAME);
+      new PackerBlockArchive(archive).write(sources);
+      archive.toFile().setReadOnly();
+      return;
+    }
+    Path files = createDirectories(entry.resolve(FILES_DIRECTORY_NAME));
+    for (Map.Entry<String, Path> source : sources.entrySet()) {
+      Path cachedFile = files.resolve(source.getKey());
+      if (deduplicate) {
+        chunkStore.write(source.getValue(), cachedFile);
+      } else if (owned) {
+        move(source.getValue(), cachedFile);
+      } else {
+        copy(source.getValue(), cachedFile);
+      }
+      cachedFile.toFile().setReadOnly();
+    }
+  }
+
+  private void restoreFile(Path entry, Properties manifest, String cachedFile, Path file)
+      throws IOException {
+    if (isChunked(manifest)) {
+      chunkStore.read(entry.resolve(FILES_DIRECTORY_NAME).resolve(cachedFile), file);
+    } else if (isCompressed(manifest)) {
+      new PackerBlockArchive(entry.resolve(FILES_ARCHIVE_NAME)).extract(cachedFile, file);
+    } else {
+      link(entry.resolve(FILES_DIRECTORY_NAME).resolve(cachedFile), file);
+    }
+  }
+
+  private Path temporaryEntry(String name) {
+    return directory.toPath().resolve(name + TEMPORARY_SUFFIX + System.nanoTime());
+  }
+
+  /*
+   * Moving a directory onto an existing one that is not empty fails with a generic file system
+   * error on some platforms, instead of a file already exists one.
+   */
+  private static void commit(Path temporaryEntry, Path entry) throws IOException {
+    try {
+      move(temporaryEntry, entry, ATOMIC_MOVE);
+    } catch (FileSystemException e) {
+      if (!isDirectory(entry)) {
+        throw e;
+      }
+      // Stored or fetched by another build...
+    }
+  }
+
+  private static Properties loadManifest(Path manifestFile) throws IOException {
+    try (InputStream input = newInputStream(manifestFile)) {
+      return loadManifest(input);
+    }
+  }
+
+  /*
+   * Manifests of remote entries are not trusted, so they may be malformed.
+   */
+  private static Properties loadManifest(InputStream input) throws IOException {
+    Properties manifest = new Properties();
+    try {
+      manifest.load(input);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid manifest", e);
+    }
+    return manifest;
+  }
+
+  private static List<PackerArtifact> getArtifacts(Properties manifest) throws IOException {
+    List<PackerArtifact> artifacts = new ArrayList<>();
+    try {
+      for (int i = 0; i < parseInt(manifest.getProperty(ARTIFACTS)); ++i) {
+        List<String> files = new ArrayList<>();
+        for (int j = 0; j < parseInt(manifest.getProperty(format(FILES, i))); ++j) {
+          files.add(requireNonNull(manifest.getProperty(format(FILE, i, j))));
+        }
+        artifacts.add(new PackerArtifact(
+            requireNonNull(manifest.getProperty(format(TARGET, i))),
+            parseInt(manifest.getProperty(format(NUMBER, i))),
+            manifest.getProperty(format(BUILDER_ID, i)),
+            manifest.getProperty(format(ID, i)),
+            manifest.getProperty(format(STRING, i)),
+            files));
+      }
+    } catch (NumberFormatException | NullPointerException e) {
+      throw new IOException("Invalid manifest", e);
+    }
+    return artifacts;
+  }
+
+  private static List<String> getCachedFiles(Properties manifest) throws IOException {
+    List<String> cachedFiles = new ArrayList<>();
+    try {
+      for (int i = 0; i < parseInt(manifest.getProperty(ARTIFACTS)); ++i) {
+        for (int j = 0; j < parseInt(manifest.getProperty(format(FILES, i))); ++j) {
+          cachedFiles.add(format(CACHED_FILE, i, j));
+        }
+      }
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid manifest", e);
+    }
+    return cachedFiles;
+  }
+
+  private static boolean isChunked(Properties manifest) {
+    return Boolean.parseBoolean(manifest.getProperty(CHUNKED));
+  }
+
+  private static boolean isCompressed(Properties manifest) {
+    return Boolean.parseBoolean(manifest.getProperty(COMPRESSED));
+  }
+
+  private static String remotePath(String... parts) {
+    return String.join("/", parts);
+  }
+
+  /*
+   * Copies are made when hard links are not supported, or when both paths are on different file
+   * systems.
+   */
+  private static void link(Path cachedFile, Path file) throws IOException {
+    try {
+      createLink(file, cachedFile);
+    } catch (IOException | UnsupportedOperationException e) {
+      copy(cachedFile, file);
+    }
+  }
+
+  /*
+   * Paths are normalized before checking them, so those going up the working directory are not.
+   */
+  private static Optional<Path> resolveFile(File workingDir, String file) {
+    Path root = workingDir.toPath().toAbsolutePath().normalize();
+    Path resolved = root.resolve(file).normalize();
+    return resolved.startsWith(root) && !resolved.equals(root)
+        ? Optional.of(resolved)
+        : Optional.empty();
+  }
+
+  private static void setProperty(Properties properties, String key, Optional<String> value) {
+    value.ifPresent(present -> properties.setProperty(key, present));
+  }
+
+  private static void delete(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    walkFileTree(path, new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /*
+   * Lengths of parts are hashed too, so a part could not be taken as a portion of another one.
+   */
+  private static String hash(List<String> key) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance(KEY_ALGORITHM);
+      for (String part : key) {
+        byte[] bytes = part.getBytes(UTF_8);
+        digest.update(new byte[] {
+            (byte) (bytes.length >>> 24),
+            (byte) (bytes.length >>> 16),
+            (byte) (bytes.length >>> 8),
+            (byte) bytes.length});
+        digest.update(bytes);
+      }
+      StringBuilder name = new StringBuilder();
+      for (byte value : digest.digest()) {
+        name.append(format("%02x", value & 0xff));
+      }
+      return name.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.lang.Long.parseLong;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Remote backend of an output cache, that is an HTTP server where entries are read with
+ * {@code GET} requests and written with {@code PUT} ones.
+ *
+ * <p>Files are uploaded as they are read, and downloaded by chunks of the given size, with
+ * {@code Range} requests that are made concurrently. Servers that do not support ranges are also
+ * supported, so files are downloaded at once from them.
+ *
+ * @see PackerOutputCache
+ */
+public class PackerRemoteCache {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile(
+      "bytes (\\d+)-(\\d+)/(\\d+)");
+
+  private final String url;
+  private final int connectTimeout;
+  private final int readTimeout;
+  private final int downloadThreads;
+  private final long chunkSize;
+
+  /**
+   * Remote cache on the given URL.
+   *
+   * @param url Base URL of the entries, that are on subpaths of it.
+   * @param connectTimeout Timeout in milliseconds to connect to the server, that is infinite when
+   *        it is zero.
+   * @param readTimeout Timeout in milliseconds to read from the server, that is infinite when it is
+   *        zero.
+   * @param downloadThreads Number of chunks of a file that are downloaded at once.
+   * @param chunkSize Size in bytes of each chunk of downloaded files.
+   *
+   * @throws IllegalArgumentException If some timeout is negative, or the number of threads or the
+   *         chunk size are not positive.
+   */
+  public PackerRemoteCache(URL url, int connectTimeout, int readTimeout, int downloadThreads,
+      long chunkSize) {
+    if (connectTimeout < 0 || readTimeout < 0) {
+      throw new IllegalArgumentException("Negative timeout");
+    }
+    if (downloadThreads <= 0 || chunkSize <= 0L) {
+      throw new IllegalArgumentException("Non-positive download threads or chunk size");
+    }
+    this.url = url.toString().endsWith("/")
+        ? url.toString().substring(0, url.toString().length() - 1)
+        : url.toString();
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+    this.downloadThreads = downloadThreads;
+    this.chunkSize = chunkSize;
+  }
+
+  Optional<byte[]> read(String path) throws IOException {
+    HttpURLConnection connection = open(path, "GET");
+    try {
+      int responseCode = connection.getResponseCode();
+      if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+        return Optional.empty();
+      }
+      requireResponseCode(path, responseCode, HttpURLConnection.HTTP_OK);
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      try (InputStream input = connection.getInputStream()) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+          output.write(buffer, 0, read);
+        }
+      }
+      return Optional.of(output.toByteArray());
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  void upload(String path, byte[] content) throws IOException {
+    HttpURLConnection connection = open(path, "PUT");
+    try {
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(content.length);
+      try (OutputStream output = connection.getOutputStream()) {
+        output.write(content);
+      }
+      requireSuccess(path, connection.getResponseCode());
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  void upload(String path, Path file) throws IOException {
+    try (InputStream input = Files.newInputStream(file)) {
+      upload(path, input, Files.size(file));
+    }
+  }
+
+  void upload(String path, InputStream input, long length) throws IOException {
+    HttpURLConnection connection = open(path, "PUT");
+    try {
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(length);
+      try (OutputStream output = connection.getOutputStream()) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+          output.write(buffer, 0, read);
+        }
+      }
+      requireSuccess(path, connection.getResponseCode());
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /*
+   * The first chunk is requested before knowing the file size, so small files take a single
+   * request. Chunks are written on their position of the file, so they could be received in any
+   * order.
+   */
+  void download(String path, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      HttpURLConnection connection = open(path, "GET");
+      try {
+        connection.setRequestProperty("Range", format("bytes=0-%d", chunkSize - 1L));
+        int responseCode = connection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+          receive(connection, channel, 0L);
+          return;
+        }
+        if (responseCode == 416) { // Range not satisfiable, when the file is empty
+          return;
+        }
+        requireResponseCode(path, responseCode, HttpURLConnection.HTTP_PARTIAL);
+        long size = getSize(path, connection);
+        requireLength(path, receive(connection, channel, 0L), min(chunkSize, size));
+        if (size > chunkSize) {
+          download(path, channel, size);
+        }
+      } finally {
+        connection.disconnect();
+      }
+    }
+  }
+
+  private void download(String path, FileChannel channel, long size) throws IOException {
+    ExecutorService executor = newFixedThreadPool(downloadThreads);
+    try {
+      List<Future<Void>> chunks = new ArrayList<>();
+      for (long start = chunkSize; start < size; start += chunkSize) {
+        long chunkStart = start;
+        long chunkEnd = min(start + chunkSize, size);
+        chunks.add(executor.submit(() -> {
+          downloadChunk(path, channel, chunkStart, chunkEnd);
+          return null;
+        }));
+      }
+      for (Future<Void> chunk : chunks) {
+        chunk.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Download interrupted", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void downloadChunk(String path, FileChannel channel, long start, long end)
+      throws IOException {
+    HttpURLConnection connection = open(path, "GET");
+    try {
+      connection.setRequestProperty("Range", format("bytes=%d-%d", start, end - 1L));
+      requireResponseCode(path, connection.getResponseCode(), HttpURLConnection.HTTP_PARTIAL);
+      requireLength(path, receive(connection, channel, start), end - start);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private HttpURLConnection open(String path, String method) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url + "/" + path)
+        .openConnection();
+    connection.setRequestMethod(method);
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    connection.setUseCaches(false);
+    return connection;
+  }
+
+  private static long receive(HttpURLConnection connection, FileChannel channel, long position)
+      throws IOException {
+    long length = 0L;
+    try (InputStream input = connection.getInputStream()) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+        while (chunk.hasRemaining()) {
+          channel.write(chunk, position + length + chunk.position());
+        }
+        length += read;
+      }
+    }
+    return length;
+  }
+
+  private static long getSize(String path, HttpURLConnection connection) throws IOException {
+    String contentRange = connection.getHeaderField("Content-Range");
+    Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange == null ? "" : contentRange);
+    if (!matcher.matches()) {
+      throw new IOException(format("Invalid content range of %s: %s", path, contentRange));
+    }
+    return parseLong(matcher.group(3));
+  }
+
+  private static void requireResponseCode(String path, int responseCode, int expected)
+      throws IOException {
+    if (responseCode != expected) {
+      throw new IOException(format("Unexpected response code of %s: %d", path, responseCode));
+    }
+  }
+
+  private static void requireSuccess(String path, int responseCode) throws IOException {
+    if (responseCode / 100 != 2) {
+      throw new IOException(format("Unexpected response code of %s: %d", path, responseCode));
+    }
+  }
+
+  private static void requireLength(String path, long length, long expected) throws IOException {
+    if (length != expected) {
+      throw new IOException(format("Truncated content of %s: %d of %d bytes", path, length,
+          expected));
+    }
+  }
+}
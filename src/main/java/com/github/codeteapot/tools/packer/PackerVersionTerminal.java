@@ -0,0 +1,49 @@
+package com.github.codeteapot.tools.packer;
+
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_VERSION;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_VERSION_COMMIT;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_VERSION_PRERELEASE;
+import static java.util.stream.Collectors.joining;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/*
+ * Terminal of a version command, that collects the version, prerelease and commit from its output.
+ */
+class PackerVersionTerminal implements PackerTerminal {
+
+  private final Map<String, String> versionParts;
+
+  PackerVersionTerminal() {
+    versionParts = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public Optional<File> getWorkingDir() {
+    return Optional.empty();
+  }
+
+  @Override
+  public void receive(PackerMessage message) {
+    String[] data = message.getData();
+    if (data.length > 0 && !data[0].isEmpty()) {
+      versionParts.put(message.getType(), data[0]);
+    }
+  }
+
+  @Override
+  public void send(PackerInput input) throws PackerAbortionException {
+    throw new PackerAbortionException("Interactive execution is not supported");
+  }
+
+  String getVersion() {
+    return Stream.of(TYPE_VERSION, TYPE_VERSION_PRERELEASE, TYPE_VERSION_COMMIT)
+        .map(versionParts::get)
+        .filter(part -> part != null)
+        .collect(joining(" "));
+  }
+}
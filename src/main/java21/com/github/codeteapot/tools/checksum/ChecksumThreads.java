@@ -0,0 +1,21 @@
+package com.github.codeteapot.tools.checksum;
+
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Threads that read directory files on I/O concurrency mode. Those of this class are virtual ones,
+ * so waiting for a read does not hold any platform thread. Their number is still bounded by the
+ * pool that uses this factory, which bounds the number of reads in flight.
+ */
+final class ChecksumThreads {
+
+  private static final String IO_THREAD_NAME_PREFIX = "checksum-io-";
+
+  private ChecksumThreads() {}
+
+  static ThreadFactory ioThreadFactory() {
+    return Thread.ofVirtual()
+        .name(IO_THREAD_NAME_PREFIX, 1L)
+        .factory();
+  }
+}
@@ -14,8 +14,11 @@ import static com.github.codeteapot.tools.packer.PackerMessage.DATA_UI_MESSAGE;
 import static com.github.codeteapot.tools.packer.PackerMessage.DATA_UI_SAY;
 import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_ARTIFACT_COUNT;
 import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_UI;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -39,6 +42,8 @@ import com.github.codeteapot.maven.plugin.testing.logger.AccumulatedMavenPluginL
 import com.github.codeteapot.maven.plugins.packer.tools.ChecksumFactory;
 import com.github.codeteapot.maven.plugins.packer.tools.PackerFactory;
 import com.github.codeteapot.tools.checksum.Checksum;
+import com.github.codeteapot.tools.checksum.ChecksumFormat;
+import com.github.codeteapot.tools.checksum.ChecksumSettings;
 import com.github.codeteapot.tools.packer.Packer;
 import com.github.codeteapot.tools.packer.PackerAbortionException;
 import com.github.codeteapot.tools.packer.PackerExecution;
@@ -50,6 +55,7 @@ import com.github.codeteapot.tools.packer.TestPackerMessage;
 import java.io.File;
 import java.io.IOException;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -88,6 +94,12 @@ public class PackerBuildMojoTest {
   private static final String SOME_ABSOLUTE_INPUT_DIRECTORY_PATH = "/some/absolute/dir";
   private static final String SOME_RELATIVE_INPUT_DIRECTORY_PATH_FROM_BASEDIR = "some/relative/dir";
   private static final String SOME_TEMPLATE = "some-template.json";
+  private static final int SOME_CHECKSUM_THREADS = 3;
+  private static final String SOME_CHECKSUM_ALGORITHM = "XXH3";
+  private static final String CHECKSUM_INDEX_FILE_NAME = ".checksum.index";
+  private static final int SOME_CHECKSUM_BUFFER_SIZE = 1024;
+  private static final long SOME_CHECKSUM_MAPPING_THRESHOLD = 2048L;
+  private static final int SOME_CHECKSUM_MAPPING_WINDOW_SIZE = 4096;
   private static final Set<String> SOME_ONLY = Stream.of("first-only", "second-only")
       .collect(toSet());
   private static final Set<String> SOME_EXCEPT = Stream.of("first-except", "second-except")
@@ -108,6 +120,41 @@ public class PackerBuildMojoTest {
   private static final String DOES_NOT_INVALIDATE_ON_FAILURE_VALUE = "FaLsE";
   private static final String SOME_ABSOLUTE_INPUT_DIRECTORY_VALUE = "/some/absolute/dir";
   private static final String SOME_RELATIVE_INPUT_DIRECTORY_VALUE = "some/relative/dir";
+  private static final String SOME_CHECKSUM_THREADS_VALUE = "3";
+  private static final String CHECKSUM_LAZY_VALUE = "true";
+  private static final String CHECKSUM_TEXT_FORMAT_VALUE = "TEXT";
+  private static final String CHECKSUM_CACHE_SIZE_VALUE = "4";
+  private static final int CHECKSUM_CACHE_SIZE = 4;
+  private static final String CHECKSUM_SEGMENT_THRESHOLD_VALUE = "1073741824";
+  private static final long CHECKSUM_SEGMENT_THRESHOLD = 1073741824L;
+  private static final String CHECKSUM_PARANOID_VALUE = "tRuE";
+  private static final String CHECKSUM_BUILD_CACHE_VALUE = "true";
+  private static final String SOME_PACKER_VERSION = "1.8.0";
+  private static final String BUILD_OUTPUT_CACHE_VALUE = "true";
+  private static final String SOME_FINGERPRINT = "SHA-256:0123456789ABCDEF";
+  private static final String FIRST_MATRIX_TEMPLATE = "first-template.json";
+  private static final String SECOND_MATRIX_TEMPLATE = "second-template.json";
+  private static final String CHECKSUM_FILE_NAME = ".checksum";
+  private static final String FIRST_MATRIX_CHECKSUM_FILE_NAME = ".checksum-first";
+  private static final String SECOND_MATRIX_CHECKSUM_FILE_NAME = ".checksum-second";
+  private static final String FIRST_MATRIX_NAME_VALUE = "first";
+  private static final String SECOND_MATRIX_NAME_VALUE = "second";
+  private static final String FIRST_MATRIX_TEMPLATE_VALUE = "first-template.json";
+  private static final String SECOND_MATRIX_TEMPLATE_VALUE = "second-template.json";
+  private static final String INVALID_MATRIX_NAME_VALUE = "../invalid";
+  private static final String MATRIX_CONCURRENCY_VALUE = "2";
+  private static final String MATRIX_COMPLETE_ALL_VALUE = "COMPLETE_ALL";
+  private static final String ISOLATE_BUILDERS_VALUE = "true";
+  private static final String FIRST_BUILDER = "first";
+  private static final String SECOND_BUILDER = "second";
+  private static final String EXCEPT_SECOND_BUILDER_VALUE = "second";
+  private static final List<String> SOME_BUILDERS = Stream.of(FIRST_BUILDER, SECOND_BUILDER)
+      .collect(toList());
+  private static final List<String> NO_BUILDERS = emptyList();
+  private static final String SOME_CHECKSUM_BUFFER_SIZE_VALUE = "1024";
+  private static final String SOME_CHECKSUM_MAPPING_THRESHOLD_VALUE = "2048";
+  private static final String SOME_CHECKSUM_MAPPING_WINDOW_SIZE_VALUE = "4096";
+  private static final String INVALID_CHECKSUM_BUFFER_SIZE_VALUE = "0";
   private static final String SOME_TEMPLATE_VALUE = "\t some-template.json \n";
   private static final String BLANK_TEMPLATE_VALUE = "\t \n";
   private static final String FORCE_VALUE = "tRUE";
@@ -150,6 +197,9 @@ public class PackerBuildMojoTest {
   @Captor
   private ArgumentCaptor<File> directory;
 
+  @Captor
+  private ArgumentCaptor<ChecksumSettings> checksumSettings;
+
   @Captor
   private ArgumentCaptor<File> oldChecksumFile;
 
@@ -187,7 +237,7 @@ public class PackerBuildMojoTest {
               .hasValue("Execution skipped...");
         }, atIndex(0));
     verify(checksumFactory, never())
-        .getChecksum(any(), any());
+        .getChecksum(any(), any(), any());
   }
 
   @Test
@@ -198,7 +248,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MATCH)
         .when(checksum).match(oldChecksumFile.capture());
 
@@ -208,13 +258,13 @@ public class PackerBuildMojoTest {
         .execute();
 
     assertThat(logger.getAccumulated())
-        .hasSize(1)
+        .hasSize(2)
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_INFO);
           assertThat(message.getContent())
               .hasValue("There is not any change. Ignoring...");
-        }, atIndex(0));
+        }, atIndex(1));
     verify(checksum, never())
         .store(newChecksumFile.capture());
     verify(packerFactory, never())
@@ -229,7 +279,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MATCH)
         .when(checksum).match(any());
 
@@ -241,13 +291,13 @@ public class PackerBuildMojoTest {
         .execute();
 
     assertThat(logger.getAccumulated())
-        .hasSize(1)
+        .hasSize(2)
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_INFO);
           assertThat(message.getContent())
               .hasValue("There is not any change. Ignoring...");
-        }, atIndex(0));
+        }, atIndex(1));
     verify(checksum, never())
         .store(any());
     verify(packerFactory, never())
@@ -262,7 +312,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -296,7 +346,7 @@ public class PackerBuildMojoTest {
       @TempDir File tempDir)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doAnswer(invocation -> {
@@ -337,7 +387,7 @@ public class PackerBuildMojoTest {
       @TempDir File tempDir)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doAnswer(invocation -> {
@@ -379,7 +429,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doAnswer(invocation -> {
@@ -417,7 +467,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doAnswer(invocation -> {
@@ -457,7 +507,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doAnswer(invocation -> {
@@ -498,7 +548,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doAnswer(invocation -> {
@@ -540,7 +590,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(directory.capture(), any());
+        .when(checksumFactory).getChecksum(directory.capture(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(oldChecksumFile.capture());
     doNothing()
@@ -580,7 +630,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(directory.capture(), any());
+        .when(checksumFactory).getChecksum(directory.capture(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(oldChecksumFile.capture());
     doNothing()
@@ -622,7 +672,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(directory.capture(), any());
+        .when(checksumFactory).getChecksum(directory.capture(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(oldChecksumFile.capture());
     doNothing()
@@ -657,21 +707,21 @@ public class PackerBuildMojoTest {
   }
 
   @Test
-  public void buildWithDefaultTemplate(
+  public void buildWithChecksumLazy(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
-            eq(DEFAULT_TEMPLATE),
+            anyString(),
             anyBoolean(),
             anySet(),
             anySet(),
@@ -681,48 +731,65 @@ public class PackerBuildMojoTest {
         .when(execution).success();
 
     context.goal("build")
+        .set(configuration()
+            .set(configurationValue("checksumLazy", CHECKSUM_LAZY_VALUE)))
         .execute();
+
+    assertThat(checksumSettings.getValue().isLazy())
+        .isTrue();
+    verify(checksum)
+        .store(any());
   }
 
   @Test
-  public void buildWithBlankTemplate(
+  public void buildWithChecksumTextFormat(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
 
-    Throwable e = catchThrowable(() -> context.goal("build")
+    context.goal("build")
         .set(configuration()
-            .set(configurationValue("template", BLANK_TEMPLATE_VALUE)))
-        .execute());
+            .set(configurationValue("checksumFormat", CHECKSUM_TEXT_FORMAT_VALUE)))
+        .execute();
 
-    assertThat(e)
-        .hasCauseInstanceOf(MojoExecutionException.class);
+    assertThat(checksumSettings.getValue().getFormat())
+        .isEqualTo(ChecksumFormat.TEXT);
   }
 
   @Test
-  public void buildWithSomeTemplate(
+  public void buildWithChecksumCacheSize(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
-            eq(SOME_TEMPLATE),
+            anyString(),
             anyBoolean(),
             anySet(),
             anySet(),
@@ -733,19 +800,22 @@ public class PackerBuildMojoTest {
 
     context.goal("build")
         .set(configuration()
-            .set(configurationValue("template", SOME_TEMPLATE_VALUE)))
+            .set(configurationValue("checksumCacheSize", CHECKSUM_CACHE_SIZE_VALUE)))
         .execute();
+
+    assertThat(checksumSettings.getValue().getCacheSize())
+        .isEqualTo(CHECKSUM_CACHE_SIZE);
   }
 
   @Test
-  public void buildWithDefaultForce(
+  public void buildWithChecksumSegmentThreshold(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -753,7 +823,7 @@ public class PackerBuildMojoTest {
     doReturn(execution)
         .when(packer).build(
             anyString(),
-            eq(DO_NOT_FORCE),
+            anyBoolean(),
             anySet(),
             anySet(),
             anyMap(),
@@ -762,26 +832,36 @@ public class PackerBuildMojoTest {
         .when(execution).success();
 
     context.goal("build")
+        .set(configuration()
+            .set(configurationValue("checksumSegmentThreshold", CHECKSUM_SEGMENT_THRESHOLD_VALUE)))
         .execute();
+
+    assertThat(checksumSettings.getValue().getSegmentThreshold())
+        .isEqualTo(CHECKSUM_SEGMENT_THRESHOLD);
   }
 
   @Test
-  public void buildWithForce(
+  public void buildWithChecksumBuildCache(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
-      @Mock PackerExecution execution)
+      @Mock PackerExecution execution,
+      @TempDir File buildCacheDir)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
-        .when(checksum).match(any());
+        .when(checksum).match(oldChecksumFile.capture());
+    doNothing()
+        .when(checksum).store(newChecksumFile.capture());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
+    doReturn(SOME_PACKER_VERSION)
+        .when(packer).version();
     doReturn(execution)
         .when(packer).build(
             anyString(),
-            eq(FORCE),
+            anyBoolean(),
             anySet(),
             anySet(),
             anyMap(),
@@ -791,28 +871,41 @@ public class PackerBuildMojoTest {
 
     context.goal("build")
         .set(configuration()
-            .set(configurationValue("force", FORCE_VALUE)))
+            .set(configurationValue("checksumBuildCache", CHECKSUM_BUILD_CACHE_VALUE))
+            .set(configurationValue("checksumBuildCacheDirectory", buildCacheDir.getPath())))
         .execute();
+
+    assertThat(oldChecksumFile.getValue().getParentFile())
+        .isEqualTo(buildCacheDir);
+    assertThat(newChecksumFile.getValue())
+        .isEqualTo(oldChecksumFile.getValue());
   }
 
   @Test
-  public void buildWithDefaultOnly(
+  public void buildOnBuildOutputCacheMiss(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
-      @Mock PackerExecution execution)
+      @Mock PackerExecution execution,
+      @TempDir File buildOutputCacheDir)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
+    doReturn(SOME_FINGERPRINT)
+        .when(checksum).fingerprint();
+    doNothing()
+        .when(checksum).store(any());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
+    doReturn(SOME_PACKER_VERSION)
+        .when(packer).version();
     doReturn(execution)
         .when(packer).build(
             anyString(),
             anyBoolean(),
-            eq(EMPTY_ONLY),
+            anySet(),
             anySet(),
             anyMap(),
             anySet());
@@ -820,78 +913,103 @@ public class PackerBuildMojoTest {
         .when(execution).success();
 
     context.goal("build")
+        .set(configuration()
+            .set(configurationValue("buildOutputCache", BUILD_OUTPUT_CACHE_VALUE))
+            .set(configurationValue("buildOutputCacheDirectory", buildOutputCacheDir.getPath())))
         .execute();
+
+    verify(execution).success();
+    assertThat(buildOutputCacheDir.list())
+        .isEmpty();
   }
 
   @Test
-  public void buildWithBlankOnly(
+  public void invalidateOnFailureWhenFailedWithChecksumLazy(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
-      @Mock PackerExecution execution)
+      @Mock PackerExecution execution,
+      @TempDir File tempDir)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
+    doAnswer(invocation -> {
+      File checksumFile = invocation.getArgument(0, File.class);
+      checksumFile.getParentFile().mkdirs();
+      checksumFile.createNewFile();
+      return null;
+    })
+        .when(checksum).store(newChecksumFile.capture());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
             anyString(),
             anyBoolean(),
-            eq(EMPTY_ONLY),
+            anySet(),
             anySet(),
             anyMap(),
             anySet());
-    doNothing()
+    doThrow(new PackerExecutionException(new File(tempDir, "error-file.err")))
         .when(execution).success();
 
-    context.goal("build")
+    Throwable e = catchThrowable(() -> context.goal("build")
         .set(configuration()
-            .set(configurationValue("only", BLANK_ONLY_VALUE)))
-        .execute();
+            .set(configurationValue("checksumLazy", CHECKSUM_LAZY_VALUE)))
+        .execute());
+
+    assertThat(e)
+        .hasCauseInstanceOf(MojoExecutionException.class);
+    assertThat(newChecksumFile.getValue())
+        .doesNotExist();
   }
 
   @Test
-  public void buildWithSomeOnly(
+  public void failWithChecksumLazyStoreError(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
+    doThrow(new IOException())
+        .when(checksum).store(any());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
             anyString(),
             anyBoolean(),
-            eq(SOME_ONLY),
+            anySet(),
             anySet(),
             anyMap(),
             anySet());
     doNothing()
         .when(execution).success();
 
-    context.goal("build")
+    Throwable e = catchThrowable(() -> context.goal("build")
         .set(configuration()
-            .set(configurationValue("only", SOME_ONLY_VALUE)))
-        .execute();
+            .set(configurationValue("checksumLazy", CHECKSUM_LAZY_VALUE)))
+        .execute());
+
+    assertThat(e)
+        .hasCauseInstanceOf(MojoExecutionException.class);
   }
 
   @Test
-  public void buildWithDefaultExcept(
+  public void buildWithSomeChecksumAlgorithm(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -901,25 +1019,30 @@ public class PackerBuildMojoTest {
             anyString(),
             anyBoolean(),
             anySet(),
-            eq(EMPTY_EXCEPT),
+            anySet(),
             anyMap(),
             anySet());
     doNothing()
         .when(execution).success();
 
     context.goal("build")
+        .set(configuration()
+            .set(configurationValue("checksumAlgorithm", SOME_CHECKSUM_ALGORITHM)))
         .execute();
+
+    assertThat(checksumSettings.getValue().getAlgorithm())
+        .isEqualTo(SOME_CHECKSUM_ALGORITHM);
   }
 
   @Test
-  public void buildWithBlankExcept(
+  public void buildWithSomeChecksumThreads(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -929,7 +1052,7 @@ public class PackerBuildMojoTest {
             anyString(),
             anyBoolean(),
             anySet(),
-            eq(EMPTY_EXCEPT),
+            anySet(),
             anyMap(),
             anySet());
     doNothing()
@@ -937,19 +1060,25 @@ public class PackerBuildMojoTest {
 
     context.goal("build")
         .set(configuration()
-            .set(configurationValue("except", BLANK_EXCEPT_VALUE)))
+            .set(configurationValue("checksumThreads", SOME_CHECKSUM_THREADS_VALUE)))
         .execute();
+
+    assertThat(checksumSettings.getValue().getThreads())
+        .isEqualTo(SOME_CHECKSUM_THREADS);
   }
 
   @Test
-  public void buildWithSomeExcept(
+  public void buildWithChecksumParanoid(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(
+            directory.capture(),
+            any(),
+            checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -959,7 +1088,7 @@ public class PackerBuildMojoTest {
             anyString(),
             anyBoolean(),
             anySet(),
-            eq(SOME_EXCEPT),
+            anySet(),
             anyMap(),
             anySet());
     doNothing()
@@ -967,19 +1096,24 @@ public class PackerBuildMojoTest {
 
     context.goal("build")
         .set(configuration()
-            .set(configurationValue("except", SOME_EXCEPT_VALUE)))
+            .set(configurationValue("checksumParanoid", CHECKSUM_PARANOID_VALUE)))
         .execute();
+
+    assertThat(checksumSettings.getValue().isParanoid())
+        .isTrue();
+    assertThat(checksumSettings.getValue().getIndexFile())
+        .hasValue(new File(directory.getValue(), CHECKSUM_INDEX_FILE_NAME));
   }
 
   @Test
-  public void buildWithDefaultVars(
+  public void buildWithSomeChecksumBuffering(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), checksumSettings.capture());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -990,90 +1124,133 @@ public class PackerBuildMojoTest {
             anyBoolean(),
             anySet(),
             anySet(),
-            eq(EMPTY_VARS),
+            anyMap(),
             anySet());
     doNothing()
         .when(execution).success();
 
     context.goal("build")
+        .set(configuration()
+            .set(configurationValue("checksumBufferSize", SOME_CHECKSUM_BUFFER_SIZE_VALUE))
+            .set(configurationValue(
+                "checksumMappingThreshold",
+                SOME_CHECKSUM_MAPPING_THRESHOLD_VALUE))
+            .set(configurationValue(
+                "checksumMappingWindowSize",
+                SOME_CHECKSUM_MAPPING_WINDOW_SIZE_VALUE)))
         .execute();
+
+    assertThat(checksumSettings.getValue().getBufferSize())
+        .isEqualTo(SOME_CHECKSUM_BUFFER_SIZE);
+    assertThat(checksumSettings.getValue().getMappingThreshold())
+        .isEqualTo(SOME_CHECKSUM_MAPPING_THRESHOLD);
+    assertThat(checksumSettings.getValue().getMappingWindowSize())
+        .isEqualTo(SOME_CHECKSUM_MAPPING_WINDOW_SIZE);
   }
 
   @Test
-  public void buildWithEmptyVars(
+  public void failWithInvalidChecksumBufferSize(MavenPluginContext context) throws Exception {
+    Throwable e = catchThrowable(() -> context.goal("build")
+        .set(configuration()
+            .set(configurationValue("checksumBufferSize", INVALID_CHECKSUM_BUFFER_SIZE_VALUE)))
+        .execute());
+
+    assertThat(e)
+        .hasCauseInstanceOf(MojoExecutionException.class);
+    verify(checksumFactory, never())
+        .getChecksum(any(), any(), any());
+  }
+
+  @Test
+  public void buildWithDefaultTemplate(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
-            anyString(),
+            eq(DEFAULT_TEMPLATE),
             anyBoolean(),
             anySet(),
             anySet(),
-            eq(EMPTY_VARS),
+            anyMap(),
             anySet());
     doNothing()
         .when(execution).success();
 
     context.goal("build")
-        .set(configuration()
-            .set(configurationNode("vars")))
         .execute();
   }
 
   @Test
-  public void buildWithSomeVars(
+  public void buildWithBlankTemplate(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+
+    Throwable e = catchThrowable(() -> context.goal("build")
+        .set(configuration()
+            .set(configurationValue("template", BLANK_TEMPLATE_VALUE)))
+        .execute());
+
+    assertThat(e)
+        .hasCauseInstanceOf(MojoExecutionException.class);
+  }
+
+  @Test
+  public void buildWithSomeTemplate(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
         .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
-            anyString(),
+            eq(SOME_TEMPLATE),
             anyBoolean(),
             anySet(),
             anySet(),
-            eq(SOME_VARS),
+            anyMap(),
             anySet());
     doNothing()
         .when(execution).success();
 
     context.goal("build")
         .set(configuration()
-            .set(configurationNode("vars")
-                .set(configurationNode("property")
-                    .set(configurationValue("name", FIRST_VAR_NAME_VALUE))
-                    .set(configurationValue("value", FIRST_VAR_VALUE_VALUE)))
-                .set(configurationNode("property")
-                    .set(configurationValue("name", SECOND_VAR_NAME_VALUE))
-                    .set(configurationValue("value", SECOND_VAR_VALUE_VALUE)))))
+            .set(configurationValue("template", SOME_TEMPLATE_VALUE)))
         .execute();
   }
 
   @Test
-  public void buildWithDefaultVarFiles(
+  public void buildWithDefaultForce(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -1081,11 +1258,11 @@ public class PackerBuildMojoTest {
     doReturn(execution)
         .when(packer).build(
             anyString(),
-            anyBoolean(),
+            eq(DO_NOT_FORCE),
             anySet(),
             anySet(),
             anyMap(),
-            eq(EMPTY_VAR_FILES));
+            anySet());
     doNothing()
         .when(execution).success();
 
@@ -1094,14 +1271,14 @@ public class PackerBuildMojoTest {
   }
 
   @Test
-  public void buildWithEmptyVarFiles(
+  public void buildWithForce(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -1109,29 +1286,29 @@ public class PackerBuildMojoTest {
     doReturn(execution)
         .when(packer).build(
             anyString(),
-            anyBoolean(),
+            eq(FORCE),
             anySet(),
             anySet(),
             anyMap(),
-            eq(EMPTY_VAR_FILES));
+            anySet());
     doNothing()
         .when(execution).success();
 
     context.goal("build")
         .set(configuration()
-            .set(configurationNode("varFiles")))
+            .set(configurationValue("force", FORCE_VALUE)))
         .execute();
   }
 
   @Test
-  public void buildWithSomeVarFiles(
+  public void buildWithDefaultOnly(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -1140,117 +1317,656 @@ public class PackerBuildMojoTest {
         .when(packer).build(
             anyString(),
             anyBoolean(),
-            anySet(),
+            eq(EMPTY_ONLY),
             anySet(),
             anyMap(),
-            eq(SOME_VAR_FILES));
+            anySet());
     doNothing()
         .when(execution).success();
 
     context.goal("build")
-        .set(configuration()
-            .set(configurationNode("varFiles")
-                .set(configurationValue("varFile", FIRST_VAR_FILE_VALUE))
-                .set(configurationValue("varFile", SECOND_VAR_FILE_VALUE))))
         .execute();
   }
 
   @Test
-  public void buildChecksumFailure(MavenPluginContext context) throws Exception {
-    doThrow(new IOException())
-        .when(checksumFactory).getChecksum(any(), any());
-
-    Throwable e = catchThrowable(() -> context.goal("build")
-        .execute());
-
-    assertThat(e)
-        .hasCauseInstanceOf(MojoExecutionException.class);
-    verify(packerFactory, never())
-        .getPacker(any());
-  }
-
-  @Test
-  public void teminalReceiveUIMessageMessage(
+  public void buildWithBlankOnly(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
-        .when(packerFactory).getPacker(packerTerminal.capture());
+        .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
             anyString(),
             anyBoolean(),
-            anySet(),
+            eq(EMPTY_ONLY),
             anySet(),
             anyMap(),
             anySet());
     doNothing()
         .when(execution).success();
 
-    AccumulatedMavenPluginLogger logger = new AccumulatedMavenPluginLogger();
-    context.setLogger(logger);
     context.goal("build")
+        .set(configuration()
+            .set(configurationValue("only", BLANK_ONLY_VALUE)))
         .execute();
-    packerTerminal.getValue().receive(SOME_UI_MESSAGE_MESSAGE);
-
-    assertThat(logger.getAccumulated())
-        .hasSize(2)
-        .satisfies(message -> {
-          assertThat(message.getLevel())
-              .isEqualTo(LOG_INFO);
-          assertThat(message.getContent())
-              .hasValue(FIRST_MESSAGE_LINE);
-          assertThat(message.getError())
-              .isEmpty();
-        }, atIndex(0))
-        .satisfies(message -> {
-          assertThat(message.getLevel())
-              .isEqualTo(LOG_INFO);
-          assertThat(message.getContent())
-              .hasValue(SECOND_MESSAGE_LINE);
-          assertThat(message.getError())
-              .isEmpty();
-        }, atIndex(1));
   }
 
   @Test
-  public void teminalReceiveUIMessageSay(
+  public void buildWithSomeOnly(
       MavenPluginContext context,
       @Mock Checksum checksum,
       @Mock Packer packer,
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
-        .when(packerFactory).getPacker(packerTerminal.capture());
+        .when(packerFactory).getPacker(any());
     doReturn(execution)
         .when(packer).build(
             anyString(),
             anyBoolean(),
-            anySet(),
+            eq(SOME_ONLY),
             anySet(),
             anyMap(),
             anySet());
     doNothing()
         .when(execution).success();
 
-    AccumulatedMavenPluginLogger logger = new AccumulatedMavenPluginLogger();
-    context.setLogger(logger);
     context.goal("build")
+        .set(configuration()
+            .set(configurationValue("only", SOME_ONLY_VALUE)))
         .execute();
-    packerTerminal.getValue().receive(SOME_UI_MESSAGE_SAY);
+  }
 
-    assertThat(logger.getAccumulated())
-        .hasSize(2)
+  @Test
+  public void buildWithDefaultExcept(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            eq(EMPTY_EXCEPT),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .execute();
+  }
+
+  @Test
+  public void buildWithBlankExcept(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            eq(EMPTY_EXCEPT),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationValue("except", BLANK_EXCEPT_VALUE)))
+        .execute();
+  }
+
+  @Test
+  public void buildWithSomeExcept(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            eq(SOME_EXCEPT),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationValue("except", SOME_EXCEPT_VALUE)))
+        .execute();
+  }
+
+  @Test
+  public void buildWithDefaultVars(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            eq(EMPTY_VARS),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .execute();
+  }
+
+  @Test
+  public void buildWithEmptyVars(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            eq(EMPTY_VARS),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationNode("vars")))
+        .execute();
+  }
+
+  @Test
+  public void buildWithSomeVars(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            eq(SOME_VARS),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationNode("vars")
+                .set(configurationNode("property")
+                    .set(configurationValue("name", FIRST_VAR_NAME_VALUE))
+                    .set(configurationValue("value", FIRST_VAR_VALUE_VALUE)))
+                .set(configurationNode("property")
+                    .set(configurationValue("name", SECOND_VAR_NAME_VALUE))
+                    .set(configurationValue("value", SECOND_VAR_VALUE_VALUE)))))
+        .execute();
+  }
+
+  @Test
+  public void buildWithDefaultVarFiles(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            eq(EMPTY_VAR_FILES));
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .execute();
+  }
+
+  @Test
+  public void buildWithEmptyVarFiles(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            eq(EMPTY_VAR_FILES));
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationNode("varFiles")))
+        .execute();
+  }
+
+  @Test
+  public void buildWithSomeVarFiles(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            eq(SOME_VAR_FILES));
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationNode("varFiles")
+                .set(configurationValue("varFile", FIRST_VAR_FILE_VALUE))
+                .set(configurationValue("varFile", SECOND_VAR_FILE_VALUE))))
+        .execute();
+  }
+
+  @Test
+  public void buildMatrix(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution firstExecution,
+      @Mock PackerExecution secondExecution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doNothing()
+        .when(checksum).store(newChecksumFile.capture());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(firstExecution)
+        .when(packer).build(
+            eq(FIRST_MATRIX_TEMPLATE),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            anySet());
+    doReturn(secondExecution)
+        .when(packer).build(
+            eq(SECOND_MATRIX_TEMPLATE),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(firstExecution).success();
+    doNothing()
+        .when(secondExecution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationValue("matrixConcurrency", MATRIX_CONCURRENCY_VALUE))
+            .set(configurationNode("matrix")
+                .set(configurationNode("entry")
+                    .set(configurationValue("name", FIRST_MATRIX_NAME_VALUE))
+                    .set(configurationValue("template", FIRST_MATRIX_TEMPLATE_VALUE)))
+                .set(configurationNode("entry")
+                    .set(configurationValue("name", SECOND_MATRIX_NAME_VALUE))
+                    .set(configurationValue("template", SECOND_MATRIX_TEMPLATE_VALUE)))))
+        .execute();
+
+    verify(firstExecution).success();
+    verify(secondExecution).success();
+    verify(checksumFactory).getChecksum(any(), any(), any());
+    assertThat(newChecksumFile.getAllValues())
+        .extracting(File::getName)
+        .containsExactlyInAnyOrder(
+            FIRST_MATRIX_CHECKSUM_FILE_NAME,
+            SECOND_MATRIX_CHECKSUM_FILE_NAME);
+  }
+
+  @Test
+  public void buildMatrixFailureCompletingAll(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution firstExecution,
+      @Mock PackerExecution secondExecution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(firstExecution)
+        .when(packer).build(
+            eq(FIRST_MATRIX_TEMPLATE),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            anySet());
+    doReturn(secondExecution)
+        .when(packer).build(
+            eq(SECOND_MATRIX_TEMPLATE),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            anySet());
+    doThrow(new PackerExecutionException(new File(baseDir, "error-file.err")))
+        .when(firstExecution).success();
+    doNothing()
+        .when(secondExecution).success();
+
+    Throwable e = catchThrowable(() -> context.goal("build")
+        .set(configuration()
+            .set(configurationValue("matrixConcurrency", MATRIX_CONCURRENCY_VALUE))
+            .set(configurationValue("matrixFailurePolicy", MATRIX_COMPLETE_ALL_VALUE))
+            .set(configurationNode("matrix")
+                .set(configurationNode("entry")
+                    .set(configurationValue("name", FIRST_MATRIX_NAME_VALUE))
+                    .set(configurationValue("template", FIRST_MATRIX_TEMPLATE_VALUE)))
+                .set(configurationNode("entry")
+                    .set(configurationValue("name", SECOND_MATRIX_NAME_VALUE))
+                    .set(configurationValue("template", SECOND_MATRIX_TEMPLATE_VALUE)))))
+        .execute());
+
+    assertThat(e)
+        .hasCauseInstanceOf(MojoExecutionException.class);
+    verify(secondExecution).success();
+  }
+
+  @Test
+  public void buildMatrixInvalidName(MavenPluginContext context) throws Exception {
+    Throwable e = catchThrowable(() -> context.goal("build")
+        .set(configuration()
+            .set(configurationNode("matrix")
+                .set(configurationNode("entry")
+                    .set(configurationValue("name", INVALID_MATRIX_NAME_VALUE)))))
+        .execute());
+
+    assertThat(e)
+        .hasCauseInstanceOf(MojoExecutionException.class);
+    verify(checksumFactory, never())
+        .getChecksum(any(), any(), any());
+  }
+
+  @Test
+  public void buildIsolatedBuilders(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution firstExecution,
+      @Mock PackerExecution secondExecution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doNothing()
+        .when(checksum).store(newChecksumFile.capture());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(SOME_BUILDERS)
+        .when(packer).builders(DEFAULT_TEMPLATE);
+    doReturn(firstExecution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            eq(singleton(FIRST_BUILDER)),
+            anySet(),
+            anyMap(),
+            anySet());
+    doReturn(secondExecution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            eq(singleton(SECOND_BUILDER)),
+            anySet(),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(firstExecution).success();
+    doNothing()
+        .when(secondExecution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationValue("isolateBuilders", ISOLATE_BUILDERS_VALUE)))
+        .execute();
+
+    verify(firstExecution).success();
+    verify(secondExecution).success();
+    assertThat(newChecksumFile.getAllValues())
+        .extracting(File::getName)
+        .containsExactlyInAnyOrder(
+            FIRST_MATRIX_CHECKSUM_FILE_NAME,
+            SECOND_MATRIX_CHECKSUM_FILE_NAME);
+  }
+
+  @Test
+  public void buildIsolatedBuildersExcept(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(SOME_BUILDERS)
+        .when(packer).builders(DEFAULT_TEMPLATE);
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            eq(singleton(FIRST_BUILDER)),
+            eq(EMPTY_EXCEPT),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationValue("isolateBuilders", ISOLATE_BUILDERS_VALUE))
+            .set(configurationValue("except", EXCEPT_SECOND_BUILDER_VALUE)))
+        .execute();
+
+    verify(execution).success();
+    verify(packer, never())
+        .build(
+            anyString(),
+            anyBoolean(),
+            eq(singleton(SECOND_BUILDER)),
+            anySet(),
+            anyMap(),
+            anySet());
+  }
+
+  @Test
+  public void buildIsolatedBuildersWithoutBuilders(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doNothing()
+        .when(checksum).store(newChecksumFile.capture());
+    doReturn(packer)
+        .when(packerFactory).getPacker(any());
+    doReturn(NO_BUILDERS)
+        .when(packer).builders(DEFAULT_TEMPLATE);
+    doReturn(execution)
+        .when(packer).build(
+            eq(DEFAULT_TEMPLATE),
+            anyBoolean(),
+            eq(EMPTY_ONLY),
+            anySet(),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    context.goal("build")
+        .set(configuration()
+            .set(configurationValue("isolateBuilders", ISOLATE_BUILDERS_VALUE)))
+        .execute();
+
+    verify(execution).success();
+    assertThat(newChecksumFile.getValue())
+        .hasName(CHECKSUM_FILE_NAME);
+  }
+
+  @Test
+  public void buildChecksumFailure(MavenPluginContext context) throws Exception {
+    doThrow(new IOException())
+        .when(checksumFactory).getChecksum(any(), any(), any());
+
+    Throwable e = catchThrowable(() -> context.goal("build")
+        .execute());
+
+    assertThat(e)
+        .hasCauseInstanceOf(MojoExecutionException.class);
+    verify(packerFactory, never())
+        .getPacker(any());
+  }
+
+  @Test
+  public void teminalReceiveUIMessageMessage(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(packerTerminal.capture());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    AccumulatedMavenPluginLogger logger = new AccumulatedMavenPluginLogger();
+    context.setLogger(logger);
+    context.goal("build")
+        .execute();
+    packerTerminal.getValue().receive(SOME_UI_MESSAGE_MESSAGE);
+
+    assertThat(logger.getAccumulated())
+        .hasSize(3)
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_INFO);
@@ -1258,7 +1974,7 @@ public class PackerBuildMojoTest {
               .hasValue(FIRST_MESSAGE_LINE);
           assertThat(message.getError())
               .isEmpty();
-        }, atIndex(0))
+        }, atIndex(1))
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_INFO);
@@ -1266,7 +1982,57 @@ public class PackerBuildMojoTest {
               .hasValue(SECOND_MESSAGE_LINE);
           assertThat(message.getError())
               .isEmpty();
-        }, atIndex(1));
+        }, atIndex(2));
+  }
+
+  @Test
+  public void teminalReceiveUIMessageSay(
+      MavenPluginContext context,
+      @Mock Checksum checksum,
+      @Mock Packer packer,
+      @Mock PackerExecution execution)
+      throws Exception {
+    doReturn(checksum)
+        .when(checksumFactory).getChecksum(any(), any(), any());
+    doReturn(CHEKSUM_MISMATCH)
+        .when(checksum).match(any());
+    doReturn(packer)
+        .when(packerFactory).getPacker(packerTerminal.capture());
+    doReturn(execution)
+        .when(packer).build(
+            anyString(),
+            anyBoolean(),
+            anySet(),
+            anySet(),
+            anyMap(),
+            anySet());
+    doNothing()
+        .when(execution).success();
+
+    AccumulatedMavenPluginLogger logger = new AccumulatedMavenPluginLogger();
+    context.setLogger(logger);
+    context.goal("build")
+        .execute();
+    packerTerminal.getValue().receive(SOME_UI_MESSAGE_SAY);
+
+    assertThat(logger.getAccumulated())
+        .hasSize(3)
+        .satisfies(message -> {
+          assertThat(message.getLevel())
+              .isEqualTo(LOG_INFO);
+          assertThat(message.getContent())
+              .hasValue(FIRST_MESSAGE_LINE);
+          assertThat(message.getError())
+              .isEmpty();
+        }, atIndex(1))
+        .satisfies(message -> {
+          assertThat(message.getLevel())
+              .isEqualTo(LOG_INFO);
+          assertThat(message.getContent())
+              .hasValue(SECOND_MESSAGE_LINE);
+          assertThat(message.getError())
+              .isEmpty();
+        }, atIndex(2));
   }
 
   @Test
@@ -1277,7 +2043,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -1300,7 +2066,7 @@ public class PackerBuildMojoTest {
     packerTerminal.getValue().receive(SOME_UI_MESSAGE_ERROR);
 
     assertThat(logger.getAccumulated())
-        .hasSize(2)
+        .hasSize(3)
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_ERROR);
@@ -1308,7 +2074,7 @@ public class PackerBuildMojoTest {
               .hasValue(FIRST_MESSAGE_LINE);
           assertThat(message.getError())
               .isEmpty();
-        }, atIndex(0))
+        }, atIndex(1))
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_ERROR);
@@ -1316,7 +2082,7 @@ public class PackerBuildMojoTest {
               .hasValue(SECOND_MESSAGE_LINE);
           assertThat(message.getError())
               .isEmpty();
-        }, atIndex(1));
+        }, atIndex(2));
   }
 
   @Test
@@ -1327,7 +2093,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -1350,7 +2116,7 @@ public class PackerBuildMojoTest {
     packerTerminal.getValue().receive(SOME_UI_MESSAGE_OTHER);
 
     assertThat(logger.getAccumulated())
-        .hasSize(2)
+        .hasSize(3)
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_DEBUG);
@@ -1358,7 +2124,7 @@ public class PackerBuildMojoTest {
               .hasValue(FIRST_MESSAGE_LINE);
           assertThat(message.getError())
               .isEmpty();
-        }, atIndex(0))
+        }, atIndex(1))
         .satisfies(message -> {
           assertThat(message.getLevel())
               .isEqualTo(LOG_DEBUG);
@@ -1366,7 +2132,7 @@ public class PackerBuildMojoTest {
               .hasValue(SECOND_MESSAGE_LINE);
           assertThat(message.getError())
               .isEmpty();
-        }, atIndex(1));
+        }, atIndex(2));
   }
 
   @Test
@@ -1377,7 +2143,7 @@ public class PackerBuildMojoTest {
       @Mock PackerExecution execution)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
@@ -1400,7 +2166,7 @@ public class PackerBuildMojoTest {
     packerTerminal.getValue().receive(SOME_NON_UI_MESSAGE);
 
     assertThat(logger.getAccumulated())
-        .isEmpty();
+        .hasSize(1);
   }
 
   @Test
@@ -1412,7 +2178,7 @@ public class PackerBuildMojoTest {
       @Mock PackerInput input)
       throws Exception {
     doReturn(checksum)
-        .when(checksumFactory).getChecksum(any(), any());
+        .when(checksumFactory).getChecksum(any(), any(), any());
     doReturn(CHEKSUM_MISMATCH)
         .when(checksum).match(any());
     doReturn(packer)
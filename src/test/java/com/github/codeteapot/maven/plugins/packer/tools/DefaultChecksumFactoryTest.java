@@ -3,6 +3,7 @@ package com.github.codeteapot.maven.plugins.packer.tools;
 import static org.assertj.core.api.Assertions.assertThat;
 import com.github.codeteapot.maven.plugins.packer.tools.DefaultChecksumFactory;
 import com.github.codeteapot.tools.checksum.Checksum;
+import com.github.codeteapot.tools.checksum.ChecksumSettings;
 import java.io.File;
 import java.util.function.Predicate;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +16,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 @ExtendWith(MockitoExtension.class)
 public class DefaultChecksumFactoryTest {
 
+  private static final int SOME_CACHE_SIZE = 1;
+
   private DefaultChecksumFactory checksumFactory;
 
   @BeforeEach
@@ -26,7 +29,23 @@ public class DefaultChecksumFactoryTest {
   public void getChecksum(
       @Mock Predicate<String> anyIgnoreFile,
       @TempDir File anyDirectory) throws Exception {
-    Checksum checksum = checksumFactory.getChecksum(anyDirectory, anyIgnoreFile);
+    Checksum checksum = checksumFactory.getChecksum(
+        anyDirectory,
+        anyIgnoreFile,
+        new ChecksumSettings());
+
+    assertThat(checksum).isNotNull();
+  }
+
+  @Test
+  public void getCachedChecksum(
+      @Mock Predicate<String> anyIgnoreFile,
+      @TempDir File anyDirectory) throws Exception {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setCacheSize(SOME_CACHE_SIZE);
+
+    Checksum checksum = checksumFactory.getChecksum(anyDirectory, anyIgnoreFile, settings);
+    checksumFactory.dispose();
 
     assertThat(checksum).isNotNull();
   }
@@ -0,0 +1,321 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.setLastModifiedTime;
+import static java.nio.file.Files.write;
+import static java.nio.file.attribute.FileTime.fromMillis;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChecksumArchiveTest {
+
+  private static final FingerprintAlgorithm SOME_ALGORITHM = FingerprintAlgorithm.messageDigest(
+      MessageDigest::getInstance,
+      "SHA-256");
+
+  private static final int SOME_BUFFER_SIZE = 1024;
+  private static final long NO_MAPPING_THRESHOLD = 0L;
+  private static final long NO_SEGMENT_THRESHOLD = 0L;
+
+  private static final String SOME_JAR_NAME = "some.jar";
+  private static final String ANOTHER_JAR_NAME = "another.jar";
+  private static final String SOME_WAR_NAME = "some.war";
+  private static final String ANOTHER_WAR_NAME = "another.war";
+  private static final String SOME_TAR_GZ_NAME = "some.tar.gz";
+  private static final String ANOTHER_TAR_GZ_NAME = "another.tar.gz";
+  private static final String SOME_LIBRARY_NAME = "WEB-INF/lib/some.jar";
+  private static final String SOME_INPUT_DIRECTORY_NAME = "input";
+  private static final String SOME_INDEX_FILE_NAME = "checksum.index";
+
+  private static final String FIRST_ENTRY_NAME = "a/first.txt";
+  private static final String SECOND_ENTRY_NAME = "b/second.txt";
+  private static final byte[] FIRST_ENTRY_CONTENT = "first".getBytes(UTF_8);
+  private static final byte[] SECOND_ENTRY_CONTENT = "second".getBytes(UTF_8);
+  private static final byte[] ANOTHER_ENTRY_CONTENT = "another".getBytes(UTF_8);
+  private static final byte[] NOT_ARCHIVE_CONTENT = "not an archive".getBytes(UTF_8);
+
+  private static final long SOME_TIME = 1_600_000_000_000L;
+  private static final long ANOTHER_TIME = 1_700_000_000_000L;
+  private static final int LARGE_ENTRY_COUNT = 24;
+  private static final int LARGE_ENTRY_SIZE = 1024 * 1024;
+  private static final int SOME_THREADS = 2;
+
+  @Test
+  public void sameHashOfRebuiltZipFile(@TempDir File someDirectory) throws Exception {
+    File someJar = new File(someDirectory, SOME_JAR_NAME);
+    File anotherJar = new File(someDirectory, ANOTHER_JAR_NAME);
+    writeZip(someJar, SOME_TIME, ZipEntry.DEFLATED,
+        FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT,
+        SECOND_ENTRY_NAME, SECOND_ENTRY_CONTENT);
+    writeZip(anotherJar, ANOTHER_TIME, ZipEntry.STORED,
+        SECOND_ENTRY_NAME, SECOND_ENTRY_CONTENT,
+        FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT);
+    ChecksumHasher hasher = normalizingHasher();
+
+    assertThat(readAllBytes(someJar.toPath()))
+        .isNotEqualTo(readAllBytes(anotherJar.toPath()));
+    assertThat(hasher.hash(someJar))
+        .isEqualTo(hasher.hash(anotherJar));
+  }
+
+  @Test
+  public void anotherHashOfChangedZipFile(@TempDir File someDirectory) throws Exception {
+    File someJar = new File(someDirectory, SOME_JAR_NAME);
+    File anotherJar = new File(someDirectory, ANOTHER_JAR_NAME);
+    writeZip(someJar, SOME_TIME, ZipEntry.DEFLATED,
+        FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT,
+        SECOND_ENTRY_NAME, SECOND_ENTRY_CONTENT);
+    writeZip(anotherJar, SOME_TIME, ZipEntry.DEFLATED,
+        FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT,
+        SECOND_ENTRY_NAME, ANOTHER_ENTRY_CONTENT);
+    ChecksumHasher hasher = normalizingHasher();
+
+    assertThat(hasher.hash(someJar))
+        .isNotEqualTo(hasher.hash(anotherJar));
+  }
+
+  @Test
+  public void sameHashOfRebuiltNestedZipFile(@TempDir File someDirectory) throws Exception {
+    File someWar = new File(someDirectory, SOME_WAR_NAME);
+    File anotherWar = new File(someDirectory, ANOTHER_WAR_NAME);
+    writeZip(someWar, SOME_TIME, ZipEntry.DEFLATED,
+        SOME_LIBRARY_NAME, zip(SOME_TIME, FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT));
+    writeZip(anotherWar, SOME_TIME, ZipEntry.DEFLATED,
+        SOME_LIBRARY_NAME, zip(ANOTHER_TIME, FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT));
+    ChecksumHasher hasher = normalizingHasher();
+
+    assertThat(hasher.hash(someWar))
+        .isEqualTo(hasher.hash(anotherWar));
+  }
+
+  @Test
+  public void sameHashOfLargeRebuiltZipFile(@TempDir File someDirectory) throws Exception {
+    Random random = new Random(0L);
+    Object[] entries = new Object[2 * LARGE_ENTRY_COUNT];
+    Object[] reversedEntries = new Object[entries.length];
+    for (int i = 0; i < LARGE_ENTRY_COUNT; ++i) {
+      byte[] content = new byte[LARGE_ENTRY_SIZE];
+      random.nextBytes(content);
+      entries[2 * i] = reversedEntries[entries.length - 2 * i - 2] = "entry-" + i;
+      entries[2 * i + 1] = reversedEntries[entries.length - 2 * i - 1] = content;
+    }
+    File someJar = new File(someDirectory, SOME_JAR_NAME);
+    File anotherJar = new File(someDirectory, ANOTHER_JAR_NAME);
+    writeZip(someJar, SOME_TIME, ZipEntry.DEFLATED, entries);
+    writeZip(anotherJar, ANOTHER_TIME, ZipEntry.DEFLATED, reversedEntries);
+    ChecksumHasher hasher = normalizingHasher();
+
+    assertThat(hasher.hash(someJar))
+        .isEqualTo(hasher.hash(anotherJar));
+  }
+
+  @Test
+  public void sameHashOfLargeZipFileOnChecksumThreads(@TempDir File someDirectory)
+      throws Exception {
+    File someWar = new File(someDirectory, SOME_WAR_NAME);
+    writeLargeWar(someWar);
+    ExecutorService executor = newFixedThreadPool(SOME_THREADS);
+    try {
+      ChecksumHasher hasher = normalizingHasher();
+      hasher.setArchiveExecutor(executor);
+
+      assertThat(hasher.hash(someWar))
+          .isEqualTo(normalizingHasher().hash(someWar));
+      assertThat(hasher.getArchivePendingSize().availablePermits())
+          .isEqualTo(ChecksumArchive.PENDING_SIZE);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void sameHashOfLargeZipFileWithoutPendingRoom(@TempDir File someDirectory)
+      throws Exception {
+    File someWar = new File(someDirectory, SOME_WAR_NAME);
+    writeLargeWar(someWar);
+    ExecutorService executor = newFixedThreadPool(SOME_THREADS);
+    try {
+      ChecksumHasher hasher = normalizingHasher();
+      hasher.setArchiveExecutor(executor);
+      hasher.getArchivePendingSize().acquire(ChecksumArchive.PENDING_SIZE);
+
+      assertThat(hasher.hash(someWar))
+          .isEqualTo(normalizingHasher().hash(someWar));
+      assertThat(hasher.getArchivePendingSize().availablePermits())
+          .isZero();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void sameHashOfRebuiltTarGzFile(@TempDir File someDirectory) throws Exception {
+    File someTarGz = new File(someDirectory, SOME_TAR_GZ_NAME);
+    File anotherTarGz = new File(someDirectory, ANOTHER_TAR_GZ_NAME);
+    writeTarGz(someTarGz, SOME_TIME,
+        FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT,
+        SECOND_ENTRY_NAME, SECOND_ENTRY_CONTENT);
+    writeTarGz(anotherTarGz, ANOTHER_TIME,
+        SECOND_ENTRY_NAME, SECOND_ENTRY_CONTENT,
+        FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT);
+    ChecksumHasher hasher = normalizingHasher();
+
+    assertThat(hasher.hash(someTarGz))
+        .isEqualTo(hasher.hash(anotherTarGz))
+        .isNotEqualTo(hasher(false).hash(someTarGz));
+  }
+
+  @Test
+  public void plainHashOfInvalidArchive(@TempDir File someDirectory) throws Exception {
+    File someJar = new File(someDirectory, SOME_JAR_NAME);
+    File someTarGz = new File(someDirectory, SOME_TAR_GZ_NAME);
+    write(someJar.toPath(), NOT_ARCHIVE_CONTENT);
+    write(someTarGz.toPath(), NOT_ARCHIVE_CONTENT);
+    ChecksumHasher hasher = normalizingHasher();
+
+    assertThat(hasher.hash(someJar))
+        .isEqualTo(MessageDigest.getInstance("SHA-256").digest(NOT_ARCHIVE_CONTENT));
+    assertThat(hasher.hash(someTarGz))
+        .isEqualTo(MessageDigest.getInstance("SHA-256").digest(NOT_ARCHIVE_CONTENT));
+  }
+
+  @Test
+  public void hashAgainWhenNormalizationIsToggled(@TempDir File someDirectory) throws Exception {
+    File inputDirectory = new File(someDirectory, SOME_INPUT_DIRECTORY_NAME);
+    inputDirectory.mkdir();
+    File someJar = new File(inputDirectory, SOME_JAR_NAME);
+    writeZip(someJar, SOME_TIME, ZipEntry.DEFLATED,
+        FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT);
+    setLastModifiedTime(someJar.toPath(), fromMillis(SOME_TIME));
+    File indexFile = new File(someDirectory, SOME_INDEX_FILE_NAME);
+    indexedEntryManager(indexFile, false).generate(SOME_ALGORITHM, inputDirectory, path -> false);
+
+    Set<ChecksumEntry> normalizedEntrySet = indexedEntryManager(indexFile, true)
+        .generate(SOME_ALGORITHM, inputDirectory, path -> false);
+    Set<ChecksumEntry> entrySet = indexedEntryManager(indexFile, false)
+        .generate(SOME_ALGORITHM, inputDirectory, path -> false);
+
+    assertThat(normalizedEntrySet)
+        .containsExactly(new ChecksumEntry(SOME_JAR_NAME, normalizingHasher().hash(someJar)));
+    assertThat(entrySet)
+        .containsExactly(new ChecksumEntry(SOME_JAR_NAME, hasher(false).hash(someJar)));
+  }
+
+  private static ChecksumHasher normalizingHasher() {
+    return hasher(true);
+  }
+
+  private static ChecksumHasher hasher(boolean normalizeArchives) {
+    return new ChecksumHasher(
+        SOME_ALGORITHM,
+        SOME_BUFFER_SIZE,
+        NO_MAPPING_THRESHOLD,
+        SOME_BUFFER_SIZE,
+        NO_SEGMENT_THRESHOLD,
+        SOME_BUFFER_SIZE,
+        normalizeArchives);
+  }
+
+  private static ChecksumEntryManager indexedEntryManager(File indexFile,
+      boolean normalizeArchives) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setIndexFile(indexFile);
+    settings.setNormalizeArchives(normalizeArchives);
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static void writeLargeWar(File file) throws IOException {
+    Random random = new Random(0L);
+    Object[] entries = new Object[2 * LARGE_ENTRY_COUNT + 2];
+    for (int i = 0; i < LARGE_ENTRY_COUNT; ++i) {
+      byte[] content = new byte[LARGE_ENTRY_SIZE];
+      random.nextBytes(content);
+      entries[2 * i] = "entry-" + i;
+      entries[2 * i + 1] = content;
+    }
+    entries[entries.length - 2] = SOME_LIBRARY_NAME;
+    entries[entries.length - 1] = zip(SOME_TIME, FIRST_ENTRY_NAME, FIRST_ENTRY_CONTENT);
+    writeZip(file, SOME_TIME, ZipEntry.DEFLATED, entries);
+  }
+
+  private static byte[] zip(long time, Object... entries) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writeZip(output, time, ZipEntry.DEFLATED, entries);
+    return output.toByteArray();
+  }
+
+  private static void writeZip(File file, long time, int method, Object... entries)
+      throws IOException {
+    try (OutputStream output = new FileOutputStream(file)) {
+      writeZip(output, time, method, entries);
+    }
+  }
+
+  private static void writeZip(OutputStream output, long time, int method, Object... entries)
+      throws IOException {
+    ZipOutputStream zip = new ZipOutputStream(output);
+    for (int i = 0; i < entries.length; i += 2) {
+      byte[] content = (byte[]) entries[i + 1];
+      ZipEntry entry = new ZipEntry((String) entries[i]);
+      entry.setTime(time);
+      entry.setMethod(method);
+      if (method == ZipEntry.STORED) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setSize(content.length);
+        entry.setCrc(crc.getValue());
+      }
+      zip.putNextEntry(entry);
+      zip.write(content);
+      zip.closeEntry();
+    }
+    zip.finish();
+  }
+
+  private static void writeTarGz(File file, long time, Object... entries) throws IOException {
+    try (OutputStream output = new GZIPOutputStream(new FileOutputStream(file))) {
+      for (int i = 0; i < entries.length; i += 2) {
+        byte[] content = (byte[]) entries[i + 1];
+        byte[] header = new byte[512];
+        put(header, 0, (String) entries[i]);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", content.length));
+        put(header, 136, String.format("%011o", time / 1000L));
+        header[156] = '0';
+        put(header, 257, "ustar");
+        put(header, 148, "        ");
+        int checksum = 0;
+        for (byte value : header) {
+          checksum += value & 0xff;
+        }
+        put(header, 148, String.format("%06o", checksum));
+        output.write(header);
+        output.write(content);
+        output.write(new byte[(512 - content.length % 512) % 512]);
+      }
+      output.write(new byte[1024]);
+    }
+  }
+
+  private static void put(byte[] header, int offset, String value) {
+    byte[] bytes = value.getBytes(UTF_8);
+    System.arraycopy(bytes, 0, header, offset, bytes.length);
+  }
+}
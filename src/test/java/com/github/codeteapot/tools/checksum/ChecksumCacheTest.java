@@ -0,0 +1,228 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.System.currentTimeMillis;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.setLastModifiedTime;
+import static java.nio.file.Files.write;
+import static java.nio.file.attribute.FileTime.fromMillis;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.io.File;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("integration")
+public class ChecksumCacheTest {
+
+  private static final FingerprintAlgorithm SOME_ALGORITHM = FingerprintAlgorithm.messageDigest(
+      MessageDigest::getInstance,
+      "SHA-256");
+  private static final Predicate<String> DO_NOT_IGNORE_ANY_FILE = path -> false;
+
+  private static final int SOME_CACHE_SIZE = 1;
+  private static final int NO_CACHE_SIZE = 0;
+  private static final int SEQUENTIAL_THREADS = 1;
+  private static final int SOME_BUFFER_SIZE = 1024;
+  private static final long NO_MAPPING_THRESHOLD = 0L;
+  private static final long EVENT_TIMEOUT_MILLIS = 10_000L;
+  private static final long EVENT_POLL_MILLIS = 10L;
+
+  private static final String FIRST_FILE_NAME = "first.txt";
+  private static final byte[] FIRST_FILE_CONTENT = {0x40, 0x41, 0x42};
+  private static final byte[] MODIFIED_FIRST_FILE_CONTENT = {0x40, 0x41, 0x42, 0x43};
+  private static final String SECOND_FILE_NAME = "second.txt";
+  private static final byte[] SECOND_FILE_CONTENT = {0x50, 0x51};
+  private static final String NEW_DIRECTORY_NAME = "new";
+  private static final String NEW_FILE_PATH = "new" + File.separator + "third.txt";
+  private static final byte[] NEW_FILE_CONTENT = {0x60};
+  private static final FileTime OLD_LAST_MODIFIED_TIME = fromMillis(1_000_000_000_000L);
+  private static final ChecksumIgnoreRules TEMPORARY_FILES_IGNORED = ChecksumIgnoreRules.of(
+      singletonList("*.tmp"));
+
+  private ChecksumCache cache;
+  private ChecksumHasher hasher;
+
+  @BeforeEach
+  public void setUp() {
+    cache = new ChecksumCache();
+    hasher = spy(new ChecksumHasher(
+        SOME_ALGORITHM,
+        SOME_BUFFER_SIZE,
+        NO_MAPPING_THRESHOLD,
+        SOME_BUFFER_SIZE));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    cache.close();
+  }
+
+  @Test
+  public void generateReadingOnlyChangedFiles(@TempDir File someDirectory) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    File secondFile = new File(someDirectory, SECOND_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    write(secondFile.toPath(), SECOND_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    setLastModifiedTime(secondFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    ChecksumEntryManager entryManager = cachedEntryManager(SOME_CACHE_SIZE);
+    entryManager.generate(SOME_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    write(firstFile.toPath(), MODIFIED_FIRST_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    Set<ChecksumEntry> entrySet = entryManager.generate(
+        SOME_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    byte[] modifiedFirstFileHash = hash(MODIFIED_FIRST_FILE_CONTENT);
+
+    assertThat(entrySet)
+        .hasSize(2)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_NAME);
+          assertThat(entry.hash).isEqualTo(modifiedFirstFileHash);
+        });
+    verify(hasher, times(2)).hash(firstFile.getCanonicalFile());
+    verify(hasher, times(1)).hash(secondFile.getCanonicalFile());
+  }
+
+  @Test
+  public void generateReadingOnlyChangedFilesWhenWalkedAgain(@TempDir File someDirectory)
+      throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    File secondFile = new File(someDirectory, SECOND_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    write(secondFile.toPath(), SECOND_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    setLastModifiedTime(secondFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    cachedEntryManager(SOME_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    write(firstFile.toPath(), MODIFIED_FIRST_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    Set<ChecksumEntry> entrySet = cachedEntryManager(SOME_CACHE_SIZE, TEMPORARY_FILES_IGNORED)
+        .generate(SOME_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+    byte[] modifiedFirstFileHash = hash(MODIFIED_FIRST_FILE_CONTENT);
+
+    assertThat(entrySet)
+        .hasSize(2)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_NAME);
+          assertThat(entry.hash).isEqualTo(modifiedFirstFileHash);
+        });
+    verify(hasher, times(2)).hash(firstFile.getCanonicalFile());
+    verify(hasher, times(1)).hash(secondFile.getCanonicalFile());
+  }
+
+  @Test
+  public void generateWithNewAndRemovedFiles(@TempDir File someDirectory) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    File secondFile = new File(someDirectory, SECOND_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    write(secondFile.toPath(), SECOND_FILE_CONTENT);
+    ChecksumEntryManager entryManager = cachedEntryManager(SOME_CACHE_SIZE);
+    entryManager.generate(SOME_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    new File(someDirectory, NEW_DIRECTORY_NAME).mkdir();
+    write(new File(someDirectory, NEW_FILE_PATH).toPath(), NEW_FILE_CONTENT);
+    delete(secondFile.toPath());
+    Set<ChecksumEntry> entrySet = generateUntil(entryManager, someDirectory, generated -> generated
+        .stream()
+        .map(ChecksumEntry::getPath)
+        .noneMatch(SECOND_FILE_NAME::equals));
+    byte[] newFileHash = hash(NEW_FILE_CONTENT);
+
+    assertThat(entrySet)
+        .hasSize(2)
+        .anySatisfy(entry -> assertThat(entry.path).isEqualTo(FIRST_FILE_NAME))
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(NEW_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(newFileHash);
+        });
+  }
+
+  @Test
+  public void generateWithoutCache(@TempDir File someDirectory) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    ChecksumEntryManager entryManager = cachedEntryManager(NO_CACHE_SIZE);
+    entryManager.generate(SOME_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    entryManager.generate(SOME_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(cache.entries).isEmpty();
+    verify(hasher, times(2)).hash(firstFile);
+  }
+
+  @Test
+  public void evictLeastRecentlyUsedDirectory(
+      @TempDir File someDirectory,
+      @TempDir File anotherDirectory) throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_FILE_NAME);
+    File secondDirectory = new File(anotherDirectory, SECOND_FILE_NAME);
+    firstDirectory.mkdir();
+    secondDirectory.mkdir();
+    ChecksumEntryManager entryManager = cachedEntryManager(SOME_CACHE_SIZE);
+
+    entryManager.generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+    entryManager.generate(SOME_ALGORITHM, secondDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(cache.entries).containsOnlyKeys(secondDirectory.getCanonicalFile());
+    verify(hasher, never()).hash(any());
+  }
+
+  private ChecksumEntryManager cachedEntryManager(int cacheSize) {
+    return cachedEntryManager(cacheSize, ChecksumIgnoreRules.empty());
+  }
+
+  private ChecksumEntryManager cachedEntryManager(int cacheSize,
+      ChecksumIgnoreRules ignoreRules) {
+    return new ChecksumEntryManager(
+        new ChecksumExecutor(SEQUENTIAL_THREADS),
+        algorithm -> hasher,
+        Optional.empty(),
+        false,
+        ignoreRules,
+        ChecksumFormat.BINARY,
+        Optional.of(cache).filter(unused -> cacheSize > 0),
+        cacheSize,
+        Optional.empty(),
+        NO_CACHE_SIZE,
+        new ChecksumStatistics());
+  }
+
+  /*
+   * Changes are reported asynchronously by the watch service.
+   */
+  private static Set<ChecksumEntry> generateUntil(ChecksumEntryManager entryManager,
+      File directory, Predicate<Set<ChecksumEntry>> condition) throws Exception {
+    long deadline = currentTimeMillis() + EVENT_TIMEOUT_MILLIS;
+    Set<ChecksumEntry> entrySet = entryManager.generate(
+        SOME_ALGORITHM,
+        directory,
+        DO_NOT_IGNORE_ANY_FILE);
+    while (!condition.test(entrySet) && currentTimeMillis() < deadline) {
+      Thread.sleep(EVENT_POLL_MILLIS);
+      entrySet = entryManager.generate(SOME_ALGORITHM, directory, DO_NOT_IGNORE_ANY_FILE);
+    }
+    return entrySet;
+  }
+
+  private static byte[] hash(byte[] content) throws Exception {
+    return MessageDigest.getInstance("SHA-256").digest(content);
+  }
+}
@@ -1,15 +1,30 @@
 package com.github.codeteapot.tools.checksum;
 
+import static java.nio.file.Files.createLink;
+import static java.nio.file.Files.getLastModifiedTime;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.setLastModifiedTime;
 import static java.nio.file.Files.write;
+import static java.nio.file.attribute.FileTime.fromMillis;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -26,8 +41,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 public class ChecksumEntryManagerTest {
 
   private static final MessageDigestCreator DEFAULT_DIGEST_CREATOR = MessageDigest::getInstance;
-  private static final String KNOWN_ALGORITHM = "SHA-256";
-  private static final String UNKNOWN_ALGORITHM = "UNKNOWN";
+  private static final FingerprintAlgorithm KNOWN_ALGORITHM = FingerprintAlgorithm.messageDigest(
+      DEFAULT_DIGEST_CREATOR,
+      "SHA-256");
+  private static final FingerprintAlgorithm UNKNOWN_ALGORITHM = FingerprintAlgorithm.messageDigest(
+      DEFAULT_DIGEST_CREATOR,
+      "UNKNOWN");
+  private static final String KNOWN_ALGORITHM_NAME = "SHA-256";
+  private static final String ANOTHER_ALGORITHM_NAME = "XXH3";
 
   private static final Predicate<String> DO_NOT_IGNORE_ANY_FILE = path -> false;
   private static final Predicate<String> IGNORE_THIRD_FILE = path -> "third.tmp".equals(path);
@@ -44,7 +65,29 @@ public class ChecksumEntryManagerTest {
 
   private static final String THIRD_FILE_NAME = "third.tmp";
 
+  private static final String LINKED_FIRST_FILE_NAME = "linked.txt";
+
+  private static final String IGNORED_DIRECTORY_NAME = "node_modules";
+  private static final List<String> IGNORED_DIRECTORY_AND_TEMPORARY_FILES = Arrays.asList(
+      "node_modules/",
+      "*.tmp");
+
+  private static final int SEQUENTIAL_THREADS = 1;
+  private static final int PARALLEL_THREADS = 4;
+  private static final int SOME_IO_CONCURRENCY = 32;
+  private static final int MANY_FILES_COUNT = 600;
+  private static final int SMALL_BUFFER_SIZE = 2;
+  private static final long NO_MAPPING_THRESHOLD = 0L;
+  private static final long SMALL_MAPPING_THRESHOLD = 1L;
+  private static final int SMALL_MAPPING_WINDOW_SIZE = 2;
+  private static final String MANY_FILES_NAME_FORMAT = "many-%d.bin";
+  private static final String LARGE_FILE_NAME = "large.bin";
+  private static final int LARGE_FILE_SIZE = 3 * 1024 * 1024;
+  private static final long SEGMENT_THRESHOLD = 1024L * 1024L;
+  private static final int SEGMENT_SIZE = 100_000;
+
   private static final String FIRST_FILE_PATH = "file/first.txt";
+  private static final String NON_ASCII_FILE_PATH = "file/\u00e9t\u00e9.txt";
   private static final byte[] FIRST_FILE_HASH = {
       -96, 85, -123, 34, -101, 29, 41, -112, -99, -92, 52, 115, -115, 34, 62, -91, -104, 55, 116,
       86, 35, -17, 7, -25, -15, -85, 124, -67, 106, 27, -109, 125
@@ -57,6 +100,13 @@ public class ChecksumEntryManagerTest {
   };
 
   private static final String SOME_CHECKSUM_FILE_NAME = "check.sum";
+  private static final String ANOTHER_CHECKSUM_FILE_NAME = "another.check.sum";
+  private static final String SOME_INDEX_FILE_NAME = "check.sum.index";
+  private static final String RENAMED_FIRST_FILE_NAME = "renamed.txt";
+  private static final byte[] SAME_SIZE_FILE_CONTENT = {0x00, 0x00, 0x00};
+  private static final FileTime OLD_LAST_MODIFIED_TIME = fromMillis(1_000_000_000_000L);
+  private static final boolean PARANOID = true;
+  private static final boolean NOT_PARANOID = false;
 
   private static final String FIRST_ENTRY_FILE_CONTENT =
       "A05585229B1D29909DA434738D223EA59837745623EF07E7F1AB7CBD6A1B937D file/first.txt";
@@ -64,7 +114,22 @@ public class ChecksumEntryManagerTest {
   private static final String SECOND_ENTRY_FILE_CONTENT =
       "E3B0C44298FC1C149AFBF4C8996FB92427AE41E4649B934CA495991B7852B855 second.doc";
 
+  private static final String ALGORITHM_HEADER_FILE_CONTENT = "#XXH3";
+
+  private static final byte[] BINARY_FILE_MAGIC = {(byte) 0x89, 'C', 'H', 'K'};
+  private static final byte[] UNSUPPORTED_VERSION_BINARY_FILE_CONTENT = {
+      (byte) 0x89, 'C', 'H', 'K', 0x00, 0x7f};
+  private static final byte[] MALFORMED_BINARY_FILE_CONTENT = {
+      (byte) 0x89, 'C', 'H', 'K', 0x00, 0x01, 0x07, 'S', 'H', 'A'};
+  private static final byte[] NEGATIVE_COUNT_BINARY_FILE_CONTENT = {
+      (byte) 0x89, 'C', 'H', 'K', 0x00, 0x01, 0x03, 'S', 'H', 'A', 0x00, 0x20,
+      (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xfe};
+  private static final byte[] OVERSIZED_COUNT_BINARY_FILE_CONTENT = {
+      (byte) 0x89, 'C', 'H', 'K', 0x00, 0x01, 0x03, 'S', 'H', 'A', 0x00, 0x20,
+      0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff};
+
   private static final String FIRST_AND_SECOND_ENTRIES_FILE_CONTENT = ""
+      + "#SHA-256\n"
       + "A05585229B1D29909DA434738D223EA59837745623EF07E7F1AB7CBD6A1B937D file/first.txt\n"
       + "E3B0C44298FC1C149AFBF4C8996FB92427AE41E4649B934CA495991B7852B855 second.doc";
 
@@ -88,7 +153,6 @@ public class ChecksumEntryManagerTest {
     thirdFile.createNewFile();
 
     Set<ChecksumEntry> entrySet = entryManager.generate(
-        DEFAULT_DIGEST_CREATOR,
         KNOWN_ALGORITHM,
         someDirectory,
         IGNORE_THIRD_FILE);
@@ -105,6 +169,444 @@ public class ChecksumEntryManagerTest {
         });
   }
 
+  @Test
+  public void generateEntrySetSkippingIgnoredSubtree(@TempDir File someDirectory)
+      throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    write(new File(firstDirectory, FIRST_FILE_NAME).toPath(), FIRST_FILE_CONTENT);
+    File ignoredDirectory = new File(someDirectory, IGNORED_DIRECTORY_NAME);
+    ignoredDirectory.mkdir();
+    new File(ignoredDirectory, FIRST_FILE_NAME).createNewFile();
+    new File(someDirectory, SECOND_FILE_NAME).createNewFile();
+    new File(someDirectory, THIRD_FILE_NAME).createNewFile();
+
+    Set<ChecksumEntry> entrySet = ignoringEntryManager(IGNORED_DIRECTORY_AND_TEMPORARY_FILES)
+        .generate(KNOWN_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .extracting(ChecksumEntry::getPath)
+        .containsExactlyInAnyOrder(FIRST_FILE_PATH, SECOND_FILE_PATH);
+  }
+
+  @Test
+  public void generateHashingHardLinkedFileOnce(@TempDir File someDirectory) throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    File firstFile = new File(firstDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    createLink(new File(someDirectory, LINKED_FIRST_FILE_NAME).toPath(), firstFile.toPath());
+    ChecksumHasher hasher = spy(new ChecksumHasher(
+        KNOWN_ALGORITHM,
+        SMALL_BUFFER_SIZE,
+        NO_MAPPING_THRESHOLD,
+        SMALL_MAPPING_WINDOW_SIZE));
+
+    Set<ChecksumEntry> entrySet = hashingEntryManager(hasher).generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(2)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        })
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(LINKED_FIRST_FILE_NAME);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        });
+    verify(hasher, times(1)).hash(any());
+  }
+
+  @Test
+  public void generateRecordingStatistics(@TempDir File someDirectory) throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    write(new File(firstDirectory, FIRST_FILE_NAME).toPath(), FIRST_FILE_CONTENT);
+    File ignoredDirectory = new File(someDirectory, IGNORED_DIRECTORY_NAME);
+    ignoredDirectory.mkdir();
+    new File(ignoredDirectory, FIRST_FILE_NAME).createNewFile();
+    new File(someDirectory, SECOND_FILE_NAME).createNewFile();
+    new File(someDirectory, THIRD_FILE_NAME).createNewFile();
+    ChecksumEntryManager entryManager = ignoringEntryManager(IGNORED_DIRECTORY_AND_TEMPORARY_FILES);
+
+    entryManager.generate(KNOWN_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+    ChecksumStatistics statistics = entryManager.getStatistics();
+
+    assertThat(statistics.getWalkedFiles()).isEqualTo(2L);
+    assertThat(statistics.getIgnoredFiles()).isEqualTo(1L);
+    assertThat(statistics.getPrunedDirectories()).isEqualTo(1L);
+    assertThat(statistics.getIndexedFiles()).isZero();
+    assertThat(statistics.getHashedFiles()).isEqualTo(2L);
+    assertThat(statistics.getHashedBytes()).isEqualTo(FIRST_FILE_CONTENT.length);
+  }
+
+  @Test
+  public void generateSameEntrySetInParallel(@TempDir File someDirectory) throws Exception {
+    for (int i = 0; i < MANY_FILES_COUNT; ++i) {
+      File someFile = new File(someDirectory, String.format(MANY_FILES_NAME_FORMAT, i));
+      write(someFile.toPath(), new byte[i]);
+    }
+    File largeFile = new File(someDirectory, LARGE_FILE_NAME);
+    write(largeFile.toPath(), new byte[LARGE_FILE_SIZE]);
+
+    Set<ChecksumEntry> sequentialEntrySet = threadsEntryManager(SEQUENTIAL_THREADS).generate(
+            KNOWN_ALGORITHM,
+            someDirectory,
+            DO_NOT_IGNORE_ANY_FILE);
+    Set<ChecksumEntry> parallelEntrySet = threadsEntryManager(PARALLEL_THREADS).generate(
+            KNOWN_ALGORITHM,
+            someDirectory,
+            DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(parallelEntrySet)
+        .hasSize(MANY_FILES_COUNT + 1)
+        .containsExactlyInAnyOrderElementsOf(sequentialEntrySet)
+        .allSatisfy(entry -> assertThat(sequentialEntrySet)
+            .anySatisfy(sequentialEntry -> {
+              assertThat(sequentialEntry.path).isEqualTo(entry.path);
+              assertThat(sequentialEntry.hash).isEqualTo(entry.hash);
+            }));
+  }
+
+  @Test
+  public void generateSameEntrySetWithIoConcurrency(@TempDir File someDirectory)
+      throws Exception {
+    for (int i = 0; i < MANY_FILES_COUNT; ++i) {
+      File someFile = new File(someDirectory, String.format(MANY_FILES_NAME_FORMAT, i));
+      write(someFile.toPath(), new byte[i]);
+    }
+
+    Set<ChecksumEntry> sequentialEntrySet = threadsEntryManager(SEQUENTIAL_THREADS).generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    Set<ChecksumEntry> ioConcurrentEntrySet = ioConcurrentEntryManager(SOME_IO_CONCURRENCY)
+        .generate(KNOWN_ALGORITHM, someDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(ioConcurrentEntrySet)
+        .hasSize(MANY_FILES_COUNT)
+        .isEqualTo(sequentialEntrySet);
+  }
+
+  @Test
+  public void generateWithNoSuchAlgorithmErrorInParallel(@TempDir File someDirectory) throws Exception {
+    for (int i = 0; i < MANY_FILES_COUNT; ++i) {
+      File someFile = new File(someDirectory, String.format(MANY_FILES_NAME_FORMAT, i));
+      write(someFile.toPath(), new byte[i]);
+    }
+    File largeFile = new File(someDirectory, LARGE_FILE_NAME);
+    write(largeFile.toPath(), new byte[LARGE_FILE_SIZE]);
+
+    Throwable e = catchThrowable(() -> threadsEntryManager(PARALLEL_THREADS).generate(
+            UNKNOWN_ALGORITHM,
+            someDirectory,
+            DO_NOT_IGNORE_ANY_FILE));
+
+    assertThat(e).isInstanceOf(NoSuchAlgorithmException.class);
+  }
+
+  @Test
+  public void generateSameSegmentedHashInParallel(@TempDir File someDirectory) throws Exception {
+    File largeFile = new File(someDirectory, LARGE_FILE_NAME);
+    byte[] largeFileContent = new byte[LARGE_FILE_SIZE];
+    for (int i = 0; i < largeFileContent.length; ++i) {
+      largeFileContent[i] = (byte) i;
+    }
+    write(largeFile.toPath(), largeFileContent);
+
+    Set<ChecksumEntry> sequentialEntrySet = segmentedEntryManager(SEQUENTIAL_THREADS).generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    Set<ChecksumEntry> parallelEntrySet = segmentedEntryManager(PARALLEL_THREADS).generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    Set<ChecksumEntry> unsegmentedEntrySet = threadsEntryManager(PARALLEL_THREADS).generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(parallelEntrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> {
+          assertThat(sequentialEntrySet)
+              .anySatisfy(sequentialEntry -> assertThat(sequentialEntry.hash)
+                  .isEqualTo(entry.hash));
+          assertThat(unsegmentedEntrySet)
+              .allSatisfy(unsegmentedEntry -> assertThat(unsegmentedEntry.hash)
+                  .isNotEqualTo(entry.hash));
+        });
+  }
+
+  @Test
+  public void generateWithSmallBuffer(@TempDir File someDirectory) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+
+    Set<ChecksumEntry> entrySet = bufferedEntryManager(
+        SMALL_BUFFER_SIZE,
+        NO_MAPPING_THRESHOLD,
+        SMALL_MAPPING_WINDOW_SIZE).generate(
+            KNOWN_ALGORITHM,
+            someDirectory,
+            DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH));
+  }
+
+  @Test
+  public void generateWithMappedWindows(@TempDir File someDirectory) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    File secondFile = new File(someDirectory, SECOND_FILE_NAME);
+    secondFile.createNewFile();
+
+    Set<ChecksumEntry> entrySet = bufferedEntryManager(
+        SMALL_BUFFER_SIZE,
+        SMALL_MAPPING_THRESHOLD,
+        SMALL_MAPPING_WINDOW_SIZE).generate(
+            KNOWN_ALGORITHM,
+            someDirectory,
+            DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(2)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_NAME);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        })
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(SECOND_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(SECOND_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void generateReusingIndexedHash(
+      @TempDir File someDirectory,
+      @TempDir File someIndexDir) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    ChecksumEntryManager indexedEntryManager = indexedEntryManager(someIndexDir, NOT_PARANOID);
+    indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    write(firstFile.toPath(), SAME_SIZE_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+
+    Set<ChecksumEntry> entrySet = indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_NAME);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void generateIgnoringIndexedHashOfAnotherScheme(@TempDir File someDirectory)
+      throws Exception {
+    File inputDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    inputDirectory.mkdir();
+    File largeFile = new File(inputDirectory, LARGE_FILE_NAME);
+    write(largeFile.toPath(), new byte[LARGE_FILE_SIZE]);
+    setLastModifiedTime(largeFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    Set<ChecksumEntry> unsegmentedEntrySet = indexedEntryManager(someDirectory, NOT_PARANOID)
+        .generate(KNOWN_ALGORITHM, inputDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    Set<ChecksumEntry> segmentedEntrySet = segmentedIndexedEntryManager(someDirectory)
+        .generate(KNOWN_ALGORITHM, inputDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(segmentedEntrySet)
+        .isNotEqualTo(unsegmentedEntrySet)
+        .isEqualTo(segmentedEntryManager(SEQUENTIAL_THREADS)
+            .generate(KNOWN_ALGORITHM, inputDirectory, DO_NOT_IGNORE_ANY_FILE));
+  }
+
+  @Test
+  public void generateReusingIndexedHashOfRenamedFile(
+      @TempDir File someDirectory,
+      @TempDir File someIndexDir) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    ChecksumEntryManager indexedEntryManager = indexedEntryManager(someIndexDir, NOT_PARANOID);
+    indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    write(firstFile.toPath(), SAME_SIZE_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    move(firstFile.toPath(), new File(someDirectory, RENAMED_FIRST_FILE_NAME).toPath());
+
+    Set<ChecksumEntry> entrySet = indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(RENAMED_FIRST_FILE_NAME);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void generateIgnoringIndexedHashWhenParanoid(
+      @TempDir File someDirectory,
+      @TempDir File someIndexDir) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    indexedEntryManager(someIndexDir, NOT_PARANOID).generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    write(firstFile.toPath(), SAME_SIZE_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), OLD_LAST_MODIFIED_TIME);
+
+    Set<ChecksumEntry> entrySet = indexedEntryManager(someIndexDir, PARANOID).generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_NAME);
+          assertThat(entry.hash).isNotEqualTo(FIRST_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void generateIgnoringIndexedHashOfRecentlyModifiedFile(
+      @TempDir File someDirectory,
+      @TempDir File someIndexDir) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    ChecksumEntryManager indexedEntryManager = indexedEntryManager(someIndexDir, NOT_PARANOID);
+    indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    FileTime lastModifiedTime = getLastModifiedTime(firstFile.toPath());
+    write(firstFile.toPath(), SAME_SIZE_FILE_CONTENT);
+    setLastModifiedTime(firstFile.toPath(), lastModifiedTime);
+
+    Set<ChecksumEntry> entrySet = indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_NAME);
+          assertThat(entry.hash).isNotEqualTo(FIRST_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void generateIgnoringIndexFile(@TempDir File someDirectory) throws Exception {
+    File firstFile = new File(someDirectory, FIRST_FILE_NAME);
+    write(firstFile.toPath(), FIRST_FILE_CONTENT);
+    ChecksumEntryManager indexedEntryManager = indexedEntryManager(someDirectory, NOT_PARANOID);
+    indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    Set<ChecksumEntry> entrySet = indexedEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> assertThat(entry.path).isEqualTo(FIRST_FILE_NAME));
+  }
+
+  @Test
+  public void startNotMatchingPathsWithoutReadingContent(@TempDir File someDirectory)
+      throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    write(new File(firstDirectory, FIRST_FILE_NAME).toPath(), FIRST_FILE_CONTENT);
+
+    ChecksumGeneration generation = threadsEntryManager(SEQUENTIAL_THREADS).start(
+        UNKNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    boolean result = generation.matches(ChecksumEntryTable.of(Stream.of(
+        new ChecksumEntry(SECOND_FILE_PATH, SECOND_FILE_HASH))
+        .collect(toSet())));
+
+    assertThat(result).isFalse();
+  }
+
+  @Test
+  public void startMatchingStoredEntrySet(@TempDir File someDirectory) throws Exception {
+    for (int i = 0; i < MANY_FILES_COUNT; ++i) {
+      File someFile = new File(someDirectory, String.format(MANY_FILES_NAME_FORMAT, i));
+      write(someFile.toPath(), new byte[i]);
+    }
+    ChecksumEntryManager parallelEntryManager = threadsEntryManager(PARALLEL_THREADS);
+    Set<ChecksumEntry> storedEntrySet = parallelEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+
+    ChecksumGeneration generation = parallelEntryManager.start(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    boolean result = generation.matches(ChecksumEntryTable.of(storedEntrySet));
+
+    assertThat(result).isTrue();
+    assertThat(parallelEntryManager.complete(generation))
+        .containsExactlyInAnyOrderElementsOf(storedEntrySet);
+  }
+
+  @Test
+  public void startNotMatchingModifiedContent(@TempDir File someDirectory) throws Exception {
+    for (int i = 0; i < MANY_FILES_COUNT; ++i) {
+      File someFile = new File(someDirectory, String.format(MANY_FILES_NAME_FORMAT, i));
+      write(someFile.toPath(), new byte[i]);
+    }
+    ChecksumEntryManager parallelEntryManager = threadsEntryManager(PARALLEL_THREADS);
+    Set<ChecksumEntry> storedEntrySet = parallelEntryManager.generate(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    write(
+        new File(someDirectory, String.format(MANY_FILES_NAME_FORMAT, 1)).toPath(),
+        ARBITRARY_FILE_CONTENT);
+
+    ChecksumGeneration generation = parallelEntryManager.start(
+        KNOWN_ALGORITHM,
+        someDirectory,
+        DO_NOT_IGNORE_ANY_FILE);
+    boolean result = generation.matches(ChecksumEntryTable.of(storedEntrySet));
+
+    assertThat(result).isFalse();
+    assertThat(parallelEntryManager.complete(generation))
+        .hasSize(MANY_FILES_COUNT)
+        .isNotEqualTo(storedEntrySet);
+  }
+
   @Test
   public void generateWithIOError(@TempDir File someDirectory) throws Exception {
     File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
@@ -114,7 +616,6 @@ public class ChecksumEntryManagerTest {
     firstFile.setReadable(false);
 
     Throwable e = catchThrowable(() -> entryManager.generate(
-        DEFAULT_DIGEST_CREATOR,
         KNOWN_ALGORITHM,
         someDirectory,
         DO_NOT_IGNORE_ANY_FILE));
@@ -130,7 +631,6 @@ public class ChecksumEntryManagerTest {
     firstFile.createNewFile();
 
     Throwable e = catchThrowable(() -> entryManager.generate(
-        DEFAULT_DIGEST_CREATOR,
         UNKNOWN_ALGORITHM,
         someDirectory,
         DO_NOT_IGNORE_ANY_FILE));
@@ -147,9 +647,10 @@ public class ChecksumEntryManagerTest {
         SECOND_ENTRY_FILE_CONTENT)
         .collect(toSet()));
 
-    Set<ChecksumEntry> entrySet = entryManager.load(checksumFile);
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
 
-    assertThat(entrySet)
+    assertThat(storedChecksum.algorithm).hasValue(KNOWN_ALGORITHM_NAME);
+    assertThat(storedChecksum.entryTable)
         .hasSize(2)
         .anySatisfy(entry -> {
           assertThat(entry.path).isEqualTo(FIRST_FILE_PATH);
@@ -161,13 +662,45 @@ public class ChecksumEntryManagerTest {
         });
   }
 
+  @Test
+  public void loadExistingFileWithAlgorithm(@TempDir File someChecksumDir) throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+    checksumFile.createNewFile();
+    write(checksumFile.toPath(), Stream.of(
+        ALGORITHM_HEADER_FILE_CONTENT,
+        FIRST_ENTRY_FILE_CONTENT)
+        .collect(toList()));
+
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(storedChecksum.algorithm).hasValue(ANOTHER_ALGORITHM_NAME);
+    assertThat(storedChecksum.entryTable)
+        .hasSize(1)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void loadEmptyFile(@TempDir File someChecksumDir) throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+    checksumFile.createNewFile();
+
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(storedChecksum.algorithm).hasValue(KNOWN_ALGORITHM_NAME);
+    assertThat(storedChecksum.entryTable).isEmpty();
+  }
+
   @Test
   public void loadNonExistingFile(@TempDir File someChecksumDir) throws Exception {
     File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
 
-    Set<ChecksumEntry> entrySet = entryManager.load(checksumFile);
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
 
-    assertThat(entrySet).isEmpty();
+    assertThat(storedChecksum.algorithm).isEmpty();
+    assertThat(storedChecksum.entryTable).isEmpty();
   }
 
   @Test
@@ -180,16 +713,135 @@ public class ChecksumEntryManagerTest {
     assertThat(e).isEqualTo(LOAD_IO_EXCEPTION);
   }
 
+  @Test
+  public void loadBinaryFileWithUnsupportedVersion(@TempDir File someChecksumDir)
+      throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+    write(checksumFile.toPath(), UNSUPPORTED_VERSION_BINARY_FILE_CONTENT);
+
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(storedChecksum.matches(KNOWN_ALGORITHM_NAME, ChecksumEntryTable.empty()))
+        .isFalse();
+  }
+
+  @Test
+  public void loadMalformedBinaryFile(@TempDir File someChecksumDir) throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+    write(checksumFile.toPath(), MALFORMED_BINARY_FILE_CONTENT);
+
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(storedChecksum.matches(KNOWN_ALGORITHM_NAME, ChecksumEntryTable.empty()))
+        .isFalse();
+    assertThat(storedChecksum.changes(
+        KNOWN_ALGORITHM_NAME,
+        ChecksumEntryTable.of(Stream.of(new ChecksumEntry(FIRST_FILE_PATH, FIRST_FILE_HASH))
+            .collect(toSet())))).containsExactly(FIRST_FILE_PATH);
+  }
+
+  @Test
+  public void loadBinaryFileWithInvalidCount(@TempDir File someChecksumDir) throws Exception {
+    File negativeCountFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+    File oversizedCountFile = new File(someChecksumDir, ANOTHER_CHECKSUM_FILE_NAME);
+    write(negativeCountFile.toPath(), NEGATIVE_COUNT_BINARY_FILE_CONTENT);
+    write(oversizedCountFile.toPath(), OVERSIZED_COUNT_BINARY_FILE_CONTENT);
+
+    StoredChecksum negativeCountChecksum = entryManager.load(negativeCountFile);
+    StoredChecksum oversizedCountChecksum = entryManager.load(oversizedCountFile);
+
+    assertThat(negativeCountChecksum.matches(KNOWN_ALGORITHM_NAME, ChecksumEntryTable.empty()))
+        .isFalse();
+    assertThat(oversizedCountChecksum.matches(KNOWN_ALGORITHM_NAME, ChecksumEntryTable.empty()))
+        .isFalse();
+  }
+
+  @Test
+  public void storeBinaryFile(@TempDir File someChecksumDir) throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+
+    entryManager.store(checksumFile, KNOWN_ALGORITHM_NAME, ChecksumEntryTable.of(Stream.of(
+        new ChecksumEntry(FIRST_FILE_PATH, FIRST_FILE_HASH),
+        new ChecksumEntry(SECOND_FILE_PATH, SECOND_FILE_HASH))
+        .collect(toSet())));
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(readAllBytes(checksumFile.toPath())).startsWith(BINARY_FILE_MAGIC);
+    assertThat(storedChecksum.algorithm).hasValue(KNOWN_ALGORITHM_NAME);
+    assertThat(storedChecksum.entryTable)
+        .hasSize(2)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        })
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(SECOND_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(SECOND_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void storeBinaryFileWithNonAsciiPath(@TempDir File someChecksumDir) throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+
+    entryManager.store(checksumFile, KNOWN_ALGORITHM_NAME, ChecksumEntryTable.of(Stream.of(
+        new ChecksumEntry(NON_ASCII_FILE_PATH, FIRST_FILE_HASH),
+        new ChecksumEntry(SECOND_FILE_PATH, SECOND_FILE_HASH))
+        .collect(toSet())));
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(storedChecksum.entryTable)
+        .hasSize(2)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(NON_ASCII_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        })
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(SECOND_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(SECOND_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void storeExistingBinaryFile(@TempDir File someChecksumDir) throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+    write(checksumFile.toPath(), MALFORMED_BINARY_FILE_CONTENT);
+
+    entryManager.store(checksumFile, KNOWN_ALGORITHM_NAME, ChecksumEntryTable.of(Stream.of(
+        new ChecksumEntry(FIRST_FILE_PATH, FIRST_FILE_HASH))
+        .collect(toSet())));
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(someChecksumDir.list()).containsExactly(SOME_CHECKSUM_FILE_NAME);
+    assertThat(storedChecksum.entryTable)
+        .hasSize(1)
+        .anySatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(FIRST_FILE_PATH);
+          assertThat(entry.hash).isEqualTo(FIRST_FILE_HASH);
+        });
+  }
+
+  @Test
+  public void storeEmptyBinaryFile(@TempDir File someChecksumDir) throws Exception {
+    File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
+
+    entryManager.store(checksumFile, KNOWN_ALGORITHM_NAME, ChecksumEntryTable.empty());
+    StoredChecksum storedChecksum = entryManager.load(checksumFile);
+
+    assertThat(storedChecksum.algorithm).hasValue(KNOWN_ALGORITHM_NAME);
+    assertThat(storedChecksum.entryTable).isEmpty();
+  }
+
   @Test
   public void storeExistingFile(@TempDir File someChecksumDir) throws Exception {
     File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
     checksumFile.createNewFile();
     write(checksumFile.toPath(), ARBITRARY_FILE_CONTENT);
 
-    entryManager.store(checksumFile, Stream.of(
+    textEntryManager().store(checksumFile, KNOWN_ALGORITHM_NAME, ChecksumEntryTable.of(Stream.of(
         new ChecksumEntry(FIRST_FILE_PATH, FIRST_FILE_HASH),
         new ChecksumEntry(SECOND_FILE_PATH, SECOND_FILE_HASH))
-        .collect(toSet()));
+        .collect(toSet())));
 
     assertThat(checksumFile)
         .hasContent(FIRST_AND_SECOND_ENTRIES_FILE_CONTENT);
@@ -199,12 +851,86 @@ public class ChecksumEntryManagerTest {
   public void storeNonExistingFile(@TempDir File someChecksumDir) throws Exception {
     File checksumFile = new File(someChecksumDir, SOME_CHECKSUM_FILE_NAME);
 
-    entryManager.store(checksumFile, Stream.of(
+    textEntryManager().store(checksumFile, KNOWN_ALGORITHM_NAME, ChecksumEntryTable.of(Stream.of(
         new ChecksumEntry(FIRST_FILE_PATH, FIRST_FILE_HASH),
         new ChecksumEntry(SECOND_FILE_PATH, SECOND_FILE_HASH))
-        .collect(toSet()));
+        .collect(toSet())));
 
     assertThat(checksumFile)
         .hasContent(FIRST_AND_SECOND_ENTRIES_FILE_CONTENT);
   }
+
+  private static ChecksumEntryManager textEntryManager() {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setFormat(ChecksumFormat.TEXT);
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static ChecksumEntryManager threadsEntryManager(int threads) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setThreads(threads);
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static ChecksumEntryManager ioConcurrentEntryManager(int ioConcurrency) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setThreads(SEQUENTIAL_THREADS);
+    settings.setIoConcurrency(ioConcurrency);
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static ChecksumEntryManager segmentedEntryManager(int threads) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setThreads(threads);
+    settings.setSegmentThreshold(SEGMENT_THRESHOLD);
+    settings.setSegmentSize(SEGMENT_SIZE);
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static ChecksumEntryManager indexedEntryManager(File indexDir, boolean paranoid) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setThreads(SEQUENTIAL_THREADS);
+    settings.setIndexFile(new File(indexDir, SOME_INDEX_FILE_NAME));
+    settings.setParanoid(paranoid);
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static ChecksumEntryManager segmentedIndexedEntryManager(File indexDir) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setThreads(SEQUENTIAL_THREADS);
+    settings.setIndexFile(new File(indexDir, SOME_INDEX_FILE_NAME));
+    settings.setSegmentThreshold(SEGMENT_THRESHOLD);
+    settings.setSegmentSize(SEGMENT_SIZE);
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static ChecksumEntryManager hashingEntryManager(ChecksumHasher hasher) {
+    return new ChecksumEntryManager(
+        new ChecksumExecutor(SEQUENTIAL_THREADS),
+        algorithm -> hasher,
+        Optional.empty(),
+        NOT_PARANOID,
+        ChecksumIgnoreRules.empty(),
+        ChecksumFormat.BINARY,
+        Optional.empty(),
+        0,
+        Optional.empty(),
+        0,
+        new ChecksumStatistics());
+  }
+
+  private static ChecksumEntryManager ignoringEntryManager(List<String> ignorePatterns) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setIgnoreRules(ChecksumIgnoreRules.of(ignorePatterns));
+    return new ChecksumEntryManager(settings);
+  }
+
+  private static ChecksumEntryManager bufferedEntryManager(int bufferSize, long mappingThreshold,
+      int mappingWindowSize) {
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setBufferSize(bufferSize);
+    settings.setMappingThreshold(mappingThreshold);
+    settings.setMappingWindowSize(mappingWindowSize);
+    return new ChecksumEntryManager(settings);
+  }
 }
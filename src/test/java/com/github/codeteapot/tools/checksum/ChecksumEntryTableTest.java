@@ -0,0 +1,108 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+public class ChecksumEntryTableTest {
+
+  private static final String FIRST_PATH = "a/first.txt";
+  private static final String SECOND_PATH = "b/second.txt";
+  private static final String THIRD_PATH = "c.txt";
+  private static final String UNKNOWN_PATH = "b/unknown.txt";
+  private static final byte[] FIRST_HASH = {
+      0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0a};
+  private static final byte[] SECOND_HASH = {
+      0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17, 0x18, 0x19, 0x1a};
+  private static final byte[] THIRD_HASH = {
+      0x21, 0x22, 0x23, 0x24, 0x25, 0x26, 0x27, 0x28, 0x29, 0x2a};
+  private static final byte[] SHORT_HASH = {0x31};
+
+  @Test
+  public void sortEntriesByPath() {
+    ChecksumEntryTable table = ChecksumEntryTable.of(asList(
+        new ChecksumEntry(THIRD_PATH, THIRD_HASH),
+        new ChecksumEntry(FIRST_PATH, FIRST_HASH),
+        new ChecksumEntry(SECOND_PATH, SECOND_HASH)));
+
+    assertThat(table)
+        .extracting(ChecksumEntry::getPath)
+        .containsExactly(FIRST_PATH, SECOND_PATH, THIRD_PATH);
+    assertThat(table.getHash(1)).isEqualTo(SECOND_HASH);
+  }
+
+  @Test
+  public void keepLastEntryOfSamePath() {
+    ChecksumEntryTable table = ChecksumEntryTable.of(asList(
+        new ChecksumEntry(SECOND_PATH, SECOND_HASH),
+        new ChecksumEntry(FIRST_PATH, FIRST_HASH),
+        new ChecksumEntry(SECOND_PATH, THIRD_HASH)));
+
+    assertThat(table.size()).isEqualTo(2);
+    assertThat(table.getHash(table.indexOf(SECOND_PATH))).isEqualTo(THIRD_HASH);
+  }
+
+  @Test
+  public void lookUpByPath() {
+    ChecksumEntryTable table = ChecksumEntryTable.of(asList(
+        new ChecksumEntry(FIRST_PATH, FIRST_HASH),
+        new ChecksumEntry(SECOND_PATH, SECOND_HASH)));
+
+    assertThat(table.indexOf(SECOND_PATH)).isEqualTo(1);
+    assertThat(table.indexOf(UNKNOWN_PATH)).isNegative();
+    assertThat(table.matches(0, FIRST_HASH)).isTrue();
+    assertThat(table.matches(0, SECOND_HASH)).isFalse();
+    assertThat(table.matches(0, SHORT_HASH)).isFalse();
+  }
+
+  @Test
+  public void equalWhenSamePathsAndHashes() {
+    ChecksumEntryTable table = ChecksumEntryTable.of(asList(
+        new ChecksumEntry(FIRST_PATH, FIRST_HASH),
+        new ChecksumEntry(SECOND_PATH, SECOND_HASH)));
+
+    assertThat(table)
+        .isEqualTo(ChecksumEntryTable.of(asList(
+            new ChecksumEntry(SECOND_PATH, SECOND_HASH),
+            new ChecksumEntry(FIRST_PATH, FIRST_HASH))))
+        .hasSameHashCodeAs(ChecksumEntryTable.of(asList(
+            new ChecksumEntry(SECOND_PATH, SECOND_HASH),
+            new ChecksumEntry(FIRST_PATH, FIRST_HASH))))
+        .isNotEqualTo(ChecksumEntryTable.of(asList(
+            new ChecksumEntry(FIRST_PATH, SECOND_HASH),
+            new ChecksumEntry(SECOND_PATH, FIRST_HASH))))
+        .isNotEqualTo(ChecksumEntryTable.of(asList(
+            new ChecksumEntry(FIRST_PATH, FIRST_HASH),
+            new ChecksumEntry(UNKNOWN_PATH, SECOND_HASH))));
+  }
+
+  @Test
+  public void changesOfBothTables() {
+    ChecksumEntryTable table = ChecksumEntryTable.of(asList(
+        new ChecksumEntry(FIRST_PATH, FIRST_HASH),
+        new ChecksumEntry(SECOND_PATH, SECOND_HASH)));
+    ChecksumEntryTable anotherTable = ChecksumEntryTable.of(asList(
+        new ChecksumEntry(SECOND_PATH, THIRD_HASH),
+        new ChecksumEntry(THIRD_PATH, THIRD_HASH)));
+
+    assertThat(table.changes(anotherTable))
+        .containsExactly(FIRST_PATH, SECOND_PATH, THIRD_PATH);
+    assertThat(table.changes(table)).isEmpty();
+  }
+
+  @Test
+  public void keepHashesOfDifferentLengths() {
+    ChecksumEntryTable table = ChecksumEntryTable.of(asList(
+        new ChecksumEntry(FIRST_PATH, SHORT_HASH),
+        new ChecksumEntry(SECOND_PATH, SECOND_HASH)));
+
+    assertThat(table)
+        .containsExactly(
+            new ChecksumEntry(FIRST_PATH, SHORT_HASH),
+            new ChecksumEntry(SECOND_PATH, SECOND_HASH))
+        .isEqualTo(ChecksumEntryTable.of(asList(
+            new ChecksumEntry(SECOND_PATH, SECOND_HASH),
+            new ChecksumEntry(FIRST_PATH, SHORT_HASH))));
+    assertThat(table.matches(0, SHORT_HASH)).isTrue();
+  }
+}
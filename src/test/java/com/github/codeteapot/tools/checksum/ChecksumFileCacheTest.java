@@ -0,0 +1,61 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.File;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChecksumFileCacheTest {
+
+  private static final int SOME_SIZE = 2;
+  private static final int NON_POSITIVE_SIZE = 0;
+  private static final long OLD_TIME = 1_600_000_000_000L;
+  private static final long NEW_TIME = 1_700_000_000_000L;
+
+  private static final List<String> SOME_KEY = asList("some-template.json", "first-only");
+  private static final List<String> ANOTHER_KEY = asList("some-template.json", "second-only");
+  private static final List<String> JOINED_KEY = asList("some-template.jsonfirst-only");
+  private static final List<String> THIRD_KEY = asList("another-template.json");
+
+  @Test
+  public void sameChecksumFileOfSameKey(@TempDir File someDirectory) throws Exception {
+    ChecksumFileCache cache = new ChecksumFileCache(someDirectory, SOME_SIZE);
+
+    File checksumFile = cache.getChecksumFile(SOME_KEY);
+
+    assertThat(checksumFile.getParentFile()).isEqualTo(someDirectory);
+    assertThat(checksumFile).doesNotExist();
+    assertThat(cache.getChecksumFile(SOME_KEY)).isEqualTo(checksumFile);
+    assertThat(cache.getChecksumFile(ANOTHER_KEY)).isNotEqualTo(checksumFile);
+    assertThat(cache.getChecksumFile(JOINED_KEY)).isNotEqualTo(checksumFile);
+  }
+
+  @Test
+  public void evictLeastRecentlyUsedChecksumFile(@TempDir File someDirectory) throws Exception {
+    ChecksumFileCache cache = new ChecksumFileCache(someDirectory, SOME_SIZE);
+    File someChecksumFile = cache.getChecksumFile(SOME_KEY);
+    someChecksumFile.createNewFile();
+    someChecksumFile.setLastModified(OLD_TIME);
+    File anotherChecksumFile = cache.getChecksumFile(ANOTHER_KEY);
+    anotherChecksumFile.createNewFile();
+    anotherChecksumFile.setLastModified(NEW_TIME);
+
+    cache.getChecksumFile(SOME_KEY);
+    File thirdChecksumFile = cache.getChecksumFile(THIRD_KEY);
+
+    assertThat(someChecksumFile).exists();
+    assertThat(anotherChecksumFile).doesNotExist();
+    assertThat(thirdChecksumFile).doesNotExist();
+  }
+
+  @Test
+  public void nonPositiveSize(@TempDir File someDirectory) {
+    Throwable e = catchThrowable(() -> new ChecksumFileCache(someDirectory, NON_POSITIVE_SIZE));
+
+    assertThat(e).isInstanceOf(IllegalArgumentException.class);
+  }
+}
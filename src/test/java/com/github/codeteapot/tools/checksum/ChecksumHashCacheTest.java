@@ -0,0 +1,181 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.file.Files.createLink;
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.Files.setLastModifiedTime;
+import static java.nio.file.Files.write;
+import static java.nio.file.attribute.FileTime.fromMillis;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.io.File;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("integration")
+public class ChecksumHashCacheTest {
+
+  private static final FingerprintAlgorithm SOME_ALGORITHM = FingerprintAlgorithm.messageDigest(
+      MessageDigest::getInstance,
+      "SHA-256");
+  private static final Predicate<String> DO_NOT_IGNORE_ANY_FILE = path -> false;
+
+  private static final int SEQUENTIAL_THREADS = 1;
+  private static final int SOME_BUFFER_SIZE = 1024;
+  private static final long NO_MAPPING_THRESHOLD = 0L;
+  private static final int SOME_HASH_CACHE_SIZE = 10;
+  private static final int SINGLE_HASH_CACHE_SIZE = 1;
+  private static final int COMPACTED_GENERATIONS = 20;
+  private static final long LAST_ACCESS_GRANULARITY_MILLIS = 2L;
+  private static final long CHANGE_TIME_GRANULARITY_MILLIS = 20L;
+
+  private static final String FIRST_DIRECTORY_NAME = "first";
+  private static final String SECOND_DIRECTORY_NAME = "second";
+  private static final String HASH_CACHE_DIRECTORY_NAME = "hash-cache";
+  private static final String SOME_FILE_NAME = "some.jar";
+  private static final String LINKED_FILE_NAME = "linked.jar";
+  private static final String ANOTHER_FILE_NAME = "another.jar";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final byte[] SOME_FILE_CONTENT = {0x40, 0x41, 0x42};
+  private static final byte[] ANOTHER_FILE_CONTENT = {0x50, 0x51};
+  private static final byte[] REPLACED_FILE_CONTENT = {0x60, 0x61, 0x62};
+  private static final FileTime OLD_LAST_MODIFIED_TIME = fromMillis(1_000_000_000_000L);
+
+  private ChecksumHasher hasher;
+
+  @BeforeEach
+  public void setUp() {
+    hasher = spy(new ChecksumHasher(
+        SOME_ALGORITHM,
+        SOME_BUFFER_SIZE,
+        NO_MAPPING_THRESHOLD,
+        SOME_BUFFER_SIZE));
+  }
+
+  @Test
+  public void generateReadingSharedFileOnce(@TempDir File someDirectory) throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    File secondDirectory = new File(someDirectory, SECOND_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    secondDirectory.mkdir();
+    File someFile = new File(firstDirectory, SOME_FILE_NAME);
+    write(someFile.toPath(), SOME_FILE_CONTENT);
+    setLastModifiedTime(someFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    createLink(new File(secondDirectory, LINKED_FILE_NAME).toPath(), someFile.toPath());
+    File hashCacheDirectory = new File(someDirectory, HASH_CACHE_DIRECTORY_NAME);
+    hashCachedEntryManager(hashCacheDirectory, SOME_HASH_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    Set<ChecksumEntry> entrySet = hashCachedEntryManager(hashCacheDirectory, SOME_HASH_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, secondDirectory, DO_NOT_IGNORE_ANY_FILE);
+    byte[] someFileHash = hash(SOME_FILE_CONTENT);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> {
+          assertThat(entry.path).isEqualTo(LINKED_FILE_NAME);
+          assertThat(entry.hash).isEqualTo(someFileHash);
+        });
+    verify(hasher, times(1)).hash(any());
+  }
+
+  @Test
+  public void generateWithoutCachingRecentlyModifiedFile(@TempDir File someDirectory)
+      throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    write(new File(firstDirectory, SOME_FILE_NAME).toPath(), SOME_FILE_CONTENT);
+    File hashCacheDirectory = new File(someDirectory, HASH_CACHE_DIRECTORY_NAME);
+
+    hashCachedEntryManager(hashCacheDirectory, SOME_HASH_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+    hashCachedEntryManager(hashCacheDirectory, SOME_HASH_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+
+    assertThat(hashCacheDirectory).doesNotExist();
+    verify(hasher, times(2)).hash(any());
+  }
+
+  @Test
+  public void generateRehashingFileReplacedInPlace(@TempDir File someDirectory)
+      throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    File someFile = new File(firstDirectory, SOME_FILE_NAME);
+    write(someFile.toPath(), SOME_FILE_CONTENT);
+    setLastModifiedTime(someFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    File hashCacheDirectory = new File(someDirectory, HASH_CACHE_DIRECTORY_NAME);
+    hashCachedEntryManager(hashCacheDirectory, SOME_HASH_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+    Thread.sleep(CHANGE_TIME_GRANULARITY_MILLIS);
+    write(someFile.toPath(), REPLACED_FILE_CONTENT);
+    setLastModifiedTime(someFile.toPath(), OLD_LAST_MODIFIED_TIME);
+
+    Set<ChecksumEntry> entrySet = hashCachedEntryManager(hashCacheDirectory, SOME_HASH_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+    byte[] replacedFileHash = hash(REPLACED_FILE_CONTENT);
+
+    assertThat(entrySet)
+        .hasSize(1)
+        .allSatisfy(entry -> assertThat(entry.hash).isEqualTo(replacedFileHash));
+    verify(hasher, times(2)).hash(any());
+  }
+
+  @Test
+  public void compactKeepingMostRecentlyUsed(@TempDir File someDirectory) throws Exception {
+    File firstDirectory = new File(someDirectory, FIRST_DIRECTORY_NAME);
+    firstDirectory.mkdir();
+    File someFile = new File(firstDirectory, SOME_FILE_NAME);
+    File anotherFile = new File(firstDirectory, ANOTHER_FILE_NAME);
+    File hashCacheDirectory = new File(someDirectory, HASH_CACHE_DIRECTORY_NAME);
+    for (int i = 0; i < COMPACTED_GENERATIONS; ++i) {
+      write(someFile.toPath(), SOME_FILE_CONTENT);
+      setLastModifiedTime(someFile.toPath(), fromMillis(OLD_LAST_MODIFIED_TIME.toMillis() + i));
+      hashCachedEntryManager(hashCacheDirectory, SOME_HASH_CACHE_SIZE)
+          .generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+    }
+    write(anotherFile.toPath(), ANOTHER_FILE_CONTENT);
+    setLastModifiedTime(anotherFile.toPath(), OLD_LAST_MODIFIED_TIME);
+    someFile.delete();
+    Thread.sleep(LAST_ACCESS_GRANULARITY_MILLIS);
+
+    hashCachedEntryManager(hashCacheDirectory, SINGLE_HASH_CACHE_SIZE)
+        .generate(SOME_ALGORITHM, firstDirectory, DO_NOT_IGNORE_ANY_FILE);
+    File[] segments = hashCacheDirectory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+    String anotherFileHash = ChecksumHex.print(hash(ANOTHER_FILE_CONTENT));
+
+    assertThat(segments).hasSize(1);
+    assertThat(readAllLines(segments[0].toPath()))
+        .hasSize(1)
+        .allSatisfy(line -> assertThat(line).startsWith(anotherFileHash));
+  }
+
+  private ChecksumEntryManager hashCachedEntryManager(File hashCacheDirectory,
+      int hashCacheSize) {
+    return new ChecksumEntryManager(
+        new ChecksumExecutor(SEQUENTIAL_THREADS),
+        algorithm -> hasher,
+        Optional.empty(),
+        false,
+        ChecksumIgnoreRules.empty(),
+        ChecksumFormat.BINARY,
+        Optional.empty(),
+        0,
+        Optional.of(hashCacheDirectory),
+        hashCacheSize,
+        new ChecksumStatistics());
+  }
+
+  private static byte[] hash(byte[] content) throws Exception {
+    return MessageDigest.getInstance("SHA-256").digest(content);
+  }
+}
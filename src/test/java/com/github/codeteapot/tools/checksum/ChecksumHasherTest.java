@@ -0,0 +1,83 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.file.Files.write;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ChecksumHasherTest {
+
+  private static final FingerprintAlgorithm KNOWN_ALGORITHM = FingerprintAlgorithm.messageDigest(
+      MessageDigest::getInstance,
+      "SHA-256");
+
+  private static final int SOME_BUFFER_SIZE = 1024;
+  private static final long NO_MAPPING_THRESHOLD = 0L;
+  private static final int MANY_FILES_COUNT = 3;
+
+  private static final String MANY_FILES_NAME_FORMAT = "many-%d.bin";
+  private static final String SOME_FILE_NAME = "some.bin";
+  private static final byte[] SOME_FILE_CONTENT = {0x40, 0x41, 0x42};
+
+  @Test
+  public void hashReusingFunctionOfSameThread(
+      @Mock FingerprintAlgorithm someAlgorithm,
+      @TempDir File someDirectory) throws Exception {
+    when(someAlgorithm.create())
+        .thenAnswer(invocation -> KNOWN_ALGORITHM.create());
+    ChecksumHasher hasher = hasher(someAlgorithm);
+
+    for (int i = 0; i < MANY_FILES_COUNT; ++i) {
+      File someFile = new File(someDirectory, String.format(MANY_FILES_NAME_FORMAT, i));
+      byte[] someContent = new byte[i];
+      write(someFile.toPath(), someContent);
+
+      assertThat(hasher.hash(someFile))
+          .isEqualTo(MessageDigest.getInstance("SHA-256").digest(someContent));
+    }
+    verify(someAlgorithm, times(1)).create();
+  }
+
+  @Test
+  public void hashWithNewFunctionAfterFailure(
+      @Mock FingerprintAlgorithm someAlgorithm,
+      @Mock FingerprintFunction failingFunction,
+      @TempDir File someDirectory) throws Exception {
+    doThrow(new IllegalStateException())
+        .when(failingFunction).update(any(ByteBuffer.class));
+    when(someAlgorithm.create())
+        .thenReturn(failingFunction)
+        .thenAnswer(invocation -> KNOWN_ALGORITHM.create());
+    File someFile = new File(someDirectory, SOME_FILE_NAME);
+    write(someFile.toPath(), SOME_FILE_CONTENT);
+    ChecksumHasher hasher = hasher(someAlgorithm);
+
+    Throwable e = catchThrowable(() -> hasher.hash(someFile));
+    byte[] hash = hasher.hash(someFile);
+
+    assertThat(e).isInstanceOf(IllegalStateException.class);
+    assertThat(hash).isEqualTo(MessageDigest.getInstance("SHA-256").digest(SOME_FILE_CONTENT));
+    verify(someAlgorithm, times(2)).create();
+  }
+
+  private static ChecksumHasher hasher(FingerprintAlgorithm algorithm) {
+    return new ChecksumHasher(
+        algorithm,
+        SOME_BUFFER_SIZE,
+        NO_MAPPING_THRESHOLD,
+        SOME_BUFFER_SIZE);
+  }
+}
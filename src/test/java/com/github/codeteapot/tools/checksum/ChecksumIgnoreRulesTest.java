@@ -0,0 +1,112 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.file.Files.write;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChecksumIgnoreRulesTest {
+
+  private static final boolean FILE = false;
+  private static final boolean DIRECTORY = true;
+
+  private static final String SOME_IGNORE_FILE_NAME = ".packerignore";
+  private static final String NON_EXISTING_IGNORE_FILE_NAME = "non-existing";
+
+  @Test
+  public void ignoreLiteralNameAtAnyLevel() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(singletonList("output"));
+
+    assertThat(rules.isIgnored("output", DIRECTORY)).isTrue();
+    assertThat(rules.isIgnored("some/output", FILE)).isTrue();
+    assertThat(rules.isIgnored("outputs", FILE)).isFalse();
+  }
+
+  @Test
+  public void ignoreGlobName() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(singletonList("*.t?p"));
+
+    assertThat(rules.isIgnored("some.tmp", FILE)).isTrue();
+    assertThat(rules.isIgnored("some/other.tap", FILE)).isTrue();
+    assertThat(rules.isIgnored("some.txt", FILE)).isFalse();
+  }
+
+  @Test
+  public void ignoreCharacterClass() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(singletonList("log[0-9]"));
+
+    assertThat(rules.isIgnored("log1", FILE)).isTrue();
+    assertThat(rules.isIgnored("logs", FILE)).isFalse();
+  }
+
+  @Test
+  public void ignoreAnchoredPath() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(singletonList("/build/cache"));
+
+    assertThat(rules.isIgnored("build/cache", DIRECTORY)).isTrue();
+    assertThat(rules.isIgnored("some/build/cache", DIRECTORY)).isFalse();
+  }
+
+  @Test
+  public void ignoreAnyDepthPath() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(singletonList("**/cache/*.bin"));
+
+    assertThat(rules.isIgnored("cache/some.bin", FILE)).isTrue();
+    assertThat(rules.isIgnored("some/deep/cache/some.bin", FILE)).isTrue();
+    assertThat(rules.isIgnored("some/deep/cache/nested/some.bin", FILE)).isFalse();
+  }
+
+  @Test
+  public void ignoreOnlyDirectories() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(singletonList("node_modules/"));
+
+    assertThat(rules.isIgnored("node_modules", DIRECTORY)).isTrue();
+    assertThat(rules.isIgnored("node_modules", FILE)).isFalse();
+  }
+
+  @Test
+  public void includeAgainNegatedPattern() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(Arrays.asList("*.log", "!keep.log"));
+
+    assertThat(rules.isIgnored("some.log", FILE)).isTrue();
+    assertThat(rules.isIgnored("keep.log", FILE)).isFalse();
+  }
+
+  @Test
+  public void skipCommentsAndBlankLines() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(Arrays.asList("# comment", "", "  "));
+
+    assertThat(rules).isEqualTo(ChecksumIgnoreRules.of(Arrays.asList("# comment", "", "  ")));
+    assertThat(rules.isIgnored("# comment", FILE)).isFalse();
+  }
+
+  @Test
+  public void takePrecedenceWithAppendedRules() {
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.of(singletonList("!*.bin"))
+        .with(ChecksumIgnoreRules.of(singletonList("*.bin")));
+
+    assertThat(rules.isIgnored("some.bin", FILE)).isTrue();
+  }
+
+  @Test
+  public void loadIgnoreFile(@TempDir File someDirectory) throws Exception {
+    File ignoreFile = new File(someDirectory, SOME_IGNORE_FILE_NAME);
+    write(ignoreFile.toPath(), Arrays.asList("# Generated", "output/"));
+
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.load(ignoreFile);
+
+    assertThat(rules.isIgnored("output", DIRECTORY)).isTrue();
+  }
+
+  @Test
+  public void loadNonExistingIgnoreFile(@TempDir File someDirectory) throws Exception {
+    File ignoreFile = new File(someDirectory, NON_EXISTING_IGNORE_FILE_NAME);
+
+    ChecksumIgnoreRules rules = ChecksumIgnoreRules.load(ignoreFile);
+
+    assertThat(rules).isEqualTo(ChecksumIgnoreRules.empty());
+  }
+}
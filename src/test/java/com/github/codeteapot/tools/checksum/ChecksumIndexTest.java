@@ -0,0 +1,145 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.file.Files.write;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ChecksumIndexTest {
+
+  private static final String SOME_ALGORITHM = "SOME-ALGORITHM";
+  private static final String ANOTHER_ALGORITHM = "ANOTHER-ALGORITHM";
+  private static final String SOME_SCHEME = "SOME-ALGORITHM";
+  private static final String ANOTHER_SCHEME = "SOME-ALGORITHM/1024";
+  private static final long SOME_TIMESTAMP = 2_000_000_000_000_000_000L;
+
+  private static final String SOME_INDEX_FILE_NAME = "some.index";
+  private static final String SOME_FILE_NAME = "some file.txt";
+  private static final long SOME_SIZE = 3L;
+  private static final FileTime SOME_LAST_MODIFIED_TIME = FileTime.fromMillis(1_000_000_000_000L);
+  private static final String SOME_FILE_KEY = "(dev=1,ino=2)";
+  private static final byte[] SOME_HASH = {0x01, 0x02, 0x03};
+
+  private static final String MALFORMED_INDEX_CONTENT = "#SOME-ALGORITHM 1\nmalformed";
+
+  @Test
+  public void lookupStoredRecord(
+      @TempDir File someDirectory,
+      @Mock BasicFileAttributes someAttrs) throws Exception {
+    File indexFile = new File(someDirectory, SOME_INDEX_FILE_NAME);
+    ChecksumPath path = somePath(someDirectory, someAttrs);
+    ChecksumIndex.store(
+        indexFile,
+        SOME_ALGORITHM,
+        SOME_TIMESTAMP,
+        singletonList(path.toIndexRecord(SOME_SCHEME, SOME_HASH)));
+
+    Optional<ChecksumEntry> entry = ChecksumIndex.load(indexFile, SOME_ALGORITHM)
+        .lookup(path, SOME_SCHEME);
+
+    assertThat(entry)
+        .hasValueSatisfying(value -> {
+          assertThat(value.path).isEqualTo(SOME_FILE_NAME);
+          assertThat(value.hash).isEqualTo(SOME_HASH);
+        });
+  }
+
+  @Test
+  public void lookupNothingWithAnotherAlgorithm(
+      @TempDir File someDirectory,
+      @Mock BasicFileAttributes someAttrs) throws Exception {
+    File indexFile = new File(someDirectory, SOME_INDEX_FILE_NAME);
+    ChecksumPath path = somePath(someDirectory, someAttrs);
+    ChecksumIndex.store(
+        indexFile,
+        SOME_ALGORITHM,
+        SOME_TIMESTAMP,
+        singletonList(path.toIndexRecord(SOME_SCHEME, SOME_HASH)));
+
+    Optional<ChecksumEntry> entry = ChecksumIndex.load(indexFile, ANOTHER_ALGORITHM)
+        .lookup(path, SOME_SCHEME);
+
+    assertThat(entry).isEmpty();
+  }
+
+  @Test
+  public void lookupNothingWithAnotherScheme(
+      @TempDir File someDirectory,
+      @Mock BasicFileAttributes someAttrs) throws Exception {
+    File indexFile = new File(someDirectory, SOME_INDEX_FILE_NAME);
+    ChecksumPath path = somePath(someDirectory, someAttrs);
+    ChecksumIndex.store(
+        indexFile,
+        SOME_ALGORITHM,
+        SOME_TIMESTAMP,
+        singletonList(path.toIndexRecord(SOME_SCHEME, SOME_HASH)));
+
+    Optional<ChecksumEntry> entry = ChecksumIndex.load(indexFile, SOME_ALGORITHM)
+        .lookup(path, ANOTHER_SCHEME);
+
+    assertThat(entry).isEmpty();
+  }
+
+  @Test
+  public void lookupNothingWhenExcluded(
+      @TempDir File someDirectory,
+      @Mock BasicFileAttributes someAttrs) throws Exception {
+    ChecksumPath path = somePath(someDirectory, someAttrs);
+
+    Optional<ChecksumEntry> entry = ChecksumIndex.of(
+        SOME_TIMESTAMP,
+        singletonList(path.toIndexRecord(SOME_SCHEME, SOME_HASH)))
+        .exclude(singleton(SOME_FILE_NAME))
+        .lookup(path, SOME_SCHEME);
+
+    assertThat(entry).isEmpty();
+  }
+
+  @Test
+  public void lookupNothingWhenMalformed(
+      @TempDir File someDirectory,
+      @Mock BasicFileAttributes someAttrs) throws Exception {
+    File indexFile = new File(someDirectory, SOME_INDEX_FILE_NAME);
+    write(indexFile.toPath(), MALFORMED_INDEX_CONTENT.getBytes());
+
+    Optional<ChecksumEntry> entry = ChecksumIndex.load(indexFile, SOME_ALGORITHM)
+        .lookup(somePath(someDirectory, someAttrs), SOME_SCHEME);
+
+    assertThat(entry).isEmpty();
+  }
+
+  @Test
+  public void lookupNothingWhenNotExists(
+      @TempDir File someDirectory,
+      @Mock BasicFileAttributes someAttrs) throws Exception {
+    File indexFile = new File(someDirectory, SOME_INDEX_FILE_NAME);
+
+    Optional<ChecksumEntry> entry = ChecksumIndex.load(indexFile, SOME_ALGORITHM)
+        .lookup(somePath(someDirectory, someAttrs), SOME_SCHEME);
+
+    assertThat(entry).isEmpty();
+  }
+
+  private static ChecksumPath somePath(File directory, BasicFileAttributes attrs) {
+    Path file = new File(directory, SOME_FILE_NAME).toPath();
+    when(attrs.size())
+        .thenReturn(SOME_SIZE);
+    when(attrs.lastModifiedTime())
+        .thenReturn(SOME_LAST_MODIFIED_TIME);
+    when(attrs.fileKey())
+        .thenReturn(SOME_FILE_KEY);
+    return new ChecksumPath(directory, file, attrs);
+  }
+}
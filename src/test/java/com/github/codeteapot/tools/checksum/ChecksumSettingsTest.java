@@ -0,0 +1,136 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.lang.Runtime.getRuntime;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ChecksumSettingsTest {
+
+  private static final int SOME_THREADS = 3;
+  private static final int NON_POSITIVE_THREADS = -1;
+  private static final int SOME_BUFFER_SIZE = 1024;
+  private static final int NON_POSITIVE_BUFFER_SIZE = 0;
+  private static final long SOME_MAPPING_THRESHOLD = 2048L;
+  private static final int SOME_MAPPING_WINDOW_SIZE = 4096;
+  private static final int NON_POSITIVE_MAPPING_WINDOW_SIZE = -1;
+  private static final long SOME_SEGMENT_THRESHOLD = 8192L;
+  private static final int SOME_SEGMENT_SIZE = 512;
+  private static final int NON_POSITIVE_SEGMENT_SIZE = 0;
+  private static final int NON_POSITIVE_HASH_CACHE_SIZE = 0;
+
+  private ChecksumSettings settings;
+
+  @BeforeEach
+  public void setUp() {
+    settings = new ChecksumSettings();
+  }
+
+  @Test
+  public void defaultThreads() {
+    assertThat(settings.getThreads())
+        .isEqualTo(getRuntime().availableProcessors());
+  }
+
+  @Test
+  public void someThreads() {
+    settings.setThreads(SOME_THREADS);
+
+    assertThat(settings.getThreads())
+        .isEqualTo(SOME_THREADS);
+  }
+
+  @Test
+  public void nonPositiveThreads() {
+    settings.setThreads(NON_POSITIVE_THREADS);
+
+    assertThat(settings.getThreads())
+        .isEqualTo(getRuntime().availableProcessors());
+  }
+
+  @Test
+  public void defaultIoConcurrency() {
+    assertThat(settings.getIoConcurrency())
+        .isZero();
+  }
+
+  @Test
+  public void someBufferSize() {
+    settings.setBufferSize(SOME_BUFFER_SIZE);
+
+    assertThat(settings.getBufferSize())
+        .isEqualTo(SOME_BUFFER_SIZE);
+  }
+
+  @Test
+  public void nonPositiveBufferSize() {
+    Throwable e = catchThrowable(() -> settings.setBufferSize(NON_POSITIVE_BUFFER_SIZE));
+
+    assertThat(e)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void someMappingThreshold() {
+    settings.setMappingThreshold(SOME_MAPPING_THRESHOLD);
+
+    assertThat(settings.getMappingThreshold())
+        .isEqualTo(SOME_MAPPING_THRESHOLD);
+  }
+
+  @Test
+  public void someMappingWindowSize() {
+    settings.setMappingWindowSize(SOME_MAPPING_WINDOW_SIZE);
+
+    assertThat(settings.getMappingWindowSize())
+        .isEqualTo(SOME_MAPPING_WINDOW_SIZE);
+  }
+
+  @Test
+  public void nonPositiveMappingWindowSize() {
+    Throwable e = catchThrowable(() -> settings.setMappingWindowSize(
+        NON_POSITIVE_MAPPING_WINDOW_SIZE));
+
+    assertThat(e)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void someSegmentThreshold() {
+    settings.setSegmentThreshold(SOME_SEGMENT_THRESHOLD);
+
+    assertThat(settings.getSegmentThreshold())
+        .isEqualTo(SOME_SEGMENT_THRESHOLD);
+  }
+
+  @Test
+  public void someSegmentSize() {
+    settings.setSegmentSize(SOME_SEGMENT_SIZE);
+
+    assertThat(settings.getSegmentSize())
+        .isEqualTo(SOME_SEGMENT_SIZE);
+  }
+
+  @Test
+  public void nonPositiveSegmentSize() {
+    Throwable e = catchThrowable(() -> settings.setSegmentSize(NON_POSITIVE_SEGMENT_SIZE));
+
+    assertThat(e)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void noHashCacheDirectory() {
+    assertThat(settings.getHashCacheDirectory())
+        .isEmpty();
+  }
+
+  @Test
+  public void nonPositiveHashCacheSize() {
+    Throwable e = catchThrowable(() -> settings.setHashCacheSize(NON_POSITIVE_HASH_CACHE_SIZE));
+
+    assertThat(e)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
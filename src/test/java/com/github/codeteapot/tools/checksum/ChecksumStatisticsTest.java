@@ -0,0 +1,61 @@
+package com.github.codeteapot.tools.checksum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ChecksumStatisticsTest {
+
+  private static final long SOME_FILES = 4L;
+  private static final long SOME_BYTES = 1024L;
+  private static final long NO_LINKED_FILES = 0L;
+  private static final long SOME_NANOS = 3_000_000L;
+
+  private ChecksumStatistics statistics;
+
+  @BeforeEach
+  public void setUp() {
+    statistics = new ChecksumStatistics();
+  }
+
+  @Test
+  public void hitRatios() {
+    statistics.walked(SOME_FILES, SOME_NANOS);
+    statistics.indexed(SOME_FILES / 2L);
+    statistics.lookedUp(true);
+    statistics.lookedUp(false);
+
+    assertThat(statistics.getIndexHitRatio()).isEqualTo(0.5);
+    assertThat(statistics.getHashCacheHitRatio()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void noHitRatiosWithoutLookups() {
+    assertThat(statistics.getIndexHitRatio()).isZero();
+    assertThat(statistics.getHashCacheHitRatio()).isZero();
+  }
+
+  @Test
+  public void summaryLine() {
+    statistics.walked(SOME_FILES, SOME_NANOS);
+    statistics.hashing(SOME_FILES, SOME_BYTES, NO_LINKED_FILES);
+
+    assertThat(statistics.toString())
+        .startsWith("4 files walked")
+        .contains("4 hashed (1024 bytes)")
+        .contains("walk 3 ms")
+        .doesNotContain("\n");
+  }
+
+  @Test
+  public void jsonObject() {
+    statistics.walked(SOME_FILES, SOME_NANOS);
+    statistics.indexed(SOME_FILES);
+
+    assertThat(statistics.toJson())
+        .startsWith("{\"walkedFiles\":4,")
+        .contains("\"indexedFiles\":4,")
+        .contains("\"indexHitRatio\":1.0000,")
+        .endsWith("\"storeTime\":0}");
+  }
+}
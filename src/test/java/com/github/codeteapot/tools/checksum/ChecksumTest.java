@@ -2,9 +2,13 @@ package com.github.codeteapot.tools.checksum;
 
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.io.File;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -19,6 +23,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 public class ChecksumTest {
 
   private static final String SOME_ALGORITHM = "SOME-ALGORITHM";
+  private static final String ANOTHER_ALGORITHM = "ANOTHER-ALGORITHM";
+  private static final Optional<String> NO_ALGORITHM = Optional.empty();
+  private static final boolean LAZY = true;
+  private static final boolean GENERATION_MATCH = true;
+  private static final boolean GENERATION_MISMATCH = false;
+  private static final String FIRST_PATH = "file/first.txt";
+  private static final String SECOND_PATH = "second.doc";
   private static final Set<ChecksumEntry> SOME_CHECKSUM_ENTRY_SET = Stream.of(
       new ChecksumEntry("file/first.txt", new byte[] {0x01, 0x02, 0x03}),
       new ChecksumEntry("second.doc", new byte[] {0x04, 0x05, 0x06}))
@@ -39,7 +50,6 @@ public class ChecksumTest {
       new ChecksumEntry("file/first.txt", new byte[] {0x01, 0x02, 0x03}))
       .collect(toSet());
 
-
   @Mock
   private ChecksumEntryManager entryManager;
 
@@ -47,20 +57,21 @@ public class ChecksumTest {
 
   @BeforeEach
   public void setUp(
-      @Mock MessageDigestCreator someMessageDigestCreator,
+      @Mock FingerprintAlgorithm someAlgorithm,
       @Mock Predicate<String> someIgnoreFile,
       @TempDir File someDirectory) throws Exception {
+    lenient().when(someAlgorithm.getName())
+        .thenReturn(SOME_ALGORITHM);
     when(entryManager.generate(
-        someMessageDigestCreator,
-        SOME_ALGORITHM,
+        someAlgorithm,
         someDirectory,
         someIgnoreFile))
             .thenReturn(SOME_CHECKSUM_ENTRY_SET);
 
     checksum = new Checksum(
         entryManager,
-        someMessageDigestCreator,
-        SOME_ALGORITHM,
+        someAlgorithm,
+        new ChecksumSettings(),
         someDirectory,
         someIgnoreFile);
   }
@@ -68,7 +79,9 @@ public class ChecksumTest {
   @Test
   public void matchWhenHasSameEntries(@TempDir File someChecksumFile) throws Exception {
     when(entryManager.load(someChecksumFile))
-        .thenReturn(SOME_LOADED_CHECKSUM_ENTRY_SET);
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            SOME_LOADED_CHECKSUM_ENTRY_SET));
 
     boolean result = checksum.match(someChecksumFile);
 
@@ -78,7 +91,9 @@ public class ChecksumTest {
   @Test
   public void notMatchWhenHasDifferentEntries(@TempDir File anotherChecksumFile) throws Exception {
     when(entryManager.load(anotherChecksumFile))
-        .thenReturn(ANOTHER_LOADED_CHECKSUM_ENTRY_SET);
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            ANOTHER_LOADED_CHECKSUM_ENTRY_SET));
 
     boolean result = checksum.match(anotherChecksumFile);
 
@@ -89,7 +104,9 @@ public class ChecksumTest {
   public void notMatchWhenHasDifferentEntriesByPath(@TempDir File anotherChecksumFile)
       throws Exception {
     when(entryManager.load(anotherChecksumFile))
-        .thenReturn(ANOTHER_PATH_LOADED_CHECKSUM_ENTRY_SET);
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            ANOTHER_PATH_LOADED_CHECKSUM_ENTRY_SET));
 
     boolean result = checksum.match(anotherChecksumFile);
 
@@ -100,18 +117,186 @@ public class ChecksumTest {
   public void notMatchWhenHasDifferentEntriesByHash(@TempDir File anotherChecksumFile)
       throws Exception {
     when(entryManager.load(anotherChecksumFile))
-        .thenReturn(ANOTHER_HASH_LOADED_CHECKSUM_ENTRY_SET);
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            ANOTHER_HASH_LOADED_CHECKSUM_ENTRY_SET));
+
+    boolean result = checksum.match(anotherChecksumFile);
+
+    assertThat(result).isFalse();
+  }
+
+  @Test
+  public void matchWhenWasNeverStored(@TempDir File someChecksumFile) throws Exception {
+    when(entryManager.load(someChecksumFile))
+        .thenReturn(new StoredChecksum(NO_ALGORITHM, SOME_LOADED_CHECKSUM_ENTRY_SET));
+
+    boolean result = checksum.match(someChecksumFile);
+
+    assertThat(result).isTrue();
+  }
+
+  @Test
+  public void notMatchWhenHasAnotherAlgorithm(@TempDir File anotherChecksumFile)
+      throws Exception {
+    when(entryManager.load(anotherChecksumFile))
+        .thenReturn(new StoredChecksum(
+            Optional.of(ANOTHER_ALGORITHM),
+            SOME_LOADED_CHECKSUM_ENTRY_SET));
 
     boolean result = checksum.match(anotherChecksumFile);
 
     assertThat(result).isFalse();
   }
 
+  @Test
+  public void getChangesByPath(@TempDir File someChecksumFile) throws Exception {
+    when(entryManager.load(someChecksumFile))
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            ANOTHER_PATH_LOADED_CHECKSUM_ENTRY_SET));
+
+    Set<String> changes = checksum.changes(someChecksumFile);
+
+    assertThat(changes).containsExactly("another.txt", SECOND_PATH);
+  }
+
+  @Test
+  public void getChangesByHash(@TempDir File someChecksumFile) throws Exception {
+    when(entryManager.load(someChecksumFile))
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            ANOTHER_HASH_LOADED_CHECKSUM_ENTRY_SET));
+
+    Set<String> changes = checksum.changes(someChecksumFile);
+
+    assertThat(changes).containsExactly(SECOND_PATH);
+  }
+
+  @Test
+  public void getAllChangesWhenHasAnotherAlgorithm(@TempDir File someChecksumFile)
+      throws Exception {
+    when(entryManager.load(someChecksumFile))
+        .thenReturn(new StoredChecksum(
+            Optional.of(ANOTHER_ALGORITHM),
+            SOME_LOADED_CHECKSUM_ENTRY_SET));
+
+    Set<String> changes = checksum.changes(someChecksumFile);
+
+    assertThat(changes).containsExactly(FIRST_PATH, SECOND_PATH);
+  }
+
+  @Test
+  public void matchLazilyWhenGenerationMatches(
+      @Mock FingerprintAlgorithm someAlgorithm,
+      @Mock ChecksumGeneration someGeneration,
+      @Mock Predicate<String> someIgnoreFile,
+      @TempDir File someDirectory,
+      @TempDir File someChecksumFile) throws Exception {
+    Checksum lazyChecksum = lazyChecksum(
+        someAlgorithm,
+        someGeneration,
+        someDirectory,
+        someIgnoreFile);
+    when(entryManager.load(someChecksumFile))
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            SOME_LOADED_CHECKSUM_ENTRY_SET));
+    when(someGeneration.matches(ChecksumEntryTable.of(SOME_LOADED_CHECKSUM_ENTRY_SET)))
+        .thenReturn(GENERATION_MATCH);
+
+    boolean result = lazyChecksum.match(someChecksumFile);
+
+    assertThat(result).isTrue();
+    verify(entryManager).complete(someGeneration);
+  }
+
+  @Test
+  public void notMatchLazilyWhenGenerationDoesNotMatch(
+      @Mock FingerprintAlgorithm someAlgorithm,
+      @Mock ChecksumGeneration someGeneration,
+      @Mock Predicate<String> someIgnoreFile,
+      @TempDir File someDirectory,
+      @TempDir File someChecksumFile) throws Exception {
+    Checksum lazyChecksum = lazyChecksum(
+        someAlgorithm,
+        someGeneration,
+        someDirectory,
+        someIgnoreFile);
+    when(entryManager.load(someChecksumFile))
+        .thenReturn(new StoredChecksum(
+            Optional.of(SOME_ALGORITHM),
+            ANOTHER_LOADED_CHECKSUM_ENTRY_SET));
+    when(someGeneration.matches(ChecksumEntryTable.of(ANOTHER_LOADED_CHECKSUM_ENTRY_SET)))
+        .thenReturn(GENERATION_MISMATCH);
+
+    boolean result = lazyChecksum.match(someChecksumFile);
+
+    assertThat(result).isFalse();
+    verify(entryManager, never()).complete(any());
+  }
+
+  @Test
+  public void notMatchLazilyWhenHasAnotherAlgorithm(
+      @Mock FingerprintAlgorithm someAlgorithm,
+      @Mock ChecksumGeneration someGeneration,
+      @Mock Predicate<String> someIgnoreFile,
+      @TempDir File someDirectory,
+      @TempDir File someChecksumFile) throws Exception {
+    Checksum lazyChecksum = lazyChecksum(
+        someAlgorithm,
+        someGeneration,
+        someDirectory,
+        someIgnoreFile);
+    when(entryManager.load(someChecksumFile))
+        .thenReturn(new StoredChecksum(
+            Optional.of(ANOTHER_ALGORITHM),
+            SOME_LOADED_CHECKSUM_ENTRY_SET));
+
+    boolean result = lazyChecksum.match(someChecksumFile);
+
+    assertThat(result).isFalse();
+    verify(someGeneration, never()).matches(any());
+  }
+
+  @Test
+  public void storeLazyEntries(
+      @Mock FingerprintAlgorithm someAlgorithm,
+      @Mock ChecksumGeneration someGeneration,
+      @Mock Predicate<String> someIgnoreFile,
+      @TempDir File someDirectory,
+      @TempDir File someChecksumFile) throws Exception {
+    Checksum lazyChecksum = lazyChecksum(
+        someAlgorithm,
+        someGeneration,
+        someDirectory,
+        someIgnoreFile);
+    when(entryManager.complete(someGeneration))
+        .thenReturn(SOME_CHECKSUM_ENTRY_SET);
+
+    lazyChecksum.store(someChecksumFile);
+
+    verify(entryManager)
+        .store(someChecksumFile, SOME_ALGORITHM, ChecksumEntryTable.of(SOME_CHECKSUM_ENTRY_SET));
+  }
+
   @Test
   public void storeEntries(@TempDir File someChecksumFile) throws Exception {
     checksum.store(someChecksumFile);
 
     verify(entryManager)
-        .store(someChecksumFile, SOME_CHECKSUM_ENTRY_SET);
+        .store(someChecksumFile, SOME_ALGORITHM, ChecksumEntryTable.of(SOME_CHECKSUM_ENTRY_SET));
+  }
+
+  private Checksum lazyChecksum(FingerprintAlgorithm someAlgorithm,
+      ChecksumGeneration someGeneration, File someDirectory, Predicate<String> someIgnoreFile)
+      throws Exception {
+    when(someAlgorithm.getName())
+        .thenReturn(SOME_ALGORITHM);
+    when(entryManager.start(someAlgorithm, someDirectory, someIgnoreFile))
+        .thenReturn(someGeneration);
+    ChecksumSettings settings = new ChecksumSettings();
+    settings.setLazy(LAZY);
+    return new Checksum(entryManager, someAlgorithm, settings, someDirectory, someIgnoreFile);
   }
 }
@@ -0,0 +1,39 @@
+package com.github.codeteapot.tools.checksum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Integration tests run against the packaged jar on JDKs with virtual threads, so the class picked
+ * from the multi-release jar is the one being tested there.
+ */
+@Tag("integration")
+public class ChecksumThreadsTest {
+
+  private static final String IS_VIRTUAL_METHOD_NAME = "isVirtual";
+  private static final String IO_THREAD_NAME_PREFIX = "checksum-io-";
+  private static final Runnable NOTHING = () -> {};
+
+  @Test
+  public void ioThreadsAreVirtualWhenSupported() throws Exception {
+    Thread thread = ChecksumThreads.ioThreadFactory().newThread(NOTHING);
+
+    Optional<Method> isVirtual = isVirtualMethod();
+
+    assertThat(thread.getName()).startsWith(IO_THREAD_NAME_PREFIX);
+    assertThat(thread.isDaemon()).isTrue();
+    assertThat(isVirtual.isPresent() ? isVirtual.get().invoke(thread) : false)
+        .isEqualTo(isVirtual.isPresent());
+  }
+
+  private static Optional<Method> isVirtualMethod() {
+    try {
+      return Optional.of(Thread.class.getMethod(IS_VIRTUAL_METHOD_NAME));
+    } catch (NoSuchMethodException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.github.codeteapot.tools.checksum;
+
+import static java.nio.ByteBuffer.allocateDirect;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import org.junit.jupiter.api.Test;
+
+public class FingerprintAlgorithmTest {
+
+  private static final String XXH3_NAME = "XXH3";
+  private static final String XXH64_NAME = "XXH64";
+  private static final String CRC32C_NAME = "CRC32C";
+  private static final String BLAKE3_NAME = "BLAKE3";
+  private static final String LOWER_CASE_XXH3_NAME = "xxh3";
+  private static final String MESSAGE_DIGEST_NAME = "SHA-256";
+  private static final String UNKNOWN_NAME = "UNKNOWN";
+
+  private static final int SHORT_CONTENT_LENGTH = 3;
+  private static final int MEDIUM_CONTENT_LENGTH = 300;
+  private static final int LONG_CONTENT_LENGTH = 5000;
+  private static final int PART_LENGTH = 7;
+
+  private static final byte[] EMPTY_XXH3 = ChecksumHex.parse("2D06800538D394C2");
+  private static final byte[] SHORT_XXH3 = ChecksumHex.parse("5F4299FC161C9CBB");
+  private static final byte[] MEDIUM_XXH3 = ChecksumHex.parse("D44052F5A3485425");
+  private static final byte[] LONG_XXH3 = ChecksumHex.parse("1B74BDA2C82A8C7A");
+
+  private static final byte[] EMPTY_XXH64 = ChecksumHex.parse("EF46DB3751D8E999");
+  private static final byte[] SHORT_XXH64 = ChecksumHex.parse("E5C7BB4533BC65DD");
+  private static final byte[] LONG_XXH64 = ChecksumHex.parse("F52078F00F25FC9A");
+
+  private static final byte[] EMPTY_CRC32C = ChecksumHex.parse("00000000");
+  private static final byte[] MEDIUM_CRC32C = ChecksumHex.parse("420CB3BA");
+
+  private static final byte[] EMPTY_BLAKE3 = ChecksumHex.parse(
+      "AF1349B9F5F9A1A6A0404DEA36DCC9499BCB25C9ADC112B7CC9A93CAE41F3262");
+  private static final byte[] MEDIUM_BLAKE3 = ChecksumHex.parse(
+      "9D58939984AA6A8148C6712778C70C772F78A932C5B717BFEAA09102EE9B6BEA");
+  private static final byte[] LONG_BLAKE3 = ChecksumHex.parse(
+      "8D7514975DB1B0EC1B2F3118FBE41826AE215EA58C6FF84915A86BA67479F111");
+
+  private static final byte[] EMPTY_SHA256 = ChecksumHex.parse(
+      "E3B0C44298FC1C149AFBF4C8996FB92427AE41E4649B934CA495991B7852B855");
+
+  @Test
+  public void calculateXxh3() throws Exception {
+    FingerprintAlgorithm algorithm = FingerprintAlgorithm.forName(XXH3_NAME);
+
+    assertThat(algorithm.getName()).isEqualTo(XXH3_NAME);
+    assertThat(fingerprint(algorithm, 0)).isEqualTo(EMPTY_XXH3);
+    assertThat(fingerprint(algorithm, SHORT_CONTENT_LENGTH)).isEqualTo(SHORT_XXH3);
+    assertThat(fingerprint(algorithm, MEDIUM_CONTENT_LENGTH)).isEqualTo(MEDIUM_XXH3);
+    assertThat(fingerprint(algorithm, LONG_CONTENT_LENGTH)).isEqualTo(LONG_XXH3);
+  }
+
+  @Test
+  public void calculateXxh64() throws Exception {
+    FingerprintAlgorithm algorithm = FingerprintAlgorithm.forName(XXH64_NAME);
+
+    assertThat(algorithm.getName()).isEqualTo(XXH64_NAME);
+    assertThat(fingerprint(algorithm, 0)).isEqualTo(EMPTY_XXH64);
+    assertThat(fingerprint(algorithm, SHORT_CONTENT_LENGTH)).isEqualTo(SHORT_XXH64);
+    assertThat(fingerprint(algorithm, LONG_CONTENT_LENGTH)).isEqualTo(LONG_XXH64);
+  }
+
+  @Test
+  public void calculateCrc32c() throws Exception {
+    FingerprintAlgorithm algorithm = FingerprintAlgorithm.forName(CRC32C_NAME);
+
+    assertThat(algorithm.getName()).isEqualTo(CRC32C_NAME);
+    assertThat(fingerprint(algorithm, 0)).isEqualTo(EMPTY_CRC32C);
+    assertThat(fingerprint(algorithm, MEDIUM_CONTENT_LENGTH)).isEqualTo(MEDIUM_CRC32C);
+  }
+
+  @Test
+  public void calculateCrc32cWithTable() throws Exception {
+    FingerprintFunction function = new Crc32cFunction(new Crc32cFunction.TableChecksum());
+
+    assertThat(fingerprint(function, MEDIUM_CONTENT_LENGTH)).isEqualTo(MEDIUM_CRC32C);
+  }
+
+  @Test
+  public void calculateBlake3() throws Exception {
+    FingerprintAlgorithm algorithm = FingerprintAlgorithm.forName(BLAKE3_NAME);
+
+    assertThat(algorithm.getName()).isEqualTo(BLAKE3_NAME);
+    assertThat(fingerprint(algorithm, 0)).isEqualTo(EMPTY_BLAKE3);
+    assertThat(fingerprint(algorithm, MEDIUM_CONTENT_LENGTH)).isEqualTo(MEDIUM_BLAKE3);
+    assertThat(fingerprint(algorithm, LONG_CONTENT_LENGTH)).isEqualTo(LONG_BLAKE3);
+  }
+
+  @Test
+  public void calculateFromDirectBuffer() throws Exception {
+    FingerprintFunction function = FingerprintAlgorithm.forName(XXH3_NAME).create();
+    ByteBuffer buffer = allocateDirect(LONG_CONTENT_LENGTH);
+    buffer.put(content(LONG_CONTENT_LENGTH));
+    buffer.flip();
+
+    function.update(buffer);
+
+    assertThat(buffer.hasRemaining()).isFalse();
+    assertThat(function.digest()).isEqualTo(LONG_XXH3);
+  }
+
+  @Test
+  public void reuseAfterDigest() throws Exception {
+    FingerprintFunction function = FingerprintAlgorithm.forName(BLAKE3_NAME).create();
+    fingerprint(function, LONG_CONTENT_LENGTH);
+
+    byte[] result = fingerprint(function, MEDIUM_CONTENT_LENGTH);
+
+    assertThat(result).isEqualTo(MEDIUM_BLAKE3);
+  }
+
+  @Test
+  public void getIgnoringCase() throws Exception {
+    FingerprintAlgorithm algorithm = FingerprintAlgorithm.forName(LOWER_CASE_XXH3_NAME);
+
+    assertThat(algorithm.getName()).isEqualTo(XXH3_NAME);
+  }
+
+  @Test
+  public void getMessageDigest() throws Exception {
+    FingerprintAlgorithm algorithm = FingerprintAlgorithm.forName(MESSAGE_DIGEST_NAME);
+
+    assertThat(algorithm.getName()).isEqualTo(MESSAGE_DIGEST_NAME);
+    assertThat(fingerprint(algorithm, 0)).isEqualTo(EMPTY_SHA256);
+  }
+
+  @Test
+  public void failWhenUnknown() {
+    Throwable e = catchThrowable(() -> FingerprintAlgorithm.forName(UNKNOWN_NAME));
+
+    assertThat(e).isInstanceOf(NoSuchAlgorithmException.class);
+  }
+
+  private static byte[] fingerprint(FingerprintAlgorithm algorithm, int length)
+      throws NoSuchAlgorithmException {
+    return fingerprint(algorithm.create(), length);
+  }
+
+  private static byte[] fingerprint(FingerprintFunction function, int length) {
+    byte[] content = content(length);
+    for (int offset = 0; offset < length; offset += PART_LENGTH) {
+      function.update(content, offset, Math.min(PART_LENGTH, length - offset));
+    }
+    return function.digest();
+  }
+
+  private static byte[] content(int length) {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; ++i) {
+      content[i] = (byte) i;
+    }
+    return content;
+  }
+}
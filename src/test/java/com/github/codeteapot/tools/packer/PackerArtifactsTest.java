@@ -0,0 +1,51 @@
+package com.github.codeteapot.tools.packer;
+
+import static com.github.codeteapot.tools.packer.PackerMessage.DATA_ARTIFACT_BUILDER_ID;
+import static com.github.codeteapot.tools.packer.PackerMessage.DATA_ARTIFACT_FILE;
+import static com.github.codeteapot.tools.packer.PackerMessage.DATA_ARTIFACT_ID;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_ARTIFACT;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_UI;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PackerArtifactsTest {
+
+  private static final String SOME_BUILDER_ID = "mitchellh.virtualbox";
+  private static final String SOME_ID = "VM";
+  private static final String FIRST_FILE = "output/disk-001.vmdk";
+  private static final String SECOND_FILE = "output/vm.ovf";
+
+  @Test
+  public void receiveArtifactData() {
+    PackerArtifacts artifacts = new PackerArtifacts();
+
+    artifacts.receive(new TestPackerMessage(TYPE_UI, "say", "Some message"));
+    artifacts.receive(new TestPackerMessage(TYPE_ARTIFACT, "0", DATA_ARTIFACT_BUILDER_ID,
+        SOME_BUILDER_ID));
+    artifacts.receive(new TestPackerMessage(TYPE_ARTIFACT, "0", DATA_ARTIFACT_ID, SOME_ID));
+    artifacts.receive(new TestPackerMessage(TYPE_ARTIFACT, "0", DATA_ARTIFACT_FILE, "1",
+        SECOND_FILE));
+    artifacts.receive(new TestPackerMessage(TYPE_ARTIFACT, "0", DATA_ARTIFACT_FILE, "0",
+        FIRST_FILE));
+    List<PackerArtifact> result = artifacts.getArtifacts();
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getNumber()).isEqualTo(0);
+    assertThat(result.get(0).getBuilderId()).hasValue(SOME_BUILDER_ID);
+    assertThat(result.get(0).getId()).hasValue(SOME_ID);
+    assertThat(result.get(0).getString()).isEmpty();
+    assertThat(result.get(0).getFiles()).containsExactly(FIRST_FILE, SECOND_FILE);
+  }
+
+  @Test
+  public void ignoreMalformedArtifactData() {
+    PackerArtifacts artifacts = new PackerArtifacts();
+
+    artifacts.receive(new TestPackerMessage(TYPE_ARTIFACT, "first", DATA_ARTIFACT_ID, SOME_ID));
+    artifacts.receive(new TestPackerMessage(TYPE_ARTIFACT, "0"));
+
+    assertThat(artifacts.getArtifacts()).isEmpty();
+  }
+}
@@ -0,0 +1,115 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.write;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackerBlockArchiveTest {
+
+  private static final int SOME_CONTENT_SIZE = 5 * 1024 * 1024 + 123;
+  private static final String COMPRESSIBLE_NAME = "0-0";
+  private static final String RANDOM_NAME = "0-1";
+  private static final String EMPTY_NAME = "1-0";
+  private static final String MISSING_NAME = "2-0";
+
+  @Test
+  public void extractEachFile(@TempDir File tempDir) throws Exception {
+    byte[] compressibleContent = compressibleContent();
+    byte[] randomContent = randomContent();
+    PackerBlockArchive archive = someArchive(tempDir, compressibleContent, randomContent);
+    Path extractedFile = tempDir.toPath().resolve("extracted-file");
+
+    archive.extract(RANDOM_NAME, extractedFile);
+    assertThat(readAllBytes(extractedFile)).isEqualTo(randomContent);
+    archive.extract(COMPRESSIBLE_NAME, extractedFile);
+    assertThat(readAllBytes(extractedFile)).isEqualTo(compressibleContent);
+    archive.extract(EMPTY_NAME, extractedFile);
+    assertThat(readAllBytes(extractedFile)).isEmpty();
+
+    assertThat(archive.names()).containsExactly(COMPRESSIBLE_NAME, RANDOM_NAME, EMPTY_NAME);
+    assertThat(archive.size(RANDOM_NAME)).isEqualTo(SOME_CONTENT_SIZE);
+    assertThat(size(tempDir.toPath().resolve("archive")))
+        .isLessThan(2L * SOME_CONTENT_SIZE);
+  }
+
+  @Test
+  public void readEachFile(@TempDir File tempDir) throws Exception {
+    byte[] compressibleContent = compressibleContent();
+    byte[] randomContent = randomContent();
+    PackerBlockArchive archive = someArchive(tempDir, compressibleContent, randomContent);
+
+    try (InputStream input = archive.open(COMPRESSIBLE_NAME)) {
+      assertThat(input).hasSameContentAs(new ByteArrayInputStream(compressibleContent));
+    }
+    try (InputStream input = archive.open(RANDOM_NAME)) {
+      assertThat(input).hasSameContentAs(new ByteArrayInputStream(randomContent));
+    }
+  }
+
+  @Test
+  public void extractMissingFile(@TempDir File tempDir) throws Exception {
+    PackerBlockArchive archive = someArchive(tempDir, compressibleContent(), randomContent());
+
+    Throwable e = catchThrowable(() -> archive.extract(
+        MISSING_NAME,
+        tempDir.toPath().resolve("extracted-file")));
+
+    assertThat(e).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void extractFromInvalidArchive(@TempDir File tempDir) throws Exception {
+    Path archiveFile = tempDir.toPath().resolve("archive");
+    write(archiveFile, randomContent());
+    PackerBlockArchive archive = new PackerBlockArchive(archiveFile);
+
+    Throwable e = catchThrowable(() -> archive.extract(
+        COMPRESSIBLE_NAME,
+        tempDir.toPath().resolve("extracted-file")));
+
+    assertThat(e).isInstanceOf(IOException.class);
+  }
+
+  private static PackerBlockArchive someArchive(File tempDir, byte[] compressibleContent,
+      byte[] randomContent) throws IOException {
+    Path compressibleFile = tempDir.toPath().resolve("compressible-file");
+    Path randomFile = tempDir.toPath().resolve("random-file");
+    Path emptyFile = tempDir.toPath().resolve("empty-file");
+    write(compressibleFile, compressibleContent);
+    write(randomFile, randomContent);
+    write(emptyFile, new byte[0]);
+    Map<String, Path> files = new LinkedHashMap<>();
+    files.put(COMPRESSIBLE_NAME, compressibleFile);
+    files.put(RANDOM_NAME, randomFile);
+    files.put(EMPTY_NAME, emptyFile);
+    PackerBlockArchive archive = new PackerBlockArchive(tempDir.toPath().resolve("archive"));
+    archive.write(files);
+    return archive;
+  }
+
+  private static byte[] compressibleContent() {
+    byte[] content = new byte[SOME_CONTENT_SIZE];
+    Arrays.fill(content, (byte) 'a');
+    return content;
+  }
+
+  private static byte[] randomContent() {
+    byte[] content = new byte[SOME_CONTENT_SIZE];
+    new Random(1L).nextBytes(content);
+    return content;
+  }
+}
@@ -0,0 +1,112 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.Files.walk;
+import static java.nio.file.Files.write;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackerChunkStoreTest {
+
+  private static final int SOME_CONTENT_SIZE = 16 * 1024 * 1024;
+  private static final int INSERTION_POSITION = 5 * 1024 * 1024;
+  private static final byte[] INSERTION = {1, 2, 3, 4, 5, 6, 7};
+  private static final int SOME_READ_THREADS = 4;
+  private static final long NO_GRACE_PERIOD = 0L;
+  private static final long OLD_TIME = 1_600_000_000_000L;
+
+  @Test
+  public void readWrittenFile(@TempDir File tempDir) throws Exception {
+    byte[] someContent = someContent();
+    Path someFile = tempDir.toPath().resolve("some-file");
+    Path someRecipe = tempDir.toPath().resolve("some-recipe");
+    Path restoredFile = tempDir.toPath().resolve("restored-file");
+    write(someFile, someContent);
+    PackerChunkStore store = new PackerChunkStore(
+        tempDir.toPath().resolve("chunks"),
+        SOME_READ_THREADS);
+
+    store.write(someFile, someRecipe);
+    store.read(someRecipe, restoredFile);
+
+    assertThat(readAllBytes(restoredFile)).isEqualTo(someContent);
+    assertThat(readAllLines(someRecipe)).hasSizeGreaterThan(1);
+    assertThat(store.size(someRecipe)).isEqualTo(SOME_CONTENT_SIZE);
+    try (InputStream input = store.open(someRecipe)) {
+      assertThat(input).hasSameContentAs(new ByteArrayInputStream(someContent));
+    }
+  }
+
+  @Test
+  public void shareChunksOfUnchangedContent(@TempDir File tempDir) throws Exception {
+    byte[] someContent = someContent();
+    byte[] insertedContent = new byte[someContent.length + INSERTION.length];
+    System.arraycopy(someContent, 0, insertedContent, 0, INSERTION_POSITION);
+    System.arraycopy(INSERTION, 0, insertedContent, INSERTION_POSITION, INSERTION.length);
+    System.arraycopy(someContent, INSERTION_POSITION, insertedContent,
+        INSERTION_POSITION + INSERTION.length, someContent.length - INSERTION_POSITION);
+    Path someFile = tempDir.toPath().resolve("some-file");
+    Path insertedFile = tempDir.toPath().resolve("inserted-file");
+    Path someRecipe = tempDir.toPath().resolve("some-recipe");
+    Path insertedRecipe = tempDir.toPath().resolve("inserted-recipe");
+    write(someFile, someContent);
+    write(insertedFile, insertedContent);
+    PackerChunkStore store = new PackerChunkStore(tempDir.toPath().resolve("chunks"));
+
+    store.write(someFile, someRecipe);
+    store.write(insertedFile, insertedRecipe);
+
+    List<String> changedLines = new ArrayList<>(readAllLines(insertedRecipe));
+    changedLines.removeAll(readAllLines(someRecipe));
+    assertThat(changedLines).hasSizeLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void collectUnreferencedChunks(@TempDir File tempDir) throws Exception {
+    Path chunks = tempDir.toPath().resolve("chunks");
+    Path someFile = tempDir.toPath().resolve("some-file");
+    Path anotherFile = tempDir.toPath().resolve("another-file");
+    Path someRecipe = tempDir.toPath().resolve("some-recipe");
+    Path anotherRecipe = tempDir.toPath().resolve("another-recipe");
+    write(someFile, someContent());
+    write(anotherFile, new byte[] {1, 2, 3});
+    PackerChunkStore store = new PackerChunkStore(chunks);
+    store.write(someFile, someRecipe);
+    store.write(anotherFile, anotherRecipe);
+    for (Path chunk : chunkFiles(chunks)) {
+      Files.setLastModifiedTime(chunk, FileTime.fromMillis(OLD_TIME));
+    }
+
+    store.collect(singletonList(someRecipe), NO_GRACE_PERIOD);
+
+    assertThat(chunkFiles(chunks)).hasSize(readAllLines(someRecipe).size());
+    store.read(someRecipe, tempDir.toPath().resolve("restored-file"));
+  }
+
+  private static List<Path> chunkFiles(Path chunks) throws Exception {
+    try (Stream<Path> paths = walk(chunks)) {
+      return paths.filter(Files::isRegularFile).collect(toList());
+    }
+  }
+
+  private static byte[] someContent() {
+    byte[] content = new byte[SOME_CONTENT_SIZE];
+    new Random(1L).nextBytes(content);
+    return content;
+  }
+}
@@ -0,0 +1,272 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.walk;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackerOutputCacheTest {
+
+  private static final List<String> SOME_KEY = asList("SHA-256:0123", "template.json");
+  private static final List<String> ANOTHER_KEY = asList("SHA-256:4567", "template.json");
+  private static final String SOME_TARGET = "virtualbox-iso";
+  private static final int SOME_NUMBER = 0;
+  private static final String SOME_BUILDER_ID = "mitchellh.virtualbox";
+  private static final String SOME_STRING = "VM files in directory: output";
+  private static final String SOME_FILE = "output/vm.ovf";
+  private static final String OUTSIDE_FILE = "../outside/vm.ovf";
+  private static final String MANIFEST_FILE_NAME = "manifest.properties";
+  private static final String TRUNCATED_MANIFEST_CONTENT = "artifacts=1\nartifact.0.fi";
+  private static final byte[] SOME_CONTENT = "some content".getBytes(UTF_8);
+  private static final boolean DEDUPLICATE = true;
+  private static final boolean DO_NOT_DEDUPLICATE = false;
+  private static final boolean COMPRESS = true;
+
+  @Test
+  public void restoreStoredArtifacts(
+      @TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    File someFile = new File(someWorkingDir, SOME_FILE);
+    someFile.getParentFile().mkdirs();
+    write(someFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir);
+
+    boolean stored = cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(SOME_FILE))));
+    Optional<List<PackerArtifact>> restored = cache.restore(SOME_KEY, anotherWorkingDir);
+
+    assertThat(stored).isTrue();
+    assertThat(restored).hasValueSatisfying(artifacts -> {
+      assertThat(artifacts).hasSize(1);
+      assertThat(artifacts.get(0).getTarget()).isEqualTo(SOME_TARGET);
+      assertThat(artifacts.get(0).getNumber()).isEqualTo(SOME_NUMBER);
+      assertThat(artifacts.get(0).getBuilderId()).hasValue(SOME_BUILDER_ID);
+      assertThat(artifacts.get(0).getId()).isEmpty();
+      assertThat(artifacts.get(0).getString()).hasValue(SOME_STRING);
+      assertThat(artifacts.get(0).getFiles()).containsExactly(SOME_FILE);
+    });
+    assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+        .isEqualTo(SOME_CONTENT);
+  }
+
+  @Test
+  public void restoreDeduplicatedArtifacts(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    File someFile = new File(someWorkingDir, SOME_FILE);
+    someFile.getParentFile().mkdirs();
+    write(someFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir, null, DEDUPLICATE);
+
+    cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(SOME_FILE))));
+    Optional<List<PackerArtifact>> restored = new PackerOutputCache(cacheDir)
+        .restore(SOME_KEY, anotherWorkingDir);
+
+    assertThat(restored).isPresent();
+    assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+        .isEqualTo(SOME_CONTENT);
+  }
+
+  @Test
+  public void restoreCompressedArtifacts(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    File someFile = new File(someWorkingDir, SOME_FILE);
+    someFile.getParentFile().mkdirs();
+    write(someFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir, null, DO_NOT_DEDUPLICATE, COMPRESS);
+
+    cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(SOME_FILE))));
+    Optional<List<PackerArtifact>> restored = new PackerOutputCache(cacheDir)
+        .restore(SOME_KEY, anotherWorkingDir);
+
+    assertThat(restored).isPresent();
+    assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+        .isEqualTo(SOME_CONTENT);
+  }
+
+  @Test
+  public void storeSameKeyTwice(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    File someFile = new File(someWorkingDir, SOME_FILE);
+    someFile.getParentFile().mkdirs();
+    write(someFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir);
+    List<PackerArtifact> artifacts = singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(SOME_FILE)));
+    cache.store(SOME_KEY, someWorkingDir, artifacts);
+
+    boolean stored = cache.store(SOME_KEY, someWorkingDir, artifacts);
+    Optional<List<PackerArtifact>> restored = cache.restore(SOME_KEY, anotherWorkingDir);
+
+    assertThat(stored).isTrue();
+    assertThat(restored).isPresent();
+    assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+        .isEqualTo(SOME_CONTENT);
+  }
+
+  @Test
+  public void restoreNothingOfAnotherKey(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File someFile = new File(someWorkingDir, SOME_FILE);
+    someFile.getParentFile().mkdirs();
+    write(someFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir);
+    cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(SOME_FILE))));
+
+    Optional<List<PackerArtifact>> restored = cache.restore(ANOTHER_KEY, someWorkingDir);
+
+    assertThat(restored).isEmpty();
+  }
+
+  @Test
+  public void restoreNothingOfFilesOutsideWorkingDir(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    File someFile = new File(someWorkingDir, SOME_FILE);
+    someFile.getParentFile().mkdirs();
+    write(someFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir);
+    cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(SOME_FILE))));
+    try (Stream<Path> paths = walk(cacheDir.toPath())) {
+      Path manifestFile = paths
+          .filter(path -> path.getFileName().toString().equals(MANIFEST_FILE_NAME))
+          .findFirst()
+          .get();
+      write(manifestFile, new String(readAllBytes(manifestFile), UTF_8)
+          .replace(SOME_FILE, OUTSIDE_FILE)
+          .getBytes(UTF_8));
+    }
+
+    Throwable e = catchThrowable(() -> cache.restore(SOME_KEY, anotherWorkingDir));
+
+    assertThat(e).isInstanceOf(IOException.class);
+    assertThat(new File(anotherWorkingDir, OUTSIDE_FILE)).doesNotExist();
+  }
+
+  @Test
+  public void restoreNothingOfTruncatedManifest(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    File someFile = new File(someWorkingDir, SOME_FILE);
+    someFile.getParentFile().mkdirs();
+    write(someFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir);
+    cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(SOME_FILE))));
+    try (Stream<Path> paths = walk(cacheDir.toPath())) {
+      write(paths
+          .filter(path -> path.getFileName().toString().equals(MANIFEST_FILE_NAME))
+          .findFirst()
+          .get(), TRUNCATED_MANIFEST_CONTENT.getBytes(UTF_8));
+    }
+
+    Throwable e = catchThrowable(() -> cache.restore(SOME_KEY, anotherWorkingDir));
+    Optional<List<PackerArtifact>> restored = cache.restore(SOME_KEY, anotherWorkingDir);
+
+    assertThat(e).isInstanceOf(IOException.class);
+    assertThat(restored).isEmpty();
+    assertThat(new File(anotherWorkingDir, SOME_FILE)).doesNotExist();
+  }
+
+  @Test
+  public void doNotStoreArtifactsOutsideWorkingDir(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File outsideFile = new File(someWorkingDir, OUTSIDE_FILE);
+    outsideFile.getParentFile().mkdirs();
+    someWorkingDir.mkdirs();
+    write(outsideFile.toPath(), SOME_CONTENT);
+    PackerOutputCache cache = new PackerOutputCache(cacheDir);
+
+    boolean stored = cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        singletonList(OUTSIDE_FILE))));
+
+    assertThat(stored).isFalse();
+  }
+
+  @Test
+  public void doNotStoreArtifactsWithoutFiles(@TempDir File tempDir) throws Exception {
+    File cacheDir = new File(tempDir, "cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    PackerOutputCache cache = new PackerOutputCache(cacheDir);
+
+    boolean stored = cache.store(SOME_KEY, someWorkingDir, singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        emptyList())));
+
+    assertThat(stored).isFalse();
+    assertThat(cache.restore(SOME_KEY, someWorkingDir)).isEmpty();
+  }
+}
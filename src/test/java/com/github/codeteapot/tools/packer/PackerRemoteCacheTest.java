@@ -0,0 +1,235 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackerRemoteCacheTest {
+
+  private static final List<String> SOME_KEY = asList("SHA-256:0123", "template.json");
+  private static final List<String> ANOTHER_KEY = asList("SHA-256:4567", "template.json");
+  private static final String SOME_TARGET = "virtualbox-iso";
+  private static final int SOME_NUMBER = 0;
+  private static final String SOME_BUILDER_ID = "mitchellh.virtualbox";
+  private static final String SOME_STRING = "VM files in directory: output";
+  private static final String SOME_FILE = "output/disk.vmdk";
+  private static final String EMPTY_FILE = "output/empty.log";
+  private static final int SOME_CONTENT_SIZE = 10_000;
+  private static final int SOME_TIMEOUT = 5000;
+  private static final int SOME_DOWNLOAD_THREADS = 3;
+  private static final long SOME_CHUNK_SIZE = 1024L;
+  private static final boolean RANGES_SUPPORTED = true;
+  private static final boolean RANGES_NOT_SUPPORTED = false;
+  private static final boolean DEDUPLICATE = true;
+  private static final boolean DO_NOT_DEDUPLICATE = false;
+  private static final boolean COMPRESS = true;
+
+  @Test
+  public void restoreFromRemoteByChunks(
+      @TempDir File tempDir) throws Exception {
+    File someCacheDir = new File(tempDir, "some-cache");
+    File anotherCacheDir = new File(tempDir, "another-cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    byte[] someContent = someContent();
+    createFile(someWorkingDir, SOME_FILE, someContent);
+    createFile(someWorkingDir, EMPTY_FILE, new byte[0]);
+    try (TestPackerCacheServer server = new TestPackerCacheServer(RANGES_SUPPORTED)) {
+      new PackerOutputCache(someCacheDir, remoteCache(server))
+          .store(SOME_KEY, someWorkingDir, someArtifacts());
+
+      Optional<List<PackerArtifact>> restored = new PackerOutputCache(
+          anotherCacheDir,
+          remoteCache(server))
+          .restore(SOME_KEY, anotherWorkingDir);
+
+      assertThat(restored).hasValueSatisfying(artifacts -> assertThat(artifacts.get(0).getFiles())
+          .containsExactly(SOME_FILE, EMPTY_FILE));
+      assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+          .isEqualTo(someContent);
+      assertThat(new File(anotherWorkingDir, EMPTY_FILE)).isEmpty();
+      assertThat(server.getRangeRequests())
+          .isEqualTo((int) ((SOME_CONTENT_SIZE + SOME_CHUNK_SIZE - 1) / SOME_CHUNK_SIZE) + 1);
+      assertThat(new PackerOutputCache(anotherCacheDir).restore(SOME_KEY, anotherWorkingDir))
+          .isPresent();
+    }
+  }
+
+  @Test
+  public void restoreFromRemoteWithoutRanges(
+      @TempDir File tempDir) throws Exception {
+    File someCacheDir = new File(tempDir, "some-cache");
+    File anotherCacheDir = new File(tempDir, "another-cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    byte[] someContent = someContent();
+    createFile(someWorkingDir, SOME_FILE, someContent);
+    createFile(someWorkingDir, EMPTY_FILE, new byte[0]);
+    try (TestPackerCacheServer server = new TestPackerCacheServer(RANGES_NOT_SUPPORTED)) {
+      new PackerOutputCache(someCacheDir, remoteCache(server))
+          .store(SOME_KEY, someWorkingDir, someArtifacts());
+
+      Optional<List<PackerArtifact>> restored = new PackerOutputCache(
+          anotherCacheDir,
+          remoteCache(server))
+          .restore(SOME_KEY, anotherWorkingDir);
+
+      assertThat(restored).isPresent();
+      assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+          .isEqualTo(someContent);
+    }
+  }
+
+  @Test
+  public void restoreDeduplicatedFromRemote(@TempDir File tempDir) throws Exception {
+    File someCacheDir = new File(tempDir, "some-cache");
+    File anotherCacheDir = new File(tempDir, "another-cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    byte[] someContent = someContent();
+    createFile(someWorkingDir, SOME_FILE, someContent);
+    createFile(someWorkingDir, EMPTY_FILE, new byte[0]);
+    try (TestPackerCacheServer server = new TestPackerCacheServer(RANGES_SUPPORTED)) {
+      new PackerOutputCache(someCacheDir, remoteCache(server), DEDUPLICATE)
+          .store(SOME_KEY, someWorkingDir, someArtifacts());
+
+      Optional<List<PackerArtifact>> restored = new PackerOutputCache(
+          anotherCacheDir,
+          remoteCache(server),
+          DEDUPLICATE)
+          .restore(SOME_KEY, anotherWorkingDir);
+
+      assertThat(restored).isPresent();
+      assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+          .isEqualTo(someContent);
+    }
+  }
+
+  @Test
+  public void restoreCompressedFromRemote(@TempDir File tempDir) throws Exception {
+    File someCacheDir = new File(tempDir, "some-cache");
+    File anotherCacheDir = new File(tempDir, "another-cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    File anotherWorkingDir = new File(tempDir, "another-working");
+    byte[] someContent = someContent();
+    createFile(someWorkingDir, SOME_FILE, someContent);
+    createFile(someWorkingDir, EMPTY_FILE, new byte[0]);
+    try (TestPackerCacheServer server = new TestPackerCacheServer(RANGES_SUPPORTED)) {
+      new PackerOutputCache(someCacheDir, remoteCache(server), DO_NOT_DEDUPLICATE, COMPRESS)
+          .store(SOME_KEY, someWorkingDir, someArtifacts());
+
+      Optional<List<PackerArtifact>> restored = new PackerOutputCache(
+          anotherCacheDir,
+          remoteCache(server),
+          DO_NOT_DEDUPLICATE,
+          COMPRESS)
+          .restore(SOME_KEY, anotherWorkingDir);
+
+      assertThat(restored).isPresent();
+      assertThat(readAllBytes(new File(anotherWorkingDir, SOME_FILE).toPath()))
+          .isEqualTo(someContent);
+    }
+  }
+
+  @Test
+  public void restoreNothingOfAnotherKeyFromRemote(
+      @TempDir File tempDir) throws Exception {
+    File someCacheDir = new File(tempDir, "some-cache");
+    File anotherCacheDir = new File(tempDir, "another-cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    createFile(someWorkingDir, SOME_FILE, someContent());
+    createFile(someWorkingDir, EMPTY_FILE, new byte[0]);
+    try (TestPackerCacheServer server = new TestPackerCacheServer(RANGES_SUPPORTED)) {
+      new PackerOutputCache(someCacheDir, remoteCache(server))
+          .store(SOME_KEY, someWorkingDir, someArtifacts());
+
+      Optional<List<PackerArtifact>> restored = new PackerOutputCache(
+          anotherCacheDir,
+          remoteCache(server))
+          .restore(ANOTHER_KEY, someWorkingDir);
+
+      assertThat(restored).isEmpty();
+    }
+  }
+
+  @Test
+  public void unreachableRemote(@TempDir File tempDir) throws Exception {
+    File someCacheDir = new File(tempDir, "some-cache");
+    File someWorkingDir = new File(tempDir, "some-working");
+    PackerOutputCache cache = new PackerOutputCache(someCacheDir, new PackerRemoteCache(
+        new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), unusedPort(), "/"),
+        SOME_TIMEOUT,
+        SOME_TIMEOUT,
+        SOME_DOWNLOAD_THREADS,
+        SOME_CHUNK_SIZE));
+
+    Throwable e = catchThrowable(() -> cache.restore(SOME_KEY, someWorkingDir));
+
+    assertThat(e).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void nonPositiveChunkSize() throws Exception {
+    try (TestPackerCacheServer server = new TestPackerCacheServer(RANGES_SUPPORTED)) {
+      Throwable e = catchThrowable(() -> new PackerRemoteCache(
+          server.getUrl(),
+          SOME_TIMEOUT,
+          SOME_TIMEOUT,
+          SOME_DOWNLOAD_THREADS,
+          0L));
+
+      assertThat(e).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  private static PackerRemoteCache remoteCache(TestPackerCacheServer server) throws IOException {
+    return new PackerRemoteCache(
+        server.getUrl(),
+        SOME_TIMEOUT,
+        SOME_TIMEOUT,
+        SOME_DOWNLOAD_THREADS,
+        SOME_CHUNK_SIZE);
+  }
+
+  private static List<PackerArtifact> someArtifacts() {
+    return singletonList(new PackerArtifact(
+        SOME_TARGET,
+        SOME_NUMBER,
+        SOME_BUILDER_ID,
+        null,
+        SOME_STRING,
+        asList(SOME_FILE, EMPTY_FILE)));
+  }
+
+  private static byte[] someContent() {
+    byte[] content = new byte[SOME_CONTENT_SIZE];
+    new Random(1L).nextBytes(content);
+    return content;
+  }
+
+  private static void createFile(File workingDir, String path, byte[] content) throws IOException {
+    File file = new File(workingDir, path);
+    file.getParentFile().mkdirs();
+    write(file.toPath(), content);
+  }
+
+  private static int unusedPort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -1,14 +1,22 @@
 package com.github.codeteapot.tools.packer;
 
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_TEMPLATE_BUILDER;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_VERSION;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_VERSION_COMMIT;
+import static com.github.codeteapot.tools.packer.PackerMessage.TYPE_VERSION_PRERELEASE;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -23,6 +31,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 public class PackerTest {
 
   private static final String BUILD_COMMAND = "build";
+  private static final String VERSION_COMMAND = "version";
+  private static final String INSPECT_COMMAND = "inspect";
 
   private static final String FORCE_ARG_NAME = "-force";
   private static final String ONLY_ARG_NAME = "-only";
@@ -63,6 +73,15 @@ public class PackerTest {
   private static final String SOME_FIRST_VAR_FILE_ARG_VALUE = "first-var-file";
   private static final String SOME_SECOND_VAR_FILE_ARG_VALUE = "second-var-file";
 
+  private static final String SOME_VERSION = "1.8.0";
+  private static final String SOME_VERSION_PRERELEASE = "";
+  private static final String SOME_VERSION_COMMIT = "4a0c5e2";
+  private static final String SOME_FULL_VERSION = "1.8.0 4a0c5e2";
+
+  private static final String FIRST_BUILDER_NAME = "first-builder";
+  private static final String SECOND_BUILDER_NAME = "second-builder";
+  private static final String SOME_BUILDER_TYPE = "amazon-ebs";
+
   @Mock
   private PackerExecutor executor;
 
@@ -188,4 +207,42 @@ public class PackerTest {
 
     assertThat(execution).isEqualTo(SOME_EXECUTION);
   }
+
+  @Test
+  public void versionWithSomeCommit(@Mock PackerExecution execution) throws Exception {
+    when(executor.execute(eq(VERSION_COMMAND), eq(emptyList()), any()))
+        .thenAnswer(invocation -> {
+          PackerTerminal terminal = invocation.getArgument(2);
+          terminal.receive(new TestPackerMessage(TYPE_VERSION, SOME_VERSION));
+          terminal.receive(new TestPackerMessage(TYPE_VERSION_PRERELEASE, SOME_VERSION_PRERELEASE));
+          terminal.receive(new TestPackerMessage(TYPE_VERSION_COMMIT, SOME_VERSION_COMMIT));
+          return execution;
+        });
+
+    String version = packer.version();
+
+    assertThat(version).isEqualTo(SOME_FULL_VERSION);
+  }
+
+  @Test
+  public void buildersOfSomeTemplate(@Mock PackerExecution execution) throws Exception {
+    when(executor.execute(eq(INSPECT_COMMAND), eq(singletonList(SOME_TEMPLATE)), any()))
+            .thenAnswer(invocation -> {
+              PackerTerminal terminal = invocation.getArgument(2);
+              terminal.receive(new TestPackerMessage(
+                  TYPE_TEMPLATE_BUILDER,
+                  SECOND_BUILDER_NAME,
+                  SOME_BUILDER_TYPE));
+              terminal.receive(new TestPackerMessage(TYPE_VERSION, SOME_VERSION));
+              terminal.receive(new TestPackerMessage(
+                  TYPE_TEMPLATE_BUILDER,
+                  FIRST_BUILDER_NAME,
+                  SOME_BUILDER_TYPE));
+              return execution;
+            });
+
+    List<String> builders = packer.builders(SOME_TEMPLATE);
+
+    assertThat(builders).containsExactly(SECOND_BUILDER_NAME, FIRST_BUILDER_NAME);
+  }
 }
@@ -0,0 +1,128 @@
+package com.github.codeteapot.tools.packer;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * In-memory HTTP cache server, that supports GET requests with a single range and PUT requests.
+ */
+public class TestPackerCacheServer implements AutoCloseable {
+
+  private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Map<String, byte[]> entries;
+  private final AtomicInteger rangeRequests;
+  private final boolean rangesSupported;
+
+  public TestPackerCacheServer(boolean rangesSupported) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = newCachedThreadPool();
+    entries = new ConcurrentHashMap<>();
+    rangeRequests = new AtomicInteger();
+    this.rangesSupported = rangesSupported;
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public URL getUrl() throws IOException {
+    return new URL(format("http://%s:%d/cache/",
+        server.getAddress().getHostString(),
+        server.getAddress().getPort()));
+  }
+
+  public Map<String, byte[]> getEntries() {
+    return entries;
+  }
+
+  public int getRangeRequests() {
+    return rangeRequests.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      String path = exchange.getRequestURI().getPath();
+      switch (exchange.getRequestMethod()) {
+        case "GET":
+          get(exchange, path);
+          break;
+        case "PUT":
+          entries.put(path, readAll(exchange.getRequestBody()));
+          exchange.sendResponseHeaders(201, -1);
+          break;
+        default:
+          exchange.sendResponseHeaders(405, -1);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void get(HttpExchange exchange, String path) throws IOException {
+    byte[] content = entries.get(path);
+    if (content == null) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    if (!rangesSupported || range == null) {
+      send(exchange, 200, content, 0, content.length);
+      return;
+    }
+    rangeRequests.incrementAndGet();
+    Matcher matcher = RANGE_PATTERN.matcher(range);
+    if (!matcher.matches() || parseInt(matcher.group(1)) >= content.length) {
+      exchange.getResponseHeaders().set("Content-Range", format("bytes */%d", content.length));
+      exchange.sendResponseHeaders(416, -1);
+      return;
+    }
+    int start = parseInt(matcher.group(1));
+    int end = min(parseInt(matcher.group(2)) + 1, content.length);
+    exchange.getResponseHeaders().set("Content-Range",
+        format("bytes %d-%d/%d", start, end - 1, content.length));
+    send(exchange, 206, content, start, end);
+  }
+
+  private static void send(HttpExchange exchange, int code, byte[] content, int start, int end)
+      throws IOException {
+    exchange.sendResponseHeaders(code, end - start);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(content, start, end - start);
+    }
+  }
+
+  private static byte[] readAll(InputStream input) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+      output.write(buffer, 0, read);
+    }
+    return output.toByteArray();
+  }
+}